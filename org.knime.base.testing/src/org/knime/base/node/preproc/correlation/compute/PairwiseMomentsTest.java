@@ -0,0 +1,256 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.correlation.compute;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.preproc.correlation.compute.PairwiseMoments.Block;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+
+/**
+ * Testcase for {@link PairwiseMoments}, {@link PairwiseMomentsCalculator} and {@link CorrelationComputeInternals}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PairwiseMomentsTest {
+    private static final double EPSILON = 1e-10;
+
+    /** Creates random values (column-major), NaN marks missing values. */
+    private static double[][] createValues(final int numColumns, final int numRows, final double missingRate) {
+        Random random = new Random(42);
+        double[][] values = new double[numColumns][numRows];
+        for (int c = 0; c < numColumns; c++) {
+            // columns with different offsets and scales, some correlated with the first column
+            double offset = random.nextDouble() * 1000;
+            for (int r = 0; r < numRows; r++) {
+                double value = offset + random.nextGaussian() * (c + 1);
+                if (c % 3 == 1) {
+                    value += 5 * values[0][r];
+                }
+                values[c][r] = value;
+            }
+        }
+        for (int c = 0; c < numColumns; c++) {
+            for (int r = 0; r < numRows; r++) {
+                if (random.nextDouble() < missingRate) {
+                    values[c][r] = Double.NaN;
+                }
+            }
+        }
+        return values;
+    }
+
+    /** Adds the rows [from, to) to the moments in blocks of the given capacity. */
+    private static void add(final PairwiseMoments moments, final double[][] values, final int from, final int to,
+        final int capacity) {
+        Block block = new Block(values.length, capacity);
+        for (int r = from; r < to; r++) {
+            fillRow(block, values, r);
+            if (block.finishRow()) {
+                moments.add(block);
+                block.clear();
+            }
+        }
+        moments.add(block);
+    }
+
+    private static void fillRow(final Block block, final double[][] values, final int row) {
+        for (int c = 0; c < values.length; c++) {
+            if (Double.isNaN(values[c][row])) {
+                block.setMissing(c);
+            } else {
+                block.setValue(c, values[c][row]);
+            }
+        }
+    }
+
+    /** Checks the moments against a straightforward two pass computation on the complete pairs. */
+    private static void checkMoments(final PairwiseMoments moments, final double[][] values) {
+        for (int i = 0; i < values.length; i++) {
+            for (int j = 0; j < values.length; j++) {
+                double[] x = values[i];
+                double[] y = values[j];
+                int n = 0;
+                double sumX = 0;
+                double sumY = 0;
+                for (int r = 0; r < x.length; r++) {
+                    if (!Double.isNaN(x[r]) && !Double.isNaN(y[r])) {
+                        n++;
+                        sumX += x[r];
+                        sumY += y[r];
+                    }
+                }
+                double meanX = sumX / n;
+                double meanY = sumY / n;
+                double sumSqX = 0;
+                double sumSqY = 0;
+                double coMoment = 0;
+                for (int r = 0; r < x.length; r++) {
+                    if (!Double.isNaN(x[r]) && !Double.isNaN(y[r])) {
+                        sumSqX += (x[r] - meanX) * (x[r] - meanX);
+                        sumSqY += (y[r] - meanY) * (y[r] - meanY);
+                        coMoment += (x[r] - meanX) * (y[r] - meanY);
+                    }
+                }
+                String pair = "(" + i + ", " + j + ")";
+                assertEquals("Wrong count for " + pair, n, moments.getCount(i, j));
+                assertEquals("Wrong mean for " + pair, meanX, moments.getMean(i, j), EPSILON * Math.abs(meanX));
+                assertEquals("Wrong sum of squares for " + pair, sumSqX, moments.getSumOfSquares(i, j),
+                    EPSILON * sumSqX);
+                assertEquals("Wrong correlation for " + pair, coMoment / Math.sqrt(sumSqX * sumSqY),
+                    moments.getCorrelation(i, j), EPSILON);
+            }
+        }
+    }
+
+    /**
+     * Checks the moments of several tiles and blocks, with and without missing values.
+     */
+    @Test
+    public void testMoments() {
+        for (double missingRate : new double[]{0.0, 0.1}) {
+            double[][] values = createValues(PairwiseMoments.TILE_SIZE * 2 + 5, 100, missingRate);
+            PairwiseMoments moments = new PairwiseMoments(values.length);
+            add(moments, values, 0, 100, 7);
+            checkMoments(moments, values);
+        }
+    }
+
+    /**
+     * Checks that moments of different partitions are merged correctly.
+     */
+    @Test
+    public void testMerge() {
+        double[][] values = createValues(10, 200, 0.1);
+        PairwiseMoments moments = new PairwiseMoments(values.length);
+        PairwiseMoments other = new PairwiseMoments(values.length);
+        PairwiseMoments empty = new PairwiseMoments(values.length);
+        add(moments, values, 0, 50, 16);
+        add(other, values, 50, 200, 16);
+        moments.merge(empty);
+        moments.merge(other);
+        checkMoments(moments, values);
+    }
+
+    /**
+     * Checks that the statistics of partitions (as computed by a streamed execution) survive saving and loading and
+     * are merged correctly.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testSaveLoadAndMergePartitions() throws IOException {
+        double[][] values = createValues(PairwiseMoments.TILE_SIZE + 3, 300, 0.1);
+        int[] bounds = {0, 120, 120, 300};
+        StreamableOperatorInternals[] partitions = new StreamableOperatorInternals[bounds.length - 1];
+        for (int p = 0; p < partitions.length; p++) {
+            PairwiseMoments moments = new PairwiseMoments(values.length);
+            add(moments, values, bounds[p], bounds[p + 1], 64);
+            CorrelationComputeInternals internals =
+                new CorrelationComputeInternals(moments, Collections.singleton(p));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                internals.save(output);
+            }
+            partitions[p] = new CorrelationComputeInternals();
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                partitions[p].load(input);
+            }
+        }
+        CorrelationComputeInternals merged = CorrelationComputeInternals.merge(partitions);
+        checkMoments(merged.getMoments(), values);
+        assertEquals("Unexpected columns with missing values", "[0, 1, 2]",
+            merged.getNumericsWithMissings().toString());
+    }
+
+    /**
+     * Checks that a constant column has no correlation.
+     */
+    @Test
+    public void testConstantColumn() {
+        double[][] values = createValues(3, 50, 0.0);
+        Arrays.fill(values[2], 17.0);
+        PairwiseMoments moments = new PairwiseMoments(values.length);
+        add(moments, values, 0, 50, 16);
+        assertEquals("Unexpected sum of squares", 0.0, moments.getSumOfSquares(2, 0), 0.0);
+        assertEquals("Unexpected correlation", Double.NaN, moments.getCorrelation(0, 2), 0.0);
+    }
+
+    /**
+     * Checks the parallel computation of tiles (many columns) and of partitions (few columns).
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelCalculator() throws Exception {
+        for (int numColumns : new int[]{3, PairwiseMoments.TILE_SIZE * 4}) {
+            double[][] values = createValues(numColumns, 1000, 0.05);
+            for (int parallelism : new int[]{1, 4}) {
+                PairwiseMomentsCalculator calculator = new PairwiseMomentsCalculator(numColumns, parallelism, 32);
+                Block block = calculator.newBlock();
+                for (int r = 0; r < 1000; r++) {
+                    fillRow(block, values, r);
+                    if (block.finishRow()) {
+                        calculator.add(block);
+                        block = calculator.newBlock();
+                    }
+                }
+                calculator.add(block);
+                checkMoments(calculator.finish(), values);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethods;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests that the {@link HybridGroupByTable} creates the same result as the {@link BigGroupByTable}, also if groups
+ * are spilled to disk.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HybridGroupByTableTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Group1", "Group2", "Value"},
+        new DataType[]{StringCell.TYPE, IntCell.TYPE, IntCell.TYPE});
+
+    private static final List<String> GROUP_COLS = Arrays.asList("Group1", "Group2");
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    /**
+     * @throws Exception if the context can't be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        Random rand = new Random(42);
+        BufferedDataContainer cont = m_exec.createDataContainer(SPEC);
+        for (int i = 0; i < 2000; i++) {
+            int g1 = rand.nextInt(30);
+            DataCell groupCell1 = g1 == 0 ? DataType.getMissingCell() : new StringCell("g" + g1);
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), groupCell1,
+                new IntCell(rand.nextInt(5)), new IntCell(rand.nextInt(100))));
+        }
+        cont.close();
+        m_table = cont.getTable();
+    }
+
+    private ColumnAggregator[] createAggregators() {
+        return new ColumnAggregator[]{
+            new ColumnAggregator(SPEC.getColumnSpec(2), AggregationMethods.getMethod4Id("Sum_V2.5.2")),
+            new ColumnAggregator(SPEC.getColumnSpec(2), AggregationMethods.getMethod4Id("Concatenate_V2.4")),
+            new ColumnAggregator(SPEC.getColumnSpec(2), AggregationMethods.getMethod4Id("First"))};
+    }
+
+    private GlobalSettings createGlobalSettings() {
+        return GlobalSettings.builder().setGroupColNames(GROUP_COLS).setDataTableSpec(SPEC)
+            .setNoOfRows(m_table.size()).build();
+    }
+
+    private BufferedDataTable createReference(final boolean retainOrder) throws CanceledExecutionException {
+        return new BigGroupByTable(m_exec, m_table, GROUP_COLS, createAggregators(), createGlobalSettings(), true,
+            ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder).getBufferedTable();
+    }
+
+    private void checkResult(final GroupByTable groupByTable, final boolean retainOrder)
+        throws CanceledExecutionException {
+        final BufferedDataTable expected = createReference(retainOrder);
+        final BufferedDataTable actual = groupByTable.getBufferedTable();
+        assertEquals(expected.getDataTableSpec(), actual.getDataTableSpec());
+        assertEquals(expected.size(), actual.size());
+        RowIterator expectedIt = expected.iterator();
+        RowIterator actualIt = actual.iterator();
+        while (expectedIt.hasNext()) {
+            DataRow expectedRow = expectedIt.next();
+            DataRow actualRow = actualIt.next();
+            assertEquals(expectedRow.getKey(), actualRow.getKey());
+            for (int i = 0; i < expectedRow.getNumCells(); i++) {
+                assertEquals(expectedRow.getCell(i), actualRow.getCell(i));
+            }
+        }
+        assertEquals(2000L, groupByTable.getHiliteMapping().values().stream().mapToLong(s -> s.size()).sum());
+    }
+
+    /**
+     * Everything fits into memory.
+     *
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public void testInMemory() throws CanceledExecutionException {
+        checkResult(new HybridGroupByTable(m_exec, m_table, GROUP_COLS, createAggregators(), createGlobalSettings(),
+            true, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, false), false);
+    }
+
+    /**
+     * Spills after a few groups on each level, i.e. also spilled partitions are spilled again.
+     *
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public void testSpill() throws CanceledExecutionException {
+        for (boolean retainOrder : new boolean[]{false, true}) {
+            checkResult(new HybridGroupByTable(m_exec, m_table, GROUP_COLS, createAggregators(),
+                createGlobalSettings(), true, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder) {
+                @Override
+                boolean isSpillRequired(final MemoryActionIndicator memIndicator, final int groupCount) {
+                    return groupCount >= 3;
+                }
+            }, retainOrder);
+        }
+    }
+}
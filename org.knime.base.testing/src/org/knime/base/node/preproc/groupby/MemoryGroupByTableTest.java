@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethods;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.general.PercentOperator;
+import org.knime.base.data.aggregation.numerical.StdDeviationOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests that the {@link MemoryGroupByTable} creates the same result if the table is aggregated in parallel
+ * partitions whose partial results are combined afterwards.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class MemoryGroupByTableTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Group", "Int", "Double"},
+        new DataType[]{StringCell.TYPE, IntCell.TYPE, DoubleCell.TYPE});
+
+    private static final List<String> GROUP_COLS = Arrays.asList("Group");
+
+    private static final String[] COMBINABLE_METHODS = new String[]{"Sum_V2.5.2", "Count", "Missing value count",
+        "Mean", "Minimum", "Maximum", "Variance", "Standard deviation", "Product", "First", "Last"};
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    /**
+     * @throws Exception if the context can't be created
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+        Random rand = new Random(7);
+        BufferedDataContainer cont = m_exec.createDataContainer(SPEC);
+        for (int i = 0; i < 3000; i++) {
+            DataCell intCell = rand.nextInt(20) == 0 ? DataType.getMissingCell() : new IntCell(rand.nextInt(100));
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new StringCell("g" + rand.nextInt(40)),
+                intCell, new DoubleCell(1 + rand.nextDouble() / 100)));
+        }
+        cont.close();
+        m_table = cont.getTable();
+    }
+
+    private static ColumnAggregator[] createAggregators(final String... methodIds) {
+        final ColumnAggregator[] aggregators = new ColumnAggregator[2 * methodIds.length];
+        for (int i = 0; i < methodIds.length; i++) {
+            aggregators[2 * i] =
+                new ColumnAggregator(SPEC.getColumnSpec(1), AggregationMethods.getMethod4Id(methodIds[i]));
+            aggregators[2 * i + 1] =
+                new ColumnAggregator(SPEC.getColumnSpec(2), AggregationMethods.getMethod4Id(methodIds[i]));
+        }
+        return aggregators;
+    }
+
+    private MemoryGroupByTable createTable(final int partitionCount, final String... methodIds)
+        throws CanceledExecutionException {
+        final GlobalSettings globalSettings = GlobalSettings.builder().setGroupColNames(GROUP_COLS)
+            .setDataTableSpec(SPEC).setNoOfRows(m_table.size()).build();
+        return new MemoryGroupByTable(m_exec, m_table, GROUP_COLS, createAggregators(methodIds), globalSettings, true,
+            ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, false) {
+            @Override
+            int getPartitionCount(final long rowCount) {
+                return partitionCount;
+            }
+        };
+    }
+
+    private static void checkResult(final GroupByTable expectedTable, final GroupByTable actualTable) {
+        final BufferedDataTable expected = expectedTable.getBufferedTable();
+        final BufferedDataTable actual = actualTable.getBufferedTable();
+        assertEquals(expected.getDataTableSpec(), actual.getDataTableSpec());
+        assertEquals(expected.size(), actual.size());
+        RowIterator expectedIt = expected.iterator();
+        RowIterator actualIt = actual.iterator();
+        while (expectedIt.hasNext()) {
+            DataRow expectedRow = expectedIt.next();
+            DataRow actualRow = actualIt.next();
+            assertEquals(expectedRow.getKey(), actualRow.getKey());
+            for (int i = 0; i < expectedRow.getNumCells(); i++) {
+                final DataCell expectedCell = expectedRow.getCell(i);
+                final DataCell actualCell = actualRow.getCell(i);
+                final String msg = "Column " + expected.getDataTableSpec().getColumnSpec(i).getName() + ", row "
+                    + expectedRow.getKey();
+                if (expectedCell instanceof DoubleCell && actualCell instanceof DoubleCell) {
+                    final double expectedValue = ((DoubleValue)expectedCell).getDoubleValue();
+                    assertEquals(msg, expectedValue, ((DoubleValue)actualCell).getDoubleValue(),
+                        1e-9 * Math.max(1, Math.abs(expectedValue)));
+                } else {
+                    assertEquals(msg, expectedCell, actualCell);
+                }
+            }
+        }
+        assertEquals(expectedTable.getHiliteMapping(), actualTable.getHiliteMapping());
+    }
+
+    /**
+     * Aggregating partitions in parallel and combining the partial results yields the same groups, in the same
+     * order, as the sequential aggregation.
+     *
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public void testCombinePartitions() throws CanceledExecutionException {
+        final GroupByTable expected = createTable(1, COMBINABLE_METHODS);
+        for (int partitionCount : new int[]{2, 5, 16}) {
+            checkResult(expected, createTable(partitionCount, COMBINABLE_METHODS));
+        }
+    }
+
+    /**
+     * Operators that can't be combined are aggregated sequentially.
+     *
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public void testNotCombinable() throws CanceledExecutionException {
+        assertFalse(createAggregators("Median_V3.4")[0].getOperator(GlobalSettings.DEFAULT).isCombinable());
+        assertTrue(createAggregators("Mean")[0].getOperator(GlobalSettings.DEFAULT).isCombinable());
+        checkResult(createTable(1, "Median_V3.4", "Sum_V2.5.2"), createTable(4, "Median_V3.4", "Sum_V2.5.2"));
+    }
+
+    /**
+     * Subclasses of combinable operators are not combinable unless they opt in, e.g. percent (a count) isn't.
+     */
+    @Test
+    public void testSubclassNotCombinable() {
+        final OperatorColumnSettings opColSettings = OperatorColumnSettings.DEFAULT_EXCL_MISSING;
+        assertTrue(new SumOperator(GlobalSettings.DEFAULT, opColSettings).isCombinable());
+        assertFalse(new SumOperator(GlobalSettings.DEFAULT, opColSettings) {
+            // anonymous subclass
+        }.isCombinable());
+        assertFalse(new PercentOperator(GlobalSettings.DEFAULT, opColSettings).isCombinable());
+        assertTrue(new StdDeviationOperator(GlobalSettings.DEFAULT, opColSettings).isCombinable());
+    }
+
+    /**
+     * Combining a non combinable operator fails.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCombineUnsupported() {
+        final ColumnAggregator[] aggregators = createAggregators("Median_V3.4", "Median_V3.4");
+        aggregators[0].getOperator(GlobalSettings.DEFAULT)
+            .combine(aggregators[2].getOperator(GlobalSettings.DEFAULT));
+    }
+}
@@ -49,13 +49,18 @@
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Random;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinAlgorithm;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
@@ -63,17 +68,23 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.DefaultNodeProgressMonitor;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.Node;
 import org.knime.core.node.NodeFactory;
 import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
 import org.knime.core.node.port.PortType;
+import org.knime.core.node.property.hilite.DefaultHiLiteMapper;
+import org.knime.core.node.property.hilite.HiLiteMapper;
 import org.knime.core.node.workflow.SingleNodeContainer;
 import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
 
@@ -405,6 +416,194 @@ public void testSortPartitionsFullOuterJoin() throws Exception {
     }
 
 
+    /**
+     * Checks that probing parts of the outer table in parallel gives the same result for all join modes, also if
+     * the number of partitions must be increased due to low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelProbe() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        for (JoinMode joinMode : JoinMode.values()) {
+            Joiner2Settings settingsRef = createReferenceSettings("Data");
+            settingsRef.setJoinMode(joinMode);
+            Joiner2Settings settingsTest = createReferenceSettings("Data");
+            settingsTest.setJoinMode(joinMode);
+
+            Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+            BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+            Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+            joinerTest.setParallelism(4, 10);
+            compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+
+            joinerTest.setRowsAddedBeforeOOM(10);
+            compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+        }
+    }
+
+    /**
+     * Checks the compact hilite mapping and that it is saved in the format of the {@link DefaultHiLiteMapper}.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testHiLiteMapping() throws Exception {
+        Joiner2Settings settings = createReferenceSettings("Data");
+        settings.setJoinMode(JoinMode.FullOuterJoin);
+        settings.setEnableHiLite(true);
+
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        Joiner joiner = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+        joiner.setParallelism(4, 10);
+        BufferedDataTable result = joiner.computeJoinTable(leftTable, rightTable, m_exec);
+
+        Set<RowKey> resultKeys = new HashSet<RowKey>();
+        for (DataRow row : result) {
+            resultKeys.add(row.getKey());
+        }
+        HiLiteMapper leftMapper = joiner.getLeftHiLiteMapper();
+        HiLiteMapper rightMapper = joiner.getRightHiLiteMapper();
+        assertThat("Unexpected number of mapped left rows", leftMapper.keySet().size(), is(100));
+        assertThat("Unexpected number of mapped right rows", rightMapper.keySet().size(), is(200));
+        Set<RowKey> mappedKeys = new HashSet<RowKey>();
+        for (RowKey key : rightMapper.keySet()) {
+            assertThat("Unexpected number of joined rows for " + key, rightMapper.getKeys(key).size(), is(1));
+            mappedKeys.addAll(rightMapper.getKeys(key));
+        }
+        assertThat("Unexpected joined rows", mappedKeys, is(resultKeys));
+        assertThat("Unexpected mapping for unknown key", leftMapper.getKeys(new RowKey("unknown")),
+            is((Set<RowKey>)null));
+
+        NodeSettings saved = new NodeSettings("leftHiliteMapping");
+        ((JoinerHiLiteMapper)leftMapper).save(saved);
+        DefaultHiLiteMapper loaded = DefaultHiLiteMapper.load(saved);
+        assertThat("Unexpected keys after loading", loaded.keySet(), is(leftMapper.keySet()));
+        for (RowKey key : leftMapper.keySet()) {
+            assertThat("Unexpected mapping after loading", loaded.getKeys(key), is(leftMapper.getKeys(key)));
+        }
+    }
+
+    /**
+     * Checks that no mapping is created if hiliting is disabled.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testHiLiteDisabled() throws Exception {
+        Joiner2Settings settings = createReferenceSettings("Data");
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        Joiner joiner = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+        joiner.computeJoinTable(leftTable, rightTable, m_exec);
+        assertThat(joiner.getLeftHiLiteMapper(), is((HiLiteMapper)null));
+        assertThat(joiner.getRightHiLiteMapper(), is((HiLiteMapper)null));
+    }
+
+    /**
+     * Checks that filtering the inner table with a Bloom filter over the outer table gives the same result for all
+     * join modes, also if the number of partitions must be increased due to low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBloomFilter() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(50, 1), m_exec);
+        for (CompositionMode compositionMode : CompositionMode.values()) {
+            for (JoinMode joinMode : JoinMode.values()) {
+                Joiner2Settings settingsRef = createReferenceSettings("Data");
+                Joiner2Settings settingsTest = createReferenceSettings("Data");
+                for (Joiner2Settings settings : new Joiner2Settings[]{settingsRef, settingsTest}) {
+                    settings.setJoinMode(joinMode);
+                    settings.setCompositionMode(compositionMode);
+                    settings.setLeftJoinColumns(new String[]{"Data", "Index"});
+                    settings.setRightJoinColumns(new String[]{"Data", "Index"});
+                }
+
+                Joiner joinerRef =
+                    new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+                joinerRef.setBloomFilterEnabled(false);
+                BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+                Joiner joinerTest =
+                    new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+                compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+
+                joinerTest.setRowsAddedBeforeOOM(10);
+                compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+            }
+        }
+    }
+
+    /**
+     * Checks that the sort-merge join of sorted tables gives the same result as the hybrid hash join for all join
+     * modes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeJoin() throws Exception {
+        BufferedDataTable leftTable = createSortedTable(100, 2, 0);
+        BufferedDataTable rightTable = createSortedTable(200, 3, 10);
+        for (JoinMode joinMode : JoinMode.values()) {
+            Joiner2Settings settingsRef = createReferenceSettings("Data");
+            settingsRef.setJoinMode(joinMode);
+            settingsRef.setJoinAlgorithm(JoinAlgorithm.HybridHash);
+            Joiner2Settings settingsTest = createReferenceSettings("Data");
+            settingsTest.setJoinMode(joinMode);
+            settingsTest.setJoinAlgorithm(JoinAlgorithm.SortMerge);
+
+            Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+            BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+            Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+            compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+            assertThat("Unexpected warnings", joinerTest.getRuntimeWarnings().isEmpty(), is(true));
+        }
+    }
+
+    /**
+     * Checks that the hybrid hash join is used if the sort-merge join is selected but the inputs are not sorted.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeJoinUnsortedInput() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        Joiner2Settings settingsRef = createReferenceSettings("Data");
+        settingsRef.setJoinMode(JoinMode.FullOuterJoin);
+        Joiner2Settings settingsTest = createReferenceSettings("Data");
+        settingsTest.setJoinMode(JoinMode.FullOuterJoin);
+        settingsTest.setJoinAlgorithm(JoinAlgorithm.SortMerge);
+
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+        assertThat("Missing warning", joinerTest.getRuntimeWarnings().size(), is(1));
+    }
+
+    /**
+     * Creates a table that is sorted by the column "Data". The first two rows have missing values, each other value
+     * occurs <code>duplicates</code> times.
+     */
+    private BufferedDataTable createSortedTable(final int size, final int duplicates, final int offset) {
+        BufferedDataContainer cont = m_exec.createDataContainer(new TestData(0, 0).getDataTableSpec());
+        for (int i = 0; i < size; i++) {
+            DataCell data = i < 2 ? DataType.getMissingCell()
+                : new StringCell(String.format("%05d", offset + i / duplicates));
+            cont.addRowToTable(new DefaultRow("Row" + i, new IntCell(i), data));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
     private Joiner2Settings createReferenceSettings(final String col) {
         Joiner2Settings settingsRef = new Joiner2Settings();
         String[] joinColumns = new String[]{col};
@@ -493,4 +692,30 @@ public DataRow next() {
 
     }
 
+    /**
+     * An unknown join algorithm is reported as invalid settings, the dialog falls back to the default.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testInvalidJoinAlgorithm() throws Exception {
+        NodeSettings settings = new NodeSettings("joiner");
+        Joiner2Settings saved = createReferenceSettings("Data");
+        saved.setJoinAlgorithm(JoinAlgorithm.SortMerge);
+        saved.saveSettings(settings);
+        Joiner2Settings loaded = new Joiner2Settings();
+        loaded.loadSettings(settings);
+        assertThat("Join algorithm not restored", loaded.getJoinAlgorithm(), is(JoinAlgorithm.SortMerge));
+
+        settings.addString("joinAlgorithm", "Unknown");
+        try {
+            loaded.loadSettings(settings);
+            fail("Invalid join algorithm not reported");
+        } catch (InvalidSettingsException e) {
+            // expected
+        }
+        loaded.loadSettingsForDialog(settings);
+        assertThat("Dialog should use the default", loaded.getJoinAlgorithm(), is(JoinAlgorithm.Auto));
+    }
+
 }
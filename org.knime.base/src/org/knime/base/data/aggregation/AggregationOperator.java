@@ -449,6 +449,69 @@ public final void reset() {
      */
     protected abstract void resetInternal();
 
+    /**
+     * Operators that keep a partial state that can be merged with the state of another instance should override
+     * this method and {@link #combineInternal(AggregationOperator)}. Combinable operators allow to aggregate
+     * partitions of a table independently (e.g. in parallel) and to combine the partial results afterwards.
+     * Implementations should only return <code>true</code> for their own class (not for subclasses), since a
+     * subclass may keep additional state that the inherited {@link #combineInternal(AggregationOperator)} doesn't
+     * merge; subclasses opt in by overriding this method again.
+     *
+     * @return <code>true</code> if this operator supports the {@link #combine(AggregationOperator)} method
+     * @since 3.6
+     */
+    public boolean isCombinable() {
+        return false;
+    }
+
+    /**
+     * Merges the partial state of the given operator into this operator. The given operator must be of the same
+     * class and created with the same settings. It must have aggregated the rows of the same group that
+     * <b>follow</b> the rows aggregated by this operator, which matters for order dependent operators such as
+     * first or last. The given operator should not be used afterwards.
+     *
+     * @param other the operator to merge into this one
+     * @throws UnsupportedOperationException if this operator is not {@link #isCombinable() combinable}
+     * @throws IllegalArgumentException if the given operator is of a different class
+     * @since 3.6
+     */
+    public final void combine(final AggregationOperator other) {
+        if (!isCombinable()) {
+            throw new UnsupportedOperationException(
+                "Aggregation method '" + getLabel() + "' does not support combining partial results");
+        }
+        if (other == null) {
+            throw new NullPointerException("other must not be null");
+        }
+        if (!getClass().equals(other.getClass())) {
+            throw new IllegalArgumentException("Operator of class " + other.getClass().getName()
+                + " can not be combined with operator of class " + getClass().getName());
+        }
+        m_missingValuesCount += other.m_missingValuesCount;
+        if (m_skipped) {
+            return;
+        }
+        if (other.m_skipped) {
+            m_skipped = true;
+            m_skipMsg = other.m_skipMsg;
+            return;
+        }
+        combineInternal(other);
+    }
+
+    /**
+     * Merges the partial state of the given operator into this operator. Only called if
+     * {@link #isCombinable()} returns <code>true</code> and neither operator was skipped.
+     *
+     * @param other the operator of the same class to merge into this one
+     * @see #combine(AggregationOperator)
+     * @since 3.6
+     */
+    protected void combineInternal(final AggregationOperator other) {
+        throw new UnsupportedOperationException(
+            "Aggregation method '" + getLabel() + "' does not support combining partial results");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -130,6 +130,23 @@ protected void resetInternal() {
         m_counter = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == CountOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final CountOperator op = (CountOperator)other;
+        m_counter += op.m_counter;
+    }
+
     /**
      * {@inheritDoc}
      */
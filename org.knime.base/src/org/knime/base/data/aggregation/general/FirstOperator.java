@@ -131,6 +131,25 @@ protected void resetInternal() {
         m_firstCell = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == FirstOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final FirstOperator op = (FirstOperator)other;
+        if (m_firstCell == null) {
+            m_firstCell = op.m_firstCell;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
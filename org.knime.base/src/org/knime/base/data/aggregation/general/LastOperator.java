@@ -130,6 +130,25 @@ protected void resetInternal() {
         m_lastCell = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == LastOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final LastOperator op = (LastOperator)other;
+        if (op.m_lastCell != null) {
+            m_lastCell = op.m_lastCell;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
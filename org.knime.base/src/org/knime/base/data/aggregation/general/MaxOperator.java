@@ -147,6 +147,26 @@ protected void resetInternal() {
         m_maxVal = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == MaxOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final MaxOperator op = (MaxOperator)other;
+        if (op.m_maxVal != null
+                && (m_maxVal == null || m_comparator.compare(op.m_maxVal, m_maxVal) > 0)) {
+            m_maxVal = op.m_maxVal;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -146,6 +146,26 @@ protected void resetInternal() {
         m_minVal = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == MinOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final MinOperator op = (MinOperator)other;
+        if (op.m_minVal != null
+                && (m_minVal == null || m_comparator.compare(op.m_minVal, m_minVal) < 0)) {
+            m_minVal = op.m_minVal;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
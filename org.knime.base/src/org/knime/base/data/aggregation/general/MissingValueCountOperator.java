@@ -145,6 +145,23 @@ protected void resetInternal() {
         m_counter = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == MissingValueCountOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final MissingValueCountOperator op = (MissingValueCountOperator)other;
+        m_counter += op.m_counter;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -136,6 +136,28 @@ protected void resetInternal() {
         m_count = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == MeanOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final MeanOperator op = (MeanOperator)other;
+        if (op.m_count == 0) {
+            return;
+        }
+        final int count = m_count + op.m_count;
+        m_mean = m_mean * ((double)m_count / count) + op.m_mean * ((double)op.m_count / count);
+        m_count = count;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -137,6 +137,24 @@ protected void resetInternal() {
         m_product = 1;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == ProductOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final ProductOperator op = (ProductOperator)other;
+        m_valid |= op.m_valid;
+        m_product *= op.m_product;
+    }
+
     /**
      * {@inheritDoc}
      */
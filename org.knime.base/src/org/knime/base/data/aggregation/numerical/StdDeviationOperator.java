@@ -106,6 +106,14 @@ protected DataCell getResultInternal() {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == StdDeviationOperator.class;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -176,6 +176,24 @@ protected void resetInternal() {
         m_sum = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == SumOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final SumOperator op = (SumOperator)other;
+        m_valid |= op.m_valid;
+        m_sum += op.m_sum;
+    }
+
     /**
      * {@inheritDoc}
      */
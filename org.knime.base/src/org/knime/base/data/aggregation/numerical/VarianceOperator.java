@@ -151,6 +151,25 @@ protected void resetInternal() {
         m_validCount = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCombinable() {
+        return getClass() == VarianceOperator.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void combineInternal(final AggregationOperator other) {
+        final VarianceOperator op = (VarianceOperator)other;
+        m_validCount += op.m_validCount;
+        m_sum += op.m_sum;
+        m_sumSquare += op.m_sumSquare;
+    }
+
     /**
      * {@inheritDoc}
      */
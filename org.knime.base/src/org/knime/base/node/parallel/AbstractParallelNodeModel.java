@@ -54,7 +54,6 @@
 
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.RowIterator;
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.container.RowAppender;
 import org.knime.core.node.BufferedDataContainer;
@@ -157,58 +156,47 @@ protected final BufferedDataTable[] execute(final BufferedDataTable[] data,
         final Callable<Void> submitter = new Callable<Void>() {
             @Override
             public Void call() throws Exception {
-                final RowIterator it = data[0].iterator();
-                BufferedDataContainer container = null;
-                int count = 0, chunks = 0;
-                while (true) {
-                    if ((count++ % m_chunkSize == 0) || !it.hasNext()) {
-                        exec.checkCanceled();
-
-                        if (container != null) {
-                            container.close();
-                            final BufferedDataContainer temp = container;
-                            chunks++;
-                            final int temp2 = chunks;
-                            futures.add(m_workers
-                                    .submit(new Callable<BufferedDataContainer[]>() {
-                                        @Override
-                                        public BufferedDataContainer[] call()
-                                                throws Exception {
-                                            ExecutionMonitor subProg =
-                                                    exec
-                                                            .createSilentSubProgress((m_chunkSize > max) ? 1
-                                                                    : m_chunkSize
-                                                                            / max);
-                                            exec.setMessage("Processing chunk "
-                                                    + temp2);
-                                            BufferedDataContainer[] result = new BufferedDataContainer[outSpecs.length];
-                                            for (int i = 0; i < outSpecs.length; i++) {
-                                                result[i] = exec.createDataContainer(outSpecs[i], true, 0);
-                                            }
-
-                                            executeByChunk(temp.getTable(),
-                                                    additionalTables, result,
-                                                    subProg);
+                if (max == 0) {
+                    return null;
+                }
+                // the chunks are views on the input table, no rows are copied
+                final BufferedDataTable[] chunkTables =
+                        data[0].partition((int)Math.ceil(max / m_chunkSize));
+                int chunks = 0;
+                for (final BufferedDataTable chunk : chunkTables) {
+                    exec.checkCanceled();
+                    chunks++;
+                    final int temp2 = chunks;
+                    futures.add(m_workers
+                            .submit(new Callable<BufferedDataContainer[]>() {
+                                @Override
+                                public BufferedDataContainer[] call()
+                                        throws Exception {
+                                    ExecutionMonitor subProg =
+                                            exec
+                                                    .createSilentSubProgress((m_chunkSize > max) ? 1
+                                                            : m_chunkSize
+                                                                    / max);
+                                    exec.setMessage("Processing chunk "
+                                            + temp2);
+                                    BufferedDataContainer[] result = new BufferedDataContainer[outSpecs.length];
+                                    for (int i = 0; i < outSpecs.length; i++) {
+                                        result[i] = exec.createDataContainer(outSpecs[i], true, 0);
+                                    }
 
-                                            for (DataContainer c : result) {
-                                                c.close();
-                                            }
+                                    executeByChunk(chunk,
+                                            additionalTables, result,
+                                            subProg);
 
-                                            exec.setProgress(temp2
-                                                    * m_chunkSize / max);
-                                            return result;
-                                        }
-                                    }));
-                        }
-                        if (!it.hasNext()) {
-                            break;
-                        }
+                                    for (DataContainer c : result) {
+                                        c.close();
+                                    }
 
-                        container =
-                                exec.createDataContainer(data[0]
-                                        .getDataTableSpec());
-                    }
-                    container.addRowToTable(it.next());
+                                    exec.setProgress(temp2
+                                            * m_chunkSize / max);
+                                    return result;
+                                }
+                            }));
                 }
                 return null;
             }
@@ -56,7 +56,6 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.RowIterator;
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.container.RowAppender;
 import org.knime.core.node.BufferedDataContainer;
@@ -150,26 +149,14 @@ public Void call() throws Exception {
             final double max = m_data[0].size();
             final int chunkSize =
                     (int)Math.ceil(max / (4.0 * m_workers.getMaxThreads()));
-            final RowIterator it = m_data[0].iterator();
-            BufferedDataContainer container = null;
-            int count = 0;
-            while (chunkSize > 0) {
-                m_exec.checkCanceled();
-
-                if ((count++ % chunkSize == 0) || !it.hasNext()) {
-                    if (container != null) {
-                        container.close();
-                        m_futures.add(m_workers.submit(createCallable(
-                                container.getTable(), chunkSize, max)));
-                    }
-                    if (!it.hasNext()) {
-                        break;
-                    }
-
-                    container = m_exec.createDataContainer(m_data[0]
-                                    .getDataTableSpec());
+            if (chunkSize > 0) {
+                // the chunks are views on the input table, no rows are copied
+                for (BufferedDataTable chunk
+                        : m_data[0].partition((int)Math.ceil(max / chunkSize))) {
+                    m_exec.checkCanceled();
+                    m_futures.add(m_workers.submit(createCallable(
+                            chunk, chunkSize, max)));
                 }
-                container.addRowToTable(it.next());
             }
             return null;
         }
@@ -0,0 +1,136 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.correlation.compute;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+
+/**
+ * The statistics a streamed (and possibly distributed) correlation computation collects for a partition of the rows:
+ * the {@link PairwiseMoments} of the numeric columns and the columns that contained missing values. Only used if all
+ * columns are numeric, see {@link CorrelationComputer#calculateStatistics(org.knime.core.node.streamable.RowInput,
+ * int[], int, org.knime.core.node.ExecutionContext)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class CorrelationComputeInternals extends StreamableOperatorInternals {
+
+    private PairwiseMoments m_moments;
+
+    private Set<Integer> m_numericsWithMissings = Collections.emptySet();
+
+    /** Empty constructor for serialization. */
+    public CorrelationComputeInternals() {
+    }
+
+    /**
+     * @param moments the moments of the numeric columns
+     * @param numericsWithMissings the indices of the columns that contained missing values
+     */
+    CorrelationComputeInternals(final PairwiseMoments moments, final Set<Integer> numericsWithMissings) {
+        m_moments = moments;
+        m_numericsWithMissings = new LinkedHashSet<>(numericsWithMissings);
+    }
+
+    /** @return the moments of the numeric columns */
+    PairwiseMoments getMoments() {
+        return m_moments;
+    }
+
+    /** @return the indices of the columns that contained missing values */
+    Set<Integer> getNumericsWithMissings() {
+        return m_numericsWithMissings;
+    }
+
+    /**
+     * Merges the statistics of all partitions. They are merged in the given order, so the result doesn't depend on
+     * which partition finished first.
+     *
+     * @param partitions the statistics of the partitions, not empty
+     * @return the statistics of all rows
+     */
+    static CorrelationComputeInternals merge(final StreamableOperatorInternals[] partitions) {
+        PairwiseMoments moments =
+            new PairwiseMoments(((CorrelationComputeInternals)partitions[0]).m_moments.getNumColumns());
+        Set<Integer> numericsWithMissings = new LinkedHashSet<>();
+        for (StreamableOperatorInternals p : partitions) {
+            CorrelationComputeInternals partition = (CorrelationComputeInternals)p;
+            moments.merge(partition.m_moments);
+            numericsWithMissings.addAll(partition.m_numericsWithMissings);
+        }
+        return new CorrelationComputeInternals(moments, numericsWithMissings);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(final DataInputStream input) throws IOException {
+        final int missingCount = input.readInt();
+        Set<Integer> numericsWithMissings = new LinkedHashSet<>();
+        for (int i = 0; i < missingCount; i++) {
+            numericsWithMissings.add(input.readInt());
+        }
+        m_numericsWithMissings = numericsWithMissings;
+        m_moments = PairwiseMoments.load(input);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(final DataOutputStream output) throws IOException {
+        output.writeInt(m_numericsWithMissings.size());
+        for (int index : m_numericsWithMissings) {
+            output.writeInt(index);
+        }
+        m_moments.save(output);
+    }
+}
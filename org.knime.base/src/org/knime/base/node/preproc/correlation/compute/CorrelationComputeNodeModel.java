@@ -50,8 +50,10 @@
 import java.io.File;
 import java.io.IOException;
 
+import org.knime.base.data.filter.column.FilterColumnTable;
 import org.knime.base.node.preproc.correlation.pmcc.PMCCPortObjectAndSpec;
 import org.knime.base.util.HalfDoubleMatrix;
+import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DoubleValue;
@@ -72,6 +74,16 @@
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
 import org.knime.core.node.util.filter.NameFilterConfiguration.FilterResult;
 
 /**
@@ -90,6 +102,11 @@ final class CorrelationComputeNodeModel extends NodeModel
 
     private BufferedDataTable m_correlationTable;
 
+    /** The spec of the selected columns if they are all numeric, in which
+     * case the node can be streamed and distributed; <code>null</code>
+     * otherwise (Cramer's V needs two scans on the data). Set in configure. */
+    private DataTableSpec m_numericFilteredSpec;
+
     /** One input, one output.
      */
     CorrelationComputeNodeModel() {
@@ -132,9 +149,18 @@ protected PortObject[] execute(final PortObject[] inData,
         exec.setMessage("Assembling output");
         ExecutionContext execFinish =
             exec.createSubExecutionContext(progFinish);
+        return createOutput(includeNames, correlationMatrix, calculator,
+                execFinish);
+    }
+
+    /** Creates the correlation table and model and sets the warnings. */
+    private PortObject[] createOutput(final String[] includeNames,
+            final HalfDoubleMatrix correlationMatrix,
+            final CorrelationComputer calculator, final ExecutionContext exec)
+            throws CanceledExecutionException {
         PMCCPortObjectAndSpec pmccModel =
             new PMCCPortObjectAndSpec(includeNames, correlationMatrix);
-        BufferedDataTable out = pmccModel.createCorrelationMatrix(execFinish);
+        BufferedDataTable out = pmccModel.createCorrelationMatrix(exec);
         m_correlationTable = out;
         String missValueString = calculator.getNumericMissingValueWarning(4);
         StringBuilder warning = null;
@@ -156,7 +182,90 @@ protected PortObject[] execute(final PortObject[] inData,
             setWarningMessage(warning.toString());
         }
         return new PortObject[]{out, pmccModel};
+    }
 
+    /** {@inheritDoc} */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        if (m_numericFilteredSpec == null) {
+            return super.getInputPortRoles();
+        }
+        return new InputPortRole[]{InputPortRole.DISTRIBUTED_STREAMABLE};
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public StreamableOperator createStreamableOperator(
+            final PartitionInfo partitionInfo, final PortObjectSpec[] inSpecs)
+            throws InvalidSettingsException {
+        if (m_numericFilteredSpec == null) {
+            return super.createStreamableOperator(partitionInfo, inSpecs);
+        }
+        final DataTableSpec filteredSpec = m_numericFilteredSpec;
+        final DataTableSpec inSpec = (DataTableSpec)inSpecs[0];
+        final int[] columns = new int[filteredSpec.getNumColumns()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = inSpec.findColumnIndex(
+                    filteredSpec.getColumnSpec(i).getName());
+        }
+        // the partitions run concurrently, share the processors among them
+        final int parallelism = Math.max(1,
+                Runtime.getRuntime().availableProcessors()
+                / partitionInfo.getPartitionCount());
+        final int maxPossibleValues = m_maxPossValueCountModel.getIntValue();
+        return new StreamableOperator() {
+
+            private CorrelationComputeInternals m_statistics;
+
+            @Override
+            public void runFinal(final PortInput[] inputs,
+                    final PortOutput[] outputs, final ExecutionContext exec)
+                    throws Exception {
+                CorrelationComputer calculator = new CorrelationComputer(
+                        filteredSpec, maxPossibleValues);
+                m_statistics = calculator.calculateStatistics(
+                        (RowInput)inputs[0], columns, parallelism, exec);
+            }
+
+            @Override
+            public StreamableOperatorInternals saveInternals() {
+                return m_statistics;
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MergeOperator createMergeOperator() {
+        if (m_numericFilteredSpec == null) {
+            return super.createMergeOperator();
+        }
+        return new MergeOperator() {
+
+            @Override
+            public StreamableOperatorInternals mergeFinal(
+                    final StreamableOperatorInternals[] operators) {
+                return CorrelationComputeInternals.merge(operators);
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void finishStreamableExecution(
+            final StreamableOperatorInternals internals,
+            final ExecutionContext exec, final PortOutput[] output)
+            throws Exception {
+        CorrelationComputer calculator = new CorrelationComputer(
+                m_numericFilteredSpec, m_maxPossValueCountModel.getIntValue());
+        exec.setMessage("Calculating correlation values");
+        HalfDoubleMatrix correlationMatrix = calculator.calculateOutput(
+                (CorrelationComputeInternals)internals);
+        exec.setMessage("Assembling output");
+        PortObject[] out = createOutput(m_numericFilteredSpec.getColumnNames(),
+                correlationMatrix, calculator, exec);
+        ((RowOutput)output[0]).setFully((BufferedDataTable)out[0]);
+        ((PortObjectOutput)output[1]).setPortObject(out[1]);
     }
 
     /**
@@ -193,6 +302,13 @@ protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs)
         if (includes.length == 0) {
             throw new InvalidSettingsException("No columns selected");
         }
+        DataTableSpec filteredSpec =
+            FilterColumnTable.createFilterTableSpec(in, includes);
+        boolean isNumericOnly = true;
+        for (DataColumnSpec col : filteredSpec) {
+            isNumericOnly &= col.getType().isCompatible(DoubleValue.class);
+        }
+        m_numericFilteredSpec = isNumericOnly ? filteredSpec : null;
         return new PortObjectSpec[]{PMCCPortObjectAndSpec.createOutSpec(
                 includes), new PMCCPortObjectAndSpec(includes)};
     }
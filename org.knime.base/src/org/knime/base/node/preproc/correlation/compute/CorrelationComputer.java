@@ -48,6 +48,7 @@
 package org.knime.base.node.preproc.correlation.compute;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -55,9 +56,10 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.knime.base.data.filter.column.FilterColumnRow;
+import org.knime.base.node.preproc.correlation.compute.PairwiseMoments.Block;
 import org.knime.base.node.preproc.correlation.pmcc.PMCCPortObjectAndSpec;
 import org.knime.base.util.HalfDoubleMatrix;
-import org.knime.base.util.HalfIntMatrix;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
@@ -68,6 +70,8 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.util.CheckUtils;
 import org.knime.core.util.Pair;
 
 /** Calculates pairwise correlation values for a table. Uses Cramers'V for
@@ -76,6 +80,14 @@
  * for categorical columns and pairwise ignored for num columns. This
  * corresponds the option "R<-cor(R, use="pairwise.complete.obs")" in R.
  *
+ * <p>The moments of the numeric columns are computed in the first scan on
+ * blocks of rows, in tiles of columns and in parallel (see
+ * {@link PairwiseMoments}). The second scan is only needed for the
+ * contingency tables of categorical columns. If all columns are numeric, the
+ * moments can also be computed in a streamed fashion on partitions of the rows
+ * and merged afterwards (see {@link #calculateStatistics(RowInput, int[], int,
+ * ExecutionContext)}).
+ *
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  * @since 2.12
  * @noreference This class is not intended to be referenced by clients (except for KNIME core plug-ins).
@@ -96,19 +108,9 @@ public final class CorrelationComputer {
      * if column has too many distinct values. */
     private LinkedHashMap<DataCell, Integer>[] m_possibleValues;
 
-    /** Square matrix of mean values.
-     * m_numericMeanMatrix[i][j] - The mean value of the values in column i
-     * where the corresponding value in column j is NOT missing.
-     */
-    private double[][] m_numericMeanMatrix;
-
-    /** Square matrix of standard deviation values.
-     * Similar to m_numericMeanMatrix.
-     */
-    private double[][] m_numericStdDevMatrix;
-
-    /** Counts the number of valid records for each pair of numeric columns. */
-    private HalfIntMatrix m_numericValidCountMatrix;
+    /** The moments of all pairs of numeric columns (indices in
+     * m_numericColIndexMap), populated in first scan on data. */
+    private PairwiseMoments m_numericMoments;
 
     /** The list of numeric column indices where we saw missing values. */
     private final Set<Integer> m_numericsWithMissings;
@@ -162,53 +164,47 @@ public void calculateStatistics(final BufferedDataTable table,
             m_possibleValues[i] = new LinkedHashMap<DataCell, Integer>();
         }
         final int numericColCount = m_numericColIndexMap.length;
-        double[][] sumMatrix = new double[numericColCount][numericColCount];
-        double[][] sumSqMatrix = new double[numericColCount][numericColCount];
-        HalfIntMatrix validCountMatrix =
-            new HalfIntMatrix(numericColCount, true);
-        final DataCell[] cells = new DataCell[m_tableSpec.getNumColumns()];
+        final PairwiseMomentsCalculator momentsCalculator =
+            numericColCount > 0 ? new PairwiseMomentsCalculator(
+                numericColCount, Runtime.getRuntime().availableProcessors(),
+                Block.DEFAULT_CAPACITY) : null;
+        Block block = momentsCalculator != null
+            ? momentsCalculator.newBlock() : null;
         long rowIndex = 0;
         final long rowCount = table.size();
-        for (DataRow r : table) {
-            // getCell may be an expensive operation and we may access a cell
-            // multiple times, so we buffer it
-            for (int i = 0; i < cells.length; i++) {
-                cells[i] = r.getCell(i);
-            }
-            for (int i = 0; i < m_numericColIndexMap.length; i++) {
-                DataCell c = cells[m_numericColIndexMap[i]];
-                final boolean isMissing = c.isMissing();
-                if (isMissing) {
-                    m_numericsWithMissings.add(m_numericColIndexMap[i]);
-                } else {
-                    final double val = ((DoubleValue)c).getDoubleValue();
-                    final double valSquare = val * val;
-                    for (int j = 0; j < m_numericColIndexMap.length; j++) {
-                        if (!cells[m_numericColIndexMap[j]].isMissing()) {
-                            sumMatrix[i][j] += val;
-                            sumSqMatrix[i][j] += valSquare;
-                            if (j >= i) { // don't count twice
-                                validCountMatrix.add(i, j, 1);
-                            }
+        boolean success = false;
+        try {
+            for (DataRow r : table) {
+                setNumericValues(r, block);
+                if (block != null && block.finishRow()) {
+                    momentsCalculator.add(block);
+                    block = momentsCalculator.newBlock();
+                }
+                for (int i = 0; i < m_categoricalColIndexMap.length; i++) {
+                    DataCell c = r.getCell(m_categoricalColIndexMap[i]);
+                    if (m_possibleValues[i] != null) {
+                        // note: also take missing value as possible value
+                        m_possibleValues[i].put(c, null);
+                        if (m_possibleValues[i].size() > m_maxPossibleValues) {
+                            m_possibleValues[i] = null;
                         }
                     }
                 }
+                exec.checkCanceled();
+                exec.setProgress(rowIndex / (double) rowCount, String.format(
+                        "Calculating statistics - %d/%d (\"%s\")", rowIndex,
+                        rowCount, r.getKey()));
+                rowIndex += 1;
             }
-            for (int i = 0; i < m_categoricalColIndexMap.length; i++) {
-                DataCell c = r.getCell(m_categoricalColIndexMap[i]);
-                if (m_possibleValues[i] != null) {
-                    // note: also take missing value as possible value
-                    m_possibleValues[i].put(c, null);
-                    if (m_possibleValues[i].size() > m_maxPossibleValues) {
-                        m_possibleValues[i] = null;
-                    }
-                }
+            if (momentsCalculator != null) {
+                momentsCalculator.add(block);
+                m_numericMoments = momentsCalculator.finish();
+            }
+            success = true;
+        } finally {
+            if (!success && momentsCalculator != null) {
+                momentsCalculator.cancel();
             }
-            exec.checkCanceled();
-            exec.setProgress(rowIndex / (double) rowCount, String.format(
-                    "Calculating statistics - %d/%d (\"%s\")", rowIndex,
-                    rowCount, r.getKey()));
-            rowIndex += 1;
         }
 
         for (LinkedHashMap<DataCell, Integer> map : m_possibleValues) {
@@ -219,72 +215,124 @@ public void calculateStatistics(final BufferedDataTable table,
                 }
             }
         }
+    }
 
-        // sumMatrix --> m_numericMeanMatrix
-        // sumSqMatrix --> m_numericStdDevMatrix
-        for (int i = 0; i < numericColCount; i++) {
-            for (int j = 0; j < numericColCount; j++) {
-                final int validCount = validCountMatrix.get(i, j);
-                if (validCount > 1) {
-                    double variance =
-                        (sumSqMatrix[i][j] - (sumMatrix[i][j] * sumMatrix[i][j])
-                                / validCount) / (validCount - 1);
-                    if (variance < PMCCPortObjectAndSpec.ROUND_ERROR_OK) {
-                        variance = 0.0;
-                    }
-                    sumSqMatrix[i][j] = Math.sqrt(variance);
-                } else {
-                    sumSqMatrix[i][j] = 0.0;
+    /** Streaming: computes the moments of the numeric columns in the rows
+     * of one partition of the input. The statistics of all partitions are
+     * combined with {@link CorrelationComputeInternals#merge(
+     * org.knime.core.node.streamable.StreamableOperatorInternals[])} and
+     * passed to {@link #calculateOutput(CorrelationComputeInternals)}. Only
+     * applicable if all columns are numeric: the contingency tables of
+     * categorical columns need a second scan on the data, which is not
+     * supported by the streaming executor.
+     * @param input the rows of the partition, closed when all rows are read
+     * @param columns for each column of the spec passed to the constructor the
+     * index of the column in the input
+     * @param parallelism the number of threads used to compute the moments
+     * of a block of rows, 1 to compute them in the calling thread
+     * @param exec ...
+     * @return the statistics of the partition
+     * @throws CanceledExecutionException
+     * @throws InterruptedException if reading the input is interrupted */
+    CorrelationComputeInternals calculateStatistics(final RowInput input,
+            final int[] columns, final int parallelism,
+            final ExecutionContext exec)
+            throws CanceledExecutionException, InterruptedException {
+        CheckUtils.checkState(m_categoricalColIndexMap.length == 0,
+                "Categorical columns can't be processed in a streamed fashion");
+        CheckUtils.checkState(m_numericColIndexMap.length > 0,
+                "No numeric columns");
+        final PairwiseMomentsCalculator momentsCalculator =
+            new PairwiseMomentsCalculator(m_numericColIndexMap.length,
+                parallelism, Block.DEFAULT_CAPACITY);
+        Block block = momentsCalculator.newBlock();
+        long rowIndex = 0;
+        boolean success = false;
+        try {
+            DataRow r;
+            while ((r = input.poll()) != null) {
+                setNumericValues(new FilterColumnRow(r, columns), block);
+                if (block.finishRow()) {
+                    momentsCalculator.add(block);
+                    block = momentsCalculator.newBlock();
                 }
-                sumMatrix[i][j] = validCount > 0
-                    ? sumMatrix[i][j] / validCount : Double.NaN;
+                exec.checkCanceled();
+                exec.setMessage(String.format(
+                        "Calculating statistics - %d (\"%s\")", rowIndex,
+                        r.getKey()));
+                rowIndex += 1;
+            }
+            input.close();
+            momentsCalculator.add(block);
+            CorrelationComputeInternals result =
+                new CorrelationComputeInternals(momentsCalculator.finish(),
+                        m_numericsWithMissings);
+            success = true;
+            return result;
+        } finally {
+            if (!success) {
+                momentsCalculator.cancel();
             }
         }
-        m_numericMeanMatrix = sumMatrix;
-        m_numericStdDevMatrix = sumSqMatrix;
-        m_numericValidCountMatrix = validCountMatrix;
     }
 
+    /** Sets the numeric values of the row in the current row of the block.
+     * @param r the row
+     * @param block the block, may be <code>null</code> if there are no
+     * numeric columns */
+    private void setNumericValues(final DataRow r, final Block block) {
+        for (int i = 0; i < m_numericColIndexMap.length; i++) {
+            DataCell c = r.getCell(m_numericColIndexMap[i]);
+            if (c.isMissing()) {
+                m_numericsWithMissings.add(m_numericColIndexMap[i]);
+                block.setMissing(i);
+            } else {
+                block.setValue(i, ((DoubleValue)c).getDoubleValue());
+            }
+        }
+    }
 
-    /** Second scan on data. Computes the pair wise correlation for numeric
-     * columns and reads the contingency tables of pairs of categorical
-     * columns into memory.
-     * @param table ...
-     * @param exec ...
-     * @return the output matrix to be turned into the output model
-     * @throws CanceledExecutionException */
-    public HalfDoubleMatrix calculateOutput(final BufferedDataTable table,
-            final ExecutionMonitor exec) throws CanceledExecutionException {
-        assert table.getDataTableSpec().equalStructure(m_tableSpec);
-        int catCount = m_categoricalColIndexMap.length;
-        int categoricalPairsCount = (catCount - 1) * catCount / 2;
-        // stores all pair-wise contingency tables,
-        // contingencyTables[i] == null <--> either column of the corresponding
-        // pair has more than m_maxPossibleValues values
-        // http://en.wikipedia.org/wiki/Contingency_table
-        int[][][] contingencyTables = new int[categoricalPairsCount][][];
-        int valIndex = 0;
-        for (int i = 0; i < m_categoricalColIndexMap.length; i++) {
-            for (int j = i + 1; j < m_categoricalColIndexMap.length; j++) {
-                LinkedHashMap<DataCell, Integer> valuesI = m_possibleValues[i];
-                LinkedHashMap<DataCell, Integer> valuesJ = m_possibleValues[j];
-                if (valuesI != null && valuesJ != null) {
-                    int iSize = valuesI.size();
-                    int jSize = valuesJ.size();
-                    contingencyTables[valIndex] = new int[iSize][jSize];
-                }
-                valIndex++;
+    /** The standard deviation of numeric column i (index in
+     * m_numericColIndexMap) in the rows where column j is not missing, 0 if
+     * it is too small or undefined. */
+    private double getNumericStdDev(final int i, final int j) {
+        final long validCount = m_numericMoments.getCount(i, j);
+        if (validCount > 1) {
+            double variance =
+                m_numericMoments.getSumOfSquares(i, j) / (validCount - 1);
+            if (variance < PMCCPortObjectAndSpec.ROUND_ERROR_OK) {
+                variance = 0.0;
             }
+            return Math.sqrt(variance);
         }
+        return 0.0;
+    }
+
+    /** Streaming: computes the pair wise correlation of the numeric columns
+     * from the statistics merged from all partitions, see
+     * {@link #calculateStatistics(RowInput, int[], int, ExecutionContext)}.
+     * @param statistics the merged statistics
+     * @return the output matrix to be turned into the output model */
+    HalfDoubleMatrix calculateOutput(
+            final CorrelationComputeInternals statistics) {
+        CheckUtils.checkState(m_categoricalColIndexMap.length == 0,
+                "Categorical columns can't be processed in a streamed fashion");
+        m_numericMoments = statistics.getMoments();
+        m_numericsWithMissings.addAll(statistics.getNumericsWithMissings());
+        return createNumericCorrelationMatrix();
+    }
+
+    /** Creates the output matrix and sets the correlation of all pairs of
+     * numeric columns (from {@link #m_numericMoments}), the other pairs are
+     * NaN.
+     * @return the output matrix */
+    private HalfDoubleMatrix createNumericCorrelationMatrix() {
         final int numColumns = m_tableSpec.getNumColumns();
         HalfDoubleMatrix nominatorMatrix = new HalfDoubleMatrix(
                 numColumns, /*includeDiagonal=*/false);
         nominatorMatrix.fill(Double.NaN);
-        long rowIndex = 0;
-        DataCell[] cells = new DataCell[numColumns];
-        final long rowCount = table.size();
         for (int i = 0; i < m_numericColIndexMap.length; i++) {
-            final double stdDevI = m_numericStdDevMatrix[i][i];
+            final double stdDevI = getNumericStdDev(i, i);
             if (stdDevI == 0.0) {
                 for (int j = i + 1; j < m_numericColIndexMap.length; j++) {
                     nominatorMatrix.set(m_numericColIndexMap[i],
@@ -295,16 +343,17 @@ public HalfDoubleMatrix calculateOutput(final BufferedDataTable table,
             } else {
                 for (int j = i + 1; j < m_numericColIndexMap.length; j++) {
                     nominatorMatrix.set(m_numericColIndexMap[i],
-                            m_numericColIndexMap[j], 0.0);
-                    final double stdDevJ = m_numericStdDevMatrix[j][j];
+                            m_numericColIndexMap[j],
+                            m_numericMoments.getCorrelation(i, j));
+                    final double stdDevJ = getNumericStdDev(j, j);
                     if (stdDevJ == 0.0) {
                         nominatorMatrix.set(m_numericColIndexMap[i],
                                 m_numericColIndexMap[j], Double.NaN);
                         // rest is fixed when j becomes the current value
                         // in the outer loop
                     } else {
-                        double stdDevIUnderJ = m_numericStdDevMatrix[i][j];
-                        double stdDevJUnderI = m_numericStdDevMatrix[j][i];
+                        double stdDevIUnderJ = getNumericStdDev(i, j);
+                        double stdDevJUnderI = getNumericStdDev(j, i);
                         if (stdDevIUnderJ == 0.0) {
                             // all values in column i where j is not missing
                             // are constant
@@ -329,40 +378,50 @@ public HalfDoubleMatrix calculateOutput(final BufferedDataTable table,
                 }
             }
         }
-        for (DataRow r : table) {
-            for (int i = 0; i < cells.length; i++) {
-                cells[i] = r.getCell(i);
-            }
-            for (int i = 0; i < m_numericColIndexMap.length; i++) {
-                final DataCell ci = cells[m_numericColIndexMap[i]];
-                if (ci.isMissing()) {
-                    continue;
-                }
-                if (m_numericStdDevMatrix[i][i] == 0.0) {
-                    continue; // constant column, reported above
-                }
-                final double di = ((DoubleValue)ci).getDoubleValue();
-                for (int j = i + 1; j < m_numericColIndexMap.length; j++) {
-                    final DataCell cj = cells[m_numericColIndexMap[j]];
-                    if (cj.isMissing()) {
-                        continue;
-                    }
-                    final double meanI = m_numericMeanMatrix[i][j];
-                    final double stdDevI = m_numericStdDevMatrix[i][j];
-                    final double meanJ = m_numericMeanMatrix[j][i];
-                    final double stdDevJ = m_numericStdDevMatrix[j][i];
-
-                    if (stdDevI == 0.0 || stdDevJ == 0.0) {
-                        continue; // reported above
-                    }
+        return nominatorMatrix;
+    }
 
-                    final double vi = (di - meanI) / stdDevI;
-                    final double dj = ((DoubleValue)cj).getDoubleValue();
-                    final double vj = (dj - meanJ) / stdDevJ;
-                    nominatorMatrix.add(m_numericColIndexMap[i],
-                            m_numericColIndexMap[j], vi * vj);
+    /** Second scan on data. Computes the pair wise correlation for numeric
+     * columns and reads the contingency tables of pairs of categorical
+     * columns into memory.
+     * @param table ...
+     * @param exec ...
+     * @return the output matrix to be turned into the output model
+     * @throws CanceledExecutionException */
+    public HalfDoubleMatrix calculateOutput(final BufferedDataTable table,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        assert table.getDataTableSpec().equalStructure(m_tableSpec);
+        int catCount = m_categoricalColIndexMap.length;
+        int categoricalPairsCount = (catCount - 1) * catCount / 2;
+        // stores all pair-wise contingency tables,
+        // contingencyTables[i] == null <--> either column of the corresponding
+        // pair has more than m_maxPossibleValues values
+        // http://en.wikipedia.org/wiki/Contingency_table
+        int[][][] contingencyTables = new int[categoricalPairsCount][][];
+        int valIndex = 0;
+        for (int i = 0; i < m_categoricalColIndexMap.length; i++) {
+            for (int j = i + 1; j < m_categoricalColIndexMap.length; j++) {
+                LinkedHashMap<DataCell, Integer> valuesI = m_possibleValues[i];
+                LinkedHashMap<DataCell, Integer> valuesJ = m_possibleValues[j];
+                if (valuesI != null && valuesJ != null) {
+                    int iSize = valuesI.size();
+                    int jSize = valuesJ.size();
+                    contingencyTables[valIndex] = new int[iSize][jSize];
                 }
+                valIndex++;
             }
+        }
+        HalfDoubleMatrix nominatorMatrix = createNumericCorrelationMatrix();
+        // the numeric correlations are computed from the moments, the data
+        // only needs to be read for the contingency tables
+        boolean hasContingencyTables = false;
+        for (int[][] contingencyTable : contingencyTables) {
+            hasContingencyTables |= contingencyTable != null;
+        }
+        long rowIndex = 0;
+        final long rowCount = hasContingencyTables ? table.size() : 0;
+        for (DataRow r : hasContingencyTables
+                ? table : Collections.<DataRow>emptyList()) {
             valIndex = 0;
             for (int i = 0; i < m_categoricalColIndexMap.length; i++) {
                 for (int j = i + 1; j < m_categoricalColIndexMap.length; j++, valIndex++) {
@@ -395,17 +454,6 @@ public HalfDoubleMatrix calculateOutput(final BufferedDataTable table,
             rowIndex += 1;
         }
 
-        for (int i = 0; i < m_numericColIndexMap.length; i++) {
-            for (int j = i + 1; j < m_numericColIndexMap.length; j++) {
-                final int trueI = m_numericColIndexMap[i];
-                final int trueJ = m_numericColIndexMap[j];
-                double t = nominatorMatrix.get(trueI, trueJ);
-                if (!Double.isNaN(t)) {
-                    int validCount = m_numericValidCountMatrix.get(i, j);
-                    nominatorMatrix.set(trueI, trueJ, t / (validCount - 1));
-                }
-            }
-        }
         valIndex = 0;
         for (int i = 0; i < m_categoricalColIndexMap.length; i++) {
             for (int j = i + 1; j < m_categoricalColIndexMap.length; j++) {
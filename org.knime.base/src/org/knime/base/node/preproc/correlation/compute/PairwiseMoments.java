@@ -0,0 +1,493 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.correlation.compute;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The first and second order moments of all pairs of numeric columns, restricted to the rows in which both columns
+ * of a pair are not missing (pairwise complete observations). For each pair (i, j) this is the number of rows, the
+ * means of both columns, their sums of squared deviations from the mean and the sum of the products of the
+ * deviations (co-moment), from which the sample variances and the Pearson correlation are derived.
+ *
+ * <p>
+ * Rows are added in {@link Block blocks}, which store the values of each column in a primitive array. The moments of
+ * a block are computed in tiles of {@link #TILE_SIZE} x {@link #TILE_SIZE} columns, so that the values of both tiles
+ * stay in the CPU caches, and are then merged into the moments of the previous rows. Different tiles of a block
+ * update disjoint pairs and can hence be computed concurrently ({@link #add(Block, int)}). Moments computed for
+ * different partitions of the rows can be combined with {@link #merge(PairwiseMoments)}, also if they were computed
+ * elsewhere and transferred with {@link #save(DataOutputStream)} and {@link #load(DataInputStream)}.
+ *
+ * <p>
+ * The moments are merged as described by Chan, Golub and LeVeque ("Updating formulae and a pairwise algorithm for
+ * computing sample variances"), which is numerically more stable than accumulating sums of squares.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PairwiseMoments {
+
+    /** The number of columns in a tile. */
+    static final int TILE_SIZE = 32;
+
+    private final int m_numColumns;
+
+    /** The tile pairs (upper triangle including the diagonal), first tile in the upper, second in the lower int. */
+    private final long[] m_tilePairs;
+
+    /* The moments of pair (i, j), i <= j, stored at index(i, j). "I" refers to column i and "J" to column j. */
+
+    private final long[] m_count;
+
+    private final double[] m_meanI;
+
+    private final double[] m_meanJ;
+
+    private final double[] m_sumSqI;
+
+    private final double[] m_sumSqJ;
+
+    private final double[] m_coMoment;
+
+    /**
+     * Creates empty moments.
+     *
+     * @param numColumns the number of columns
+     */
+    PairwiseMoments(final int numColumns) {
+        long numPairs = (long)numColumns * (numColumns + 1) / 2;
+        if (numPairs > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many columns for a correlation matrix: " + numColumns);
+        }
+        m_numColumns = numColumns;
+        int numTiles = (numColumns + TILE_SIZE - 1) / TILE_SIZE;
+        m_tilePairs = new long[numTiles * (numTiles + 1) / 2];
+        int t = 0;
+        for (int ti = 0; ti < numTiles; ti++) {
+            for (int tj = ti; tj < numTiles; tj++) {
+                m_tilePairs[t++] = ((long)ti << 32) | tj;
+            }
+        }
+        m_count = new long[(int)numPairs];
+        m_meanI = new double[(int)numPairs];
+        m_meanJ = new double[(int)numPairs];
+        m_sumSqI = new double[(int)numPairs];
+        m_sumSqJ = new double[(int)numPairs];
+        m_coMoment = new double[(int)numPairs];
+    }
+
+    /** @return the number of columns */
+    int getNumColumns() {
+        return m_numColumns;
+    }
+
+    /** @return the number of tile pairs, i.e. the number of independent tasks to add a block */
+    int getNumTilePairs() {
+        return m_tilePairs.length;
+    }
+
+    private int index(final int i, final int j) {
+        assert i <= j;
+        // offset of row i in the upper triangle including the diagonal
+        return (int)((long)i * m_numColumns - (long)i * (i - 1) / 2) + (j - i);
+    }
+
+    /**
+     * Adds the rows of the block to all pairs.
+     *
+     * @param block the block, must have {@link #getNumColumns()} columns
+     */
+    void add(final Block block) {
+        block.prepare();
+        for (int t = 0; t < m_tilePairs.length; t++) {
+            add(block, t);
+        }
+    }
+
+    /**
+     * Adds the rows of the block to the pairs of one tile pair. Different tile pairs of a block may be added
+     * concurrently, a tile pair must not be added concurrently for different blocks.
+     *
+     * @param block the block, must have {@link #getNumColumns()} columns and must have been
+     *            {@link Block#prepare() prepared}
+     * @param tilePair the index of the tile pair, between 0 (inclusive) and {@link #getNumTilePairs()} (exclusive)
+     */
+    void add(final Block block, final int tilePair) {
+        assert block.m_prepared : "Block not prepared";
+        if (block.m_rowCount == 0) {
+            return;
+        }
+        final int startI = (int)(m_tilePairs[tilePair] >>> 32) * TILE_SIZE;
+        final int startJ = (int)m_tilePairs[tilePair] * TILE_SIZE;
+        final int endI = Math.min(startI + TILE_SIZE, m_numColumns);
+        final int endJ = Math.min(startJ + TILE_SIZE, m_numColumns);
+        for (int i = startI; i < endI; i++) {
+            for (int j = Math.max(i, startJ); j < endJ; j++) {
+                addPair(block, i, j);
+            }
+        }
+    }
+
+    private void addPair(final Block block, final int i, final int j) {
+        // the values are centered around the mean of the column in the block
+        final double[] x = block.m_values[i];
+        final double[] y = block.m_values[j];
+        final int rowCount = block.m_rowCount;
+        if (!block.m_hasMissing[i] && !block.m_hasMissing[j]) {
+            // the common case: the moments of the columns are those of the block, only the co-moment is
+            // computed per pair (with independent sums to not wait for the previous addition)
+            double c0 = 0.0;
+            double c1 = 0.0;
+            double c2 = 0.0;
+            double c3 = 0.0;
+            int r = 0;
+            for (; r + 3 < rowCount; r += 4) {
+                c0 += x[r] * y[r];
+                c1 += x[r + 1] * y[r + 1];
+                c2 += x[r + 2] * y[r + 2];
+                c3 += x[r + 3] * y[r + 3];
+            }
+            for (; r < rowCount; r++) {
+                c0 += x[r] * y[r];
+            }
+            merge(index(i, j), rowCount, block.m_offsets[i], block.m_offsets[j], block.m_sumSq[i],
+                block.m_sumSq[j], (c0 + c1) + (c2 + c3));
+            return;
+        }
+        final boolean[] missingX = block.m_hasMissing[i] ? block.m_missing[i] : null;
+        final boolean[] missingY = block.m_hasMissing[j] ? block.m_missing[j] : null;
+        long n = 0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (int r = 0; r < rowCount; r++) {
+            if (!isMissing(missingX, r) && !isMissing(missingY, r)) {
+                sumX += x[r];
+                sumY += y[r];
+                n++;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        final double meanX = sumX / n;
+        final double meanY = sumY / n;
+        double sumSqX = 0.0;
+        double sumSqY = 0.0;
+        double coMoment = 0.0;
+        for (int r = 0; r < rowCount; r++) {
+            if (!isMissing(missingX, r) && !isMissing(missingY, r)) {
+                final double dx = x[r] - meanX;
+                final double dy = y[r] - meanY;
+                sumSqX += dx * dx;
+                sumSqY += dy * dy;
+                coMoment += dx * dy;
+            }
+        }
+        merge(index(i, j), n, block.m_offsets[i] + meanX, block.m_offsets[j] + meanY, sumSqX, sumSqY, coMoment);
+    }
+
+    private static boolean isMissing(final boolean[] missing, final int row) {
+        return missing != null && missing[row];
+    }
+
+    private void merge(final int k, final long n, final double meanX, final double meanY, final double sumSqX,
+        final double sumSqY, final double coMoment) {
+        final long prevCount = m_count[k];
+        if (prevCount == 0) {
+            m_count[k] = n;
+            m_meanI[k] = meanX;
+            m_meanJ[k] = meanY;
+            m_sumSqI[k] = sumSqX;
+            m_sumSqJ[k] = sumSqY;
+            m_coMoment[k] = coMoment;
+        } else if (n > 0) {
+            final long count = prevCount + n;
+            final double dx = meanX - m_meanI[k];
+            final double dy = meanY - m_meanJ[k];
+            final double f = (double)prevCount * n / count;
+            m_sumSqI[k] += sumSqX + dx * dx * f;
+            m_sumSqJ[k] += sumSqY + dy * dy * f;
+            m_coMoment[k] += coMoment + dx * dy * f;
+            m_meanI[k] += dx * n / count;
+            m_meanJ[k] += dy * n / count;
+            m_count[k] = count;
+        }
+    }
+
+    /**
+     * Merges the moments of other rows into this object, e.g. moments computed for another partition of the table.
+     *
+     * @param other the moments of the other rows, must have the same number of columns
+     */
+    void merge(final PairwiseMoments other) {
+        if (other.m_numColumns != m_numColumns) {
+            throw new IllegalArgumentException("Number of columns differs: " + other.m_numColumns + " vs. "
+                + m_numColumns);
+        }
+        for (int k = 0; k < m_count.length; k++) {
+            merge(k, other.m_count[k], other.m_meanI[k], other.m_meanJ[k], other.m_sumSqI[k], other.m_sumSqJ[k],
+                other.m_coMoment[k]);
+        }
+    }
+
+    /**
+     * Writes the moments to a stream, they can be restored with {@link #load(DataInputStream)}.
+     *
+     * @param output the stream to write to
+     * @throws IOException if writing fails
+     */
+    void save(final DataOutputStream output) throws IOException {
+        output.writeInt(m_numColumns);
+        for (int k = 0; k < m_count.length; k++) {
+            output.writeLong(m_count[k]);
+            output.writeDouble(m_meanI[k]);
+            output.writeDouble(m_meanJ[k]);
+            output.writeDouble(m_sumSqI[k]);
+            output.writeDouble(m_sumSqJ[k]);
+            output.writeDouble(m_coMoment[k]);
+        }
+    }
+
+    /**
+     * Reads moments written by {@link #save(DataOutputStream)}.
+     *
+     * @param input the stream to read from
+     * @return the moments
+     * @throws IOException if reading fails
+     */
+    static PairwiseMoments load(final DataInputStream input) throws IOException {
+        final int numColumns = input.readInt();
+        if (numColumns < 0) {
+            throw new IOException("Invalid number of columns: " + numColumns);
+        }
+        PairwiseMoments moments = new PairwiseMoments(numColumns);
+        for (int k = 0; k < moments.m_count.length; k++) {
+            moments.m_count[k] = input.readLong();
+            moments.m_meanI[k] = input.readDouble();
+            moments.m_meanJ[k] = input.readDouble();
+            moments.m_sumSqI[k] = input.readDouble();
+            moments.m_sumSqJ[k] = input.readDouble();
+            moments.m_coMoment[k] = input.readDouble();
+        }
+        return moments;
+    }
+
+    /**
+     * @param i a column index
+     * @param j another (or the same) column index
+     * @return the number of rows in which neither column i nor column j is missing
+     */
+    long getCount(final int i, final int j) {
+        return i <= j ? m_count[index(i, j)] : m_count[index(j, i)];
+    }
+
+    /**
+     * @param i a column index
+     * @param j another (or the same) column index
+     * @return the mean of column i in the rows in which column j is not missing, NaN if there are no such rows
+     */
+    double getMean(final int i, final int j) {
+        if (getCount(i, j) == 0) {
+            return Double.NaN;
+        }
+        return i <= j ? m_meanI[index(i, j)] : m_meanJ[index(j, i)];
+    }
+
+    /**
+     * @param i a column index
+     * @param j another (or the same) column index
+     * @return the sum of squared deviations from the mean of column i in the rows in which column j is not missing
+     */
+    double getSumOfSquares(final int i, final int j) {
+        return i <= j ? m_sumSqI[index(i, j)] : m_sumSqJ[index(j, i)];
+    }
+
+    /**
+     * @param i a column index
+     * @param j another (or the same) column index
+     * @return the sum of the products of the deviations from the means of both columns (co-moment)
+     */
+    double getCoMoment(final int i, final int j) {
+        return i <= j ? m_coMoment[index(i, j)] : m_coMoment[index(j, i)];
+    }
+
+    /**
+     * @param i a column index
+     * @param j another (or the same) column index
+     * @return the Pearson correlation coefficient of the two columns, NaN if it is not defined (e.g. for a
+     *         constant column)
+     */
+    double getCorrelation(final int i, final int j) {
+        final double denominator = Math.sqrt(getSumOfSquares(i, j) * getSumOfSquares(j, i));
+        return denominator > 0.0 ? getCoMoment(i, j) / denominator : Double.NaN;
+    }
+
+    /**
+     * A block of rows, storing the values of each column in a primitive array.
+     */
+    static final class Block {
+
+        /** The default number of rows in a block (the values of two tiles then fit in a typical L2 cache). */
+        static final int DEFAULT_CAPACITY = 512;
+
+        private final double[][] m_values;
+
+        /** Marks the missing values, only allocated for columns that had missing values. */
+        private final boolean[][] m_missing;
+
+        /** Whether a column has missing values in the current rows. */
+        private final boolean[] m_hasMissing;
+
+        /** The mean of each column (of the non-missing values), subtracted from the values by {@link #prepare()}. */
+        private final double[] m_offsets;
+
+        /** The sum of squared deviations from the mean of each column, only set for columns without missing
+         * values. */
+        private final double[] m_sumSq;
+
+        private int m_rowCount;
+
+        private boolean m_prepared;
+
+        /**
+         * @param numColumns the number of columns, at least 1
+         * @param capacity the maximum number of rows
+         */
+        Block(final int numColumns, final int capacity) {
+            m_values = new double[numColumns][capacity];
+            m_missing = new boolean[numColumns][];
+            m_hasMissing = new boolean[numColumns];
+            m_offsets = new double[numColumns];
+            m_sumSq = new double[numColumns];
+        }
+
+        /**
+         * Sets the value of a column in the current row.
+         *
+         * @param column the column index
+         * @param value the value
+         */
+        void setValue(final int column, final double value) {
+            m_values[column][m_rowCount] = value;
+        }
+
+        /**
+         * Marks the value of a column in the current row as missing.
+         *
+         * @param column the column index
+         */
+        void setMissing(final int column) {
+            if (m_missing[column] == null) {
+                m_missing[column] = new boolean[m_values[column].length];
+            }
+            m_missing[column][m_rowCount] = true;
+            m_hasMissing[column] = true;
+        }
+
+        /**
+         * Completes the current row, all columns must have been set.
+         *
+         * @return <code>true</code> if the block is full
+         */
+        boolean finishRow() {
+            m_rowCount++;
+            return m_rowCount == m_values[0].length;
+        }
+
+        /** @return the number of rows in the block */
+        int getRowCount() {
+            return m_rowCount;
+        }
+
+        /**
+         * Centers the values of each column around its mean, which makes the computation of the moments cheaper
+         * and numerically more stable. Must be called once after all rows have been added and before the moments
+         * are computed (not concurrently).
+         */
+        void prepare() {
+            if (m_prepared) {
+                return;
+            }
+            for (int c = 0; c < m_values.length; c++) {
+                final double[] values = m_values[c];
+                final boolean[] missing = m_hasMissing[c] ? m_missing[c] : null;
+                double sum = 0.0;
+                int n = 0;
+                for (int r = 0; r < m_rowCount; r++) {
+                    if (missing == null || !missing[r]) {
+                        sum += values[r];
+                        n++;
+                    }
+                }
+                final double mean = n > 0 ? sum / n : 0.0;
+                double sumSq = 0.0;
+                for (int r = 0; r < m_rowCount; r++) {
+                    if (missing == null || !missing[r]) {
+                        values[r] -= mean;
+                        sumSq += values[r] * values[r];
+                    }
+                }
+                m_offsets[c] = mean;
+                m_sumSq[c] = sumSq;
+            }
+            m_prepared = true;
+        }
+
+        /** Removes all rows. */
+        void clear() {
+            m_rowCount = 0;
+            m_prepared = false;
+            for (int c = 0; c < m_hasMissing.length; c++) {
+                if (m_hasMissing[c]) {
+                    Arrays.fill(m_missing[c], false);
+                    m_hasMissing[c] = false;
+                }
+            }
+        }
+    }
+}
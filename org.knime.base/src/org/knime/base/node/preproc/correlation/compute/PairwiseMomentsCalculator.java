@@ -0,0 +1,222 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.correlation.compute;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.base.node.preproc.correlation.compute.PairwiseMoments.Block;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Computes {@link PairwiseMoments} of blocks of rows on the global thread pool while the caller reads the next
+ * block. If there are enough tile pairs, the tiles of each block are computed concurrently. Otherwise (few columns,
+ * e.g. less than 64 on a machine with 8 cores) the blocks are distributed round robin among partitions, each with
+ * its own moments, which are merged at the end. In both cases the result only depends on the input and the
+ * parallelism, not on the scheduling of the threads.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PairwiseMomentsCalculator {
+
+    private final PairwiseMoments m_moments;
+
+    private final int m_parallelism;
+
+    private final int m_blockCapacity;
+
+    /** The moments of the partitions if blocks are computed in parallel, <code>null</code> if tiles are. */
+    private final PairwiseMoments[] m_partitionMoments;
+
+    /** The blocks being computed (at most one per partition) and their tasks. */
+    private final Block[] m_pendingBlocks;
+
+    private final List<List<Future<Void>>> m_pendingTasks;
+
+    private final Deque<Block> m_freeBlocks = new ArrayDeque<>();
+
+    private final ThreadPool m_pool;
+
+    private long m_blockCount;
+
+    /**
+     * @param numColumns the number of numeric columns, at least 1
+     * @param parallelism the maximum number of threads, 1 to compute all blocks in the calling thread
+     * @param blockCapacity the number of rows in a block
+     */
+    PairwiseMomentsCalculator(final int numColumns, final int parallelism, final int blockCapacity) {
+        m_moments = new PairwiseMoments(numColumns);
+        m_parallelism = Math.max(1, parallelism);
+        m_blockCapacity = blockCapacity;
+        final int numPartitions;
+        if (m_parallelism == 1) {
+            m_partitionMoments = null;
+            numPartitions = 0;
+            m_pool = null;
+        } else {
+            if (m_moments.getNumTilePairs() >= m_parallelism) {
+                m_partitionMoments = null;
+                numPartitions = 1;
+            } else {
+                m_partitionMoments = new PairwiseMoments[m_parallelism];
+                for (int i = 0; i < m_parallelism; i++) {
+                    m_partitionMoments[i] = new PairwiseMoments(numColumns);
+                }
+                numPartitions = m_parallelism;
+            }
+            m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_parallelism);
+        }
+        m_pendingBlocks = new Block[numPartitions];
+        m_pendingTasks = new ArrayList<>(numPartitions);
+        for (int i = 0; i < numPartitions; i++) {
+            m_pendingTasks.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return an empty block to be filled by the caller and passed to {@link #add(Block)}
+     */
+    Block newBlock() {
+        Block block = m_freeBlocks.poll();
+        return block != null ? block : new Block(m_moments.getNumColumns(), m_blockCapacity);
+    }
+
+    /**
+     * Adds the rows of the block to the moments, possibly asynchronously. The block must not be modified by the
+     * caller afterwards.
+     *
+     * @param block a block created by {@link #newBlock()}
+     * @throws CanceledExecutionException if the computation of a previous block was interrupted
+     */
+    void add(final Block block) throws CanceledExecutionException {
+        if (m_pool == null) {
+            m_moments.add(block);
+            recycle(block);
+            return;
+        }
+        final int partition = (int)(m_blockCount++ % m_pendingBlocks.length);
+        waitFor(partition);
+        m_pendingBlocks[partition] = block;
+        final List<Future<Void>> tasks = m_pendingTasks.get(partition);
+        if (m_partitionMoments == null) {
+            block.prepare();
+            final AtomicInteger nextTilePair = new AtomicInteger();
+            final int numTilePairs = m_moments.getNumTilePairs();
+            for (int i = 0; i < m_parallelism; i++) {
+                tasks.add(m_pool.enqueue(() -> {
+                    for (int t = nextTilePair.getAndIncrement(); t < numTilePairs;
+                            t = nextTilePair.getAndIncrement()) {
+                        m_moments.add(block, t);
+                    }
+                    return null;
+                }));
+            }
+        } else {
+            final PairwiseMoments moments = m_partitionMoments[partition];
+            tasks.add(m_pool.enqueue(() -> {
+                moments.add(block);
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Waits for all blocks to be computed and returns the moments of all rows.
+     *
+     * @return the moments
+     * @throws CanceledExecutionException if the computation was interrupted
+     */
+    PairwiseMoments finish() throws CanceledExecutionException {
+        for (int i = 0; i < m_pendingBlocks.length; i++) {
+            waitFor(i);
+        }
+        if (m_partitionMoments != null) {
+            // merge in a fixed order so that the result does not depend on the scheduling
+            for (PairwiseMoments moments : m_partitionMoments) {
+                m_moments.merge(moments);
+            }
+        }
+        return m_moments;
+    }
+
+    /** Cancels all pending tasks, called if the computation fails. */
+    void cancel() {
+        for (List<Future<Void>> tasks : m_pendingTasks) {
+            for (Future<Void> task : tasks) {
+                task.cancel(true);
+            }
+            tasks.clear();
+        }
+    }
+
+    private void recycle(final Block block) {
+        block.clear();
+        m_freeBlocks.add(block);
+    }
+
+    /** Waits for the tasks of the partition and recycles its block. */
+    private void waitFor(final int partition) throws CanceledExecutionException {
+        final List<Future<Void>> tasks = m_pendingTasks.get(partition);
+        if (tasks.isEmpty()) {
+            return;
+        }
+        try {
+            ThreadPool.waitForAll(tasks);
+        } catch (CanceledExecutionException | RuntimeException | Error e) {
+            cancel();
+            throw e;
+        }
+        tasks.clear();
+        recycle(m_pendingBlocks[partition]);
+        m_pendingBlocks[partition] = null;
+    }
+}
@@ -53,10 +53,13 @@
 import org.knime.base.node.preproc.filter.row.rowfilter.EndOfTableException;
 import org.knime.base.node.preproc.filter.row.rowfilter.IRowFilter;
 import org.knime.base.node.preproc.filter.row.rowfilter.IncludeFromNowOn;
+import org.knime.base.node.preproc.filter.row.rowfilter.RangeRowFilter;
 import org.knime.base.node.preproc.filter.row.rowfilter.RowFilterFactory;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ZoneMap;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -220,6 +223,15 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         m_rowFilter.configure(in.getDataTableSpec());
         BufferedDataContainer container =
             exec.createDataContainer(in.getDataTableSpec());
+        final ZoneMap zoneMap = m_rowFilter instanceof RangeRowFilter ? inData[0].getZoneMap() : null;
+        if (zoneMap != null) {
+            try {
+                executeOnChunks(inData[0], zoneMap, (RangeRowFilter)m_rowFilter, container, exec);
+            } finally {
+                container.close();
+            }
+            return new BufferedDataTable[]{container.getTable()};
+        }
         exec.setMessage("Searching first matching row...");
         try {
             int count = 0;
@@ -239,6 +251,35 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         return new BufferedDataTable[]{container.getTable()};
     }
 
+    /**
+     * Applies a range filter chunk by chunk, chunks that can't contain matching rows (according to the statistics of
+     * the input table) are not read.
+     */
+    private static void executeOnChunks(final BufferedDataTable in, final ZoneMap zoneMap,
+        final RangeRowFilter filter, final BufferedDataContainer container, final ExecutionContext exec)
+        throws Exception {
+        final int chunkCount = zoneMap.getChunkCount();
+        int skippedChunks = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            exec.checkCanceled();
+            exec.setProgress(chunk / (double)chunkCount);
+            if (filter.matchesNone(zoneMap, chunk)) {
+                skippedChunks++;
+                continue;
+            }
+            long index = zoneMap.getChunkStart(chunk);
+            try (CloseableRowIterator it = in.rangeIterator(index, zoneMap.getChunkEnd(chunk))) {
+                while (it.hasNext()) {
+                    DataRow row = it.next();
+                    if (filter.matches(row, index++)) {
+                        container.addRowToTable(row);
+                    }
+                }
+            }
+        }
+        exec.setMessage("Skipped " + skippedChunks + " of " + chunkCount + " chunks without matching rows");
+    }
+
     /** {@inheritDoc} */
     @Override
     public InputPortRole[] getInputPortRoles() {
@@ -53,6 +53,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValueComparator;
 import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.container.ZoneMap;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -251,6 +252,32 @@ public boolean matches(final DataRow row, final long rowIndex) throws EndOfTable
         return ((getInclude() && match) || (!getInclude() && !match));
     }
 
+    /**
+     * Checks, using the statistics of the filter column in a chunk of rows, whether no row of the chunk can match,
+     * so that the chunk does not need to be read. The filter must be configured with the spec of the table the
+     * statistics belong to.
+     *
+     * @param zoneMap the statistics of the table
+     * @param chunk index of the chunk
+     * @return true if no row of the chunk matches, false if rows may match (or if the statistics can't be used)
+     * @since 3.6
+     */
+    public boolean matchesNone(final ZoneMap zoneMap, final int chunk) {
+        if (m_comparator == null || getDeepFiltering() || !zoneMap.hasStatistics(getColIdx())) {
+            return false;
+        }
+        final DataCell min = zoneMap.getMin(getColIdx(), chunk);
+        final DataCell max = zoneMap.getMax(getColIdx(), chunk);
+        if (getInclude()) {
+            // missing cells don't match; no other values or range [min, max] is outside of the bounds
+            return min == null || (m_lowerBound != null && m_comparator.compare(max, m_lowerBound) < 0)
+                || (m_upperBound != null && m_comparator.compare(m_upperBound, min) < 0);
+        } else {
+            // missing cells match; range [min, max] is within the bounds
+            return zoneMap.getMissingCount(getColIdx(), chunk) == 0 && min != null && matches(min) && matches(max);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
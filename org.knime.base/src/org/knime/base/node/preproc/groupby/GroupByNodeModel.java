@@ -681,7 +681,7 @@ protected final GroupByTable createGroupByTable(final ExecutionContext exec, fin
             resultTable = new MemoryGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
                 globalSettings, enableHilite, colNamePolicy, retainOrder);
         } else {
-            resultTable = new BigGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
+            resultTable = new HybridGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
                     globalSettings, enableHilite, colNamePolicy, retainOrder);
         }
         if (m_enableHilite.getBooleanValue()) {
@@ -0,0 +1,396 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.append.AppendedColumnRow;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.sort.BufferedDataTableSorter;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+
+
+/**
+ * A group by table that aggregates the input in a hash table without sorting it first. Groups are kept in memory
+ * until the {@link MemoryAlertSystem} reports low memory; from then on, rows of groups that are not in memory yet are
+ * spilled to one of {@value #NUM_PARTITIONS} temporary tables (by the hash of their group values), while the groups
+ * in memory continue to be aggregated. Once the input is processed, the spilled tables are aggregated the same way,
+ * recursively, with a different part of the hash.
+ *
+ * <p>
+ * The aggregated groups are finally sorted by the group values (and the position of their first row), i.e. the
+ * result has the same rows, row keys and order as the result of the {@link BigGroupByTable}, but only the groups are
+ * sorted and not the entire input table. The rows of each group are aggregated in input order.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class HybridGroupByTable extends GroupByTable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HybridGroupByTable.class);
+
+    /** Number of temporary tables rows are spilled to, per recursion level. */
+    static final int NUM_PARTITIONS = 16;
+
+    /** Bits of the hash code used per level, log2({@link #NUM_PARTITIONS}). */
+    private static final int PARTITION_BITS = 4;
+
+    /** Deepest recursion level that still spills; deeper partitions are aggregated in memory. */
+    static final int MAX_SPILL_LEVEL = 32 / PARTITION_BITS - 1;
+
+    private static final String FIRST_ROW_COL_NAME = "first_row_index";
+
+    /**Constructor for class HybridGroupByTable.
+     * @param exec the <code>ExecutionContext</code>
+     * @param inDataTable the table to aggregate
+     * @param groupByCols the name of all columns to group by
+     * @param colAggregators the aggregation columns with the aggregation method
+     * to use in the order the columns should be appear in the result table
+     * numerical columns
+     * @param globalSettings the global settings
+     * @param enableHilite <code>true</code> if a row key map should be
+     * maintained to enable hiliting
+     * @param colNamePolicy the {@link ColumnNamePolicy} for the
+     * aggregation columns
+     * @param retainOrder returns the row of the table in the same order as the
+     * input table if set to <code>true</code>
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    public HybridGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable inDataTable,
+            final List<String> groupByCols,
+            final ColumnAggregator[] colAggregators,
+            final GlobalSettings globalSettings, final boolean enableHilite,
+            final ColumnNamePolicy colNamePolicy, final boolean retainOrder)
+    throws CanceledExecutionException {
+        super(exec, inDataTable, groupByCols, colAggregators, globalSettings,
+                enableHilite, colNamePolicy, retainOrder);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable table, final DataTableSpec resultSpec,
+            final int[] groupColIdx) throws CanceledExecutionException {
+        final DataTableSpec origSpec = table.getDataTableSpec();
+        final ColumnAggregator[] colAggregators = getColAggregators();
+        final int[] aggrColIdx = new int[colAggregators.length];
+        for (int i = 0; i < aggrColIdx.length; i++) {
+            aggrColIdx[i] = origSpec.findColumnIndex(colAggregators[i].getOriginalColName());
+        }
+        //the groups are written with the index of their first row, used to
+        //sort groups with equal group values like the BigGroupByTable
+        final String firstRowColName = DataTableSpec.getUniqueColumnName(resultSpec, FIRST_ROW_COL_NAME);
+        final DataTableSpec groupSpec = new DataTableSpec(resultSpec,
+            new DataTableSpec(new DataColumnSpecCreator(firstRowColName, LongCell.TYPE).createSpec()));
+        final Aggregation aggregation = new Aggregation(groupColIdx, aggrColIdx,
+            exec.createDataContainer(groupSpec));
+
+        exec.setMessage("Aggregating groups");
+        final ExecutionContext aggrExec = exec.createSubExecutionContext(0.7);
+        aggregation.aggregate(aggrExec, table, 0);
+        aggregation.m_groupContainer.close();
+        final BufferedDataTable groupTable = aggregation.m_groupContainer.getTable();
+        aggrExec.setProgress(1.0);
+
+        exec.setMessage("Sorting groups");
+        final List<String> sortCols = new ArrayList<>(getGroupCols());
+        sortCols.add(firstRowColName);
+        final boolean[] sortAscending = new boolean[sortCols.size()];
+        Arrays.fill(sortAscending, true);
+        final BufferedDataTableSorter sorter = new BufferedDataTableSorter(groupTable, sortCols, sortAscending);
+        final BufferedDataTable sortedTable = sorter.sort(exec.createSubExecutionContext(0.2));
+        exec.clearTable(groupTable);
+
+        exec.setMessage("Writing groups");
+        final ExecutionContext writeExec = exec.createSubExecutionContext(0.1);
+        final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
+        final int resultColCount = resultSpec.getNumColumns();
+        final long groupCount = sortedTable.size();
+        long groupCounter = 0;
+        for (final DataRow row : sortedTable) {
+            writeExec.checkCanceled();
+            writeExec.setProgress(groupCounter / (double)groupCount,
+                "Writing group " + groupCounter + " of " + groupCount);
+            final RowKey rowKey = RowKey.createRowKey(groupCounter++);
+            final DataCell[] rowVals = new DataCell[resultColCount];
+            for (int i = 0; i < resultColCount; i++) {
+                rowVals[i] = row.getCell(i);
+            }
+            dc.addRowToTable(new DefaultRow(rowKey, rowVals));
+            if (isEnableHilite()) {
+                addHiliteMapping(rowKey, aggregation.m_hiliteMapping.remove(row.getKey()));
+            }
+        }
+        dc.close();
+        exec.clearTable(sortedTable);
+        return dc.getTable();
+    }
+
+    /**
+     * Returns <code>true</code> if the groups of the current level must not grow anymore, i.e. rows of new groups are
+     * spilled. Only called until the first time it returns <code>true</code> per level. Overridden in tests.
+     *
+     * @param memIndicator the indicator of the current level
+     * @param groupCount the number of groups in memory
+     * @return whether to start spilling
+     */
+    boolean isSpillRequired(final MemoryActionIndicator memIndicator, final int groupCount) {
+        return memIndicator.lowMemoryActionRequired();
+    }
+
+    /**
+     * @param groupKey the group values
+     * @param level the recursion level
+     * @return the partition of the group at the given level
+     */
+    private static int getPartition(final GroupKey groupKey, final int level) {
+        //spread the bits, the hash codes of cells are often poorly distributed
+        final int hash = groupKey.hashCode() * 0x9E3779B9;
+        return (hash >>> (level * PARTITION_BITS)) & (NUM_PARTITIONS - 1);
+    }
+
+    /** State of a group in memory. */
+    private static final class GroupState {
+
+        private final ColumnAggregator[] m_aggregators;
+
+        private final long m_firstRowIndex;
+
+        private final Set<RowKey> m_rowKeys;
+
+        GroupState(final ColumnAggregator[] aggregators, final long firstRowIndex, final boolean enableHilite) {
+            m_aggregators = aggregators;
+            m_firstRowIndex = firstRowIndex;
+            m_rowKeys = enableHilite ? new HashSet<>() : Collections.<RowKey>emptySet();
+        }
+    }
+
+    /** The aggregation of all levels, writing the groups to a common container. */
+    private final class Aggregation {
+
+        private final int[] m_groupColIdx;
+
+        private final int[] m_aggrColIdx;
+
+        private final BufferedDataContainer m_groupContainer;
+
+        /** Row keys of the original rows per (temporary) group row key, if hiliting is enabled. */
+        private final Map<RowKey, Set<RowKey>> m_hiliteMapping = new HashMap<>();
+
+        private long m_groupCounter;
+
+        Aggregation(final int[] groupColIdx, final int[] aggrColIdx, final BufferedDataContainer groupContainer) {
+            m_groupColIdx = groupColIdx;
+            m_aggrColIdx = aggrColIdx;
+            m_groupContainer = groupContainer;
+        }
+
+        /**
+         * Aggregates the given rows, spilling rows to partitions if memory is low and aggregating those recursively.
+         *
+         * @param exec the context
+         * @param rows the input rows; on level 0 the input table, on all other levels a partition, whose last column
+         *            contains the original row index
+         * @param level the recursion level
+         * @throws CanceledExecutionException if canceled
+         */
+        void aggregate(final ExecutionContext exec, final BufferedDataTable rows, final int level) throws CanceledExecutionException {
+            final boolean enableHilite = isEnableHilite();
+            final Map<GroupKey, GroupState> groups = new LinkedHashMap<>();
+            final MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+            BufferedDataContainer[] partitions = null;
+            final int rowIndexCol = rows.getDataTableSpec().getNumColumns() - 1;
+            final long rowCount = rows.size();
+            long rowCounter = 0;
+            for (final DataRow row : rows) {
+                exec.checkCanceled();
+                if (level == 0) {
+                    exec.setProgress(rowCounter / (double)rowCount,
+                        "Analyzing row " + (rowCounter + 1) + " of " + rowCount);
+                }
+                final long rowIndex = level == 0 ? rowCounter : ((LongValue)row.getCell(rowIndexCol)).getLongValue();
+                rowCounter++;
+                final DataCell[] currentGroup = new DataCell[m_groupColIdx.length];
+                for (int i = 0, length = m_groupColIdx.length; i < length; i++) {
+                    currentGroup[i] = row.getCell(m_groupColIdx[i]);
+                }
+                final GroupKey groupKey = new GroupKey(currentGroup);
+                GroupState group = groups.get(groupKey);
+                if (group == null) {
+                    if (partitions == null && level <= MAX_SPILL_LEVEL && !groups.isEmpty()
+                            && isSpillRequired(memIndicator, groups.size())) {
+                        LOGGER.debug("Low memory, spilling rows of new groups to " + NUM_PARTITIONS
+                            + " partitions (level " + level + ", " + groups.size() + " groups in memory)");
+                        partitions = createPartitions(exec, rows.getDataTableSpec(), level);
+                    }
+                    if (partitions != null) {
+                        final DataRow spilledRow =
+                            level == 0 ? new AppendedColumnRow(row, new LongCell(rowIndex)) : row;
+                        partitions[getPartition(groupKey, level)].addRowToTable(spilledRow);
+                        continue;
+                    }
+                    group = new GroupState(cloneColumnAggregators(), rowIndex, enableHilite);
+                    groups.put(groupKey, group);
+                }
+                for (int i = 0; i < group.m_aggregators.length; i++) {
+                    group.m_aggregators[i].getOperator(getGlobalSettings()).compute(row, m_aggrColIdx[i]);
+                }
+                if (enableHilite) {
+                    group.m_rowKeys.add(row.getKey());
+                }
+            }
+            writeGroups(groups);
+            groups.clear();
+            if (partitions != null) {
+                aggregatePartitions(exec, partitions, level);
+            }
+        }
+
+        private BufferedDataContainer[] createPartitions(final ExecutionContext exec, final DataTableSpec spec,
+            final int level) {
+            final DataTableSpec partitionSpec;
+            if (level == 0) {
+                final String rowIndexColName = DataTableSpec.getUniqueColumnName(spec, FIRST_ROW_COL_NAME);
+                partitionSpec = new DataTableSpec(spec,
+                    new DataTableSpec(new DataColumnSpecCreator(rowIndexColName, LongCell.TYPE).createSpec()));
+            } else {
+                partitionSpec = spec;
+            }
+            final BufferedDataContainer[] partitions = new BufferedDataContainer[NUM_PARTITIONS];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = exec.createDataContainer(partitionSpec, false, 0);
+            }
+            return partitions;
+        }
+
+        private void aggregatePartitions(final ExecutionContext exec, final BufferedDataContainer[] partitions,
+            final int level) throws CanceledExecutionException {
+            for (final BufferedDataContainer partition : partitions) {
+                partition.close();
+            }
+            for (int i = 0; i < partitions.length; i++) {
+                final BufferedDataTable partitionTable = partitions[i].getTable();
+                partitions[i] = null;
+                if (partitionTable.size() > 0) {
+                    exec.setMessage("Aggregating spilled partition " + (i + 1) + " of " + NUM_PARTITIONS
+                        + " (level " + (level + 1) + ")");
+                    aggregate(exec, partitionTable, level + 1);
+                }
+                exec.clearTable(partitionTable);
+            }
+        }
+
+        /** Writes the groups with their first row index and temporary row keys. */
+        private void writeGroups(final Map<GroupKey, GroupState> groups) {
+            for (final Entry<GroupKey, GroupState> e : groups.entrySet()) {
+                final DataCell[] groupVals = e.getKey().getGroupVals();
+                final GroupState group = e.getValue();
+                final RowKey rowKey = RowKey.createRowKey(m_groupCounter++);
+                final DataCell[] rowVals = new DataCell[groupVals.length + group.m_aggregators.length + 1];
+                //add the group values first
+                int valIdx = 0;
+                for (final DataCell groupCell : groupVals) {
+                    rowVals[valIdx++] = groupCell;
+                }
+                //add the aggregation values
+                for (final ColumnAggregator colAggr : group.m_aggregators) {
+                    final AggregationOperator operator = colAggr.getOperator(getGlobalSettings());
+                    rowVals[valIdx++] = operator.getResult();
+                    if (operator.isSkipped()) {
+                        //add skipped groups and the column that causes the
+                        //skipping into the skipped groups map
+                        addSkippedGroup(colAggr.getOriginalColName(), operator.getSkipMessage(), groupVals);
+                    }
+                }
+                rowVals[valIdx] = new LongCell(group.m_firstRowIndex);
+                m_groupContainer.addRowToTable(new DefaultRow(rowKey, rowVals));
+                if (isEnableHilite()) {
+                    m_hiliteMapping.put(rowKey, group.m_rowKeys);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the column aggregators
+     */
+    private ColumnAggregator[] cloneColumnAggregators() {
+        final ColumnAggregator[] origAggregators = getColAggregators();
+        final ColumnAggregator[] aggregators = new ColumnAggregator[origAggregators.length];
+        for (int i = 0, length = origAggregators.length; i < length; i++) {
+            aggregators[i] = origAggregators[i].clone();
+        }
+        return aggregators;
+    }
+}
@@ -45,6 +45,7 @@
 
 package org.knime.base.node.preproc.groupby;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -52,6 +53,7 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.ColumnAggregator;
@@ -66,6 +68,8 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
 
 
 /**
@@ -74,6 +78,10 @@
  */
 public class MemoryGroupByTable extends GroupByTable {
 
+    /**Minimum number of rows per partition if the table is aggregated in
+     * parallel.*/
+    static final long MIN_ROWS_PER_PARTITION = 100000;
+
     private Map<GroupKey, Set<RowKey>> m_rowKeys;
     private Map<GroupKey, ColumnAggregator[]> m_vals;
 
@@ -152,12 +160,53 @@ protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
         m_rowKeys = new HashMap<>();
         m_vals = new LinkedHashMap<>();
         final ExecutionMonitor groupExec = exec.createSubProgress(0.7);
+        final int partitionCount = getPartitionCount(dataTable.size());
+        if (partitionCount > 1 && isCombinable()) {
+            aggregateInParallel(groupExec, dataTable, groupColIdx,
+                    partitionCount);
+        } else {
+            aggregate(groupExec, dataTable, groupColIdx, m_vals, m_rowKeys);
+        }
+        return createResultTable(exec.createSubExecutionContext(0.3), resultSpec);
+    }
+
+    /**
+     * @param rowCount the number of rows of the table to aggregate
+     * @return the number of partitions the table should be split into, which
+     * are aggregated in parallel if all aggregation operators are combinable
+     */
+    int getPartitionCount(final long rowCount) {
+        return (int)Math.min(Runtime.getRuntime().availableProcessors(),
+                rowCount / MIN_ROWS_PER_PARTITION);
+    }
+
+    /**
+     * @return <code>true</code> if all aggregation operators support the
+     * combining of partial results
+     * @see AggregationOperator#isCombinable()
+     */
+    private boolean isCombinable() {
+        for (final ColumnAggregator aggregator : getColAggregators()) {
+            //use a clone to not cache an operator in the original aggregator
+            if (!aggregator.clone().getOperator(getGlobalSettings())
+                    .isCombinable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void aggregate(final ExecutionMonitor exec,
+            final BufferedDataTable dataTable, final int[] groupColIdx,
+            final Map<GroupKey, ColumnAggregator[]> vals,
+            final Map<GroupKey, Set<RowKey>> rowKeys)
+            throws CanceledExecutionException {
         final DataTableSpec spec = dataTable.getDataTableSpec();
         final long rowCount = dataTable.size();
         long rowCounter = 0;
         for (final DataRow row : dataTable) {
-            groupExec.checkCanceled();
-            groupExec.setProgress(rowCounter++ / (double) rowCount,
+            exec.checkCanceled();
+            exec.setProgress(rowCounter++ / (double) rowCount,
                     "Analyzing row " + rowCounter + " of " + rowCount);
             final DataCell[] currentGroup = new DataCell[groupColIdx.length];
             //fetch the current group column values
@@ -165,10 +214,71 @@ protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
                 currentGroup[i] = row.getCell(groupColIdx[i]);
             }
             final GroupKey groupKey = new GroupKey(currentGroup);
-            addRowKey(groupKey, row.getKey());
-            addRow(spec, groupKey, row);
+            addRowKey(rowKeys, groupKey, row.getKey());
+            addRow(vals, spec, groupKey, row);
+        }
+    }
+
+    /**
+     * Aggregates contiguous partitions of the given table in parallel and
+     * combines the partial results in the order of the partitions which
+     * retains the order of the groups.
+     */
+    private void aggregateInParallel(final ExecutionMonitor exec,
+            final BufferedDataTable dataTable, final int[] groupColIdx,
+            final int partitionCount) throws CanceledExecutionException {
+        final BufferedDataTable[] partitions =
+            dataTable.partition(partitionCount);
+        final List<Map<GroupKey, ColumnAggregator[]>> partitionVals =
+            new ArrayList<>(partitions.length);
+        final List<Map<GroupKey, Set<RowKey>>> partitionRowKeys =
+            new ArrayList<>(partitions.length);
+        final List<Future<Void>> futures = new ArrayList<>(partitions.length);
+        final ThreadPool pool =
+            KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(partitions.length);
+        for (final BufferedDataTable partition : partitions) {
+            final Map<GroupKey, ColumnAggregator[]> vals = new LinkedHashMap<>();
+            final Map<GroupKey, Set<RowKey>> rowKeys = new HashMap<>();
+            partitionVals.add(vals);
+            partitionRowKeys.add(rowKeys);
+            final ExecutionMonitor subExec =
+                exec.createSubProgress(1.0 / partitions.length);
+            futures.add(pool.enqueue(() -> {
+                aggregate(subExec, partition, groupColIdx, vals, rowKeys);
+                return null;
+            }));
+        }
+        ThreadPool.waitForAll(futures);
+        final GlobalSettings globalSettings = getGlobalSettings();
+        for (int i = 0; i < partitions.length; i++) {
+            exec.checkCanceled();
+            for (final Entry<GroupKey, ColumnAggregator[]> entry
+                    : partitionVals.get(i).entrySet()) {
+                final ColumnAggregator[] aggregators =
+                    m_vals.get(entry.getKey());
+                if (aggregators == null) {
+                    m_vals.put(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                final ColumnAggregator[] partial = entry.getValue();
+                for (int j = 0; j < aggregators.length; j++) {
+                    aggregators[j].getOperator(globalSettings).combine(
+                            partial[j].getOperator(globalSettings));
+                }
+            }
+            for (final Entry<GroupKey, Set<RowKey>> entry
+                    : partitionRowKeys.get(i).entrySet()) {
+                final Set<RowKey> keySet = m_rowKeys.get(entry.getKey());
+                if (keySet == null) {
+                    m_rowKeys.put(entry.getKey(), entry.getValue());
+                } else {
+                    keySet.addAll(entry.getValue());
+                }
+            }
+            //release the partial results as early as possible
+            partitionVals.set(i, null);
+            partitionRowKeys.set(i, null);
         }
-        return createResultTable(exec.createSubExecutionContext(0.3), resultSpec);
     }
 
     private BufferedDataTable createResultTable(final ExecutionContext exec,
@@ -218,16 +328,17 @@ private BufferedDataTable createResultTable(final ExecutionContext exec,
         return dc.getTable();
     }
 
-    private void addRow(final DataTableSpec spec, final GroupKey groupKey,
+    private void addRow(final Map<GroupKey, ColumnAggregator[]> vals,
+            final DataTableSpec spec, final GroupKey groupKey,
             final DataRow row) {
-        ColumnAggregator[] aggregators = m_vals.get(groupKey);
+        ColumnAggregator[] aggregators = vals.get(groupKey);
         if (aggregators == null) {
             final ColumnAggregator[] origAggregators = getColAggregators();
             aggregators = new ColumnAggregator[origAggregators.length];
             for (int i = 0, length = origAggregators.length; i < length; i++) {
                 aggregators[i] = origAggregators[i].clone();
             }
-            m_vals.put(groupKey, aggregators);
+            vals.put(groupKey, aggregators);
         }
         for (final ColumnAggregator aggregator : aggregators) {
             final int colIdx =
@@ -236,12 +347,13 @@ private void addRow(final DataTableSpec spec, final GroupKey groupKey,
         }
     }
 
-    private void addRowKey(final GroupKey groupKey, final RowKey key) {
+    private void addRowKey(final Map<GroupKey, Set<RowKey>> rowKeys,
+            final GroupKey groupKey, final RowKey key) {
         if (isEnableHilite()) {
-            Set<RowKey> keySet = m_rowKeys.get(groupKey);
+            Set<RowKey> keySet = rowKeys.get(groupKey);
             if (keySet == null) {
                 keySet = new HashSet<>();
-                m_rowKeys.put(groupKey, keySet);
+                rowKeys.put(groupKey, keySet);
             }
             keySet.add(key);
         }
@@ -49,10 +49,7 @@
 
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
 
 import org.knime.base.data.sort.SortedTable;
 import org.knime.core.data.DataCell;
@@ -66,6 +63,7 @@
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.property.hilite.HiLiteMapper;
 
 /**
  * This is a facade for a {@link DataContainer} which is used to create the
@@ -79,12 +77,20 @@ class DataHiliteOutputContainer {
 
     private boolean m_enableHiLite;
 
-    private HashMap<RowKey, Set<RowKey>> m_leftRowKeyMap;
+    /** The index of the left row of each added row (-1 if none), only used
+     * if hiliting is enabled. */
+    private int[] m_leftIndices;
 
-    private HashMap<RowKey, Set<RowKey>> m_rightRowKeyMap;
+    /** The index of the right row of each added row (-1 if none), only used
+     * if hiliting is enabled. */
+    private int[] m_rightIndices;
+
+    private int m_rowCount;
 
     private BufferedDataTable m_leftTable;
 
+    private BufferedDataTable m_rightTable;
+
     private int[] m_leftSurvivors;
 
     private int[] m_rightSurvivors;
@@ -106,21 +112,23 @@ class DataHiliteOutputContainer {
      *              tables.
      * @param enableHiLite If HiLite is enabled.
      * @param leftTable The left input table.
+     * @param rightTable The right input table.
      * @param leftSurvivors The survivors of the left input table.
      * @param rightSurvivors The survivors of the right input table.
      * @param rowKeyFactory Used for creating the row ids of the joined rows.
      */
     DataHiliteOutputContainer(final DataTableSpec spec,
             final boolean enableHiLite, final BufferedDataTable leftTable,
-            final int[] leftSurvivors, final int[] rightSurvivors,
+            final BufferedDataTable rightTable, final int[] leftSurvivors, final int[] rightSurvivors,
             final JoinedRowKeyFactory rowKeyFactory) {
         m_spec = spec;
         m_enableHiLite = enableHiLite;
         if (enableHiLite) {
-            m_leftRowKeyMap = new HashMap<RowKey, Set<RowKey>>();
-            m_rightRowKeyMap = new HashMap<RowKey, Set<RowKey>>();
+            m_leftIndices = new int[1024];
+            m_rightIndices = new int[1024];
         }
         m_leftTable = leftTable;
+        m_rightTable = rightTable;
 
         m_leftSurvivors = leftSurvivors;
         m_rightSurvivors = rightSurvivors;
@@ -140,17 +148,29 @@ class DataHiliteOutputContainer {
     }
 
     /**
-     * @return the rowKeyMap
+     * Must only be called after the container is closed.
+     * @return the mapping from the rows of the left table to the joined rows
+     * or <code>null</code> if hiliting is disabled
      */
-    HashMap<RowKey, Set<RowKey>> getLeftRowKeyMap() {
-        return m_leftRowKeyMap;
+    HiLiteMapper getLeftHiLiteMapper() {
+        if (!m_enableHiLite) {
+            return null;
+        }
+        return new JoinerHiLiteMapper(m_leftTable, getTable(),
+                m_leftIndices, m_rowCount);
     }
 
     /**
-     * @return the rowKeyMap
+     * Must only be called after the container is closed.
+     * @return the mapping from the rows of the right table to the joined rows
+     * or <code>null</code> if hiliting is disabled
      */
-    HashMap<RowKey, Set<RowKey>> getRightRowKeyMap() {
-        return m_rightRowKeyMap;
+    HiLiteMapper getRightHiLiteMapper() {
+        if (!m_enableHiLite) {
+            return null;
+        }
+        return new JoinerHiLiteMapper(m_rightTable, getTable(),
+                m_rightIndices, m_rowCount);
     }
 
     /** Add the given row to m_dc. */
@@ -190,30 +210,69 @@ private void addRow(final DataRow row) {
             cells[c] = right.getCell(i);
             c++;
         }
-        RowKey joinedKey =
-                m_rowKeyFactory.createJoinedKey(left.getKey(),
-                        OutputRow.getRightKey(row));
+        addJoinedRow(cells, left.getKey(), OutputRow.getRightKey(row),
+            leftIndex, OutputRow.getRightIndex(row));
+    }
+
+    /**
+     * Adds the joined row of the given input rows to the container. The rows
+     * must be added in the order of the joined table.
+     *
+     * @param left the row of the left table or <code>null</code> if the
+     *            right row has no match
+     * @param leftIndex the index of the left row (-1 if none)
+     * @param right the row of the right table or <code>null</code> if the
+     *            left row has no match
+     * @param rightIndex the index of the right row (-1 if none)
+     * @param exec The execution context
+     */
+    void addJoinedRow(final DataRow left, final long leftIndex,
+            final DataRow right, final long rightIndex,
+            final ExecutionContext exec) {
+        if (null == m_dc) {
+            m_dc = exec.createDataContainer(m_spec);
+        }
+        DataCell[] cells =
+                new DataCell[m_leftSurvivors.length + m_rightSurvivors.length];
+        int c = 0;
+        for (int i = 0; i < m_leftSurvivors.length; i++) {
+            cells[c] = null != left ? left.getCell(m_leftSurvivors[i])
+                : DataType.getMissingCell();
+            c++;
+        }
+        for (int i = 0; i < m_rightSurvivors.length; i++) {
+            cells[c] = null != right ? right.getCell(m_rightSurvivors[i])
+                : DataType.getMissingCell();
+            c++;
+        }
+        addJoinedRow(cells, null != left ? left.getKey() : null,
+            null != right ? right.getKey() : null, leftIndex, rightIndex);
+    }
+
+    private void addJoinedRow(final DataCell[] cells, final RowKey leftKey,
+            final RowKey rightKey, final long leftIndex,
+            final long rightIndex) {
+        RowKey joinedKey = m_rowKeyFactory.createJoinedKey(leftKey, rightKey);
         DataRow joinedRow = new DefaultRow(joinedKey, cells);
 
         m_dc.addRowToTable(joinedRow);
         if (m_enableHiLite) {
-            // Remember RowKeys for HiLiting
-            if (null != left.getKey()) {
-                Set<RowKey> keySet = m_leftRowKeyMap.get(left.getKey());
-                if (null == keySet) {
-                    keySet = new HashSet<RowKey>();
-                    m_leftRowKeyMap.put(left.getKey(), keySet);
-                }
-                keySet.add(joinedKey);
-            }
-            if (null != right.getKey()) {
-                Set<RowKey> keySet = m_rightRowKeyMap.get(right.getKey());
-                if (null == keySet) {
-                    keySet = new HashSet<RowKey>();
-                    m_rightRowKeyMap.put(right.getKey(), keySet);
+            // Remember the row indices for HiLiting, the row keys are only
+            // looked up if the mapping is actually used
+            if (m_rowCount == m_leftIndices.length) {
+                if (m_rowCount == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Hiliting is not supported"
+                        + " for more than " + Integer.MAX_VALUE + " rows,"
+                        + " disable hiliting in the node configuration.");
                 }
-                keySet.add(joinedKey);
+                int newLength = (int)Math.min(Integer.MAX_VALUE,
+                        2L * m_rowCount);
+                m_leftIndices = Arrays.copyOf(m_leftIndices, newLength);
+                m_rightIndices = Arrays.copyOf(m_rightIndices, newLength);
             }
+            m_leftIndices[m_rowCount] = (int)leftIndex;
+            m_rightIndices[m_rowCount] = (int)rightIndex;
+            m_rowCount++;
         }
     }
 
@@ -56,7 +56,9 @@
 
 /**
  * A Container used to collect DataRows. The container has three
- * categories for inner, left outer and right outer matches.
+ * categories for inner, left outer and right outer matches. Rows can be
+ * added concurrently; callers that derive the row key from
+ * {@link #getRowCount()} must synchronize on the container.
  *
  * @author Heiko Hofer
  */
@@ -85,7 +87,7 @@ final class JoinContainer {
     /**
      * @return the rowCount
      */
-    long getRowCount() {
+    synchronized long getRowCount() {
         return m_rowCount;
     }
 
@@ -95,7 +97,7 @@ long getRowCount() {
      * @param row The matching row.
      * @param exec The Execution context.
      */
-    void addMatch(final DataRow row,
+    synchronized void addMatch(final DataRow row,
             final ExecutionContext exec) {
         if (null == m_matches) {
             m_matches = exec.createDataContainer(m_spec);
@@ -112,7 +114,7 @@ void addMatch(final DataRow row,
      * @param row The matching row.
      * @param exec The execution context.
      */
-    void addRightOuter(final DataRow row,
+    synchronized void addRightOuter(final DataRow row,
             final ExecutionContext exec) {
         if (null == m_rightOuter) {
             m_rightOuter = exec.createDataContainer(m_spec);
@@ -130,7 +132,7 @@ void addRightOuter(final DataRow row,
      * @param row The matching row.
      * @param exec The execution context.
      */
-    void addLeftOuter(final DataRow row,
+    synchronized void addLeftOuter(final DataRow row,
             final ExecutionContext exec) {
         if (null == m_leftOuter) {
             m_leftOuter = exec.createDataContainer(m_spec);
@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.joiner;
+
+/**
+ * A Bloom filter over the {@link JoinTuple}s of one input table. It is used to
+ * drop rows of the other table that cannot have a match before they are held
+ * in memory. {@link #mightContain(JoinTuple)} never returns a false negative
+ * for tuples that are equal to an added tuple, but might return false
+ * positives.
+ * <p>
+ * The filter is based on {@link JoinTuple#hashCode()}, i.e. on the same hash
+ * that is used for partitioning the tables, so that it is consistent with
+ * {@link JoinTuple#equals(Object)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JoinTupleBloomFilter {
+
+    /** Bits per expected element, gives about 2% false positives. */
+    private static final int BITS_PER_ELEMENT = 8;
+
+    /** Number of hash functions, optimal for 8 bits per element. */
+    private static final int NUM_HASH_FUNCTIONS = 5;
+
+    /** Upper bound for the size of the filter (256 MBit = 32 MB). */
+    private static final long MAX_BITS = 1L << 28;
+
+    private final long[] m_bits;
+
+    private final long m_numBits;
+
+    /**
+     * @param expectedElements the expected number of added tuples
+     */
+    JoinTupleBloomFilter(final long expectedElements) {
+        long numBits = Math.max(Long.SIZE,
+            Math.min(MAX_BITS, expectedElements * BITS_PER_ELEMENT));
+        m_bits = new long[(int)((numBits + Long.SIZE - 1) / Long.SIZE)];
+        m_numBits = (long)m_bits.length * Long.SIZE;
+    }
+
+    /**
+     * @param tuple the tuple to add
+     */
+    void put(final JoinTuple tuple) {
+        final int hash = tuple.hashCode();
+        final long h1 = mix(hash);
+        final long h2 = mix(h1) | 1;
+        for (int i = 0; i < NUM_HASH_FUNCTIONS; i++) {
+            final long bit = Math.floorMod(h1 + i * h2, m_numBits);
+            m_bits[(int)(bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param tuple the tuple to test
+     * @return <code>false</code> if no equal tuple was added,
+     *         <code>true</code> if an equal tuple might have been added
+     */
+    boolean mightContain(final JoinTuple tuple) {
+        final int hash = tuple.hashCode();
+        final long h1 = mix(hash);
+        final long h2 = mix(h1) | 1;
+        for (int i = 0; i < NUM_HASH_FUNCTIONS; i++) {
+            final long bit = Math.floorMod(h1 + i * h2, m_numBits);
+            if ((m_bits[(int)(bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Spreads the bits of the value (finalizer of MurmurHash3). */
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
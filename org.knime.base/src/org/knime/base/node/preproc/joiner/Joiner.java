@@ -59,10 +59,13 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.knime.base.data.sort.SortedTable;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.DuplicateHandling;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinAlgorithm;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -70,7 +73,6 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
-import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
@@ -81,8 +83,11 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.property.hilite.HiLiteMapper;
 import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -122,8 +127,8 @@ public final class Joiner {
     private OutputRow.Settings m_outputDataRowSettings;
 
 
-    private HashMap<RowKey, Set<RowKey>> m_leftRowKeyMap;
-    private HashMap<RowKey, Set<RowKey>> m_rightRowKeyMap;
+    private HiLiteMapper m_leftHiLiteMapper;
+    private HiLiteMapper m_rightHiLiteMapper;
 
     private List<String> m_leftSurvivors;
     private List<String> m_rightSurvivors;
@@ -145,6 +150,20 @@ public final class Joiner {
     /** Only used for testcases, simulates an out-of-memory event after that many rows added in memory. */
     private int m_rowsAddedBeforeForcedOOM;
 
+    /** Maximum number of threads probing the outer table concurrently. */
+    private int m_parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Minimum number of rows of the outer table per probing thread. */
+    private long m_minRowsPerProbeTask = 100000;
+
+    /** Whether a Bloom filter is used to drop rows of the inner table that
+     * cannot match (changed in testing routines). */
+    private boolean m_bloomFilterEnabled = true;
+
+    /** Bloom filter over the join tuples of the outer table, <code>null</code>
+     * if not used. */
+    private JoinTupleBloomFilter m_bloomFilter;
+
     /**
      * Creates a new instance.
      *
@@ -160,26 +179,25 @@ public Joiner(final DataTableSpec leftTableSpec,
         m_rightDataTableSpec = rightTableSpec;
         m_settings = settings;
 
-        m_leftRowKeyMap = new HashMap<RowKey, Set<RowKey>>();
-        m_rightRowKeyMap = new HashMap<RowKey, Set<RowKey>>();
-
         m_configWarnings = new ArrayList<String>();
         m_runtimeWarnings = new ArrayList<String>();
 
     }
 
     /**
-     * @return the rowKeyMap
+     * @return the mapping from the rows of the left table to the joined rows
+     * or <code>null</code> if hiliting is disabled
      */
-    HashMap<RowKey, Set<RowKey>> getLeftRowKeyMap() {
-        return m_leftRowKeyMap;
+    HiLiteMapper getLeftHiLiteMapper() {
+        return m_leftHiLiteMapper;
     }
 
     /**
-     * @return the rowKeyMap
+     * @return the mapping from the rows of the right table to the joined rows
+     * or <code>null</code> if hiliting is disabled
      */
-    HashMap<RowKey, Set<RowKey>> getRightRowKeyMap() {
-        return m_rightRowKeyMap;
+    HiLiteMapper getRightHiLiteMapper() {
+        return m_rightHiLiteMapper;
     }
 
     /**
@@ -468,8 +486,8 @@ public BufferedDataTable computeJoinTable(
             final BufferedDataTable rightTable, final ExecutionContext exec)
     throws CanceledExecutionException, InvalidSettingsException {
         m_runtimeWarnings.clear();
-        m_leftRowKeyMap.clear();
-        m_rightRowKeyMap.clear();
+        m_leftHiLiteMapper = null;
+        m_rightHiLiteMapper = null;
 
         // This does some input data checking, too
         DataTableSpec joinedTableSpec = createSpec(new DataTableSpec[] {
@@ -505,6 +523,14 @@ public BufferedDataTable computeJoinTable(
             .equals(CompositionMode.MatchAny)
             && m_settings.getLeftJoinColumns().length > 1;
 
+        if (useSortMergeJoin(leftTable, rightTable)) {
+            BufferedDataTable joined = sortMergeJoin(leftTable, rightTable,
+                    joinedTableSpec, exec);
+            if (null != joined) {
+                return joined;
+            }
+        }
+
         if (m_retainLeft && m_matchAny) {
             m_globalLeftOuterJoins = new HashSet<Integer>();
             for (int i = 0; i < leftTable.getRowCount(); i++) {
@@ -515,6 +541,11 @@ public BufferedDataTable computeJoinTable(
 
         m_inputDataRowSettings = createInputDataRowSettings(leftTable,
                 rightTable);
+        m_bloomFilter = null;
+        if (m_bloomFilterEnabled && rightTable.size() > 0
+                && rightTable.size() <= leftTable.size() / 2) {
+            m_bloomFilter = createBloomFilter(rightTable, exec);
+        }
         int[] rightSurvivors = getIndicesOf(rightTable, m_rightSurvivors);
         m_outputDataRowSettings = new OutputRow.Settings(
                 rightTable.getDataTableSpec(),
@@ -567,6 +598,7 @@ public BufferedDataTable computeJoinTable(
             }
         }
         joinCont.close();
+        m_bloomFilter = null;
 
         // numbers are needed to report progress more precisely
         long totalNumJoins = joinCont.getRowCount();
@@ -598,7 +630,7 @@ public BufferedDataTable computeJoinTable(
 
         DataHiliteOutputContainer oc =
             new DataHiliteOutputContainer(joinedTableSpec,
-                    m_settings.getEnableHiLite(), leftTable,
+                    m_settings.getEnableHiLite(), leftTable, rightTable,
                     leftSurvivors, rightSurvivors,
                     createRowKeyFactory(leftTable, rightTable));
         oc.addTableAndFilterDuplicates(matches,
@@ -612,12 +644,90 @@ public BufferedDataTable computeJoinTable(
                         progressIntervals[2] * numRightOuter / totalNumJoins));
         oc.close();
 
-        m_leftRowKeyMap = oc.getLeftRowKeyMap();
-        m_rightRowKeyMap = oc.getRightRowKeyMap();
+        m_leftHiLiteMapper = oc.getLeftHiLiteMapper();
+        m_rightHiLiteMapper = oc.getRightHiLiteMapper();
 
         return oc.getTable();
     }
 
+    /**
+     * Decides whether the sort-merge join is used. It is used if selected in
+     * the settings or, with the automatic selection, if the zone maps of both
+     * tables indicate that they are sorted by the first joining column.
+     */
+    private boolean useSortMergeJoin(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable) {
+        JoinAlgorithm algorithm = m_settings.getJoinAlgorithm();
+        if (JoinAlgorithm.HybridHash.equals(algorithm)) {
+            return false;
+        }
+        List<Integer> leftJoinIndices = getLeftJoinIndices(leftTable);
+        List<Integer> rightJoinIndices = getRightJoinIndices(rightTable);
+        if (m_matchAny || !SortMergeJoin.isApplicable(
+                leftTable.getDataTableSpec(), leftJoinIndices,
+                rightTable.getDataTableSpec(), rightJoinIndices)) {
+            if (JoinAlgorithm.SortMerge.equals(algorithm)) {
+                m_runtimeWarnings.add("The sort-merge join requires the "
+                    + "option \"Match all of the following\" and joining "
+                    + "columns of equal types, the hybrid hash join is used "
+                    + "instead.");
+            }
+            return false;
+        }
+        return JoinAlgorithm.SortMerge.equals(algorithm)
+            || (SortMergeJoin.isSortedByZoneMap(leftTable,
+                    leftJoinIndices.get(0))
+                && SortMergeJoin.isSortedByZoneMap(rightTable,
+                    rightJoinIndices.get(0)));
+    }
+
+    /**
+     * Joins the tables with the sort-merge join.
+     *
+     * @return the joined table or <code>null</code> if the inputs are not
+     * sorted by the joining columns
+     */
+    private BufferedDataTable sortMergeJoin(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final DataTableSpec joinedTableSpec, final ExecutionContext exec)
+            throws CanceledExecutionException {
+        exec.setMessage("Merge sorted tables");
+        DataHiliteOutputContainer oc =
+            new DataHiliteOutputContainer(joinedTableSpec,
+                    m_settings.getEnableHiLite(), leftTable, rightTable,
+                    getIndicesOf(leftTable, m_leftSurvivors),
+                    getIndicesOf(rightTable, m_rightSurvivors),
+                    createRowKeyFactory(leftTable, rightTable));
+        SortMergeJoin join = new SortMergeJoin(leftTable, rightTable,
+                getLeftJoinIndices(leftTable), getRightJoinIndices(rightTable),
+                m_retainLeft, m_retainRight);
+        boolean sorted = true;
+        try {
+            join.join(oc, exec);
+        } catch (SortMergeJoin.UnsortedInputException e) {
+            sorted = false;
+            if (JoinAlgorithm.SortMerge.equals(
+                    m_settings.getJoinAlgorithm())) {
+                m_runtimeWarnings.add(e.getMessage()
+                    + ", the hybrid hash join is used instead.");
+            } else {
+                LOGGER.debug(e.getMessage()
+                    + ", falling back to hybrid hash join.");
+            }
+        }
+        // creates the container if no row was added
+        oc.addTableAndFilterDuplicates(null, exec);
+        oc.close();
+        if (!sorted) {
+            exec.clearTable(oc.getTable());
+            exec.setProgress(0.0);
+            return null;
+        }
+        m_leftHiLiteMapper = oc.getLeftHiLiteMapper();
+        m_rightHiLiteMapper = oc.getRightHiLiteMapper();
+        return oc.getTable();
+    }
+
     /** This method start with reading the partitions of the left table defined
      * in currParts. If memory is low, partitions will be skipped or the
      * number of partitions will be raised which leads to smaller partitions.
@@ -678,10 +788,19 @@ private Collection<Integer> performJoin(
 
                 for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
                     int partition = tuple.hashCode() & m_bitMask;
-                    if (currParts.contains(partition)) {
+                    if (!currParts.contains(partition)) {
+                        continue;
+                    }
+                    if (null == m_bloomFilter
+                            || m_bloomFilter.mightContain(tuple)) {
                         addRow(leftTableHashed, leftOuterJoins,
                                 partition, tuple, inputDataRow);
                         rowsAdded++;
+                    } else if (m_retainLeft && !m_matchAny) {
+                        // the row cannot match, it is only needed as left
+                        // outer join
+                        addLeftOuterJoin(leftOuterJoins, partition,
+                                inputDataRow);
                     }
                 }
                 counter++;
@@ -842,6 +961,45 @@ private void retainPartitions(
         }
     }
 
+    /** Adds the index of the row to the left outer joins of the partition. */
+    private static void addLeftOuterJoin(
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final int partition, final InputRow row) {
+        Set<Integer> indices = leftOuterJoins.get(partition);
+        if (null == indices) {
+            indices = new HashSet<Integer>();
+            leftOuterJoins.put(partition, indices);
+        }
+        indices.add(row.getIndex());
+    }
+
+    /**
+     * Reads the join tuples of the outer table into a Bloom filter. The rows
+     * of the inner table whose tuples are not contained in the filter cannot
+     * match and are not kept in memory, which reduces the number of
+     * partitions that have to be processed subsequently.
+     */
+    private JoinTupleBloomFilter createBloomFilter(
+            final BufferedDataTable rightTable, final ExecutionContext exec)
+            throws CanceledExecutionException {
+        exec.setMessage("Build Bloom filter of bottom input table");
+        long numTuples = rightTable.size()
+            * (m_matchAny ? m_settings.getLeftJoinColumns().length : 1);
+        JoinTupleBloomFilter filter = new JoinTupleBloomFilter(numTuples);
+        int counter = 0;
+        for (DataRow dataRow : rightTable) {
+            exec.checkCanceled();
+            InputRow rightRow = new InputRow(dataRow, counter,
+                    InputRow.Settings.InDataPort.Right,
+                    m_inputDataRowSettings);
+            for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
+                filter.put(joinTuple);
+            }
+            counter++;
+        }
+        return filter;
+    }
+
     /**
      * Add a row to innerHash and innerIndexMap.
      * @param partition The index of the partition.
@@ -854,12 +1012,7 @@ private void addRow(
             final int partition, final JoinTuple joinTuple,
             final InputRow row) {
         if (m_retainLeft  && !m_matchAny) {
-            Set<Integer> indices = leftOuterJoins.get(partition);
-            if (null == indices) {
-                indices = new HashSet<Integer>();
-                leftOuterJoins.put(partition, indices);
-            }
-            indices.add(row.getIndex());
+            addLeftOuterJoin(leftOuterJoins, partition, row);
         }
 
         Map<JoinTuple, Set<Integer>> partTuples =
@@ -884,7 +1037,9 @@ private void addRow(
 
 
     /**
-     * Join given rows in memory and append joined row to the outputCont.
+     * Join given rows in memory and append joined row to the outputCont. If
+     * the outer table is large enough, contiguous parts of it are probed in
+     * parallel against the (read-only) hash tables of the inner table.
      *
      * @param leftTableHashed Stores the rows of the left input table in parts.
      * @param leftOuterJoins The same number as found in leftTableHashed used
@@ -904,11 +1059,73 @@ private void joinInMemory(
             final JoinContainer outputCont,
             final ExecutionContext exec,
             final double incProgress) throws CanceledExecutionException {
-        double progress = exec.getProgressMonitor().getProgress();
-        int counter = 0;
+        final double progress = exec.getProgressMonitor().getProgress();
+        final AtomicLong processedRows = new AtomicLong();
+        final int numTasks = (int)Math.max(1, Math.min(m_parallelism,
+                rightTable.size() / m_minRowsPerProbeTask));
+        if (numTasks == 1) {
+            probe(leftTableHashed, leftOuterJoins, currParts, rightTable, 0,
+                    outputCont, exec, progress, incProgress, processedRows);
+        } else {
+            final BufferedDataTable[] rightParts =
+                rightTable.partition(numTasks);
+            final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL
+                    .createSubPool(rightParts.length);
+            final List<Future<Void>> futures =
+                new ArrayList<Future<Void>>(rightParts.length);
+            int firstIndex = 0;
+            for (final BufferedDataTable rightPart : rightParts) {
+                final int partFirstIndex = firstIndex;
+                futures.add(pool.enqueue(() -> {
+                    probe(leftTableHashed, leftOuterJoins, currParts,
+                            rightPart, partFirstIndex, outputCont, exec,
+                            progress, incProgress, processedRows);
+                    return null;
+                }));
+                firstIndex += rightPart.size();
+            }
+            // the current thread is released while waiting if it's a worker of a thread pool
+            ThreadPool.waitForAll(futures);
+        }
+
+        if (m_retainLeft && !m_matchAny) {
+            for (int partition : leftOuterJoins.keySet()) {
+                for (Integer row : leftOuterJoins.get(partition)) {
+                    // add left outer join
+                    DataRow outRow = OutputRow.createDataRow(
+                            outputCont.getRowCount(),
+                            row, -1,
+                            m_outputDataRowSettings);
+                    outputCont.addLeftOuter(outRow, exec);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Probes the rows of the given (part of the) outer table against the hash
+     * tables of the inner table. Might be called concurrently for different
+     * parts of the outer table.
+     *
+     * @param firstIndex The index of the first row of the given table in the
+     * outer table.
+     */
+    private void probe(
+            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final Collection<Integer> currParts,
+            final BufferedDataTable rightTable,
+            final int firstIndex,
+            final JoinContainer outputCont,
+            final ExecutionContext exec,
+            final double progress,
+            final double incProgress,
+            final AtomicLong processedRows) throws CanceledExecutionException {
+        int counter = firstIndex;
         for (DataRow dataRow : rightTable) {
-            progress += incProgress;
-            exec.getProgressMonitor().setProgress(progress);
+            exec.getProgressMonitor().setProgress(
+                    progress + processedRows.incrementAndGet() * incProgress);
             exec.checkCanceled();
 
             InputRow rightRow = new InputRow(dataRow, counter,
@@ -944,18 +1161,25 @@ private void joinInMemory(
                 if (null != leftRows) {
                     matchFoundForRightRow = true;
                     for (Integer leftRowIndex : leftRows) {
-                        // add inner join
-                        DataRow outRow = OutputRow.createDataRow(
-                                outputCont.getRowCount(),
-                                leftRowIndex, rightRow.getIndex(),
-                                dataRow,
-                                m_outputDataRowSettings);
-                        outputCont.addMatch(outRow, exec);
+                        // add inner join, the row count is used as
+                        // (temporary) row key and must not change meanwhile
+                        synchronized (outputCont) {
+                            DataRow outRow = OutputRow.createDataRow(
+                                    outputCont.getRowCount(),
+                                    leftRowIndex, rightRow.getIndex(),
+                                    dataRow,
+                                    m_outputDataRowSettings);
+                            outputCont.addMatch(outRow, exec);
+                        }
                         if (m_retainLeft && !m_matchAny) {
-                            localLeftOuterJoins.remove(leftRowIndex);
+                            synchronized (localLeftOuterJoins) {
+                                localLeftOuterJoins.remove(leftRowIndex);
+                            }
                         }
                         if (m_retainLeft && m_matchAny) {
-                            m_globalLeftOuterJoins.remove(leftRowIndex);
+                            synchronized (m_globalLeftOuterJoins) {
+                                m_globalLeftOuterJoins.remove(leftRowIndex);
+                            }
                         }
                     }
                 }
@@ -963,30 +1187,18 @@ private void joinInMemory(
 
 
             if (m_retainRight && !matchFoundForRightRow && !deferMatch) {
-                long outRowIndex = outputCont.getRowCount();
                 // add right outer join
-                DataRow outRow = OutputRow.createDataRow(outRowIndex,
-                        -1, rightRow.getIndex(),
-                        dataRow,
-                        m_outputDataRowSettings);
-                outputCont.addRightOuter(outRow, exec);
-            }
-            counter++;
-        }
-
-        if (m_retainLeft && !m_matchAny) {
-            for (int partition : leftOuterJoins.keySet()) {
-                for (Integer row : leftOuterJoins.get(partition)) {
-                    // add left outer join
+                synchronized (outputCont) {
                     DataRow outRow = OutputRow.createDataRow(
                             outputCont.getRowCount(),
-                            row, -1,
+                            -1, rightRow.getIndex(),
+                            dataRow,
                             m_outputDataRowSettings);
-                    outputCont.addLeftOuter(outRow, exec);
+                    outputCont.addRightOuter(outRow, exec);
                 }
             }
+            counter++;
         }
-
     }
 
     private List<Integer> getLeftJoinIndices(
@@ -1239,5 +1451,25 @@ void setNumBitsMaximal(final int bits) {
         m_numBitsMaximal = bits;
     }
 
+    /**
+     * Used for testing, only.
+     * @param parallelism maximum number of threads probing the outer table
+     * @param minRowsPerTask minimum number of rows of the outer table per
+     * thread
+     */
+    void setParallelism(final int parallelism, final long minRowsPerTask) {
+        m_parallelism = parallelism;
+        m_minRowsPerProbeTask = minRowsPerTask;
+    }
+
+    /**
+     * Used for testing, only.
+     * @param enabled whether rows of the inner table are filtered with a
+     * Bloom filter over the join tuples of the outer table
+     */
+    void setBloomFilterEnabled(final boolean enabled) {
+        m_bloomFilterEnabled = enabled;
+    }
+
 }
 
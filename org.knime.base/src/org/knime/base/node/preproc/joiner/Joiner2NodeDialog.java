@@ -71,6 +71,7 @@
 import javax.swing.event.ChangeListener;
 
 import org.knime.base.node.preproc.joiner.Joiner2Settings.DuplicateHandling;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinAlgorithm;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataTableSpec;
@@ -126,6 +127,9 @@ public class Joiner2NodeDialog extends NodeDialogPane {
 
     private final JCheckBox m_enableHiLite =
         new JCheckBox("Enable hiliting");
+
+    private final JComboBox<JoinAlgorithm> m_joinAlgorithm =
+            new JComboBox<>(JoinAlgorithm.values());
     /**
      * Creates a new dialog for the joiner node.
      */
@@ -302,6 +306,12 @@ private JPanel createPerformanceUIControls() {
                 m_maxOpenFiles.getPreferredSize().height));
         p.add(m_maxOpenFiles, c);
 
+        c.gridx = 0;
+        c.gridy++;
+        p.add(new JLabel("Join algorithm:"), c);
+        c.gridx++;
+        p.add(m_joinAlgorithm, c);
+
         c.gridx = 0;
         c.gridy++;
         c.gridwidth = 2;
@@ -473,6 +483,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         m_maxOpenFiles.setText(Integer.toString(m_settings.getMaxOpenFiles()));
         m_rowKeySeparator.setText(m_settings.getRowKeySeparator());
         m_enableHiLite.setSelected(m_settings.getEnableHiLite());
+        m_joinAlgorithm.setSelectedItem(m_settings.getJoinAlgorithm());
     }
 
     /**
@@ -553,6 +564,8 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
         m_settings.setMaxOpenFiles(Integer.parseInt(m_maxOpenFiles.getText()));
         m_settings.setRowKeySeparator(m_rowKeySeparator.getText());
         m_settings.setEnableHiLite(m_enableHiLite.isSelected());
+        m_settings.setJoinAlgorithm(
+                (JoinAlgorithm)m_joinAlgorithm.getSelectedItem());
 
         m_settings.saveSettings(settings);
     }
@@ -51,11 +51,8 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Set;
 
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.RowKey;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -81,12 +78,6 @@ public class Joiner2NodeModel extends NodeModel {
     private final Joiner2Settings m_settings = new Joiner2Settings();
 
 
-    private HashMap<RowKey, Set<RowKey>> m_leftRowKeyMap
-        = new HashMap<RowKey, Set<RowKey>>();
-    private HashMap<RowKey, Set<RowKey>> m_rightRowKeyMap
-        = new HashMap<RowKey, Set<RowKey>>();
-
-
     private HiLiteHandler m_outHandler;
     private HiLiteTranslator m_rightTranslator;
     private HiLiteTranslator m_leftTranslator;
@@ -138,10 +129,14 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
                 setWarningMessage(warning);
             }
         }
-        m_leftRowKeyMap = joiner.getLeftRowKeyMap();
-        m_rightRowKeyMap = joiner.getRightRowKeyMap();
-        m_leftMapper = new DefaultHiLiteMapper(m_leftRowKeyMap);
-        m_rightMapper = new DefaultHiLiteMapper(m_rightRowKeyMap);
+        m_leftMapper = joiner.getLeftHiLiteMapper();
+        if (m_leftMapper == null) {
+            m_leftMapper = new DefaultHiLiteMapper(null);
+        }
+        m_rightMapper = joiner.getRightHiLiteMapper();
+        if (m_rightMapper == null) {
+            m_rightMapper = new DefaultHiLiteMapper(null);
+        }
         m_leftTranslator.setMapper(m_leftMapper);
         m_rightTranslator.setMapper(m_rightMapper);
 
@@ -188,8 +183,8 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
      */
     @Override
     protected void reset() {
-        m_leftRowKeyMap = null;
-        m_rightRowKeyMap = null;
+        m_leftMapper = null;
+        m_rightMapper = null;
         m_leftTranslator.setMapper(null);
         m_rightTranslator.setMapper(null);
     }
@@ -231,17 +226,26 @@ protected void saveInternals(final File nodeInternDir,
         NodeSettings internalSettings = new NodeSettings("joiner");
         NodeSettingsWO leftMapSet =
             internalSettings.addNodeSettings("leftHiliteMapping");
-        ((DefaultHiLiteMapper) m_leftTranslator.getMapper()).save(leftMapSet);
+        saveMapper(m_leftTranslator.getMapper(), leftMapSet);
 
         NodeSettingsWO rightMapSet =
             internalSettings.addNodeSettings("rightHiliteMapping");
-        ((DefaultHiLiteMapper) m_rightTranslator.getMapper()).save(rightMapSet);
+        saveMapper(m_rightTranslator.getMapper(), rightMapSet);
 
         File f = new File(nodeInternDir, "joinerInternalSettings");
         FileOutputStream out = new FileOutputStream(f);
         internalSettings.saveToXML(out);
     }
 
+    private static void saveMapper(final HiLiteMapper mapper,
+            final NodeSettingsWO settings) {
+        if (mapper instanceof JoinerHiLiteMapper) {
+            ((JoinerHiLiteMapper)mapper).save(settings);
+        } else {
+            ((DefaultHiLiteMapper)mapper).save(settings);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -74,6 +74,7 @@ public class Joiner2Settings {
     private static final String MAX_OPEN_FILES = "maxOpenFiles";
     private static final String ROW_KEY_SEPARATOR = "rowKeySeparator";
     private static final String ENABLE_HILITE = "enableHiLite";
+    private static final String JOIN_ALGORITHM = "joinAlgorithm";
     private static final String VERSION = "version";
 
     /**
@@ -156,6 +157,36 @@ public enum CompositionMode {
         MatchAny;
     }
 
+    /**
+     * This enum holds the algorithms that can be used for joining the two
+     * tables.
+     *
+     * @since 3.6
+     */
+    public enum JoinAlgorithm {
+        /** Use the sort-merge join if the tables are known to be sorted by the
+         * joining columns, otherwise the hybrid hash join. */
+        Auto("Automatic"),
+        /** Use the hybrid hash join. */
+        HybridHash("Hybrid hash join"),
+        /** Use the sort-merge join, the tables must be sorted ascending by the
+         * joining columns. */
+        SortMerge("Sort-merge join (inputs sorted by joining columns)");
+
+        private final String m_text;
+
+        private JoinAlgorithm(final String text) {
+            m_text = text;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return m_text;
+        }
+    }
 
     /** Internally used row key identifier. */
     static final String ROW_KEY_IDENTIFIER = "$RowID$";
@@ -184,6 +215,7 @@ public enum CompositionMode {
     private int m_maxOpenFiles = 200;
     private String m_rowKeySeparator = "_";
     private boolean m_enableHiLite = false;
+    private JoinAlgorithm m_joinAlgorithm = JoinAlgorithm.Auto;
 
     private String m_version = VERSION_3;
 
@@ -495,6 +527,26 @@ public void setEnableHiLite(final boolean enableHiLite) {
         m_enableHiLite = enableHiLite;
     }
 
+    /**
+     * Returns the algorithm used for joining the tables.
+     *
+     * @return the join algorithm
+     * @since 3.6
+     */
+    public JoinAlgorithm getJoinAlgorithm() {
+        return m_joinAlgorithm;
+    }
+
+    /**
+     * Sets the algorithm used for joining the tables.
+     *
+     * @param joinAlgorithm the join algorithm
+     * @since 3.6
+     */
+    public void setJoinAlgorithm(final JoinAlgorithm joinAlgorithm) {
+        m_joinAlgorithm = joinAlgorithm;
+    }
+
     /**
      * Loads the settings from the node settings object.
      *
@@ -531,6 +583,15 @@ public void loadSettings(final NodeSettingsRO settings)
         m_maxOpenFiles = settings.getInt(MAX_OPEN_FILES);
         m_rowKeySeparator = settings.getString(ROW_KEY_SEPARATOR);
         m_enableHiLite = settings.getBoolean(ENABLE_HILITE);
+        // added in 3.6
+        String joinAlgorithm = settings.getString(
+                JOIN_ALGORITHM, JoinAlgorithm.Auto.name());
+        try {
+            m_joinAlgorithm = JoinAlgorithm.valueOf(joinAlgorithm);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSettingsException("Invalid join algorithm: "
+                    + joinAlgorithm, e);
+        }
 
 
     }
@@ -583,6 +644,13 @@ public void loadSettingsForDialog(final NodeSettingsRO settings) {
         m_maxOpenFiles = settings.getInt(MAX_OPEN_FILES, 200);
         m_rowKeySeparator = settings.getString(ROW_KEY_SEPARATOR, "_");
         m_enableHiLite = settings.getBoolean(ENABLE_HILITE, false);
+        try {
+            m_joinAlgorithm = JoinAlgorithm.valueOf(settings.getString(
+                    JOIN_ALGORITHM, JoinAlgorithm.Auto.name()));
+        } catch (IllegalArgumentException e) {
+            // settings from a later version, the dialog shows the default
+            m_joinAlgorithm = JoinAlgorithm.Auto;
+        }
 
 
     }
@@ -611,6 +679,7 @@ public void saveSettings(final NodeSettingsWO settings) {
         settings.addInt(MAX_OPEN_FILES, m_maxOpenFiles);
         settings.addString(ROW_KEY_SEPARATOR, m_rowKeySeparator);
         settings.addBoolean(ENABLE_HILITE, m_enableHiLite);
+        settings.addString(JOIN_ALGORITHM, m_joinAlgorithm.name());
         // save default values for settings that were removed in 2.5, so that
         // a workflow created with 2.5 can be opened in 2.4.
         settings.addInt("numBitsInitial", 6);
@@ -0,0 +1,201 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.joiner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.config.ConfigWO;
+import org.knime.core.node.property.hilite.DefaultHiLiteMapper;
+import org.knime.core.node.property.hilite.HiLiteMapper;
+
+/**
+ * Maps the rows of one of the input tables of the joiner to the joined rows. Unlike the {@link DefaultHiLiteMapper}
+ * it only keeps the row indices in primitive arrays. The row keys of the input and the joined table are read when
+ * the mapping is used for the first time, which usually never happens if the workflow is executed in batch mode.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JoinerHiLiteMapper implements HiLiteMapper {
+
+    /** Same key as in {@link DefaultHiLiteMapper} so that saved mappings can be loaded with it. */
+    private static final String CFG_MAPPED_KEYS = "CFG_MAPPED_KEYS";
+
+    private final BufferedDataTable m_inputTable;
+
+    private final BufferedDataTable m_joinedTable;
+
+    /** The joined rows of input row i are m_joinedIndices[m_offsets[i]] to m_joinedIndices[m_offsets[i + 1] - 1]. */
+    private final int[] m_offsets;
+
+    private final int[] m_joinedIndices;
+
+    /** Input row keys with at least one joined row to their index, created lazily. */
+    private Map<RowKey, Integer> m_inputIndices;
+
+    /** The row keys of the joined table, created lazily. */
+    private RowKey[] m_joinedKeys;
+
+    /**
+     * @param inputTable the input table
+     * @param joinedTable the joined table
+     * @param inputIndices for each row of the joined table the index of the row in the input table or -1 if it has no
+     *            counterpart in the input table, the array might be longer than the joined table
+     * @param joinedRowCount the number of rows in the joined table
+     */
+    JoinerHiLiteMapper(final BufferedDataTable inputTable, final BufferedDataTable joinedTable,
+        final int[] inputIndices, final int joinedRowCount) {
+        m_inputTable = inputTable;
+        m_joinedTable = joinedTable;
+        // counting sort of the joined rows by their input row
+        final int inputRowCount = (int)inputTable.size();
+        m_offsets = new int[inputRowCount + 1];
+        int mapped = 0;
+        for (int i = 0; i < joinedRowCount; i++) {
+            if (inputIndices[i] >= 0) {
+                m_offsets[inputIndices[i] + 1]++;
+                mapped++;
+            }
+        }
+        for (int i = 0; i < inputRowCount; i++) {
+            m_offsets[i + 1] += m_offsets[i];
+        }
+        m_joinedIndices = new int[mapped];
+        final int[] next = new int[inputRowCount];
+        System.arraycopy(m_offsets, 0, next, 0, inputRowCount);
+        for (int i = 0; i < joinedRowCount; i++) {
+            if (inputIndices[i] >= 0) {
+                m_joinedIndices[next[inputIndices[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<RowKey> getKeys(final RowKey key) {
+        final Integer index = getInputIndices().get(key);
+        if (index == null) {
+            return null;
+        }
+        final RowKey[] joinedKeys = getJoinedKeys();
+        final Set<RowKey> keys = new LinkedHashSet<RowKey>();
+        for (int i = m_offsets[index]; i < m_offsets[index + 1]; i++) {
+            keys.add(joinedKeys[m_joinedIndices[i]]);
+        }
+        return keys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<RowKey> keySet() {
+        return Collections.unmodifiableSet(getInputIndices().keySet());
+    }
+
+    /**
+     * Saves the mapping in the format of {@link DefaultHiLiteMapper#save(ConfigWO)}.
+     *
+     * @param config the config to write to
+     */
+    public void save(final ConfigWO config) {
+        final RowKey[] joinedKeys = getJoinedKeys();
+        try (CloseableRowIterator it = m_inputTable.iterator()) {
+            for (int index = 0; it.hasNext(); index++) {
+                final RowKey key = it.next().getKey();
+                final int from = m_offsets[index];
+                final int to = m_offsets[index + 1];
+                if (from == to) {
+                    continue;
+                }
+                final RowKey[] mappedKeys = new RowKey[to - from];
+                for (int i = from; i < to; i++) {
+                    mappedKeys[i - from] = joinedKeys[m_joinedIndices[i]];
+                }
+                final ConfigWO keySettings = config.addConfig(key.toString());
+                keySettings.addString(key.getString(), key.getString());
+                keySettings.addRowKeyArray(CFG_MAPPED_KEYS, mappedKeys);
+            }
+        }
+    }
+
+    private synchronized Map<RowKey, Integer> getInputIndices() {
+        if (m_inputIndices == null) {
+            final Map<RowKey, Integer> inputIndices = new HashMap<RowKey, Integer>();
+            try (CloseableRowIterator it = m_inputTable.iterator()) {
+                for (int index = 0; it.hasNext(); index++) {
+                    final RowKey key = it.next().getKey();
+                    if (m_offsets[index] < m_offsets[index + 1]) {
+                        inputIndices.put(key, index);
+                    }
+                }
+            }
+            m_inputIndices = inputIndices;
+        }
+        return m_inputIndices;
+    }
+
+    private synchronized RowKey[] getJoinedKeys() {
+        if (m_joinedKeys == null) {
+            final RowKey[] joinedKeys = new RowKey[(int)m_joinedTable.size()];
+            int index = 0;
+            for (DataRow row : m_joinedTable) {
+                joinedKeys[index++] = row.getKey();
+            }
+            m_joinedKeys = joinedKeys;
+        }
+        return m_joinedKeys;
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.preproc.joiner;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ZoneMap;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Joins two tables that are both sorted ascending by the joining columns (in the order of the column types'
+ * comparators, missing values first) by streaming them once in parallel. Only the rows of the right table with
+ * equal join values are kept in memory. The order of the input rows is verified while streaming; if a table is
+ * not sorted an {@link UnsortedInputException} is thrown and the caller has to use another join algorithm.
+ * <p>
+ * The joined table is identical to the one created by the hybrid hash join: first all matches ordered by left
+ * and right row index, then the left outer rows, then the right outer rows. The outer rows are only remembered by
+ * their index and are read again afterwards.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SortMergeJoin {
+
+    /** Thrown if one of the inputs is not sorted by the joining columns. */
+    @SuppressWarnings("serial")
+    static final class UnsortedInputException extends Exception {
+        UnsortedInputException(final String message) {
+            super(message);
+        }
+    }
+
+    private final BufferedDataTable m_leftTable;
+
+    private final BufferedDataTable m_rightTable;
+
+    private final int[] m_leftJoinIndices;
+
+    private final int[] m_rightJoinIndices;
+
+    private final DataValueComparator[] m_comparators;
+
+    private final boolean m_retainLeft;
+
+    private final boolean m_retainRight;
+
+    /**
+     * @param leftTable the left table
+     * @param rightTable the right table
+     * @param leftJoinIndices the joining columns of the left table (-1 for the row key)
+     * @param rightJoinIndices the joining columns of the right table (-1 for the row key)
+     * @param retainLeft whether left rows without match are added to the output
+     * @param retainRight whether right rows without match are added to the output
+     */
+    SortMergeJoin(final BufferedDataTable leftTable, final BufferedDataTable rightTable,
+        final List<Integer> leftJoinIndices, final List<Integer> rightJoinIndices, final boolean retainLeft,
+        final boolean retainRight) {
+        m_leftTable = leftTable;
+        m_rightTable = rightTable;
+        m_leftJoinIndices = toArray(leftJoinIndices);
+        m_rightJoinIndices = toArray(rightJoinIndices);
+        m_comparators = new DataValueComparator[m_leftJoinIndices.length];
+        for (int i = 0; i < m_comparators.length; i++) {
+            m_comparators[i] = getJoinType(leftTable.getDataTableSpec(), m_leftJoinIndices[i]).getComparator();
+        }
+        m_retainLeft = retainLeft;
+        m_retainRight = retainRight;
+    }
+
+    private static int[] toArray(final List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static DataType getJoinType(final DataTableSpec spec, final int index) {
+        // row keys are joined as string cells, see InputRow
+        return index < 0 ? StringCell.TYPE : spec.getColumnSpec(index).getType();
+    }
+
+    /**
+     * @param leftSpec spec of the left table
+     * @param leftJoinIndices the joining columns of the left table (-1 for the row key)
+     * @param rightSpec spec of the right table
+     * @param rightJoinIndices the joining columns of the right table (-1 for the row key)
+     * @return whether the joining columns of both tables have the same types, which is required as the order of
+     *         both tables is determined with the same comparators
+     */
+    static boolean isApplicable(final DataTableSpec leftSpec, final List<Integer> leftJoinIndices,
+        final DataTableSpec rightSpec, final List<Integer> rightJoinIndices) {
+        if (leftJoinIndices.isEmpty() || leftJoinIndices.size() != rightJoinIndices.size()) {
+            return false;
+        }
+        for (int i = 0; i < leftJoinIndices.size(); i++) {
+            if (!getJoinType(leftSpec, leftJoinIndices.get(i))
+                .equals(getJoinType(rightSpec, rightJoinIndices.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the {@link ZoneMap} of the table whether the chunks of rows are ordered by the given column, i.e.
+     * whether the table is likely to be sorted by it. Missing values are only allowed before all other values.
+     *
+     * @param table the table
+     * @param column the column index (-1 for the row key, for which no statistics are available)
+     * @return <code>true</code> if the table has statistics for the column with at least two chunks that are in
+     *         ascending order
+     */
+    static boolean isSortedByZoneMap(final BufferedDataTable table, final int column) {
+        final ZoneMap zoneMap = table.getZoneMap();
+        if (zoneMap == null || !zoneMap.hasStatistics(column) || zoneMap.getChunkCount() < 2) {
+            return false;
+        }
+        final DataValueComparator comparator = table.getDataTableSpec().getColumnSpec(column).getType().getComparator();
+        DataCell previousMax = null;
+        for (int chunk = 0; chunk < zoneMap.getChunkCount(); chunk++) {
+            final DataCell min = zoneMap.getMin(column, chunk);
+            if (min == null) {
+                // only missing values
+                if (previousMax != null) {
+                    return false;
+                }
+                continue;
+            }
+            if (previousMax != null
+                && (zoneMap.getMissingCount(column, chunk) > 0 || comparator.compare(previousMax, min) > 0)) {
+                return false;
+            }
+            previousMax = zoneMap.getMax(column, chunk);
+        }
+        return previousMax != null;
+    }
+
+    /**
+     * Joins the tables and adds the joined rows to the given container.
+     *
+     * @param oc the container for the joined rows
+     * @param exec the execution context
+     * @throws CanceledExecutionException if execution is canceled
+     * @throws UnsortedInputException if one of the tables is not sorted by the joining columns, the container then
+     *             contains an incomplete result
+     */
+    void join(final DataHiliteOutputContainer oc, final ExecutionContext exec)
+        throws CanceledExecutionException, UnsortedInputException {
+        final BitSet leftOuter = new BitSet();
+        final BitSet rightOuter = new BitSet();
+        final double numRows = Math.max(1, m_leftTable.size() + m_rightTable.size());
+        try (CloseableRowIterator leftIter = m_leftTable.iterator();
+                CloseableRowIterator rightIter = m_rightTable.iterator()) {
+            final RightGroup group = new RightGroup(rightIter);
+            group.advance();
+            DataCell[] previousKey = null;
+            int leftIndex = 0;
+            while (leftIter.hasNext()) {
+                exec.checkCanceled();
+                exec.setProgress((leftIndex + group.m_nextIndex) / numRows);
+                final DataRow left = leftIter.next();
+                final DataCell[] key = getKey(left, m_leftJoinIndices);
+                if (previousKey != null && compare(previousKey, key) > 0) {
+                    throw new UnsortedInputException("Top input table is not sorted by the joining columns (row \""
+                        + left.getKey() + "\")");
+                }
+                while (group.m_key != null && compare(group.m_key, key) < 0) {
+                    group.finish(rightOuter);
+                    group.advance();
+                }
+                boolean matched = false;
+                if (group.m_key != null && compare(group.m_key, key) == 0) {
+                    for (int i = 0; i < group.m_rows.size(); i++) {
+                        if (matches(key, group.m_keys.get(i))) {
+                            oc.addJoinedRow(left, leftIndex, group.m_rows.get(i), group.m_firstIndex + i, exec);
+                            group.m_matched.set(i);
+                            matched = true;
+                        }
+                    }
+                }
+                if (!matched && m_retainLeft) {
+                    leftOuter.set(leftIndex);
+                }
+                previousKey = key;
+                leftIndex++;
+            }
+            // read the remaining rows to verify that the right table is sorted (otherwise there might be
+            // rows that match left rows that were already processed)
+            while (group.m_key != null) {
+                exec.checkCanceled();
+                group.finish(rightOuter);
+                group.advance();
+            }
+        }
+        addOuterRows(oc, exec, leftOuter, rightOuter);
+    }
+
+    private void addOuterRows(final DataHiliteOutputContainer oc, final ExecutionContext exec,
+        final BitSet leftOuter, final BitSet rightOuter) throws CanceledExecutionException {
+        if (!leftOuter.isEmpty()) {
+            exec.setMessage("Adding left outer rows");
+            final int first = leftOuter.nextSetBit(0);
+            try (CloseableRowIterator it = m_leftTable.rangeIterator(first, leftOuter.length())) {
+                for (int index = first; it.hasNext(); index++) {
+                    exec.checkCanceled();
+                    final DataRow row = it.next();
+                    if (leftOuter.get(index)) {
+                        oc.addJoinedRow(row, index, null, -1, exec);
+                    }
+                }
+            }
+        }
+        if (!rightOuter.isEmpty()) {
+            exec.setMessage("Adding right outer rows");
+            final int first = rightOuter.nextSetBit(0);
+            try (CloseableRowIterator it = m_rightTable.rangeIterator(first, rightOuter.length())) {
+                for (int index = first; it.hasNext(); index++) {
+                    exec.checkCanceled();
+                    final DataRow row = it.next();
+                    if (rightOuter.get(index)) {
+                        oc.addJoinedRow(null, -1, row, index, exec);
+                    }
+                }
+            }
+        }
+    }
+
+    private static DataCell[] getKey(final DataRow row, final int[] joinIndices) {
+        final DataCell[] key = new DataCell[joinIndices.length];
+        for (int i = 0; i < joinIndices.length; i++) {
+            // create a StringCell since row IDs may match StringCell's
+            key[i] = joinIndices[i] >= 0 ? row.getCell(joinIndices[i]) : new StringCell(row.getKey().getString());
+        }
+        return key;
+    }
+
+    private int compare(final DataCell[] key1, final DataCell[] key2) {
+        for (int i = 0; i < key1.length; i++) {
+            final int c = m_comparators[i].compare(key1[i], key2[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /** Same semantics as {@link JoinTuple#equals(Object)}: missing cells never match. */
+    private static boolean matches(final DataCell[] key1, final DataCell[] key2) {
+        for (int i = 0; i < key1.length; i++) {
+            if (key1[i].isMissing() || key2[i].isMissing() || !key1[i].equals(key2[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The consecutive rows of the right table whose join values are equal according to the comparators. */
+    private final class RightGroup {
+
+        private final CloseableRowIterator m_iter;
+
+        private final List<DataRow> m_rows = new ArrayList<DataRow>();
+
+        private final List<DataCell[]> m_keys = new ArrayList<DataCell[]>();
+
+        private final BitSet m_matched = new BitSet();
+
+        /** Join values of the group, <code>null</code> if the right table is exhausted. */
+        private DataCell[] m_key;
+
+        private int m_firstIndex;
+
+        /** Index of the next row to read. */
+        private int m_nextIndex;
+
+        private DataRow m_next;
+
+        private DataCell[] m_nextKey;
+
+        RightGroup(final CloseableRowIterator iter) {
+            m_iter = iter;
+            readNext();
+        }
+
+        private void readNext() {
+            if (m_iter.hasNext()) {
+                m_next = m_iter.next();
+                m_nextKey = getKey(m_next, m_rightJoinIndices);
+            } else {
+                m_next = null;
+                m_nextKey = null;
+            }
+        }
+
+        /** Reads the next group of rows. */
+        void advance() throws UnsortedInputException {
+            m_rows.clear();
+            m_keys.clear();
+            m_matched.clear();
+            m_key = m_nextKey;
+            m_firstIndex = m_nextIndex;
+            while (m_next != null) {
+                final int c = compare(m_key, m_nextKey);
+                if (c > 0) {
+                    throw new UnsortedInputException("Bottom input table is not sorted by the joining columns (row \""
+                        + m_next.getKey() + "\")");
+                } else if (c < 0) {
+                    break;
+                }
+                m_rows.add(m_next);
+                m_keys.add(m_nextKey);
+                m_nextIndex++;
+                readNext();
+            }
+        }
+
+        /** Remembers the rows of the group without match as right outer rows (if required). */
+        void finish(final BitSet rightOuter) {
+            if (m_retainRight) {
+                for (int i = m_matched.nextClearBit(0); i < m_rows.size(); i = m_matched.nextClearBit(i + 1)) {
+                    rightOuter.set(m_firstIndex + i);
+                }
+            }
+        }
+    }
+}
@@ -173,6 +173,7 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         BufferedDataTableSorter sorter = new BufferedDataTableSorter(
                 inData[INPORT], m_inclList, m_sortOrder, m_missingToEnd);
         sorter.setSortInMemory(m_sortInMemory);
+        sorter.setParallelism(Runtime.getRuntime().availableProcessors());
         BufferedDataTable sortedTable = sorter.sort(exec);
 
         return new BufferedDataTable[]{sortedTable};
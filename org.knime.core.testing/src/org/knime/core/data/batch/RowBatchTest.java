@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.batch.ColumnVector.DoubleVector;
+import org.knime.core.data.batch.ColumnVector.IntVector;
+import org.knime.core.data.batch.ColumnVector.LongVector;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests {@link RowBatch}, {@link ColumnVector} and {@link RowBatchIterator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowBatchTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"int", "double", "string"},
+        new DataType[]{IntCell.TYPE, DoubleCell.TYPE, StringCell.TYPE});
+
+    private static DataRow createRow(final int i) {
+        DataCell intCell = i % 5 == 0 ? DataType.getMissingCell() : new IntCell(i);
+        DataCell doubleCell = i % 7 == 0 ? new MissingCell("error " + i) : new DoubleCell(i / 2.0);
+        return new DefaultRow(RowKey.createRowKey((long)i), intCell, doubleCell, new StringCell("s" + i));
+    }
+
+    /** Rows are stored in primitive vectors and restored unchanged. */
+    @Test
+    public void testRoundTrip() {
+        RowBatch batch = new RowBatch(SPEC, 100);
+        assertTrue(batch.getColumn(0) instanceof IntVector);
+        assertTrue(batch.getColumn(1) instanceof DoubleVector);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, batch.addRow(createRow(i)));
+        }
+        assertTrue(batch.isFull());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(createRow(i), batch.getRow(i));
+            assertEquals(i % 5 == 0, batch.getColumn(0).isMissing(i));
+        }
+        assertEquals("error 14", ((MissingCell)batch.getRow(14).getCell(1)).getError());
+        assertEquals(1.5, ((DoubleVector)batch.getColumn(1)).getValues()[3], 0.0);
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        int row = batch.addRow(new RowKey("x"));
+        assertTrue(batch.getColumn(1).isMissing(row));
+        ((DoubleVector)batch.getColumn(1)).setDouble(row, 1.5);
+        assertFalse(batch.getColumn(1).isMissing(row));
+        assertEquals(new DoubleCell(1.5), batch.getRow(row).getCell(1));
+    }
+
+    /** Primitive vectors accept cells that are compatible with, but not of the column type. */
+    @Test
+    public void testCompatibleCells() {
+        DataTableSpec spec = new DataTableSpec(new String[]{"double", "long"},
+            new DataType[]{DoubleCell.TYPE, LongCell.TYPE});
+        RowBatch batch = new RowBatch(spec, 10);
+        batch.addRow(new DefaultRow(RowKey.createRowKey(0L), new IntCell(3), new IntCell(4)));
+        batch.addRow(new DefaultRow(RowKey.createRowKey(1L), new DoubleCell(1.5), new LongCell(5L)));
+        batch.addRow(new DefaultRow(RowKey.createRowKey(2L), new LongCell(7L), DataType.getMissingCell()));
+
+        double[] doubles = ((DoubleVector)batch.getColumn(0)).getValues();
+        assertEquals(3.0, doubles[0], 0.0);
+        assertEquals(1.5, doubles[1], 0.0);
+        assertEquals(7.0, doubles[2], 0.0);
+        LongVector longs = (LongVector)batch.getColumn(1);
+        assertEquals(4L, longs.getLong(0));
+        assertEquals(5L, longs.getLong(1));
+        assertTrue(longs.isMissing(2));
+
+        // values are returned as cells of the column type
+        assertEquals(new DoubleCell(3.0), batch.getRow(0).getCell(0));
+        assertEquals(new LongCell(4L), batch.getRow(0).getCell(1));
+        assertEquals(new DoubleCell(7.0), batch.getRow(2).getCell(0));
+    }
+
+    /** Cells that are not compatible with a primitive vector's type are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompatibleCell() {
+        RowBatch batch = new RowBatch(SPEC, 10);
+        batch.addRow(
+            new DefaultRow(RowKey.createRowKey(0L), new IntCell(1), new StringCell("x"), new StringCell("s")));
+    }
+
+    /** Columns not included in a batch are missing in its rows. */
+    @Test
+    public void testProjection() {
+        RowBatch batch = new RowBatch(SPEC, 10, 1);
+        assertNull(batch.getColumn(0));
+        assertNull(batch.getColumn(2));
+        batch.addRow(createRow(1));
+        DataRow row = batch.getRow(0);
+        assertTrue(row.getCell(0).isMissing());
+        assertEquals(new DoubleCell(0.5), row.getCell(1));
+        assertTrue(row.getCell(2).isMissing());
+    }
+
+    /** Iterates a table in batches and writes them back to a container. */
+    @Test
+    public void testIteratorAndContainer() {
+        final int rowCount = 2500;
+        DataContainer cont = new DataContainer(SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+
+        DataContainer copy = new DataContainer(SPEC);
+        int batchCount = 0;
+        try (RowBatchIterator it = new RowBatchIterator(cont.getTable().iterator(), SPEC, 1000)) {
+            while (it.hasNext()) {
+                RowBatch batch = it.next();
+                assertEquals(batchCount < 2 ? 1000 : 500, batch.size());
+                copy.addRowBatch(batch);
+                batchCount++;
+            }
+        }
+        copy.close();
+        assertEquals(3, batchCount);
+
+        RowIterator it = copy.getTable().iterator();
+        for (int i = 0; i < rowCount; i++) {
+            assertEquals(createRow(i), it.next());
+        }
+        assertFalse(it.hasNext());
+        cont.dispose();
+        copy.dispose();
+    }
+
+    /** Batches lacking columns can't be added to a container. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddProjectedBatch() {
+        RowBatch batch = new RowBatch(SPEC, 10, 0, 1);
+        batch.addRow(createRow(1));
+        DataContainer cont = new DataContainer(SPEC);
+        try {
+            cont.addRowBatch(batch);
+        } finally {
+            cont.close();
+            cont.dispose();
+        }
+    }
+}
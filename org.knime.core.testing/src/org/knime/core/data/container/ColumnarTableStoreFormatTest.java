@@ -0,0 +1,197 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.container.storage.AbstractTableStoreReader.TableStoreCloseableRowIterator;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests writing and reading tables in the {@link ColumnarTableStoreFormat}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ColumnarTableStoreFormatTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"int", "long", "double", "bool", "string"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, BooleanCell.TYPE, StringCell.TYPE});
+
+    private File m_file;
+
+    /** Creates temp file. */
+    @Before
+    public void setUp() throws Exception {
+        m_file = DataContainer.createTempFile(new ColumnarTableStoreFormat().getFilenameSuffix());
+    }
+
+    /** Deletes temp file. */
+    @After
+    public void tearDown() {
+        m_file.delete();
+    }
+
+    /** Format accepts primitive tables only. */
+    @Test
+    public void testAccepts() {
+        ColumnarTableStoreFormat format = new ColumnarTableStoreFormat();
+        assertTrue(format.accepts(SPEC));
+        assertFalse(format.accepts(new DataTableSpec(new String[]{"any"}, new DataType[]{DataType.getType(
+            DataCell.class)})));
+    }
+
+    /** Writes rows spanning multiple chunks and reads them back. */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        List<DataRow> rows = createRows(2 * ColumnarTableStoreFormat.DEF_CHUNK_SIZE + 17);
+        NodeSettings settings = write(rows);
+        AbstractTableStoreReader reader = new ColumnarTableStoreFormat().createReader(
+            m_file, SPEC, settings, null, Buffer.IVERSION, true);
+        TableStoreCloseableRowIterator it = reader.iterator();
+        try {
+            for (DataRow expected : rows) {
+                DataRow actual = it.next();
+                assertEquals(expected.getKey(), actual.getKey());
+                for (int i = 0; i < SPEC.getNumColumns(); i++) {
+                    assertEquals("Cell " + i + " in row " + expected.getKey(), expected.getCell(i), actual.getCell(i));
+                }
+                DataCell error = actual.getCell(1);
+                if (error instanceof MissingCell) {
+                    assertEquals(((MissingCell)expected.getCell(1)).getError(), ((MissingCell)error).getError());
+                }
+            }
+        } finally {
+            it.performClose();
+        }
+    }
+
+    /** Strings with few distinct values share the same cell instance when read. */
+    @Test
+    public void testDictionaryEncodedStringsAreShared() throws Exception {
+        NodeSettings settings = write(createRows(100));
+        AbstractTableStoreReader reader = new ColumnarTableStoreFormat().createReader(
+            m_file, SPEC, settings, null, Buffer.IVERSION, true);
+        TableStoreCloseableRowIterator it = reader.iterator();
+        try {
+            DataCell first = it.next().getCell(4);
+            for (int i = 1; i < 7; i++) {
+                it.next();
+            }
+            assertSame(first, it.next().getCell(4));
+        } finally {
+            it.performClose();
+        }
+    }
+
+    /** Columns not requested are skipped and returned as missing. */
+    @Test
+    public void testColumnsNotRequestedAreSkipped() throws Exception {
+        List<DataRow> rows = createRows(ColumnarTableStoreFormat.DEF_CHUNK_SIZE + 3);
+        NodeSettings settings = write(rows);
+        ColumnarTableStoreReader reader = (ColumnarTableStoreReader)new ColumnarTableStoreFormat().createReader(
+            m_file, SPEC, settings, null, Buffer.IVERSION, true);
+        TableStoreCloseableRowIterator it = reader.iterator(new boolean[]{false, false, true, false, false});
+        try {
+            for (DataRow expected : rows) {
+                DataRow actual = it.next();
+                assertEquals(expected.getCell(2), actual.getCell(2));
+                assertTrue(actual.getCell(0).isMissing());
+                assertTrue(actual.getCell(4).isMissing());
+            }
+        } finally {
+            it.performClose();
+        }
+    }
+
+    private NodeSettings write(final List<DataRow> rows) throws Exception {
+        NodeSettings settings = new NodeSettings("format");
+        try (AbstractTableStoreWriter writer = new ColumnarTableStoreFormat().createWriter(m_file, SPEC, true)) {
+            for (DataRow row : rows) {
+                writer.writeRow(row);
+            }
+            writer.close();
+            writer.writeMetaInfoAfterWrite(settings);
+        }
+        return settings;
+    }
+
+    private static List<DataRow> createRows(final int count) {
+        List<DataRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DataCell intCell = i % 5 == 0 ? DataType.getMissingCell() : new IntCell(i);
+            DataCell longCell = i % 7 == 0 ? new MissingCell("error " + i) : new LongCell(i * 1000000000L);
+            DataCell doubleCell = i % 11 == 0 ? DataType.getMissingCell() : new DoubleCell(i / 3.0);
+            DataCell boolCell = i % 13 == 0 ? DataType.getMissingCell() : BooleanCell.get(i % 3 == 0);
+            DataCell stringCell = i % 17 == 0 ? DataType.getMissingCell() : new StringCell("category " + (i % 7));
+            rows.add(new DefaultRow(RowKey.createRowKey((long)i), intCell, longCell, doubleCell, boolCell, stringCell));
+        }
+        return rows;
+    }
+}
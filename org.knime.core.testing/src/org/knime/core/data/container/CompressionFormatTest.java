@@ -0,0 +1,171 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
+
+/**
+ * Tests the {@link CompressionFormat codecs} used for table streams, in particular the LZ4 block streams.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CompressionFormatTest {
+
+    /** Round trip of all codecs with data of different sizes and compressibility. */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random r = new Random(42);
+        for (CompressionFormat format : CompressionFormat.values()) {
+            for (int length : new int[]{0, 1, 12, 13, 100, Lz4BlockOutputStream.BLOCK_SIZE,
+                Lz4BlockOutputStream.BLOCK_SIZE + 1, 3 * Lz4BlockOutputStream.BLOCK_SIZE + 17}) {
+                assertRoundTrip(format, createRepetitiveData(length, r));
+                assertRoundTrip(format, createRandomData(length, r));
+            }
+        }
+    }
+
+    /** Repetitive data (as in tables with many similar cells) must be compressed. */
+    @Test
+    public void testLz4Compresses() throws IOException {
+        byte[] data = createRepetitiveData(10 * Lz4BlockOutputStream.BLOCK_SIZE, new Random(1));
+        byte[] compressed = compress(CompressionFormat.Lz4, data);
+        assertTrue("Compressed size " + compressed.length + " not smaller than " + data.length,
+            compressed.length < data.length / 2);
+    }
+
+    /** Long runs of the same byte make use of overlapping matches and long length encodings. */
+    @Test
+    public void testLz4LongRuns() throws IOException {
+        byte[] data = new byte[2 * Lz4BlockOutputStream.BLOCK_SIZE];
+        for (int i = data.length / 3; i < data.length; i++) {
+            data[i] = (byte)(i % 3);
+        }
+        assertRoundTrip(CompressionFormat.Lz4, data);
+    }
+
+    /** Codec names are parsed case-insensitively. */
+    @Test
+    public void testFromString() {
+        assertEquals(CompressionFormat.Lz4, CompressionFormat.fromString("lz4"));
+        assertEquals(CompressionFormat.Gzip, CompressionFormat.fromString(" GZIP "));
+        assertEquals(CompressionFormat.None, CompressionFormat.fromString("none"));
+    }
+
+    /** Unknown codec names are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromStringUnknown() {
+        CompressionFormat.fromString("zstd");
+    }
+
+    /** Truncated streams fail instead of silently returning less data. */
+    @Test(expected = IOException.class)
+    public void testLz4Truncated() throws IOException {
+        byte[] compressed = compress(CompressionFormat.Lz4, createRandomData(1000, new Random(3)));
+        byte[] truncated = new byte[compressed.length - 10];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        decompress(CompressionFormat.Lz4, truncated);
+    }
+
+    private static void assertRoundTrip(final CompressionFormat format, final byte[] data) throws IOException {
+        byte[] result = decompress(format, compress(format, data));
+        assertArrayEquals(format + " round trip of " + data.length + " bytes", data, result);
+    }
+
+    private static byte[] compress(final CompressionFormat format, final byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = format.wrapOutput(bytes)) {
+            // mix single byte and array writes
+            int split = data.length / 3;
+            for (int i = 0; i < split; i++) {
+                out.write(data[i]);
+            }
+            out.write(data, split, data.length - split);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decompress(final CompressionFormat format, final byte[] data) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = format.wrapInput(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[4711];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                result.write(buffer, 0, read);
+            }
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] createRepetitiveData(final int length, final Random r) {
+        StringBuilder b = new StringBuilder();
+        while (b.length() < length) {
+            b.append("Row").append(r.nextInt(1000)).append("\tcategory ").append(r.nextInt(5)).append('\n');
+        }
+        byte[] bytes = b.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, 0, result, 0, length);
+        return result;
+    }
+
+    private static byte[] createRandomData(final int length, final Random r) {
+        byte[] result = new byte[length];
+        r.nextBytes(result);
+        return result;
+    }
+}
@@ -69,6 +69,8 @@
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.ObjectToDataCellConverter;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryBudget;
+import org.knime.core.data.util.memory.MemoryBudget.Reservation;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.util.DuplicateKeyException;
 
@@ -193,6 +195,59 @@ public void testMemoryAlertWhileWrite() throws Exception {
         }
     }
 
+    /**
+     * Tests that a table kept in memory is written to disc if another consumer needs memory from the
+     * {@link MemoryBudget} and that the request is granted once the buffer has released its memory.
+     */
+    public void testMemoryBudgetFlushesBuffer() throws Exception {
+        DataContainer cont = new DataContainer(SPEC_STR_INT_DBL, true, DataContainer.MAX_CELLS_IN_MEMORY);
+        int nrRows = 10000;
+        for (RowIterator it = generateRows(nrRows); it.hasNext();) {
+            cont.addRowToTable(it.next());
+        }
+        cont.close();
+        Buffer buffer = cont.getBufferedTable().getBuffer();
+        synchronized (buffer) {
+            assertFalse(buffer.usesOutFile());
+        }
+        MemoryBudget budget = MemoryBudget.getInstance();
+        try (Reservation other = budget.newReservation()) {
+            // exhaust the budget, the next request can only be granted after the buffer has been flushed
+            assertTrue(other.tryReserve(budget.getBudget() - budget.getReservedMemory()));
+            assertTrue("Memory not granted after release", other.tryReserve(1));
+        }
+        synchronized (buffer) {
+            assertTrue("Buffer not written to disc", buffer.usesOutFile());
+        }
+        RowIterator tableIT = cont.getTable().iterator();
+        for (RowIterator r = generateRows(nrRows); r.hasNext();) {
+            assertEquals(r.next(), tableIT.next());
+        }
+        assertFalse(tableIT.hasNext());
+    }
+
+    /**
+     * Tests that a table kept in memory on purpose (all cells in memory) is not subject to the {@link MemoryBudget}.
+     */
+    public void testMemoryBudgetIgnoresCacheInMemory() throws Exception {
+        DataContainer cont = new DataContainer(SPEC_STR_INT_DBL, true, Integer.MAX_VALUE);
+        int nrRows = 10000;
+        for (RowIterator it = generateRows(nrRows); it.hasNext();) {
+            cont.addRowToTable(it.next());
+        }
+        cont.close();
+        Buffer buffer = cont.getBufferedTable().getBuffer();
+        MemoryBudget budget = MemoryBudget.getInstance();
+        try (Reservation other = budget.newReservation()) {
+            assertTrue(other.tryReserve(budget.getBudget() - budget.getReservedMemory()));
+            assertFalse("Memory granted although budget is exhausted", other.tryReserve(1));
+        }
+        synchronized (buffer) {
+            assertFalse("Buffer written to disc", buffer.usesOutFile());
+        }
+        cont.dispose();
+    }
+
     public final void testMemoryAlertWhileRestore() throws Exception {
         DataContainer container = new DataContainer(SPEC_STR_INT_DBL, true, /* no rows in mem */ 0, false);
         int count = 100000;
@@ -679,25 +734,34 @@ public void testTableDomain() {
     public void testAsyncWriteLimits() throws Exception {
         Assume.assumeTrue(!DataContainer.SYNCHRONOUS_IO);
         final int limit = Platform.ARCH_X86.equals(Platform.getOSArch()) ? 10 : 50;
-        Assert.assertEquals(limit, DataContainer.MAX_ASYNC_WRITE_THREADS);
-        RowIterator infinitIterator = generateRows(Integer.MAX_VALUE);
+        Assert.assertTrue(DataContainer.MAX_ASYNC_WRITE_THREADS <= limit);
+        Assert.assertEquals(DataContainer.MAX_ASYNC_WRITE_THREADS, DataContainer.ASYNC_EXECUTORS.getMaximumPoolSize());
+        // many more containers than write threads, all of them write asynchronously and share the threads
+        final int containerCount = 4 * DataContainer.MAX_ASYNC_WRITE_THREADS;
+        final int rowCount = 5000;
         List<DataContainer> containerList = new ArrayList<DataContainer>();
-        try {
-            boolean isAsync;
-            do {
-                int activeCount = DataContainer.ASYNC_EXECUTORS.getActiveCount();
-                DataContainer c = new DataContainer(SPEC_STR_INT_DBL, true, 0);
-                c.addRowToTable(infinitIterator.next());
-                // no activeCount is incremented by one - so order of two lines is important.
-                containerList.add(c);
-                isAsync = activeCount <= limit;
-                assertEquals("unexpected async write behavior, active thread count is " + activeCount,
-                    isAsync, !c.isSynchronousWrite());
-            } while (isAsync);
-        } finally {
-            for (DataContainer c : containerList) {
-                c.close();
+        List<RowIterator> iteratorList = new ArrayList<RowIterator>();
+        for (int i = 0; i < containerCount; i++) {
+            DataContainer c = new DataContainer(SPEC_STR_INT_DBL, true, 0);
+            assertFalse(c.isSynchronousWrite());
+            containerList.add(c);
+            iteratorList.add(generateRows(rowCount));
+        }
+        for (int r = 0; r < rowCount; r++) {
+            for (int i = 0; i < containerCount; i++) {
+                containerList.get(i).addRowToTable(iteratorList.get(i).next());
+            }
+            assertTrue(DataContainer.ASYNC_EXECUTORS.getPoolSize() <= DataContainer.MAX_ASYNC_WRITE_THREADS);
+        }
+        for (DataContainer c : containerList) {
+            c.close();
+            assertEquals(rowCount, c.size());
+            RowIterator expected = generateRows(rowCount);
+            for (DataRow row : c.getTable()) {
+                assertEquals(expected.next(), row);
             }
+            assertFalse(expected.hasNext());
+            c.dispose();
         }
     }
 
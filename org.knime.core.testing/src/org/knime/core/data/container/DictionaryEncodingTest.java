@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnDomainCreator;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Tests the dictionary encoding of string columns in tables written to disc.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DictionaryEncodingTest {
+
+    private static final int ROW_COUNT = 2 * DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL + 100;
+
+    private static final String[] CATEGORIES = {"ch", "de", "us", "fr", null};
+
+    /** Enables the encoding, which is off by default. */
+    @Before
+    public void setUp() {
+        System.setProperty(KNIMEConstants.PROPERTY_TABLE_DICTIONARY_ENCODING, "true");
+    }
+
+    /** Restores the default. */
+    @After
+    public void tearDown() {
+        System.clearProperty(KNIMEConstants.PROPERTY_TABLE_DICTIONARY_ENCODING);
+    }
+
+    /** Full iteration returns the same values and a single cell instance per distinct string. */
+    @Test
+    public void testIteration() {
+        Buffer buffer = createTable(createSpec(false));
+        Map<DataCell, DataCell> firstCells = new HashMap<>();
+        long index = 0;
+        try (CloseableRowIterator it = buffer.iterator()) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(createRow(index), row);
+                if (index < DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL && !row.getCell(1).isMissing()) {
+                    DataCell first = firstCells.computeIfAbsent(row.getCell(1), c -> c);
+                    assertSame(first, row.getCell(1));
+                }
+                index++;
+            }
+        }
+        assertEquals(ROW_COUNT, index);
+    }
+
+    /** Ranges starting after a checkpoint need the dictionary entries of skipped rows. */
+    @Test
+    public void testRange() {
+        Buffer buffer = createTable(createSpec(false));
+        checkRange(buffer, DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL + 7, ROW_COUNT);
+        checkRange(buffer, 3, 10);
+    }
+
+    /** Dictionary seeded with the domain of the column. */
+    @Test
+    public void testSeededDictionary() {
+        Buffer buffer = createTable(createSpec(true));
+        checkRange(buffer, 0, ROW_COUNT);
+        checkRange(buffer, 2 * DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL + 1, ROW_COUNT);
+    }
+
+    private static void checkRange(final Buffer buffer, final long fromIndex, final long toIndex) {
+        long index = fromIndex;
+        try (CloseableRowIterator it = buffer.iterator(null, fromIndex, toIndex)) {
+            while (it.hasNext()) {
+                assertEquals(createRow(index), it.next());
+                index++;
+            }
+        }
+        assertEquals(toIndex, index);
+    }
+
+    private static DataTableSpec createSpec(final boolean withDomain) {
+        DataColumnSpecCreator stringCreator = new DataColumnSpecCreator("category", StringCell.TYPE);
+        if (withDomain) {
+            stringCreator.setDomain(new DataColumnDomainCreator(
+                new DataCell[]{new StringCell(CATEGORIES[2]), new StringCell(CATEGORIES[0])}).createDomain());
+        }
+        return new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+            stringCreator.createSpec());
+    }
+
+    private static Buffer createTable(final DataTableSpec spec) {
+        DataContainer cont = new DataContainer(spec, true, 0);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        return cont.getBufferedTable().getBuffer();
+    }
+
+    private static DataRow createRow(final long index) {
+        String category = CATEGORIES[(int)(index % CATEGORIES.length)];
+        return new DefaultRow(RowKey.createRowKey(index), new IntCell((int)index),
+            category == null ? DataType.getMissingCell() : new StringCell(category + index % 7));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests {@link OffHeapRowList} and the underlying {@link OffHeapStore}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class OffHeapRowListTest {
+
+    private static final int ROW_COUNT = 10 * OffHeapRowList.CHECKPOINT_INTERVAL + 17;
+
+    private Buffer m_buffer;
+
+    private OffHeapRowList m_list;
+
+    /** Creates an in-memory table and copies its rows to off-heap memory.
+     * @throws IOException if that fails */
+    @Before
+    public void setUp() throws IOException {
+        DataTableSpec spec = new DataTableSpec(new String[]{"int", "string"},
+            new DataType[]{IntCell.TYPE, StringCell.TYPE});
+        DataContainer cont = new DataContainer(spec, true, Integer.MAX_VALUE);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        m_buffer = cont.getBufferedTable().getBuffer();
+        List<BlobSupportDataRow> rows = new ArrayList<>();
+        try (CloseableRowIterator it = m_buffer.iterator()) {
+            while (it.hasNext()) {
+                rows.add((BlobSupportDataRow)it.next());
+            }
+        }
+        m_list = OffHeapRowList.create(m_buffer, rows, spec, true, null);
+    }
+
+    /** Sequential and random access by index. */
+    @Test
+    public void testGet() {
+        assertEquals(ROW_COUNT, m_list.size());
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertEquals(createRow(i), m_list.get(i));
+        }
+        for (int i : new int[]{ROW_COUNT - 1, 0, 5 * OffHeapRowList.CHECKPOINT_INTERVAL, 300, 299, 301}) {
+            assertEquals(createRow(i), m_list.get(i));
+        }
+    }
+
+    /** Range iterator with a column selection, the other column is not read. */
+    @Test
+    public void testProjectedRangeIterator() {
+        final long fromIndex = 3 * OffHeapRowList.CHECKPOINT_INTERVAL - 1;
+        long count = fromIndex;
+        try (CloseableRowIterator it = m_list.iterator(new boolean[]{false, true}, fromIndex, fromIndex + 500)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(RowKey.createRowKey(count), row.getKey());
+                assertEquals(DataType.getMissingCell(), row.getCell(0));
+                assertEquals(new StringCell("String " + count), row.getCell(1));
+                count++;
+            }
+        }
+        assertEquals(fromIndex + 500, count);
+    }
+
+    /** Iterators can't be opened after the memory was released. */
+    @Test(expected = RuntimeException.class)
+    public void testRelease() {
+        m_list.release();
+        m_list.iterator(null, 0L, Long.MAX_VALUE);
+    }
+
+    /** Reading from arbitrary offsets across slab boundaries.
+     * @throws IOException if that fails */
+    @Test
+    public void testStoreAcrossSlabs() throws IOException {
+        OffHeapStore store = new OffHeapStore();
+        final int length = 10 * OffHeapStore.MIN_SLAB_SIZE + 3;
+        try (OutputStream out = store.getOutputStream()) {
+            out.write(0);
+            byte[] chunk = new byte[1000];
+            for (int i = 1; i < length; i += chunk.length) {
+                int size = Math.min(chunk.length, length - i);
+                for (int j = 0; j < size; j++) {
+                    chunk[j] = (byte)(i + j);
+                }
+                out.write(chunk, 0, size);
+            }
+        }
+        assertEquals(length, store.size());
+        for (long offset : new long[]{0L, OffHeapStore.MIN_SLAB_SIZE, 3 * OffHeapStore.MIN_SLAB_SIZE - 1, length}) {
+            try (InputStream in = store.openInputStream(offset)) {
+                for (long i = offset; i < length; i++) {
+                    assertEquals((byte)i, (byte)in.read());
+                }
+                assertEquals(-1, in.read());
+            }
+        }
+        store.release();
+        assertTrue(store.isReleased());
+    }
+
+    private static DataRow createRow(final long index) {
+        return new DefaultRow(RowKey.createRowKey(index), new IntCell((int)index), new StringCell("String " + index));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedDataTable#partition(int)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PartitionTableTest {
+
+    private ExecutionContext m_exec;
+
+    /** Creates execution context. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Partitions are contiguous, of almost equal size and cover the entire table. */
+    @Test
+    public void testPartition() {
+        BufferedDataTable table = createTable(20000);
+        BufferedDataTable[] partitions = table.partition(7);
+        assertEquals(7, partitions.length);
+        long count = 0;
+        for (BufferedDataTable partition : partitions) {
+            long size = partition.size();
+            assertEquals(20000 / 7 + (count < (20000 % 7) * (20000 / 7 + 1) ? 1 : 0), size);
+            try (CloseableRowIterator it = partition.iterator()) {
+                while (it.hasNext()) {
+                    DataRow row = it.next();
+                    assertEquals(RowKey.createRowKey(count), row.getKey());
+                    assertEquals(new IntCell((int)count), row.getCell(0));
+                    count++;
+                }
+            }
+        }
+        assertEquals(20000, count);
+    }
+
+    /** Not more partitions than rows. */
+    @Test
+    public void testSmallTable() {
+        assertEquals(3, createTable(3).partition(10).length);
+        BufferedDataTable[] partitions = createTable(0).partition(10);
+        assertEquals(1, partitions.length);
+        assertEquals(0, partitions[0].size());
+    }
+
+    /** Ranges of a partition are relative to the partition. */
+    @Test
+    public void testRangeOfPartition() {
+        BufferedDataTable partition = createTable(100).partition(2)[1];
+        try (CloseableRowIterator it = partition.rangeIterator(10, 20)) {
+            for (int i = 60; i < 70; i++) {
+                assertEquals(RowKey.createRowKey((long)i), it.next().getKey());
+            }
+            assertEquals(false, it.hasNext());
+        }
+    }
+
+    /** Invalid partition count. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCount() {
+        createTable(10).partition(0);
+    }
+
+    private BufferedDataTable createTable(final int rowCount) {
+        DataTableSpec spec = new DataTableSpec(new String[]{"int"}, new DataType[]{IntCell.TYPE});
+        BufferedDataContainer cont = m_exec.createDataContainer(spec, true, 0);
+        for (int i = 0; i < rowCount; i++) {
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+}
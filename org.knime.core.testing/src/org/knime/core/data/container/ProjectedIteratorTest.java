@@ -0,0 +1,219 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedDataTable#projectedIterator(int...)} on container tables and the wrapper tables that pass the
+ * projection on to their underlying tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ProjectedIteratorTest {
+
+    private static final int ROW_COUNT = 500;
+
+    private ExecutionContext m_exec;
+
+    /** Creates execution context. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Selected columns are read, all others are skipped. */
+    @Test
+    public void testContainerTable() {
+        BufferedDataTable table = createTable("", ROW_COUNT);
+        long count = 0;
+        try (CloseableRowIterator it = table.projectedIterator(1)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(RowKey.createRowKey(count), row.getKey());
+                assertEquals(3, row.getNumCells());
+                assertEquals(new StringCell("String " + count), row.getCell(1));
+                assertTrue(row.getCell(0).isMissing());
+                assertTrue(row.getCell(2).isMissing());
+                count++;
+            }
+        }
+        assertEquals(ROW_COUNT, count);
+    }
+
+    /** Projection on a column filter output only needs the reference columns. */
+    @Test
+    public void testRearrangeColumnsTable() throws Exception {
+        BufferedDataTable table = createTable("", ROW_COUNT);
+        ColumnRearranger rearranger = new ColumnRearranger(table.getDataTableSpec());
+        rearranger.keepOnly("int", "long string");
+        rearranger.permute(new String[]{"long string", "int"});
+        BufferedDataTable filtered = m_exec.createColumnRearrangeTable(table, rearranger, m_exec);
+        long count = 0;
+        try (CloseableRowIterator it = filtered.iterator()) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(new IntCell((int)count), row.getCell(1));
+                assertEquals(createLongString(count), row.getCell(0));
+                count++;
+            }
+        }
+        assertEquals(ROW_COUNT, count);
+        count = 0;
+        try (CloseableRowIterator it = filtered.projectedIterator(1)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(new IntCell((int)count), row.getCell(1));
+                assertTrue(row.getCell(0).isMissing());
+                count++;
+            }
+        }
+        assertEquals(ROW_COUNT, count);
+    }
+
+    /** Projection is passed to both sides of a joined table. */
+    @Test
+    public void testJoinedTable() throws Exception {
+        BufferedDataTable left = createTable("", ROW_COUNT);
+        BufferedDataTable right = createTable("right ", ROW_COUNT);
+        BufferedDataTable joined = m_exec.createJoinedTable(left, right, m_exec);
+        long count = 0;
+        try (CloseableRowIterator it = joined.projectedIterator(4, 0)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(6, row.getNumCells());
+                assertEquals(new IntCell((int)count), row.getCell(0));
+                assertEquals(new StringCell("String " + count), row.getCell(4));
+                assertTrue(row.getCell(1).isMissing());
+                assertTrue(row.getCell(3).isMissing());
+                count++;
+            }
+        }
+        assertEquals(ROW_COUNT, count);
+    }
+
+    /** Projection is passed to all concatenated tables. */
+    @Test
+    public void testConcatenateTable() throws Exception {
+        BufferedDataTable first = createTable("", ROW_COUNT);
+        BufferedDataContainer cont = m_exec.createDataContainer(first.getDataTableSpec(), true, 0);
+        for (int i = ROW_COUNT; i < 2 * ROW_COUNT; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        BufferedDataTable concatenated = m_exec.createConcatenateTable(m_exec, first, cont.getTable());
+        long count = 0;
+        try (CloseableRowIterator it = concatenated.projectedIterator(0)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(new IntCell((int)count), row.getCell(0));
+                assertFalse(row.getCell(0).isMissing());
+                assertTrue(row.getCell(2).isMissing());
+                count++;
+            }
+        }
+        assertEquals(2 * ROW_COUNT, count);
+    }
+
+    /** Invalid indices are rejected. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidIndex() {
+        createTable("", 1).projectedIterator(0, 3);
+    }
+
+    /** Creates a table that is written to disk right away. */
+    private BufferedDataTable createTable(final String prefix, final int rowCount) {
+        DataTableSpec spec = new DataTableSpec(new String[]{prefix + "int", prefix + "string", prefix + "long string"},
+            new DataType[]{IntCell.TYPE, StringCell.TYPE, StringCell.TYPE});
+        BufferedDataContainer cont = m_exec.createDataContainer(spec, true, 0);
+        for (int i = 0; i < rowCount; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    private static DataRow createRow(final long index) {
+        return new DefaultRow(RowKey.createRowKey(index), new IntCell((int)index), new StringCell("String " + index),
+            createLongString(index));
+    }
+
+    private static StringCell createLongString(final long index) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            b.append(index).append(' ');
+        }
+        return new StringCell(b.toString());
+    }
+}
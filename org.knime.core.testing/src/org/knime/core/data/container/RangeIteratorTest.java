@@ -0,0 +1,238 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedDataTable#rangeIterator(long, long)}, in particular the checkpoint based seeking in tables
+ * written to disk.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RangeIteratorTest {
+
+    private static final int ROW_COUNT = 3 * DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL + 100;
+
+    private ExecutionContext m_exec;
+
+    /** Creates execution context. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Ranges before, across and after checkpoints of a table on disk. */
+    @Test
+    public void testTableOnDisk() {
+        BufferedDataTable table = createTable(0);
+        final int interval = DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL;
+        checkRange(table, 0, 10);
+        checkRange(table, interval - 2, interval + 2);
+        checkRange(table, interval, 2 * interval);
+        checkRange(table, 2 * interval + 17, 3 * interval + 5);
+        checkRange(table, 3 * interval + 50, ROW_COUNT);
+        checkRange(table, ROW_COUNT, ROW_COUNT);
+    }
+
+    /** Ranges of a table kept in memory. */
+    @Test
+    public void testTableInMemory() {
+        BufferedDataTable table = createTable(Integer.MAX_VALUE);
+        checkRange(table, 0, 10);
+        checkRange(table, 12345, 12400);
+        checkRange(table, ROW_COUNT - 1, ROW_COUNT);
+    }
+
+    /** Ranges within and across the tables of a concatenated table. */
+    @Test
+    public void testConcatenateTable() throws Exception {
+        BufferedDataTable first = createTable(0);
+        BufferedDataContainer cont = m_exec.createDataContainer(first.getDataTableSpec(), true, 0);
+        for (int i = ROW_COUNT; i < 2 * ROW_COUNT; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        BufferedDataTable concatenated = m_exec.createConcatenateTable(m_exec, first, cont.getTable());
+        checkRange(concatenated, 20000, 20010);
+        checkRange(concatenated, ROW_COUNT - 5, ROW_COUNT + 5);
+        checkRange(concatenated, ROW_COUNT + 20000, 2 * ROW_COUNT);
+        checkRange(concatenated, ROW_COUNT, ROW_COUNT);
+    }
+
+    /** An iterator of a concatenated table that is closed early has no more rows. */
+    @Test
+    public void testCloseConcatenateTableIterator() throws Exception {
+        BufferedDataTable first = createTable(0);
+        BufferedDataContainer cont = m_exec.createDataContainer(first.getDataTableSpec(), true, 0);
+        for (int i = ROW_COUNT; i < ROW_COUNT + 100; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        BufferedDataTable concatenated = m_exec.createConcatenateTable(m_exec, first, cont.getTable());
+        try (CloseableRowIterator it = concatenated.rangeIterator(ROW_COUNT - 5, ROW_COUNT + 5)) {
+            assertEquals(createRow(ROW_COUNT - 5), it.next());
+            it.close();
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /** Ranges of a table with appended columns are read from both underlying tables. */
+    @Test
+    public void testRearrangeColumnsTable() throws Exception {
+        BufferedDataTable table = createTable(0);
+        ColumnRearranger rearranger = new ColumnRearranger(table.getDataTableSpec());
+        rearranger.append(new SingleCellFactory(new DataColumnSpecCreator("copy", IntCell.TYPE).createSpec()) {
+            @Override
+            public DataCell getCell(final DataRow row) {
+                return row.getCell(0);
+            }
+        });
+        BufferedDataTable appended = m_exec.createColumnRearrangeTable(table, rearranger, m_exec);
+        final long fromIndex = 2 * DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL + 3;
+        long count = fromIndex;
+        try (CloseableRowIterator it = appended.rangeIterator(fromIndex, fromIndex + 100)) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(RowKey.createRowKey(count), row.getKey());
+                assertEquals(new IntCell((int)count), row.getCell(0));
+                assertEquals(new IntCell((int)count), row.getCell(2));
+                count++;
+            }
+        }
+        assertEquals(fromIndex + 100, count);
+    }
+
+    /** End index larger than the table is truncated. */
+    @Test
+    public void testOpenEnd() {
+        BufferedDataTable table = createTable(0);
+        long count = ROW_COUNT - 20;
+        try (CloseableRowIterator it = table.rangeIterator(count, Long.MAX_VALUE)) {
+            while (it.hasNext()) {
+                assertEquals(createRow(count), it.next());
+                count++;
+            }
+        }
+        assertEquals(ROW_COUNT, count);
+    }
+
+    /** Fail prove iterator starting in the middle of the table. */
+    @Test
+    public void testIteratorFailProve() {
+        BufferedDataTable table = createTable(0);
+        long count = 2 * DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL + 1;
+        try (CloseableRowIterator it = table.iteratorFailProve(count)) {
+            while (it.hasNext()) {
+                assertEquals(createRow(count), it.next());
+                count++;
+            }
+        }
+        assertEquals(ROW_COUNT, count);
+    }
+
+    /** Invalid ranges are rejected. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        createTable(0).rangeIterator(10, 5);
+    }
+
+    private static void checkRange(final BufferedDataTable table, final long fromIndex, final long toIndex) {
+        long count = fromIndex;
+        try (CloseableRowIterator it = table.rangeIterator(fromIndex, toIndex)) {
+            while (it.hasNext()) {
+                assertEquals(createRow(count), it.next());
+                count++;
+            }
+            assertFalse(it.hasNext());
+        }
+        assertEquals(toIndex, count);
+    }
+
+    private BufferedDataTable createTable(final int maxCellsInMemory) {
+        DataTableSpec spec = new DataTableSpec(new String[]{"int", "string"},
+            new DataType[]{IntCell.TYPE, StringCell.TYPE});
+        BufferedDataContainer cont = m_exec.createDataContainer(spec, true, maxCellsInMemory);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            cont.addRowToTable(createRow(i));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    private static DataRow createRow(final long index) {
+        return new DefaultRow(RowKey.createRowKey(index), new IntCell((int)index), new StringCell("String " + index));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests the {@link ZoneMap} recorded when a table is written to disc.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ZoneMapTest {
+
+    private static final int CHUNK_SIZE = DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL;
+
+    private static final int ROW_COUNT = 3 * CHUNK_SIZE + 10;
+
+    /** Minimum, maximum and missing count per chunk.
+     * @throws Exception if saving/loading fails */
+    @Test
+    public void testStatistics() throws Exception {
+        ZoneMap zoneMap = createTable(0).getZoneMap();
+        assertNotNull(zoneMap);
+        checkStatistics(zoneMap);
+
+        NodeSettings settings = new NodeSettings("zonemap");
+        zoneMap.save(settings);
+        checkStatistics(ZoneMap.load(settings, 3));
+    }
+
+    /** Tables kept in memory have no statistics. */
+    @Test
+    public void testInMemory() {
+        assertNull(createTable(Integer.MAX_VALUE).getZoneMap());
+    }
+
+    private static void checkStatistics(final ZoneMap zoneMap) {
+        assertEquals(CHUNK_SIZE, zoneMap.getChunkSize());
+        assertEquals(4, zoneMap.getChunkCount());
+        assertEquals(3L * CHUNK_SIZE, zoneMap.getChunkStart(3));
+        assertEquals(ROW_COUNT, zoneMap.getChunkEnd(3));
+        assertTrue(zoneMap.hasStatistics(0));
+        assertTrue(zoneMap.hasStatistics(1));
+        assertFalse(zoneMap.hasStatistics(2));
+        for (int chunk = 0; chunk < zoneMap.getChunkCount(); chunk++) {
+            long start = zoneMap.getChunkStart(chunk);
+            long end = zoneMap.getChunkEnd(chunk);
+            assertEquals(new IntCell((int)start), zoneMap.getMin(0, chunk));
+            assertEquals(new IntCell((int)end - 1), zoneMap.getMax(0, chunk));
+            assertEquals(0, zoneMap.getMissingCount(0, chunk));
+            assertEquals(new StringCell("a"), zoneMap.getMin(1, chunk));
+            assertEquals(new StringCell("c"), zoneMap.getMax(1, chunk));
+            assertEquals((end - start + 3) / 4, zoneMap.getMissingCount(1, chunk));
+        }
+    }
+
+    private static ContainerTable createTable(final int maxCellsInMemory) {
+        DataTableSpec spec = new DataTableSpec(new String[]{"int", "string", "list"},
+            new DataType[]{IntCell.TYPE, StringCell.TYPE, ListCell.getCollectionType(IntCell.TYPE)});
+        DataContainer cont = new DataContainer(spec, true, maxCellsInMemory);
+        String[] strings = {null, "a", "b", "c"};
+        for (int i = 0; i < ROW_COUNT; i++) {
+            String s = strings[i % strings.length];
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i),
+                s == null ? DataType.getMissingCell() : new StringCell(s), DataType.getMissingCell()));
+        }
+        cont.close();
+        return cont.getBufferedTable();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests that {@link NormalizedKeyEncoder} keys are ordered like the cells' comparators.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NormalizedKeyEncoderTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"int", "long", "double", "string"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, StringCell.TYPE});
+
+    private static final double[] SPECIAL_DOUBLES = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE};
+
+    private static final String[] SPECIAL_STRINGS = {"", "a", "a\0", "a\0b", "ab", "\u00ff", "\u0100", "\uffff",
+        "\ud83d\ude00", "\uff61"};
+
+    private static List<DataRow> createRows(final int count, final long seed) {
+        final Random rand = new Random(seed);
+        final List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DataCell intCell = rand.nextInt(10) == 0 ? DataType.getMissingCell() : new IntCell(
+                rand.nextBoolean() ? rand.nextInt() : rand.nextInt(5) - 2);
+            DataCell longCell = rand.nextInt(10) == 0 ? DataType.getMissingCell() : new LongCell(
+                rand.nextBoolean() ? rand.nextLong() : rand.nextInt(5) - 2);
+            DataCell doubleCell = rand.nextInt(10) == 0 ? DataType.getMissingCell() : new DoubleCell(
+                rand.nextBoolean() ? SPECIAL_DOUBLES[rand.nextInt(SPECIAL_DOUBLES.length)] : rand.nextGaussian());
+            DataCell stringCell = rand.nextInt(10) == 0 ? DataType.getMissingCell() : new StringCell(
+                SPECIAL_STRINGS[rand.nextInt(SPECIAL_STRINGS.length)] + (rand.nextBoolean() ? "" : "x"));
+            rows.add(new DefaultRow(RowKey.createRowKey((long)rand.nextInt(100)), intCell, longCell, doubleCell,
+                stringCell));
+        }
+        return rows;
+    }
+
+    /** Reference implementation, same logic as the sorter's row comparator. */
+    private static Comparator<DataRow> createComparator(final int[] indices, final boolean[] ascending,
+        final boolean missingsToEnd) {
+        return (r1, r2) -> {
+            for (int i = 0; i < indices.length; i++) {
+                int c;
+                if (indices[i] == -1) {
+                    c = r1.getKey().getString().compareTo(r2.getKey().getString());
+                } else {
+                    DataCell c1 = r1.getCell(indices[i]);
+                    DataCell c2 = r2.getCell(indices[i]);
+                    if (missingsToEnd && (c1.isMissing() || c2.isMissing())) {
+                        c = c1.isMissing() == c2.isMissing() ? 0 : (c1.isMissing() == ascending[i] ? 1 : -1);
+                    } else {
+                        c = SPEC.getColumnSpec(indices[i]).getType().getComparator().compare(c1, c2);
+                    }
+                }
+                if (c != 0) {
+                    return ascending[i] ? c : -c;
+                }
+            }
+            return 0;
+        };
+    }
+
+    private static void checkOrder(final int[] indices, final boolean[] ascending, final boolean missingsToEnd) {
+        final NormalizedKeyEncoder encoder = NormalizedKeyEncoder.create(indices, ascending, missingsToEnd, SPEC);
+        assertNotNull(encoder);
+        final Comparator<DataRow> comparator = createComparator(indices, ascending, missingsToEnd);
+        final List<DataRow> rows = createRows(300, indices.length * 31 + (missingsToEnd ? 1 : 0));
+        for (DataRow r1 : rows) {
+            for (DataRow r2 : rows) {
+                assertEquals(r1 + " vs. " + r2, Integer.signum(comparator.compare(r1, r2)),
+                    Integer.signum(NormalizedKeyEncoder.compare(encoder.encode(r1), encoder.encode(r2))));
+            }
+        }
+        // sorting is stable like Collections.sort
+        final List<DataRow> expected = new ArrayList<>(rows);
+        Collections.sort(expected, comparator);
+        encoder.sort(rows);
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(expected.get(i), rows.get(i));
+        }
+    }
+
+    /** Single columns of all supported types, in all orders. */
+    @Test
+    public void testSingleColumns() {
+        for (int col = -1; col < SPEC.getNumColumns(); col++) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                checkOrder(new int[]{col}, new boolean[]{ascending}, false);
+                checkOrder(new int[]{col}, new boolean[]{ascending}, true);
+            }
+        }
+    }
+
+    /** Multiple columns with mixed order. */
+    @Test
+    public void testMultipleColumns() {
+        checkOrder(new int[]{3, 0, -1}, new boolean[]{true, false, true}, false);
+        checkOrder(new int[]{2, 3, 1}, new boolean[]{false, true, false}, true);
+    }
+
+    /** Types without a known comparator aren't supported. */
+    @Test
+    public void testUnsupportedType() {
+        DataTableSpec spec = new DataTableSpec(new String[]{"list"},
+            new DataType[]{ListCell.getCollectionType(StringCell.TYPE)});
+        assertNull(NormalizedKeyEncoder.create(new int[]{0}, new boolean[]{true}, false, spec));
+    }
+}
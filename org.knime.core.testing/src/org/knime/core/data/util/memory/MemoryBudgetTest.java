@@ -0,0 +1,215 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.util.memory;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.memory.MemoryBudget.Reservation;
+
+/**
+ * Testcase for {@link MemoryBudget}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class MemoryBudgetTest {
+    /**
+     * Checks that memory is only granted as long as the budget is not exhausted.
+     */
+    @Test
+    public void testReserveAndRelease() {
+        MemoryBudget budget = new MemoryBudget(1000, () -> false, 0);
+        try (Reservation r1 = budget.newReservation(); Reservation r2 = budget.newReservation()) {
+            assertThat("Memory not granted", r1.tryReserve(600), is(true));
+            assertThat("Memory granted although budget is exhausted", r2.tryReserve(600), is(false));
+            assertThat("Memory not granted", r2.tryReserve(400), is(true));
+            assertThat("Unexpected reserved memory", budget.getReservedMemory(), is(1000L));
+
+            r1.release(200);
+            assertThat("Unexpected reserved memory", r1.getReservedMemory(), is(400L));
+            assertThat("Memory not granted after release", r2.tryReserve(200), is(true));
+
+            r1.release(1000);
+            assertThat("Released more than reserved", r1.getReservedMemory(), is(0L));
+            assertThat("Unexpected reserved memory", budget.getReservedMemory(), is(600L));
+
+            r2.close();
+            assertThat("Memory not released by close", budget.getReservedMemory(), is(0L));
+        }
+    }
+
+    /**
+     * Checks that no memory is granted if the heap is already full.
+     */
+    @Test
+    public void testMemoryLow() {
+        AtomicBoolean memoryLow = new AtomicBoolean(true);
+        MemoryBudget budget = new MemoryBudget(1000, memoryLow::get, 0);
+        try (Reservation r = budget.newReservation()) {
+            assertThat("Memory granted although memory is low", r.tryReserve(10), is(false));
+            memoryLow.set(false);
+            assertThat("Memory not granted", r.tryReserve(10), is(true));
+        }
+    }
+
+    /**
+     * Checks that the release handlers of the largest reservations are called first and only once.
+     */
+    @Test
+    public void testReleaseHandlers() {
+        MemoryBudget budget = new MemoryBudget(1000, () -> false, 0);
+        List<String> released = new ArrayList<>();
+        try (Reservation small = budget.newReservation(); Reservation large = budget.newReservation();
+                Reservation medium = budget.newReservation(); Reservation requester = budget.newReservation()) {
+            small.tryReserve(100);
+            large.tryReserve(500);
+            medium.tryReserve(300);
+            small.setReleaseHandler(() -> {
+                released.add("small");
+                small.releaseAll();
+            });
+            large.setReleaseHandler(() -> {
+                released.add("large");
+                large.releaseAll();
+            });
+            medium.setReleaseHandler(() -> {
+                released.add("medium");
+                medium.releaseAll();
+            });
+
+            assertThat("Memory not granted after release", requester.tryReserve(400), is(true));
+            assertThat("Unexpected release handlers called", released.toString(), is("[large]"));
+            assertThat("Unexpected reserved memory", budget.getReservedMemory(), is(800L));
+
+            assertThat("Memory not granted after release", requester.tryReserve(500), is(true));
+            assertThat("Unexpected release handlers called", released.toString(), is("[large, medium]"));
+
+            // releasing the small reservation is not enough
+            assertThat("Memory granted although budget is exhausted", requester.tryReserve(200), is(false));
+            assertThat("Unexpected release handlers called", released.toString(), is("[large, medium, small]"));
+            assertThat("Memory not granted after release", requester.tryReserve(100), is(true));
+
+            assertThat("Memory granted although budget is exhausted", requester.tryReserve(100), is(false));
+            assertThat("Release handlers called more than once", released.size(), is(3));
+        }
+        assertThat("Memory not released by close", budget.getReservedMemory(), is(0L));
+    }
+
+    /**
+     * Checks that a request waits for memory that is released asynchronously by a release handler.
+     */
+    @Test
+    public void testAsynchronousRelease() throws InterruptedException {
+        MemoryBudget budget = new MemoryBudget(1000, () -> false, 60000);
+        List<Thread> threads = new ArrayList<>();
+        try (Reservation other = budget.newReservation(); Reservation requester = budget.newReservation()) {
+            other.tryReserve(800);
+            other.setReleaseHandler(() -> {
+                Thread t = new Thread(() -> {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    other.releaseAll();
+                }, "Memory releaser");
+                threads.add(t);
+                t.start();
+            });
+            assertThat("Memory not granted after asynchronous release", requester.tryReserve(500), is(true));
+            assertThat("Unexpected reserved memory", budget.getReservedMemory(), is(500L));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertThat("Release handler not called", threads.size(), is(1));
+    }
+
+    /**
+     * Checks that requests which must not block are denied while the release handlers haven't released memory yet.
+     */
+    @Test
+    public void testReleaseWithoutWaiting() {
+        MemoryBudget budget = new MemoryBudget(1000, () -> false, 60000);
+        List<Runnable> pendingReleases = new ArrayList<>();
+        try (Reservation other = budget.newReservation(); Reservation requester = budget.newReservation()) {
+            other.tryReserve(800);
+            other.setReleaseHandler(() -> pendingReleases.add(other::releaseAll));
+            assertThat("Memory granted before it was released", requester.tryReserve(500, false), is(false));
+            assertThat("Release handler not called", pendingReleases.size(), is(1));
+            pendingReleases.get(0).run();
+            assertThat("Memory not granted after release", requester.tryReserve(500, false), is(true));
+        }
+    }
+
+    /**
+     * Checks that larger rows have a larger estimated size.
+     */
+    @Test
+    public void testEstimateSize() {
+        DataRow small = new DefaultRow(RowKey.createRowKey(0L), new IntCell(1), new StringCell("a"));
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buf.append('a');
+        }
+        DataRow large = new DefaultRow(RowKey.createRowKey(0L), new IntCell(1), new StringCell(buf.toString()));
+        assertTrue("Size of string not considered",
+            MemoryBudget.estimateSize(large) > MemoryBudget.estimateSize(small) + 1000);
+        assertThat("Missing cells should be shared", MemoryBudget.estimateSize(DataType.getMissingCell()), is(0L));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.WorkflowCreationHelper;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+
+/**
+ * Testcase for {@link CriticalPathEstimator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CriticalPathEstimatorTest {
+
+    private WorkflowManager m_wfm;
+
+    private NodeID m_source;
+
+    private NodeID m_first;
+
+    private NodeID m_second;
+
+    private NodeID m_branch;
+
+    /** Creates source -&gt; first -&gt; second and source -&gt; branch. */
+    @Before
+    public void setUp() {
+        m_wfm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(), new WorkflowCreationHelper());
+        m_source = m_wfm.addNode(new AdapterNodeFactory(true));
+        m_first = m_wfm.addNode(new AdapterNodeFactory());
+        m_second = m_wfm.addNode(new AdapterNodeFactory());
+        m_branch = m_wfm.addNode(new AdapterNodeFactory());
+        m_wfm.addConnection(m_source, 1, m_first, 1);
+        m_wfm.addConnection(m_first, 1, m_second, 1);
+        m_wfm.addConnection(m_source, 1, m_branch, 1);
+    }
+
+    /** None of the nodes was executed, hence they all have the same estimate and the longest chain counts. */
+    @Test
+    public void testCriticalPathLength() {
+        long duration = CriticalPathEstimator.estimateDuration(getNode(m_second));
+        assertThat("Estimate must be positive", duration > 0, is(true));
+        assertThat("Length of last node", CriticalPathEstimator.getCriticalPathLength(getNode(m_second)),
+            is(duration));
+        assertThat("Length of branch", CriticalPathEstimator.getCriticalPathLength(getNode(m_branch)), is(duration));
+        assertThat("Length of chain", CriticalPathEstimator.getCriticalPathLength(getNode(m_first)), is(2 * duration));
+        assertThat("Length from source", CriticalPathEstimator.getCriticalPathLength(getNode(m_source)),
+            is(3 * duration));
+    }
+
+    /**
+     * The cached lengths are computed again once a connection is added.
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    public void testCacheInvalidatedOnConnectionChange() throws Exception {
+        long duration = CriticalPathEstimator.estimateDuration(getNode(m_second));
+        assertThat("Length from source", CriticalPathEstimator.getCriticalPathLength(getNode(m_source)),
+            is(3 * duration));
+        NodeID last = m_wfm.addNode(new AdapterNodeFactory());
+        m_wfm.addConnection(m_second, 1, last, 1);
+        // workflow events are delivered asynchronously
+        long deadline = System.currentTimeMillis() + 5000;
+        while (CriticalPathEstimator.getCriticalPathLength(getNode(m_source)) != 4 * duration
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat("Length from source after adding a node", CriticalPathEstimator.getCriticalPathLength(
+            getNode(m_source)), is(4 * duration));
+        assertThat("Length of new node", CriticalPathEstimator.getCriticalPathLength(getNode(last)), is(duration));
+    }
+
+    private NodeContainer getNode(final NodeID id) {
+        return m_wfm.getNodeContainer(id);
+    }
+
+    /** Removes the project. */
+    @After
+    public void tearDown() {
+        WorkflowManager.ROOT.removeNode(m_wfm.getID());
+    }
+}
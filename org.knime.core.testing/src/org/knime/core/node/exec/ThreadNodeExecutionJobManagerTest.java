@@ -0,0 +1,104 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Testcase for the parsing of concurrency limits in {@link ThreadNodeExecutionJobManager}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ThreadNodeExecutionJobManagerTest {
+
+    /** Valid entries, surrounded by whitespace. */
+    @Test
+    public void testParseConcurrencyLimits() {
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("org.knime.python", 2);
+        expected.put("org.knime.ext.h2o", 1);
+        assertThat("Unexpected limits", ThreadNodeExecutionJobManager
+            .parseConcurrencyLimits(" org.knime.python = 2 ,org.knime.ext.h2o=1"), is(expected));
+    }
+
+    /** Missing, blank, malformed and non-positive entries are ignored. */
+    @Test
+    public void testParseInvalidConcurrencyLimits() {
+        assertThat("Limits for null", ThreadNodeExecutionJobManager.parseConcurrencyLimits(null),
+            is(Collections.<String, Integer> emptyMap()));
+        assertThat("Limits for blank value", ThreadNodeExecutionJobManager.parseConcurrencyLimits("  "),
+            is(Collections.<String, Integer> emptyMap()));
+        assertThat("Limits for invalid entries",
+            ThreadNodeExecutionJobManager.parseConcurrencyLimits("a=0,b=-1,c=x,d,=2,e=1=2,f=3"),
+            is(Collections.singletonMap("f", 3)));
+    }
+
+    /** The longest matching prefix wins. */
+    @Test
+    public void testGetLongestPrefix() {
+        Map<String, Integer> limits = new HashMap<>();
+        limits.put("org.knime", 4);
+        limits.put("org.knime.python", 1);
+        limits.put("com.example", 2);
+        assertThat("Unexpected prefix", ThreadNodeExecutionJobManager
+            .getLongestPrefix("org.knime.python.nodes.ScriptNodeFactory", limits), is("org.knime.python"));
+        assertThat("Unexpected prefix", ThreadNodeExecutionJobManager
+            .getLongestPrefix("org.knime.base.node.RowFilterNodeFactory", limits), is("org.knime"));
+        assertThat("Unexpected prefix", ThreadNodeExecutionJobManager
+            .getLongestPrefix("de.example.MyNodeFactory", limits), is(nullValue()));
+        assertThat("Unexpected prefix", ThreadNodeExecutionJobManager
+            .getLongestPrefix("org.knime.base.node.RowFilterNodeFactory", Collections.<String, Integer> emptyMap()),
+            is(nullValue()));
+    }
+}
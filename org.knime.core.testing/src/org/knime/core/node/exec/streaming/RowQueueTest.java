@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * Testcase for {@link RowQueue} and {@link StreamedRowOutput}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowQueueTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("value", IntCell.TYPE).createSpec());
+
+    /**
+     * Checks that all rows pass the queue in order, including an incomplete last batch, while the producer is
+     * throttled by the small capacity.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testRowsPassInOrder() throws Exception {
+        RowQueue queue = new RowQueue(SPEC, 7, 2);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> f = producer.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    queue.push(row(i));
+                }
+                queue.close();
+                return null;
+            });
+            List<DataRow> rows = readAll(queue.getRowInput());
+            f.get();
+            assertThat("Unexpected number of rows", rows.size(), is(1000));
+            for (int i = 0; i < rows.size(); i++) {
+                assertThat("Unexpected row at index " + i, rows.get(i).getKey().getString(), is("Row" + i));
+            }
+            assertThat("Rows after end of stream", queue.getRowInput().poll() == null, is(true));
+        } finally {
+            producer.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks that a producer blocked on a full queue continues once the consumer closes its input.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testConsumerCloseReleasesProducer() throws Exception {
+        RowQueue queue = new RowQueue(SPEC, 1, 1);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> f = producer.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    queue.push(row(i));
+                }
+                queue.close();
+                return null;
+            });
+            RowInput input = queue.getRowInput();
+            assertThat("Unexpected first row", input.poll().getKey().getString(), is("Row0"));
+            input.close();
+            f.get(5, TimeUnit.SECONDS);
+            assertThat("Rows after consumer closed", input.poll() == null, is(true));
+        } finally {
+            producer.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks that an output forwards all rows to each of its consumers.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testOutputFanOut() throws Exception {
+        StreamedRowOutput output = new StreamedRowOutput(SPEC);
+        RowQueue q1 = output.addConsumer(4, Integer.MAX_VALUE);
+        RowQueue q2 = output.addConsumer(16, Integer.MAX_VALUE);
+        for (int i = 0; i < 50; i++) {
+            output.push(row(i));
+        }
+        output.close();
+        assertThat("Output not closed", output.isClosed(), is(true));
+        assertThat("Unexpected row count", output.getRowCount(), is(50L));
+        assertThat("Unexpected spec of first consumer", q1.getRowInput().getDataTableSpec(), is(SPEC));
+        assertThat("Unexpected rows at first consumer", readAll(q1.getRowInput()).size(), is(50));
+        assertThat("Unexpected rows at second consumer", readAll(q2.getRowInput()).size(), is(50));
+        assertThat("Table available although not collected", output.getTable() == null, is(true));
+    }
+
+    private static List<DataRow> readAll(final RowInput input) throws InterruptedException {
+        List<DataRow> rows = new ArrayList<>();
+        DataRow r;
+        while ((r = input.poll()) != null) {
+            rows.add(r);
+        }
+        input.close();
+        return rows;
+    }
+
+    private static DataRow row(final int i) {
+        return new DefaultRow("Row" + i, new IntCell(i));
+    }
+
+}
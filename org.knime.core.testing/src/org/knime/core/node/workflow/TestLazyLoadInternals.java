@@ -0,0 +1,195 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests lazy loading of node internals ({@link KNIMEConstants#PROPERTY_LAZY_LOAD_INTERNALS}): internals are not read
+ * during load but must be read before a dirty node is saved in place (its directory is cleared during save).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TestLazyLoadInternals extends WorkflowTestCase {
+
+    private static final String INTERNALS = "internals-content";
+
+    private static final AtomicInteger LOAD_INTERNALS_COUNT = new AtomicInteger();
+
+    private File m_workflowDirectory;
+
+    private NodeID m_internalsNode;
+
+    @Before
+    public void setUp() throws Exception {
+        m_workflowDirectory = FileUtil.createTempDir(getClass().getSimpleName());
+        final WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(m_workflowDirectory).createContext());
+        WorkflowManager wm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(), creationHelper);
+        NodeID sourceNode = wm.addNode(new AdapterNodeFactory(true));
+        NodeID internalsNode = wm.addNode(new InternalsNodeFactory());
+        wm.addConnection(sourceNode, 1, internalsNode, 1);
+        wm.executeAllAndWaitUntilDone();
+        assertThat(wm.printNodeSummary(wm.getID(), 0), wm.getInternalState(), is(InternalNodeContainerState.EXECUTED));
+        wm.save(m_workflowDirectory, new ExecutionMonitor(), true);
+        WorkflowManager.ROOT.removeNode(wm.getID());
+    }
+
+    private void loadWorkflow(final boolean lazyInternals) throws Exception {
+        System.setProperty(KNIMEConstants.PROPERTY_LAZY_LOAD_INTERNALS, Boolean.toString(lazyInternals));
+        try {
+            setManager(loadWorkflow(m_workflowDirectory, new ExecutionMonitor()).getWorkflowManager());
+        } finally {
+            System.clearProperty(KNIMEConstants.PROPERTY_LAZY_LOAD_INTERNALS);
+        }
+        m_internalsNode = getManager().getID().createChild(2);
+    }
+
+    /** Load lazily, dirty the node, save in place, load again: internals must survive. */
+    @Test
+    public void testLoadDirtySave() throws Exception {
+        LOAD_INTERNALS_COUNT.set(0);
+        loadWorkflow(true);
+        checkState(getManager(), InternalNodeContainerState.EXECUTED);
+        assertThat("Internals read during lazy load", LOAD_INTERNALS_COUNT.get(), is(0));
+
+        NodeContainer nc = findNodeContainer(m_internalsNode);
+        nc.setDirty(); // e.g. node was moved or annotated
+        assertThat("Internals not read when node got dirty", LOAD_INTERNALS_COUNT.get(), is(1));
+        getManager().save(m_workflowDirectory, new ExecutionMonitor(), true);
+        closeWorkflow();
+
+        loadWorkflow(false);
+        checkState(getManager(), InternalNodeContainerState.EXECUTED);
+        InternalsNodeModel model = (InternalsNodeModel)((NativeNodeContainer)findNodeContainer(m_internalsNode))
+            .getNodeModel();
+        assertThat("Internals after save", model.m_internals, is(INTERNALS));
+    }
+
+    /** Internals are read on first access to the model. */
+    @Test
+    public void testLoadOnModelAccess() throws Exception {
+        LOAD_INTERNALS_COUNT.set(0);
+        loadWorkflow(true);
+        assertThat("Internals read during lazy load", LOAD_INTERNALS_COUNT.get(), is(0));
+        InternalsNodeModel model = (InternalsNodeModel)((NativeNodeContainer)findNodeContainer(m_internalsNode))
+            .getNodeModel();
+        assertThat("Internals read on access", LOAD_INTERNALS_COUNT.get(), is(1));
+        assertThat("Internals after lazy load", model.m_internals, is(INTERNALS));
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        FileUtil.deleteRecursively(m_workflowDirectory);
+    }
+
+    /** Model that keeps a string in its internals. */
+    static final class InternalsNodeModel extends AdapterNodeModel {
+
+        private String m_internals;
+
+        InternalsNodeModel() {
+            super(1, 1);
+        }
+
+        @Override
+        protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+            m_internals = INTERNALS;
+            return inObjects;
+        }
+
+        @Override
+        protected void reset() {
+            m_internals = null;
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+            LOAD_INTERNALS_COUNT.incrementAndGet();
+            m_internals = new String(Files.readAllBytes(new File(nodeInternDir, "internals.txt").toPath()),
+                StandardCharsets.UTF_8);
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+            String internals = m_internals == null ? "" : m_internals;
+            Files.write(new File(nodeInternDir, "internals.txt").toPath(), internals.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Factory to {@link InternalsNodeModel}. */
+    public static final class InternalsNodeFactory extends AdapterNodeFactory {
+
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new InternalsNodeModel();
+        }
+    }
+
+}
@@ -0,0 +1,470 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertThat;
+import static org.knime.core.node.workflow.InternalNodeContainerState.CONFIGURED;
+import static org.knime.core.node.workflow.InternalNodeContainerState.EXECUTED;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.exec.streaming.StreamingNodeExecutionJobManager;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableFunction;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.action.CollapseIntoMetaNodeResult;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Executes a component with the {@link StreamingNodeExecutionJobManager}. The component contains a partitioned
+ * function (increment), a partitioned operator with merge (sum) and a node joining two branches that share the
+ * component input (concatenate):
+ *
+ * <pre>
+ * source -> [ increment -> sum ] -> sumOut
+ *           [ increment, input -> concatenate ] -> concatenateOut
+ * </pre>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TestStreamingComponent extends WorkflowTestCase {
+
+    /** More rows than fit into the bounded queues and more than one partition chunk per partition. */
+    private static final int ROW_COUNT = 10000;
+
+    private static final int PARALLELISM = 4;
+
+    private static final DataTableSpec VALUE_SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("value", IntCell.TYPE).createSpec());
+
+    private static final DataTableSpec SUM_SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("sum", LongCell.TYPE).createSpec());
+
+    private static final AtomicInteger INCREMENT_OPERATORS = new AtomicInteger();
+
+    private static final AtomicInteger SUM_OPERATORS = new AtomicInteger();
+
+    /** Increment fails on this value if non-negative. */
+    private static volatile int failAtValue;
+
+    /** If non-null, increment blocks (until interrupted) and counts down this latch. */
+    private static volatile CountDownLatch blockedLatch;
+
+    private File m_workflowDirectory;
+
+    private NodeID m_component;
+
+    private NodeID m_sumOut;
+
+    private NodeID m_concatenateOut;
+
+    @Before
+    public void setUp() throws Exception {
+        INCREMENT_OPERATORS.set(0);
+        SUM_OPERATORS.set(0);
+        failAtValue = -1;
+        blockedLatch = null;
+        m_workflowDirectory = FileUtil.createTempDir(getClass().getSimpleName());
+        final WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(m_workflowDirectory).createContext());
+        WorkflowManager wm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(), creationHelper);
+        setManager(wm);
+        NodeID source = wm.addNode(new RangeNodeFactory());
+        NodeID increment = wm.addNode(new IncrementNodeFactory());
+        NodeID sum = wm.addNode(new SumNodeFactory());
+        NodeID concatenate = wm.addNode(new ConcatenateNodeFactory());
+        m_sumOut = wm.addNode(new AdapterNodeFactory());
+        m_concatenateOut = wm.addNode(new AdapterNodeFactory());
+        wm.addConnection(source, 1, increment, 1);
+        wm.addConnection(increment, 1, sum, 1);
+        wm.addConnection(increment, 1, concatenate, 1);
+        wm.addConnection(source, 1, concatenate, 2);
+        wm.addConnection(sum, 1, m_sumOut, 1);
+        wm.addConnection(concatenate, 1, m_concatenateOut, 1);
+        CollapseIntoMetaNodeResult collapseResult = wm.collapseIntoMetaNode(
+            new NodeID[]{increment, sum, concatenate}, new WorkflowAnnotation[0], "Streamed");
+        m_component = collapseResult.getCollapsedMetanodeID();
+        wm.convertMetaNodeToSubNode(m_component);
+        wm.setJobManager(m_component, new StreamingNodeExecutionJobManager(KNIMEConstants.GLOBAL_THREAD_POOL,
+            StreamingNodeExecutionJobManager.DEFAULT_BATCH_SIZE,
+            StreamingNodeExecutionJobManager.DEFAULT_QUEUE_CAPACITY, PARALLELISM));
+        checkState(m_component, CONFIGURED);
+    }
+
+    /** Streams all rows through the component and checks the results and that the nodes were partitioned. */
+    @Test
+    public void testExecuteStreamed() throws Exception {
+        executeAllAndWait();
+        checkState(getManager(), EXECUTED);
+        assertThat("Increment partitions", INCREMENT_OPERATORS.get(), is(PARALLELISM));
+        assertThat("Sum partitions", SUM_OPERATORS.get(), is(PARALLELISM));
+
+        BufferedDataTable sumTable = getOutputTable(m_sumOut);
+        assertThat("Rows in sum table", sumTable.size(), is(1L));
+        long expectedSum = (long)ROW_COUNT * (ROW_COUNT + 1) / 2;
+        for (DataRow r : sumTable) {
+            assertThat("Merged sum", ((LongValue)r.getCell(0)).getLongValue(), is(expectedSum));
+        }
+
+        BufferedDataTable concatenated = getOutputTable(m_concatenateOut);
+        assertThat("Rows in concatenated table", concatenated.size(), is(2L * ROW_COUNT));
+        int index = 0;
+        for (DataRow r : concatenated) {
+            // incremented rows in the original order, followed by the component input
+            int expected = index < ROW_COUNT ? index + 1 : index - ROW_COUNT;
+            assertThat("Value in row " + r.getKey(), ((IntValue)r.getCell(0)).getIntValue(), is(expected));
+            index++;
+        }
+    }
+
+    /** A failure in a partition fails the component, which can be executed again afterwards. */
+    @Test
+    public void testFailure() throws Exception {
+        failAtValue = ROW_COUNT / 2;
+        executeAllAndWait();
+        NodeContainer component = findNodeContainer(m_component);
+        assertThat("Component executed", component.getInternalState().isExecuted(), is(false));
+        assertThat("Component message type", component.getNodeMessage().getMessageType(),
+            is(NodeMessage.Type.ERROR));
+        assertThat("Component message", component.getNodeMessage().getMessage(),
+            containsString("Failing at value " + failAtValue));
+        checkState(m_sumOut, CONFIGURED);
+        checkState(m_concatenateOut, CONFIGURED);
+
+        failAtValue = -1;
+        getManager().resetAndConfigureNode(m_component);
+        executeAllAndWait();
+        checkState(getManager(), EXECUTED);
+    }
+
+    /** Canceling the component stops all of its (blocked) threads. */
+    @Test
+    public void testCancel() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        blockedLatch = blocked;
+        getManager().executeAll();
+        assertThat("Increment not started", blocked.await(30, TimeUnit.SECONDS), is(true));
+        getManager().cancelExecution(findNodeContainer(m_component));
+        waitWhileInExecution();
+        assertThat("Component executed", findNodeContainer(m_component).getInternalState().isExecuted(), is(false));
+        checkState(m_sumOut, CONFIGURED);
+        checkState(m_concatenateOut, CONFIGURED);
+    }
+
+    private BufferedDataTable getOutputTable(final NodeID id) {
+        return (BufferedDataTable)findNodeContainer(id).getOutPort(1).getPortObject();
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        blockedLatch = null;
+        super.tearDown();
+        FileUtil.deleteRecursively(m_workflowDirectory);
+    }
+
+    /** Source with the values 0, ..., ROW_COUNT - 1. */
+    static final class RangeNodeModel extends AdapterNodeModel {
+
+        RangeNodeModel() {
+            super(0, 1);
+        }
+
+        @Override
+        protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            return new PortObjectSpec[]{VALUE_SPEC};
+        }
+
+        @Override
+        protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+            BufferedDataContainer container = exec.createDataContainer(VALUE_SPEC);
+            for (int i = 0; i < ROW_COUNT; i++) {
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+            }
+            container.close();
+            return new PortObject[]{container.getTable()};
+        }
+    }
+
+    /** Factory to {@link RangeNodeModel}. */
+    public static final class RangeNodeFactory extends AdapterNodeFactory {
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new RangeNodeModel();
+        }
+    }
+
+    /** Adds one to the value, as a distributable {@link StreamableFunction}. */
+    static final class IncrementNodeModel extends AdapterNodeModel {
+
+        IncrementNodeModel() {
+            super(1, 1);
+        }
+
+        @Override
+        public InputPortRole[] getInputPortRoles() {
+            return new InputPortRole[]{InputPortRole.DISTRIBUTED_STREAMABLE};
+        }
+
+        @Override
+        public OutputPortRole[] getOutputPortRoles() {
+            return new OutputPortRole[]{OutputPortRole.DISTRIBUTED};
+        }
+
+        @Override
+        public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            INCREMENT_OPERATORS.incrementAndGet();
+            return new StreamableFunction() {
+                @Override
+                public DataRow compute(final DataRow input) throws Exception {
+                    int value = ((IntValue)input.getCell(0)).getIntValue();
+                    CountDownLatch latch = blockedLatch;
+                    if (latch != null) {
+                        latch.countDown();
+                        // until interrupted by the cancelation
+                        Thread.sleep(Long.MAX_VALUE);
+                    }
+                    if (value == failAtValue) {
+                        throw new IllegalStateException("Failing at value " + value);
+                    }
+                    return new DefaultRow(input.getKey(), new IntCell(value + 1));
+                }
+            };
+        }
+    }
+
+    /** Factory to {@link IncrementNodeModel}. */
+    public static final class IncrementNodeFactory extends AdapterNodeFactory {
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new IncrementNodeModel();
+        }
+    }
+
+    /** Internals of the sum operator. */
+    public static final class SumInternals extends StreamableOperatorInternals {
+
+        private long m_sum;
+
+        /** Public no-arg constructor, as required. */
+        public SumInternals() {
+        }
+
+        SumInternals(final long sum) {
+            m_sum = sum;
+        }
+
+        @Override
+        public void load(final DataInputStream input) throws IOException {
+            m_sum = input.readLong();
+        }
+
+        @Override
+        public void save(final DataOutputStream output) throws IOException {
+            output.writeLong(m_sum);
+        }
+    }
+
+    /** Sums up the values of a distributed input, the partial sums are merged. */
+    static final class SumNodeModel extends AdapterNodeModel {
+
+        SumNodeModel() {
+            super(1, 1);
+        }
+
+        @Override
+        protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            return new PortObjectSpec[]{SUM_SPEC};
+        }
+
+        @Override
+        public InputPortRole[] getInputPortRoles() {
+            return new InputPortRole[]{InputPortRole.DISTRIBUTED_STREAMABLE};
+        }
+
+        @Override
+        public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            SUM_OPERATORS.incrementAndGet();
+            return new StreamableOperator() {
+                private long m_sum;
+
+                @Override
+                public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+                    final ExecutionContext exec) throws Exception {
+                    RowInput input = (RowInput)inputs[0];
+                    DataRow row;
+                    while ((row = input.poll()) != null) {
+                        m_sum += ((IntValue)row.getCell(0)).getIntValue();
+                    }
+                    input.close();
+                }
+
+                @Override
+                public StreamableOperatorInternals saveInternals() {
+                    return new SumInternals(m_sum);
+                }
+            };
+        }
+
+        @Override
+        public MergeOperator createMergeOperator() {
+            return new MergeOperator() {
+                @Override
+                public StreamableOperatorInternals mergeFinal(final StreamableOperatorInternals[] operators) {
+                    long sum = 0;
+                    for (StreamableOperatorInternals o : operators) {
+                        sum += ((SumInternals)o).m_sum;
+                    }
+                    return new SumInternals(sum);
+                }
+            };
+        }
+
+        @Override
+        public void finishStreamableExecution(final StreamableOperatorInternals internals,
+            final ExecutionContext exec, final PortOutput[] output) throws Exception {
+            RowOutput rowOutput = (RowOutput)output[0];
+            rowOutput.push(new DefaultRow(RowKey.createRowKey(0L), new LongCell(((SumInternals)internals).m_sum)));
+            rowOutput.close();
+        }
+    }
+
+    /** Factory to {@link SumNodeModel}. */
+    public static final class SumNodeFactory extends AdapterNodeFactory {
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new SumNodeModel();
+        }
+    }
+
+    /** Streams its first input and then its second one; it doesn't read the second input before the first one is
+     * done, which blocks the common upstream node unless the queues of joining branches are unbounded. */
+    static final class ConcatenateNodeModel extends AdapterNodeModel {
+
+        ConcatenateNodeModel() {
+            super(2, 1);
+        }
+
+        @Override
+        protected PortObjectSpec[] configure(final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            return new PortObjectSpec[]{inSpecs[0]};
+        }
+
+        @Override
+        public InputPortRole[] getInputPortRoles() {
+            return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE,
+                InputPortRole.NONDISTRIBUTED_STREAMABLE};
+        }
+
+        @Override
+        public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+            return new StreamableOperator() {
+                @Override
+                public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+                    final ExecutionContext exec) throws Exception {
+                    RowOutput output = (RowOutput)outputs[0];
+                    for (int i = 0; i < inputs.length; i++) {
+                        RowInput input = (RowInput)inputs[i];
+                        DataRow row;
+                        while ((row = input.poll()) != null) {
+                            output.push(new DefaultRow(new RowKey(i + "_" + row.getKey()), row));
+                        }
+                        input.close();
+                    }
+                    output.close();
+                }
+            };
+        }
+    }
+
+    /** Factory to {@link ConcatenateNodeModel}. */
+    public static final class ConcatenateNodeFactory extends AdapterNodeFactory {
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new ConcatenateNodeModel();
+        }
+    }
+}
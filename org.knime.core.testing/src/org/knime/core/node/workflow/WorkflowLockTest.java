@@ -0,0 +1,192 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.port.PortType;
+
+/**
+ * Testcase for the read path and the statistics of {@link WorkflowLock}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class WorkflowLockTest {
+
+    private WorkflowManager m_wfm;
+
+    private ExecutorService m_executor;
+
+    /** Creates an empty project. */
+    @Before
+    public void setUp() {
+        m_wfm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(), new WorkflowCreationHelper());
+        m_executor = Executors.newCachedThreadPool();
+    }
+
+    /** Readers don't exclude each other but writers have to wait for them. */
+    @Test(timeout = 10000)
+    public void testReadLockIsShared() throws Exception {
+        Future<?> writer;
+        try (WorkflowLock.ReadLock readLock = m_wfm.lockForRead()) {
+            Future<Boolean> reader = m_executor.submit(() -> {
+                try (WorkflowLock.ReadLock otherReadLock = m_wfm.lockForRead()) {
+                    return Boolean.TRUE;
+                }
+            });
+            assertThat("Read lock not shared", reader.get(5, TimeUnit.SECONDS), is(true));
+
+            writer = m_executor.submit(() -> {
+                try (WorkflowLock lock = m_wfm.lock()) {
+                    return null;
+                }
+            });
+            try {
+                writer.get(100, TimeUnit.MILLISECONDS);
+                fail("Write lock acquired while the read lock is held");
+            } catch (TimeoutException e) {
+                // expected
+            }
+        }
+        writer.get(5, TimeUnit.SECONDS);
+    }
+
+    /** The read lock can't be upgraded but a thread holding the write lock can also read. */
+    @Test
+    public void testReadLockCantBeUpgraded() {
+        try (WorkflowLock.ReadLock readLock = m_wfm.lockForRead()) {
+            m_wfm.lock();
+            fail("Write lock acquired while holding the read lock");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertThat("Read lock not released", m_wfm.getReadWriteLockInstance().getReadLockCount(), is(0));
+        assertThat("Write lock acquired", m_wfm.isLockedByCurrentThread(), is(false));
+
+        try (WorkflowLock lock = m_wfm.lock(); WorkflowLock.ReadLock readLock = m_wfm.lockForRead()) {
+            assertThat("Write lock not held", m_wfm.isLockedByCurrentThread(), is(true));
+        }
+        assertThat("Write lock not released", m_wfm.isLockedByCurrentThread(), is(false));
+    }
+
+    /** Acquisitions, contention and hold times are recorded, nested acquisitions count once. */
+    @Test(timeout = 10000)
+    public void testStatistics() throws Exception {
+        WorkflowLockStatistics before = m_wfm.getLockStatistics();
+        try (WorkflowLock lock = m_wfm.lock()) {
+            try (WorkflowLock nested = m_wfm.lock()) {
+                Thread.sleep(5);
+            }
+        }
+        try (WorkflowLock.ReadLock readLock = m_wfm.lockForRead()) {
+            // only counted
+        }
+        WorkflowLockStatistics stats = m_wfm.getLockStatistics();
+        assertThat("Unexpected acquisition count", stats.getAcquisitionCount() - before.getAcquisitionCount(), is(1L));
+        assertThat("Unexpected read acquisition count",
+            stats.getReadAcquisitionCount() - before.getReadAcquisitionCount(), is(1L));
+        assertThat("Hold time not recorded",
+            stats.getHoldNanos() - before.getHoldNanos() >= TimeUnit.MILLISECONDS.toNanos(5), is(true));
+        assertThat("Maximum hold time not recorded",
+            stats.getMaxHoldNanos() >= TimeUnit.MILLISECONDS.toNanos(5), is(true));
+        assertThat("Uncontended acquisition counted as contended",
+            stats.getContendedAcquisitionCount(), is(before.getContendedAcquisitionCount()));
+
+        Future<?> writer;
+        try (WorkflowLock lock = m_wfm.lock()) {
+            writer = m_executor.submit(() -> {
+                try (WorkflowLock otherLock = m_wfm.lock()) {
+                    return null;
+                }
+            });
+            while (m_wfm.getReadWriteLockInstance().getQueueLength() == 0) {
+                Thread.sleep(1);
+            }
+        }
+        writer.get(5, TimeUnit.SECONDS);
+        WorkflowLockStatistics after = m_wfm.getLockStatistics();
+        assertThat("Contended acquisition not counted",
+            after.getContendedAcquisitionCount() - stats.getContendedAcquisitionCount(), is(1L));
+        assertThat("Wait time not recorded", after.getWaitNanos() > stats.getWaitNanos(), is(true));
+    }
+
+    /** The deprecated accessor still returns a {@link ReentrantLock}, which is the write lock shared with metanodes. */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testReentrantLockInstance() {
+        WorkflowManager metanode = m_wfm.createAndAddSubWorkflow(new PortType[0], new PortType[0], "metanode");
+        ReentrantLock lock = m_wfm.getReentrantLockInstance();
+        assertThat("Lock not shared with metanode", metanode.getReentrantLockInstance() == lock, is(true));
+        lock.lock();
+        try {
+            assertThat("Write lock not held", m_wfm.isLockedByCurrentThread(), is(true));
+            assertThat("Write lock not held", lock.isHeldByCurrentThread(), is(true));
+            assertThat("Unexpected hold count", lock.getHoldCount(), is(1));
+        } finally {
+            lock.unlock();
+        }
+        assertThat("Write lock not released", m_wfm.getReadWriteLockInstance().isWriteLocked(), is(false));
+    }
+
+    /** Removes the project. */
+    @After
+    public void tearDown() {
+        m_executor.shutdownNow();
+        WorkflowManager.ROOT.removeNode(m_wfm.getID());
+    }
+}
@@ -57,7 +57,7 @@
 import java.util.Stack;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Lock;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.junit.After;
@@ -417,8 +417,8 @@ protected void waitWhile(final NodeContainer nc,
             return;
         }
 
-        final ReentrantLock lock = nc instanceof WorkflowManager ? ((WorkflowManager)nc).getReentrantLockInstance()
-            : nc.getParent().getReentrantLockInstance();
+        final Lock lock = nc instanceof WorkflowManager ? ((WorkflowManager)nc).getReadWriteLockInstance().writeLock()
+            : nc.getParent().getReadWriteLockInstance().writeLock();
         final Condition condition = lock.newCondition();
         NodeStateChangeListener l = new NodeStateChangeListener() {
             /** {@inheritDoc} */
@@ -134,6 +134,96 @@ public void testEarlyDuplicate() throws Exception {
         checker.addKey("A");
     }
 
+    /**
+     * Checks duplicates of keys created by {@link org.knime.core.data.RowKey#createRowKey(long)}, which are
+     * recorded as a range of indices as long as they are consecutive.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testRowIndexKeys() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker();
+        for (int i = 0; i < 1000; i++) {
+            checker.addKey("Row" + i);
+        }
+        // not in the range of indices
+        checker.addKey("Row00");
+        checker.addKey("Row-1");
+        checker.addKey("Row2000");
+        checker.addKey("Row1000");
+        checker.checkForDuplicates();
+        try {
+            checker.addKey("Row500");
+            Assert.fail("No duplicate detected in range of indices");
+        } catch (DuplicateKeyException e) {
+            Assert.assertEquals("Row500", e.getKey());
+        }
+        // the range must not grow after a key outside of it has been added
+        checker.addKey("Row1001");
+        expectedException.expect(DuplicateKeyException.class);
+        checker.addKey("Row2000");
+    }
+
+    /**
+     * Checks duplicates if the hash table is full and the keys are checked in
+     * {@link DuplicateChecker#checkForDuplicates()}.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testFullHashTable() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker(100, 3, 64);
+        try {
+            for (int i = 0; i < 5000; i++) {
+                checker.addKey("Key " + i);
+            }
+            checker.checkForDuplicates();
+            // detected in addKey since the first keys are in the hash table
+            try {
+                checker.addKey("Key 1");
+                Assert.fail("No duplicate detected for key in hash table");
+            } catch (DuplicateKeyException e) {
+                Assert.assertEquals("Key 1", e.getKey());
+            }
+            checker.clear();
+
+            for (int i = 0; i < 5000; i++) {
+                checker.addKey("Key " + i);
+            }
+            checker.addKey("Key 4000");
+            expectedException.expect(DuplicateKeyException.class);
+            checker.checkForDuplicates();
+        } finally {
+            // deletes the chunk files
+            checker.clear();
+        }
+    }
+
+    /**
+     * Checks that the direct memory of the hash table is accounted for and returned when the checker is cleared.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testHashTableReservation() throws Exception {
+        // 2000 keys need 4096 slots at a load factor of at most 0.75
+        final long tableBytes = 4096 * Long.BYTES;
+        DuplicateChecker checker = new DuplicateChecker(100, 3, 1 << 16);
+        long reserved;
+        try {
+            for (int i = 0; i < 2000; i++) {
+                checker.addKey("Key " + i);
+            }
+            reserved = DuplicateChecker.getReservedHashTableBytes();
+            Assert.assertTrue("Hash table not reserved: " + reserved, reserved >= tableBytes);
+        } finally {
+            checker.clear();
+        }
+        // reservations of other (collected) checkers may have been returned in the meantime
+        long afterClear = DuplicateChecker.getReservedHashTableBytes();
+        Assert.assertTrue("Hash table not released: " + afterClear, afterClear <= reserved - tableBytes);
+    }
+
     private void internalTestArbitraryStrings(final boolean isAddDuplicates, final long seed) throws IOException {
         LinkedHashSet<String> hash = new LinkedHashSet<String>();
         Random r = new Random(seed);
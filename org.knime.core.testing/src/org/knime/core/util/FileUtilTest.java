@@ -55,7 +55,9 @@
 import static org.junit.Assume.assumeThat;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -230,4 +232,60 @@ public void testFileResolvedFromUncUrlContainsTheProtocolHostAndPathInItsAbsolut
         File resolvedFile = FileUtil.getFileFromURL(new URL("file://HOST/path"));
         assertThat("Resolved file does not have a correct UNC path", resolvedFile.getAbsolutePath(), is("\\\\HOST\\path"));
     }
+
+    /**
+     * Testcase for {@link FileUtil#sync(File, boolean)}.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSync() throws Exception {
+        File dir = FileUtil.createTempDir("sync");
+        try {
+            File subDir = new File(dir, "sub");
+            subDir.mkdir();
+            File file = new File(subDir, "file.txt");
+            Files.write(file.toPath(), "content".getBytes("UTF-8"));
+            FileUtil.sync(dir, true);
+            FileUtil.sync(dir, false);
+            FileUtil.sync(file, false);
+            assertThat("File content changed", new String(Files.readAllBytes(file.toPath()), "UTF-8"),
+                is("content"));
+        } finally {
+            FileUtil.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Syncing a file that doesn't exist must fail (it can't be listed).
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(expected = IOException.class)
+    public void testSyncMissingFile() throws Exception {
+        File dir = FileUtil.createTempDir("sync");
+        try {
+            FileUtil.sync(new File(dir, "missing.txt"), false);
+        } finally {
+            FileUtil.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Files that can't be synced (read-only) are skipped.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSyncReadOnlyFile() throws Exception {
+        File dir = FileUtil.createTempDir("sync");
+        try {
+            File file = new File(dir, "readonly.txt");
+            Files.write(file.toPath(), "content".getBytes("UTF-8"));
+            file.setReadOnly();
+            FileUtil.sync(dir, true);
+        } finally {
+            FileUtil.deleteRecursively(dir);
+        }
+    }
 }
@@ -49,7 +49,12 @@
 
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -434,4 +439,117 @@ public ClassLoader call() throws Exception {
             Thread.currentThread().setContextClassLoader(cl);
         }
     }
+
+    /**
+     * Checks if queued tasks are executed in the order of their priority and in submission order among tasks with
+     * the same priority.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testEnqueuePriority() throws Exception {
+        ThreadPool root = new ThreadPool(1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        root.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        long[] priorities = {1, 5, 0, 5, 3};
+        for (int i = 0; i < priorities.length; i++) {
+            final int id = i;
+            root.enqueue(new Runnable() {
+                @Override
+                public void run() {
+                    order.add(id);
+                }
+            }, priorities[i]);
+        }
+        assertEquals(priorities.length, root.getQueueSize());
+
+        blocker.countDown();
+        root.waitForTermination();
+        assertThat("Unexpected execution order", order, Is.is(Arrays.asList(1, 3, 4, 0, 2)));
+        root.shutdown();
+    }
+
+    /**
+     * Tests that tasks submitted without priority from within a running task inherit its priority, i.e. they are not
+     * overtaken by prioritized tasks that were queued earlier with a lower priority.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testEnqueueInheritsPriority() throws Exception {
+        final ThreadPool root = new ThreadPool(1);
+        final CountDownLatch otherQueued = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        root.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    otherQueued.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                root.enqueue(new Runnable() {
+                    @Override
+                    public void run() {
+                        order.add("subtask");
+                    }
+                });
+            }
+        }, 5);
+        root.enqueue(new Runnable() {
+            @Override
+            public void run() {
+                order.add("other");
+            }
+        }, 3);
+        otherQueued.countDown();
+
+        root.waitForTermination();
+        assertThat("Unexpected execution order", order, Is.is(Arrays.asList("subtask", "other")));
+        root.shutdown();
+    }
+
+    /**
+     * Tests that {@link ThreadPool#waitForAll(java.util.Collection)} releases the waiting worker (otherwise the
+     * subtasks couldn't run in a pool with one thread) and rethrows the unwrapped exception of a failed task.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testWaitForAll() throws Exception {
+        final ThreadPool root = new ThreadPool(1);
+        final AtomicInteger count = new AtomicInteger();
+        Future<Void> outer = root.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    futures.add(root.enqueue(() -> count.incrementAndGet()));
+                }
+                ThreadPool.waitForAll(futures);
+                return null;
+            }
+        });
+        outer.get();
+        assertThat("Not all subtasks executed", count.get(), Is.is(3));
+
+        final Future<Void> failed = root.enqueue(() -> {
+            throw new IllegalStateException("Expected failure");
+        });
+        try {
+            ThreadPool.waitForAll(Collections.singletonList(failed));
+            fail("Exception of the failed task not rethrown");
+        } catch (IllegalStateException ex) {
+            assertThat("Unexpected exception", ex.getMessage(), Is.is("Expected failure"));
+        }
+        root.shutdown();
+    }
 }
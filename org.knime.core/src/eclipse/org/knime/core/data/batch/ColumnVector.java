@@ -0,0 +1,452 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.batch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * The values of a single column for the rows of a {@link RowBatch}. Vectors of the common primitive types
+ * ({@link DoubleVector}, {@link IntVector}, {@link LongVector}, {@link BooleanVector}) keep their values in a
+ * primitive array, which can be processed in tight loops without creating {@link DataCell} objects; all other types
+ * are kept as cells ({@link CellVector}). Missing values are flagged in a bit set, the array value of a missing
+ * entry is undefined.
+ *
+ * <p>
+ * As a column may contain any cell that is compatible with its type (e.g. {@link IntCell}s in a double column), the
+ * primitive vectors read the values through the value interface ({@link DoubleValue}, {@link LongValue}, ...).
+ * Hence {@link #getCell(int)} returns a cell of the column type, e.g. a {@link DoubleCell} for an int value that was
+ * added to a double vector.
+ *
+ * <p>
+ * Vectors are not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public abstract class ColumnVector {
+
+    /** One bit per row, set if the value is missing. */
+    private final long[] m_missing;
+
+    /** Missing cells with an error message (the bit in {@link #m_missing} is set, too), mostly empty. */
+    private final Map<Integer, DataCell> m_missingCells = new HashMap<>();
+
+    ColumnVector(final int capacity) {
+        m_missing = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Creates a vector for the given column type, a primitive vector for {@link DoubleCell}, {@link IntCell},
+     * {@link LongCell} and {@link BooleanCell} columns and a {@link CellVector} otherwise.
+     *
+     * @param type the column type
+     * @param capacity the maximum number of rows
+     * @return a new vector
+     */
+    public static ColumnVector create(final DataType type, final int capacity) {
+        if (DoubleCell.TYPE.equals(type)) {
+            return new DoubleVector(capacity);
+        } else if (IntCell.TYPE.equals(type)) {
+            return new IntVector(capacity);
+        } else if (LongCell.TYPE.equals(type)) {
+            return new LongVector(capacity);
+        } else if (BooleanCell.TYPE.equals(type)) {
+            return new BooleanVector(capacity);
+        }
+        return new CellVector(capacity);
+    }
+
+    /** @return the maximum number of rows */
+    public abstract int capacity();
+
+    /**
+     * @param row the row index
+     * @return whether the value is missing
+     */
+    public final boolean isMissing(final int row) {
+        return (m_missing[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Flags a value as missing.
+     *
+     * @param row the row index
+     */
+    public final void setMissing(final int row) {
+        m_missing[row >>> 6] |= 1L << row;
+        m_missingCells.remove(row);
+    }
+
+    /** Clears the missing flag, called by the setters of the subclasses. */
+    final void setPresent(final int row) {
+        m_missing[row >>> 6] &= ~(1L << row);
+        if (!m_missingCells.isEmpty()) {
+            m_missingCells.remove(row);
+        }
+    }
+
+    /**
+     * @return whether any value is missing
+     */
+    public final boolean hasMissing() {
+        for (long bits : m_missing) {
+            if (bits != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Resets all entries to be non-missing (values are left as they are). */
+    void clear() {
+        Arrays.fill(m_missing, 0L);
+        m_missingCells.clear();
+    }
+
+    /**
+     * Get the value as cell. Primitive vectors create a new cell on each call.
+     *
+     * @param row the row index
+     * @return the value as cell
+     */
+    public final DataCell getCell(final int row) {
+        if (isMissing(row)) {
+            DataCell missingCell = m_missingCells.get(row);
+            return missingCell != null ? missingCell : DataType.getMissingCell();
+        }
+        return getNonMissingCell(row);
+    }
+
+    /**
+     * Sets the value from a cell.
+     *
+     * @param row the row index
+     * @param cell the cell, must be compatible with the vector's type or missing
+     * @throws IllegalArgumentException If the cell doesn't fit the vector's type
+     */
+    public final void setCell(final int row, final DataCell cell) {
+        if (cell.isMissing()) {
+            setMissing(row);
+            if (cell != DataType.getMissingCell()) {
+                // keep error message
+                m_missingCells.put(row, cell);
+            }
+        } else {
+            setNonMissingCell(row, cell);
+            setPresent(row);
+        }
+    }
+
+    abstract DataCell getNonMissingCell(int row);
+
+    abstract void setNonMissingCell(int row, DataCell cell);
+
+    static IllegalArgumentException newIncompatibleCellException(final DataCell cell, final String vectorName) {
+        return new IllegalArgumentException(
+            "Cell of type " + cell.getType() + " can't be stored in " + vectorName);
+    }
+
+    /** Vector of double values. */
+    public static final class DoubleVector extends ColumnVector {
+
+        private final double[] m_values;
+
+        DoubleVector(final int capacity) {
+            super(capacity);
+            m_values = new double[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return m_values.length;
+        }
+
+        /**
+         * @return the backing array, the entries of missing values are undefined. Changes are reflected in the
+         *         vector but don't clear the missing flag, use {@link #setDouble(int, double)} for that.
+         */
+        public double[] getValues() {
+            return m_values;
+        }
+
+        /**
+         * @param row the row index
+         * @return the value, undefined if missing
+         */
+        public double getDouble(final int row) {
+            return m_values[row];
+        }
+
+        /**
+         * Sets a (non-missing) value.
+         *
+         * @param row the row index
+         * @param value the new value
+         */
+        public void setDouble(final int row, final double value) {
+            m_values[row] = value;
+            setPresent(row);
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return new DoubleCell(m_values[row]);
+        }
+
+        @Override
+        void setNonMissingCell(final int row, final DataCell cell) {
+            if (!(cell instanceof DoubleValue)) {
+                throw newIncompatibleCellException(cell, "double vector");
+            }
+            m_values[row] = ((DoubleValue)cell).getDoubleValue();
+        }
+    }
+
+    /** Vector of int values. */
+    public static final class IntVector extends ColumnVector {
+
+        private final int[] m_values;
+
+        IntVector(final int capacity) {
+            super(capacity);
+            m_values = new int[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return m_values.length;
+        }
+
+        /** @return the backing array, see {@link DoubleVector#getValues()} */
+        public int[] getValues() {
+            return m_values;
+        }
+
+        /**
+         * @param row the row index
+         * @return the value, undefined if missing
+         */
+        public int getInt(final int row) {
+            return m_values[row];
+        }
+
+        /**
+         * Sets a (non-missing) value.
+         *
+         * @param row the row index
+         * @param value the new value
+         */
+        public void setInt(final int row, final int value) {
+            m_values[row] = value;
+            setPresent(row);
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return new IntCell(m_values[row]);
+        }
+
+        @Override
+        void setNonMissingCell(final int row, final DataCell cell) {
+            if (!(cell instanceof IntValue)) {
+                throw newIncompatibleCellException(cell, "int vector");
+            }
+            m_values[row] = ((IntValue)cell).getIntValue();
+        }
+    }
+
+    /** Vector of long values. */
+    public static final class LongVector extends ColumnVector {
+
+        private final long[] m_values;
+
+        LongVector(final int capacity) {
+            super(capacity);
+            m_values = new long[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return m_values.length;
+        }
+
+        /** @return the backing array, see {@link DoubleVector#getValues()} */
+        public long[] getValues() {
+            return m_values;
+        }
+
+        /**
+         * @param row the row index
+         * @return the value, undefined if missing
+         */
+        public long getLong(final int row) {
+            return m_values[row];
+        }
+
+        /**
+         * Sets a (non-missing) value.
+         *
+         * @param row the row index
+         * @param value the new value
+         */
+        public void setLong(final int row, final long value) {
+            m_values[row] = value;
+            setPresent(row);
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return new LongCell(m_values[row]);
+        }
+
+        @Override
+        void setNonMissingCell(final int row, final DataCell cell) {
+            if (!(cell instanceof LongValue)) {
+                throw newIncompatibleCellException(cell, "long vector");
+            }
+            m_values[row] = ((LongValue)cell).getLongValue();
+        }
+    }
+
+    /** Vector of boolean values. */
+    public static final class BooleanVector extends ColumnVector {
+
+        private final boolean[] m_values;
+
+        BooleanVector(final int capacity) {
+            super(capacity);
+            m_values = new boolean[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return m_values.length;
+        }
+
+        /** @return the backing array, see {@link DoubleVector#getValues()} */
+        public boolean[] getValues() {
+            return m_values;
+        }
+
+        /**
+         * @param row the row index
+         * @return the value, undefined if missing
+         */
+        public boolean getBoolean(final int row) {
+            return m_values[row];
+        }
+
+        /**
+         * Sets a (non-missing) value.
+         *
+         * @param row the row index
+         * @param value the new value
+         */
+        public void setBoolean(final int row, final boolean value) {
+            m_values[row] = value;
+            setPresent(row);
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return BooleanCell.get(m_values[row]);
+        }
+
+        @Override
+        void setNonMissingCell(final int row, final DataCell cell) {
+            if (!(cell instanceof BooleanValue)) {
+                throw newIncompatibleCellException(cell, "boolean vector");
+            }
+            m_values[row] = ((BooleanValue)cell).getBooleanValue();
+        }
+    }
+
+    /** Vector of arbitrary cells, used for all types without a primitive representation. */
+    public static final class CellVector extends ColumnVector {
+
+        private final DataCell[] m_cells;
+
+        CellVector(final int capacity) {
+            super(capacity);
+            m_cells = new DataCell[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return m_cells.length;
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            // release references
+            Arrays.fill(m_cells, null);
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return m_cells[row];
+        }
+
+        @Override
+        void setNonMissingCell(final int row, final DataCell cell) {
+            m_cells[row] = cell;
+        }
+    }
+}
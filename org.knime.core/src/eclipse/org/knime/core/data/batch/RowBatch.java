@@ -0,0 +1,272 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.batch;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+
+/**
+ * A batch of rows stored column-wise, one {@link ColumnVector} per column. Numeric and boolean columns are held in
+ * primitive arrays so that column-wise computations (aggregations, filters, arithmetic) can run in tight loops over a
+ * few thousand rows at a time instead of calling {@link DataRow#getCell(int)} and unboxing each cell.
+ *
+ * <p>
+ * Batches are filled from rows via {@link #addRow(DataRow)} (or obtained from a table via
+ * {@link org.knime.core.node.BufferedDataTable#batchIterator(int, int...)}) and converted back to rows via
+ * {@link #getRow(int)} (or added to a container via
+ * {@link org.knime.core.data.container.DataContainer#addRowBatch(RowBatch)}). A batch may contain only a subset of
+ * the columns of its spec; the vectors of all other columns are <code>null</code> and their cells are missing in the
+ * rows returned by {@link #getRow(int)}.
+ *
+ * <p>
+ * Batches are meant to be reused and are not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class RowBatch {
+
+    /** The default number of rows in a batch. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final DataTableSpec m_spec;
+
+    private final ColumnVector[] m_columns;
+
+    private final RowKey[] m_keys;
+
+    private int m_size;
+
+    /**
+     * Creates a new batch containing all columns of the spec.
+     *
+     * @param spec the spec of the rows
+     * @param capacity the maximum number of rows, must be positive
+     */
+    public RowBatch(final DataTableSpec spec, final int capacity) {
+        this(spec, capacity, allColumns(spec));
+    }
+
+    /**
+     * Creates a new batch containing only the given columns of the spec.
+     *
+     * @param spec the spec of the rows
+     * @param capacity the maximum number of rows, must be positive
+     * @param columnIndices the indices of the columns to keep
+     * @throws IndexOutOfBoundsException if any index is not a valid column index in the spec
+     */
+    public RowBatch(final DataTableSpec spec, final int capacity, final int... columnIndices) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        m_spec = spec;
+        m_columns = new ColumnVector[spec.getNumColumns()];
+        for (int i : columnIndices) {
+            if (i < 0 || i >= m_columns.length) {
+                throw new IndexOutOfBoundsException(
+                    "Invalid column index " + i + ", spec has " + m_columns.length + " column(s)");
+            }
+            if (m_columns[i] == null) {
+                m_columns[i] = ColumnVector.create(spec.getColumnSpec(i).getType(), capacity);
+            }
+        }
+        m_keys = new RowKey[capacity];
+    }
+
+    private static int[] allColumns(final DataTableSpec spec) {
+        final int[] result = new int[spec.getNumColumns()];
+        Arrays.setAll(result, i -> i);
+        return result;
+    }
+
+    /** @return the spec of the rows in this batch */
+    public DataTableSpec getSpec() {
+        return m_spec;
+    }
+
+    /** @return the number of rows currently in this batch */
+    public int size() {
+        return m_size;
+    }
+
+    /** @return the maximum number of rows */
+    public int capacity() {
+        return m_keys.length;
+    }
+
+    /** @return whether the batch contains no rows */
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /** @return whether no more rows can be added */
+    public boolean isFull() {
+        return m_size == m_keys.length;
+    }
+
+    /**
+     * @param column the column index
+     * @return whether the batch holds the values of the column
+     */
+    public boolean isIncluded(final int column) {
+        return m_columns[column] != null;
+    }
+
+    /**
+     * Get the values of a column. Only the first {@link #size()} entries of the vector are valid. Use
+     * <code>instanceof</code> checks to access the primitive arrays, e.g. of a
+     * {@link ColumnVector.DoubleVector}.
+     *
+     * @param column the column index
+     * @return the vector or <code>null</code> if the column is not included in this batch
+     */
+    public ColumnVector getColumn(final int column) {
+        return m_columns[column];
+    }
+
+    /**
+     * @param row the row index, smaller than {@link #size()}
+     * @return the key of the row
+     */
+    public RowKey getRowKey(final int row) {
+        checkRowIndex(row);
+        return m_keys[row];
+    }
+
+    /**
+     * Appends a new row whose values are then set directly in the column vectors. All values of the new row are
+     * initially missing.
+     *
+     * @param key the key of the new row
+     * @return the index of the new row
+     * @throws IllegalStateException if the batch is full
+     */
+    public int addRow(final RowKey key) {
+        if (isFull()) {
+            throw new IllegalStateException("Batch is full (" + capacity() + " rows)");
+        }
+        final int row = m_size++;
+        m_keys[row] = key;
+        for (ColumnVector v : m_columns) {
+            if (v != null) {
+                v.setMissing(row);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Appends a row, copying the cells of all included columns into the column vectors.
+     *
+     * @param dataRow the row to add
+     * @return the index of the new row
+     * @throws IllegalStateException if the batch is full
+     * @throws IllegalArgumentException if the row has a different number of cells than the spec has columns or if a
+     *             cell doesn't match the column type
+     */
+    public int addRow(final DataRow dataRow) {
+        if (dataRow.getNumCells() != m_columns.length) {
+            throw new IllegalArgumentException("Row \"" + dataRow.getKey() + "\" has " + dataRow.getNumCells()
+                + " cell(s), expected " + m_columns.length);
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Batch is full (" + capacity() + " rows)");
+        }
+        final int row = m_size++;
+        m_keys[row] = dataRow.getKey();
+        for (int c = 0; c < m_columns.length; c++) {
+            if (m_columns[c] != null) {
+                m_columns[c].setCell(row, dataRow.getCell(c));
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Creates a row from the values at the given index. The returned row is independent of this batch, i.e. it
+     * remains valid after the batch is cleared or refilled. Cells of columns not included in this batch are missing.
+     *
+     * @param row the row index, smaller than {@link #size()}
+     * @return a new row
+     */
+    public DataRow getRow(final int row) {
+        checkRowIndex(row);
+        final DataCell[] cells = new DataCell[m_columns.length];
+        for (int c = 0; c < cells.length; c++) {
+            cells[c] = m_columns[c] != null ? m_columns[c].getCell(row) : DataType.getMissingCell();
+        }
+        return new DefaultRow(m_keys[row], cells);
+    }
+
+    /** Removes all rows from the batch, keeping its vectors for reuse. */
+    public void clear() {
+        Arrays.fill(m_keys, 0, m_size, null);
+        for (ColumnVector v : m_columns) {
+            if (v != null) {
+                v.clear();
+            }
+        }
+        m_size = 0;
+    }
+
+    private void checkRowIndex(final int row) {
+        if (row < 0 || row >= m_size) {
+            throw new IndexOutOfBoundsException("Invalid row index " + row + ", batch has " + m_size + " row(s)");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "RowBatch (" + m_size + "/" + capacity() + " rows, " + m_columns.length + " column(s))";
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.batch;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+
+/**
+ * Iterates a table in batches of rows. The same {@link RowBatch} instance is returned by each call to
+ * {@link #next()}, i.e. its contents are only valid until the next call. All batches except the last one are full.
+ *
+ * <p>
+ * Instances should be closed if the iteration is stopped early (closing the underlying row iterator).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class RowBatchIterator implements Iterator<RowBatch>, AutoCloseable {
+
+    private final RowIterator m_rowIterator;
+
+    private final RowBatch m_batch;
+
+    /**
+     * Creates a new iterator, which fills batches with all columns of the spec.
+     *
+     * @param rowIterator the underlying row iterator
+     * @param spec the spec of the rows returned by the row iterator
+     * @param batchSize the maximum number of rows per batch
+     */
+    public RowBatchIterator(final RowIterator rowIterator, final DataTableSpec spec, final int batchSize) {
+        this(rowIterator, new RowBatch(spec, batchSize));
+    }
+
+    /**
+     * Creates a new iterator filling the given batch, whose set of included columns determines which cells are
+     * copied from the rows.
+     *
+     * @param rowIterator the underlying row iterator
+     * @param batch the batch to (re)use
+     */
+    public RowBatchIterator(final RowIterator rowIterator, final RowBatch batch) {
+        m_rowIterator = rowIterator;
+        m_batch = batch;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        return m_rowIterator.hasNext();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the next batch, which is the same instance on each call
+     */
+    @Override
+    public RowBatch next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        m_batch.clear();
+        while (!m_batch.isFull() && m_rowIterator.hasNext()) {
+            m_batch.addRow(m_rowIterator.next());
+        }
+        return m_batch;
+    }
+
+    /** Closes the underlying row iterator if it is closeable. */
+    @Override
+    public void close() {
+        if (m_rowIterator instanceof CloseableRowIterator) {
+            ((CloseableRowIterator)m_rowIterator).close();
+        }
+    }
+}
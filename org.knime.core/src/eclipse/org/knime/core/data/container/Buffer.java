@@ -117,6 +117,7 @@
 import org.knime.core.data.util.memory.MemoryAlert;
 import org.knime.core.data.util.memory.MemoryAlertListener;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryBudget;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
@@ -152,6 +153,10 @@ public class Buffer implements KNIMEStreamConstants {
      */
     private static final boolean ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083;
 
+    /** Whether tables kept in memory are serialized into off-heap memory, see
+     * {@link KNIMEConstants#PROPERTY_TABLE_OFF_HEAP}. */
+    private static final boolean IS_USE_OFF_HEAP = Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_OFF_HEAP);
+
     /**
      * Contains the information whether or not certain blob cell implementations shall be compressed when saved. This
      * information is retrieved from the field BlobDataCell#USE_COMPRESSION.
@@ -256,6 +261,9 @@ public class Buffer implements KNIMEStreamConstants {
     /** Number of dirs/files per directory when blobs are saved. */
     private static final int BLOB_ENTRIES_PER_DIRECTORY = 1000;
 
+    /** Number of rows for which memory is reserved at once in the {@link MemoryBudget}. */
+    private static final int MEMORY_RESERVATION_CHUNK_ROWS = 100;
+
     /**
      * Is executing the shutdown hook? If so, no logging is done, bug fix #862.
      */
@@ -340,12 +348,6 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         return result;
     }
 
-    /** Compression on the binary (main) file. */
-    enum CompressionFormat {
-        Gzip,
-        None;
-    }
-
     /** the file to write to. */
     private File m_binFile;
 
@@ -401,6 +403,9 @@ enum CompressionFormat {
     /** maximum number of rows that are in memory. */
     private int m_maxRowsInMem;
 
+    /** Whether the rows in memory are subject to the {@link MemoryBudget}, see {@link #reserveMemory(DataRow)}. */
+    private final boolean m_useMemoryBudget;
+
     /** the current row count (how often has addRow been called). */
     private long m_size;
 
@@ -466,6 +471,10 @@ enum CompressionFormat {
            final Map<Integer, ContainerTable> globalRep, final Map<Integer, ContainerTable> localRep, final IWriteFileStoreHandler fileStoreHandler) {
         assert (maxRowsInMemory >= 0);
         m_maxRowsInMem = maxRowsInMemory;
+        // only small tables are cached subject to the budget, tables kept in memory on purpose (memory policy
+        // "keep all in memory" or a larger number of cells requested) are never written because of it
+        m_useMemoryBudget = (long)maxRowsInMemory * Math.max(spec.getNumColumns(), 1)
+                <= DataContainer.MAX_CELLS_IN_MEMORY;
         m_list = new ArrayList<BlobSupportDataRow>();
         m_openIteratorSet = new WeakHashMap<>();
         m_size = 0;
@@ -526,6 +535,7 @@ enum CompressionFormat {
             throw new IOException("No meta information given (null)");
         }
         m_maxRowsInMem = 0;
+        m_useMemoryBudget = false;
         try {
             readMetaFromFile(metaIn, fileStoreDir);
         } catch (InvalidSettingsException ise) {
@@ -603,7 +613,7 @@ synchronized void addRow(final DataRow r, final boolean isCopyOfExisting, final
             getAndIncrementSize();
             if ((m_list != null) && (m_maxRowsInMem > 0)) {
                 m_list.add(row);
-                if (m_list.size() > m_maxRowsInMem) {
+                if (m_list.size() > m_maxRowsInMem || !reserveMemory(row)) {
                     flushBuffer();
                 }
             } else {
@@ -998,11 +1008,22 @@ void closeInternal() {
         assert Thread.holdsLock(this);
         // everything is in the list, i.e. in memory
         if (m_outputWriter == null) {
-            // disallow modification
-            List<BlobSupportDataRow> newList = Collections.unmodifiableList(m_list);
-            m_list = newList;
-            if (!m_list.isEmpty()) {
-                registerMemoryAlertListener();
+            OffHeapRowList offHeapList = IS_USE_OFF_HEAP ? createOffHeapList() : null;
+            if (offHeapList != null) {
+                // not registering a memory alert listener, the rows don't use heap memory
+                m_list = offHeapList;
+                releaseMemory();
+            } else {
+                // disallow modification
+                List<BlobSupportDataRow> newList = Collections.unmodifiableList(m_list);
+                m_list = newList;
+                if (!m_list.isEmpty()) {
+                    registerMemoryAlertListener();
+                    if (m_memoryReservation != null) {
+                        // the rows can be written at any time if another consumer needs the memory
+                        m_memoryReservation.setReleaseHandler(this::flushInBackground);
+                    }
+                }
             }
         } else {
             try {
@@ -1025,19 +1046,46 @@ void closeInternal() {
         m_localRepository = null;
     } // close()
 
+    /**
+     * Serializes the rows in {@link #m_list} into off-heap memory.
+     *
+     * @return the new list or <code>null</code> if the rows can't be kept off-heap (the table is empty, uses a
+     *         different table format or there is not enough direct memory)
+     */
+    private OffHeapRowList createOffHeapList() {
+        if (m_list.isEmpty() || !(m_outputFormat instanceof DefaultTableStoreFormat)) {
+            return null;
+        }
+        try {
+            IWriteFileStoreHandler fileStoreHandler = m_fileStoreHandler instanceof IWriteFileStoreHandler
+                ? (IWriteFileStoreHandler)m_fileStoreHandler : null;
+            OffHeapRowList offHeapList =
+                OffHeapRowList.create(this, m_list, m_spec, !shouldSkipRowKey(), fileStoreHandler);
+            LOGGER.debug("Moved " + m_list.size() + " rows to off-heap memory ("
+                + offHeapList.getSizeInBytes() + " bytes)");
+            return offHeapList;
+        } catch (IOException | OutOfMemoryError e) {
+            // direct memory is limited separately (-XX:MaxDirectMemorySize), keeping the rows on the heap instead
+            LOGGER.debug("Unable to keep table in off-heap memory, using heap: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
     private MemoryAlertListener m_memoryAlertListener;
 
+    /** Memory reserved in the {@link MemoryBudget} for the rows in {@link #m_list} while they are on the heap,
+     * <code>null</code> if nothing is reserved. */
+    private MemoryBudget.Reservation m_memoryReservation;
+
+    /** Number of rows in {@link #m_list} memory has been reserved for, memory is reserved in chunks of rows. */
+    private int m_rowsWithReservedMemory;
+
     private void registerMemoryAlertListener() {
         m_memoryAlertListener = new MemoryAlertListener() {
             @Override
             protected boolean memoryAlert(final MemoryAlert alert) {
                 if (m_list != null && !m_list.isEmpty()) {
-                    ThreadUtils.threadWithContext(new Runnable() {
-                        @Override
-                        public void run() {
-                            onMemoryAlert();
-                        }
-                    }, "KNIME Buffer flusher").start();
+                    flushInBackground();
                 }
                 return true;
             }
@@ -1045,6 +1093,48 @@ public void run() {
         MemoryAlertSystem.getInstance().addListener(m_memoryAlertListener);
     }
 
+    /** Writes the rows kept in memory to disc in a new thread (the caller must not block on this buffer). */
+    private void flushInBackground() {
+        ThreadUtils.threadWithContext(new Runnable() {
+            @Override
+            public void run() {
+                onMemoryAlert();
+            }
+        }, "KNIME Buffer flusher").start();
+    }
+
+    /**
+     * Reserves memory for a row added to {@link #m_list} if the rows reserved so far are used up. The memory for the
+     * next {@link #MEMORY_RESERVATION_CHUNK_ROWS} rows is reserved at once, estimated from the size of the given row.
+     * The request doesn't wait for memory released by other buffers as this is called while holding the monitor of
+     * this buffer.
+     *
+     * @return <code>false</code> if the memory budget is exhausted and the rows should be written to disc
+     */
+    private boolean reserveMemory(final DataRow row) {
+        if (!m_useMemoryBudget || m_list.size() <= m_rowsWithReservedMemory) {
+            return true;
+        }
+        if (m_memoryReservation == null) {
+            m_memoryReservation = MemoryBudget.getInstance().newReservation();
+        }
+        final long bytes = MemoryBudget.estimateSize(row) * MEMORY_RESERVATION_CHUNK_ROWS;
+        if (!m_memoryReservation.tryReserve(bytes, false)) {
+            return false;
+        }
+        m_rowsWithReservedMemory += MEMORY_RESERVATION_CHUNK_ROWS;
+        return true;
+    }
+
+    /** Releases the memory reserved for the rows in {@link #m_list}. */
+    private void releaseMemory() {
+        if (m_memoryReservation != null) {
+            m_memoryReservation.close();
+            m_memoryReservation = null;
+        }
+        m_rowsWithReservedMemory = 0;
+    }
+
     private synchronized void onMemoryAlert() {
         if (m_list == null) {
             // concurrent close or addRow() caused this to be flushed (this method may stall long on Buffer.this)
@@ -1191,6 +1281,20 @@ private void initOutputReader(final NodeSettingsRO outputFormatSettings, final i
         m_outputReader.setBufferAndFileStoreHandlerRepository(this, m_fileStoreHandlerRepository);
     }
 
+    /**
+     * Get the statistics of the chunks of rows, recorded when the rows were written to file (or to off-heap memory).
+     *
+     * @return the statistics or <code>null</code> if not available
+     * @see org.knime.core.node.BufferedDataTable#getZoneMap()
+     */
+    synchronized ZoneMap getZoneMap() {
+        if (m_list instanceof OffHeapRowList) {
+            return ((OffHeapRowList)m_list).getZoneMap();
+        }
+        return m_outputReader instanceof DefaultTableStoreReader
+            ? ((DefaultTableStoreReader)m_outputReader).getZoneMap() : null;
+    }
+
     /**
      * Does the buffer use a file?
      *
@@ -1425,6 +1529,19 @@ private static String getFileName(final int fileIndex) {
      * @return a new Iterator over all rows.
      */
     synchronized CloseableRowIterator iterator() {
+        return iterator(null);
+    }
+
+    /**
+     * Get a new <code>RowIterator</code> that only needs to provide the cells of the selected columns. If the data is
+     * read from file, cells of other columns are not de-serialized and returned as missing cells. If the data is kept
+     * in memory (or is about to be read back into memory), rows are returned completely.
+     *
+     * @param includedColumns Flags for each column whether it is read, or <code>null</code> to read all columns.
+     * @return a new Iterator over all rows.
+     * @since 3.6
+     */
+    synchronized CloseableRowIterator iterator(final boolean[] includedColumns) {
         if (usesOutFile()) {
             if (m_useBackIntoMemoryIterator) {
                 // the order of the following lines is very important!
@@ -1434,29 +1551,63 @@ synchronized CloseableRowIterator iterator() {
                 m_list = new ArrayList<BlobSupportDataRow>((int) size());
                 return new FromListIterator();
             }
-            try {
-                LOGGER.debug("Opening input stream on file \"" + m_binFile.getAbsolutePath() + "\", "
-                        + m_nrOpenInputStreams + " open streams");
-
-                TableStoreCloseableRowIterator iterator = m_outputReader.iterator();
-                iterator.setBuffer(this);
-                m_nrOpenInputStreams.incrementAndGet();
-                synchronized (m_openIteratorSet) {
-                    m_openIteratorSet.put(iterator, DUMMY);
-                }
-                return iterator;
-            } catch (IOException ioe) {
-                StringBuilder b = new StringBuilder("Cannot read file \"");
-                b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
-                b.append("\"");
-                checkAndReportOpenFiles(ioe);
-                throw new RuntimeException(b.toString(), ioe);
-            }
+            return openFileIterator(includedColumns, 0L, Long.MAX_VALUE);
+        } else if (m_list instanceof OffHeapRowList) {
+            return ((OffHeapRowList)m_list).iterator(includedColumns, 0L, Long.MAX_VALUE);
         } else {
             return new FromListIterator();
         }
     }
 
+    /**
+     * Get a new <code>RowIterator</code> over the rows in the range [fromIndex, toIndex). If the data is read from file
+     * the iterator starts reading at the last checkpoint before <code>fromIndex</code> (if the file format supports
+     * it), so that rows at the end of a large table can be accessed without de-serializing the entire table. Unlike
+     * {@link #iterator()} this method never triggers restoring the data into memory.
+     *
+     * @param includedColumns Flags for each column whether it is read, or <code>null</code> to read all columns.
+     * @param fromIndex Index of the first row to return, must not be negative.
+     * @param toIndex Index after the last row to return (values larger than the table size are allowed).
+     * @return a new Iterator over the rows in the range.
+     * @since 3.6
+     */
+    synchronized CloseableRowIterator iterator(final boolean[] includedColumns, final long fromIndex,
+        final long toIndex) {
+        if (usesOutFile()) {
+            return openFileIterator(includedColumns, fromIndex, toIndex);
+        } else if (m_list instanceof OffHeapRowList) {
+            return ((OffHeapRowList)m_list).iterator(includedColumns, fromIndex, toIndex);
+        } else {
+            return new FromListIterator(fromIndex, toIndex);
+        }
+    }
+
+    /** Opens a new iterator on the binary file and registers it as open stream. */
+    private TableStoreCloseableRowIterator openFileIterator(final boolean[] includedColumns, final long fromIndex,
+        final long toIndex) {
+        try {
+            LOGGER.debug("Opening input stream on file \"" + m_binFile.getAbsolutePath() + "\", "
+                    + m_nrOpenInputStreams + " open streams");
+
+            TableStoreCloseableRowIterator iterator;
+            if (fromIndex > 0L || toIndex < Long.MAX_VALUE) {
+                iterator = m_outputReader.iterator(includedColumns, fromIndex, toIndex);
+            } else if (includedColumns != null) {
+                iterator = m_outputReader.iterator(includedColumns);
+            } else {
+                iterator = m_outputReader.iterator();
+            }
+            registerOpenIterator(iterator);
+            return iterator;
+        } catch (IOException ioe) {
+            StringBuilder b = new StringBuilder("Cannot read file \"");
+            b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
+            b.append("\"");
+            checkAndReportOpenFiles(ioe);
+            throw new RuntimeException(b.toString(), ioe);
+        }
+    }
+
 
     private static List<OutputStream> DEBUG_STREAMS = new ArrayList<>();
 
@@ -1696,6 +1847,20 @@ public int getBufferID() {
         return m_bufferID;
     }
 
+    /**
+     * Sets this buffer as owner of the argument iterator and registers it as open stream, so that it's closed when
+     * the buffer is cleared. The iterator's {@link TableStoreCloseableRowIterator#close()} unregisters it.
+     *
+     * @param iterator the newly opened iterator
+     */
+    void registerOpenIterator(final TableStoreCloseableRowIterator iterator) {
+        iterator.setBuffer(this);
+        m_nrOpenInputStreams.incrementAndGet();
+        synchronized (m_openIteratorSet) {
+            m_openIteratorSet.put(iterator, DUMMY);
+        }
+    }
+
     /**
      * Clear the argument iterator (free the allocated resources.
      *
@@ -1723,7 +1888,9 @@ public synchronized void clearIteratorInstance(final TableStoreCloseableRowItera
     /** Clears the temp file. Any subsequent iteration will fail! */
     synchronized void clear() {
         BufferTracker.getInstance().bufferCleared(this);
+        releaseOffHeapList();
         m_list = null;
+        releaseMemory();
         unregisterMemoryAlertListener();
         if (m_binFile != null) {
             synchronized (m_openIteratorSet) {
@@ -1792,7 +1959,9 @@ private static void logDebug(final String message, final Throwable t) {
     synchronized void flushBuffer() {
         try {
             writeAllRowsFromListToFile();
+            releaseOffHeapList();
             m_list = null; // don't write to internal cache any more
+            releaseMemory();
         } catch (IllegalStateException ise) {
             LOGGER.error(ise.getMessage() + "; Construction time call stack:\n" + m_fullStackTraceAtConstructionTime);
         } catch (IOException ioe) {
@@ -1800,6 +1969,13 @@ synchronized void flushBuffer() {
         }
     }
 
+    /** Frees the off-heap memory if the rows are kept there. */
+    private void releaseOffHeapList() {
+        if (m_list instanceof OffHeapRowList) {
+            ((OffHeapRowList)m_list).release();
+        }
+    }
+
     /** Last recently used cache for blobs. */
     private static final class BlobLRUCache extends LinkedHashMap<BlobAddress, SoftReference<BlobDataCell>> {
 
@@ -1838,15 +2014,27 @@ public synchronized SoftReference<BlobDataCell> put(final BlobAddress key,
     private class FromListIterator extends CloseableRowIterator {
 
         // do not use iterator here, see inner class comment
-        private int m_nextIndex = 0;
+        private int m_nextIndex;
+        private final long m_endIndex;
         private final List<BlobSupportDataRow> m_listReference = m_list;
 
+        FromListIterator() {
+            this(0L, Long.MAX_VALUE);
+        }
+
+        /** Iterator over the range [fromIndex, toIndex) of the list. */
+        FromListIterator(final long fromIndex, final long toIndex) {
+            // we never store more than 2^31 rows in memory, therefore it's safe to cast to int
+            m_nextIndex = (int)Math.min(fromIndex, size());
+            m_endIndex = toIndex;
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public boolean hasNext() {
-            return m_nextIndex < size();
+            return m_nextIndex < Math.min(size(), m_endIndex);
         }
 
         /**
@@ -1865,31 +2053,33 @@ public DataRow next() {
             synchronized (semaphore) {
                 // need to synchronize access to the list as the list is
                 // potentially modified by the backIntoMemoryIterator
-                if (m_nextIndex < m_listReference.size()) {
-                    return m_listReference.get(m_nextIndex++);
-                }
-                if (backIntoMemoryIterator == null) {
-                    throw new InternalError("DataRow list contains fewer elements than buffer ("
-                            + m_listReference.size() + " vs. " + size() + ")");
-                }
-                BlobSupportDataRow next = (BlobSupportDataRow)m_backIntoMemoryIterator.next();
-                if (next == null) {
-                    throw new InternalError("Unable to restore data row from disk");
-                }
-                m_listReference.add(next);
-                if (++m_nextIndex >= size()) {
-                    assert !m_backIntoMemoryIterator.hasNext() : "File iterator returns more rows than buffer contains";
-                    m_backIntoMemoryIterator = null;
-                    onAllRowsReadBackIntoMemory();
+                // (a range iterator may need to restore rows before its first row)
+                while (m_nextIndex >= m_listReference.size()) {
+                    if (backIntoMemoryIterator == null) {
+                        throw new InternalError("DataRow list contains fewer elements than buffer ("
+                                + m_listReference.size() + " vs. " + size() + ")");
+                    }
+                    BlobSupportDataRow next = (BlobSupportDataRow)backIntoMemoryIterator.next();
+                    if (next == null) {
+                        throw new InternalError("Unable to restore data row from disk");
+                    }
+                    m_listReference.add(next);
+                    if (m_listReference.size() >= size()) {
+                        assert !backIntoMemoryIterator.hasNext()
+                            : "File iterator returns more rows than buffer contains";
+                        m_backIntoMemoryIterator = null;
+                        backIntoMemoryIterator = null;
+                        onAllRowsReadBackIntoMemory();
+                    }
                 }
-                return next;
+                return m_listReference.get(m_nextIndex++);
             }
         }
 
         /** {@inheritDoc} */
         @Override
         public void close() {
-            m_nextIndex = (int) size();
+            m_nextIndex = (int)Math.min(size(), m_endIndex);
         }
     }
 
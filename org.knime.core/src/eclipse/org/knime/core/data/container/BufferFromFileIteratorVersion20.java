@@ -52,6 +52,7 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.zip.GZIPInputStream;
@@ -62,6 +63,7 @@
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.DefaultTableStoreReader.FromFileIterator;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreKey;
 import org.knime.core.data.filestore.FileStoreUtil;
@@ -81,7 +83,10 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     private final DefaultTableStoreReader m_tableFormatReader;
 
     /** Row pointer. */
-    private int m_pointer;
+    private long m_pointer;
+
+    /** Index after the last row to return (may be larger than the table). */
+    private final long m_endIndex;
 
     /** Content of the rows that get returned in {@link #next()} when the
      * table is {@link #close()}'d. Will be instantiated lazy. */
@@ -99,43 +104,117 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     /** Utility object with designated functionality to deserialize datacell. */
     private DataCellStreamReader m_dataCellStreamReader;
 
+    /** Flags for each column whether it is read, null if all columns are read. */
+    private final boolean[] m_includedColumns;
+
+    /** Dictionaries of the dictionary encoded columns that are read, null if the table has no dictionary. */
+    private final StringCellDictionary[] m_dictionaries;
+
     /** Inits iterator, opens input stream.
      * @param tableFormatReader The associated buffer.
      * @throws IOException If stream reading fails.
      */
     BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader) throws IOException {
-        m_pointer = 0;
-        if (tableFormatReader.getBinFile() == null) {
-            throw new IOException("Unable to read table from file, "
-                    + "table has been cleared.");
-        }
+        this(tableFormatReader, null);
+    }
+
+    /** Inits iterator that only de-serializes the cells of selected columns, opens input stream.
+     * @param tableFormatReader The associated buffer.
+     * @param includedColumns Flags for each column whether to read it, or <code>null</code> to read all columns.
+     * @throws IOException If stream reading fails.
+     */
+    BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader,
+        final boolean[] includedColumns) throws IOException {
+        this(tableFormatReader, includedColumns, 0L, Long.MAX_VALUE);
+    }
+
+    /** Inits iterator over a range of rows, opens input stream. If the table has checkpoints the stream is opened at
+     * the last checkpoint before the first row, all remaining rows before the first row are skipped.
+     * @param tableFormatReader The associated buffer.
+     * @param includedColumns Flags for each column whether to read it, or <code>null</code> to read all columns.
+     * @param fromIndex Index of the first row to return.
+     * @param toIndex Index after the last row to return.
+     * @throws IOException If stream reading fails.
+     */
+    BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader,
+        final boolean[] includedColumns, final long fromIndex, final long toIndex) throws IOException {
+        m_includedColumns = includedColumns;
+        m_endIndex = toIndex;
         m_tableFormatReader = tableFormatReader;
         assert m_tableFormatReader.getReadVersion() >= 6 : "Iterator is not backward "
             + "compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
-        BufferedInputStream bufferedStream =
-            new BufferedInputStream(new FileInputStream(tableFormatReader.getBinFile()));
-        InputStream in;
-        switch (tableFormatReader.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + tableFormatReader.getBinFileCompressionFormat());
-        }
+        final int interval = tableFormatReader.getCheckpointInterval();
+        final long[] offsets = tableFormatReader.getCheckpointOffsets();
+        final int checkpoint = interval > 0 ? (int)Math.min(fromIndex / interval, offsets.length) : 0;
+        InputStream rawStream = tableFormatReader.openRawInputStream(checkpoint > 0 ? offsets[checkpoint - 1] : 0L);
+        m_pointer = (long)checkpoint * interval;
+        InputStream in = tableFormatReader.getBinFileCompressionFormat().wrapInput(rawStream);
         m_dataCellStreamReader = new DataCellStreamReader(tableFormatReader);
         m_inStream = new DCObjectInputVersion2(in, m_dataCellStreamReader);
+        m_dictionaries = createDictionaries(tableFormatReader.getDictionarySeeds(), includedColumns);
+        final long firstRow = Math.min(fromIndex, Math.min(toIndex, m_tableFormatReader.size()));
+        try {
+            while (m_pointer < firstRow) {
+                skipRow();
+                m_pointer++;
+            }
+        } catch (IOException ioe) {
+            m_inStream.close();
+            throw ioe;
+        }
+    }
+
+    private static StringCellDictionary[] createDictionaries(final StringCell[][] seeds,
+        final boolean[] includedColumns) {
+        if (seeds == null) {
+            return null;
+        }
+        StringCellDictionary[] dictionaries = new StringCellDictionary[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            if (seeds[i] != null && (includedColumns == null || includedColumns[i])) {
+                dictionaries[i] = new StringCellDictionary(seeds[i]);
+            }
+        }
+        return dictionaries;
+    }
+
+    /** Called before each row is read, clears the dictionaries at checkpoints (as done by the writer). */
+    private void startRow() {
+        final int interval = m_tableFormatReader.getCheckpointInterval();
+        if (m_dictionaries != null && interval > 0 && m_pointer > 0 && m_pointer % interval == 0) {
+            for (StringCellDictionary dictionary : m_dictionaries) {
+                if (dictionary != null) {
+                    dictionary.reset();
+                }
+            }
+        }
+    }
+
+    /** Skips the next row in the stream without de-serializing any of its cells. New dictionary entries are
+     * recorded as they are referenced by subsequent rows. */
+    private void skipRow() throws IOException {
+        startRow();
+        if (m_tableFormatReader.isReadRowKey()) {
+            m_inStream.endBlock();
+        }
+        for (int i = 0, colCount = m_tableFormatReader.getTableSpec().getNumColumns(); i < colCount; i++) {
+            if (m_dictionaries != null && m_dictionaries[i] != null
+                    && m_inStream.readControlByte() == BYTE_TYPE_DICTIONARY_ENTRY) {
+                m_dictionaries[i].add(m_inStream.readDictionaryEntry());
+            }
+            m_inStream.endBlock();
+        }
+        byte eoRow = m_inStream.readControlByte();
+        if (eoRow != BYTE_ROW_SEPARATOR) {
+            throw new IOException("Expected end of row byte, got '" + eoRow + "', (byte " + (int)eoRow + ")");
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized boolean hasNext() {
-        boolean hasNext = m_pointer < m_tableFormatReader.size();
+        boolean hasNext = m_pointer < Math.min(m_endIndex, m_tableFormatReader.size());
         if (!hasNext && (m_inStream != null)) {
             close();
         }
@@ -162,6 +241,7 @@ public synchronized BlobSupportDataRow next() {
             m_pointer++;
             return new BlobSupportDataRow(key, m_missingCellsForClosedTable);
         }
+        startRow();
         RowKey key;
         try {
             key = readRowKeyAndEndBlock(inStream);
@@ -175,9 +255,20 @@ public synchronized BlobSupportDataRow next() {
         DataCell[] cells = new DataCell[colCount];
         for (int i = 0; i < colCount; i++) {
             DataCell nextCell;
+            if (m_includedColumns != null && !m_includedColumns[i]) {
+                // skip the cell's block without de-serializing it
+                try {
+                    m_inStream.endBlock();
+                } catch (final Exception e) {
+                    handleReadThrowable(e);
+                }
+                cells[i] = DataType.getMissingCell();
+                continue;
+            }
             try {
                 try {
-                    nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
+                    nextCell = m_dataCellStreamReader.readDataCell(m_inStream,
+                        m_dictionaries != null ? m_dictionaries[i] : null);
                 } finally {
                     m_inStream.endBlock();
                 }
@@ -223,7 +314,7 @@ private RowKey readRowKeyAndEndBlock(
     /** Handle exceptions, make sure to issue errors only once. */
     private void handleReadThrowable(final Throwable throwable) {
         String warnMessage = "Errors while reading row " + (m_pointer + 1)
-            + " from file \"" + m_tableFormatReader.getBinFile().getName() + "\": "
+            + " from \"" + m_tableFormatReader.getSourceName() + "\": "
             + throwable.getMessage();
         if (!m_hasThrownReadException) {
             warnMessage = warnMessage.concat(
@@ -327,11 +418,30 @@ static class DataCellStreamReader {
          * @throws IOException If exceptions occur.
          */
         DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOException {
+            return readDataCell(inStream, null);
+        }
+
+        /** Reads a data cell of a column that may be dictionary encoded. Does not exception handling, nor stream
+         * blocking.
+         * @param inStream To read from.
+         * @param dictionary The dictionary of the column or <code>null</code> if the column is not encoded.
+         * @return the data cell being read
+         * @throws IOException If exceptions occur.
+         */
+        DataCell readDataCell(final DCObjectInputVersion2 inStream, final StringCellDictionary dictionary)
+            throws IOException {
             inStream.setCurrentClassLoader(null);
             byte identifier = inStream.readControlByte();
             if (identifier == BYTE_TYPE_MISSING) {
                 return DataType.getMissingCell();
             }
+            if (dictionary != null) {
+                if (identifier == BYTE_TYPE_DICTIONARY_ENTRY) {
+                    return dictionary.add(inStream.readDictionaryEntry());
+                } else if (identifier == BYTE_TYPE_DICTIONARY_REFERENCE) {
+                    return dictionary.get(inStream.readDictionaryReference());
+                }
+            }
             final boolean isSerialized = identifier == BYTE_TYPE_SERIALIZATION;
             if (isSerialized) {
                 identifier = inStream.readControlByte();
@@ -369,4 +479,49 @@ DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOException {
         }
     } // class DataCellStreamReader
 
+    /** The cells of a dictionary encoded column read since the last checkpoint, see
+     * {@link KNIMEStreamConstants#BYTE_TYPE_DICTIONARY_ENTRY}. Each distinct string is represented by a single
+     * cell instance. */
+    static final class StringCellDictionary {
+
+        private final StringCell[] m_seeds;
+
+        private final ArrayList<StringCell> m_entries = new ArrayList<>();
+
+        /** @param seeds the initial entries, shared with other dictionaries. */
+        StringCellDictionary(final StringCell[] seeds) {
+            m_seeds = seeds;
+        }
+
+        /** Adds a new entry.
+         * @param value the string as read from the stream
+         * @return the cell representing the entry. */
+        StringCell add(final String value) {
+            StringCell cell = new StringCell(value);
+            m_entries.add(cell);
+            return cell;
+        }
+
+        /** Get an entry.
+         * @param index the index as read from the stream
+         * @return the cell representing the entry
+         * @throws IOException If the index is invalid. */
+        StringCell get(final int index) throws IOException {
+            if (index >= 0 && index < m_seeds.length) {
+                return m_seeds[index];
+            }
+            int entryIndex = index - m_seeds.length;
+            if (entryIndex < 0 || entryIndex >= m_entries.size()) {
+                throw new IOException("Invalid dictionary reference " + index + " (dictionary size "
+                    + (m_seeds.length + m_entries.size()) + ")");
+            }
+            return m_entries.get(entryIndex);
+        }
+
+        /** Removes all entries except for the seeds. */
+        void reset() {
+            m_entries.clear();
+        }
+    }
+
 }
@@ -0,0 +1,518 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * A vector holding the values of a single column for one chunk of rows as written by the
+ * {@link ColumnarTableStoreFormat}. The same vector instance is used while writing (cells are set and the vector is
+ * then written to the stream) and while reading (the vector is read from the stream and cells are then retrieved).
+ *
+ * <p>The layout of a vector in the stream is a missing value bit set (only if there are missing values), followed by
+ * the type specific values. Missing values are written as their default (0, false, ...).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class ColumnarColumnVector {
+
+    /** Encoding of a string vector: dictionary followed by an id for each row. */
+    private static final byte STRING_ENCODING_DICTIONARY = 0;
+
+    /** Encoding of a string vector: each non-missing string is written in full. */
+    private static final byte STRING_ENCODING_PLAIN = 1;
+
+    /** Bit set of missing values, one bit per row. */
+    private final long[] m_missing;
+
+    /** Error messages of missing cells (row index to message), mostly empty. */
+    private final Map<Integer, String> m_missingErrors = new HashMap<>();
+
+    private boolean m_hasMissing;
+
+    /** @param capacity maximum number of rows in a chunk. */
+    ColumnarColumnVector(final int capacity) {
+        m_missing = new long[(capacity + 63) >>> 6];
+    }
+
+    /** Creates a vector for the given type.
+     * @param type The column type, must be one of the types accepted by {@link ColumnarTableStoreFormat}.
+     * @param capacity maximum number of rows in a chunk
+     * @return a new vector
+     * @throws IllegalArgumentException If the type isn't supported
+     */
+    static ColumnarColumnVector create(final DataType type, final int capacity) {
+        if (IntCell.TYPE.equals(type)) {
+            return new IntVector(capacity);
+        } else if (LongCell.TYPE.equals(type)) {
+            return new LongVector(capacity);
+        } else if (DoubleCell.TYPE.equals(type)) {
+            return new DoubleVector(capacity);
+        } else if (BooleanCell.TYPE.equals(type)) {
+            return new BooleanVector(capacity);
+        } else if (StringCell.TYPE.equals(type)) {
+            return new StringVector(capacity);
+        }
+        throw new IllegalArgumentException("Unsupported column type for columnar storage: " + type);
+    }
+
+    /**
+     * @param type a column type
+     * @return whether {@link #create(DataType, int)} accepts the argument type.
+     */
+    static boolean isSupported(final DataType type) {
+        return IntCell.TYPE.equals(type) || LongCell.TYPE.equals(type) || DoubleCell.TYPE.equals(type)
+            || BooleanCell.TYPE.equals(type) || StringCell.TYPE.equals(type);
+    }
+
+    /**
+     * Sets the cell in the given row.
+     * @param row The row index in the chunk.
+     * @param cell The cell to set (raw cell as contained in the row).
+     * @throws IOException If the cell's class can't be stored in this vector.
+     */
+    final void setCell(final int row, final DataCell cell) throws IOException {
+        if (cell.isMissing()) {
+            m_missing[row >>> 6] |= 1L << row;
+            m_hasMissing = true;
+            if (cell instanceof MissingCell) {
+                String error = ((MissingCell)cell).getError();
+                if (error != null) {
+                    m_missingErrors.put(row, error);
+                }
+            }
+        } else {
+            setValue(row, cell);
+        }
+    }
+
+    /**
+     * @param row The row index in the chunk.
+     * @return the cell at the given row.
+     */
+    final DataCell getCell(final int row) {
+        if (isMissing(row)) {
+            String error = m_missingErrors.get(row);
+            return error == null ? DataType.getMissingCell() : new MissingCell(error);
+        }
+        return getValue(row);
+    }
+
+    /**
+     * @param row The row index in the chunk.
+     * @return if the value at the given row is missing
+     */
+    final boolean isMissing(final int row) {
+        return m_hasMissing && (m_missing[row >>> 6] & (1L << row)) != 0L;
+    }
+
+    /**
+     * Writes the first <code>rowCount</code> values to the output and resets the vector.
+     * @param out To write to.
+     * @param rowCount The number of rows set in this vector.
+     * @throws IOException If writing fails.
+     */
+    final void write(final DataOutput out, final int rowCount) throws IOException {
+        out.writeBoolean(m_hasMissing);
+        if (m_hasMissing) {
+            writeBits(out, m_missing, rowCount);
+            out.writeInt(m_missingErrors.size());
+            for (Map.Entry<Integer, String> e : m_missingErrors.entrySet()) {
+                out.writeInt(e.getKey());
+                writeString(out, e.getValue());
+            }
+        }
+        writeValues(out, rowCount);
+        reset();
+    }
+
+    /**
+     * Reads <code>rowCount</code> values from the input, replacing the current content.
+     * @param in To read from.
+     * @param rowCount The number of rows in the chunk.
+     * @throws IOException If reading fails.
+     */
+    final void read(final DataInput in, final int rowCount) throws IOException {
+        reset();
+        m_hasMissing = in.readBoolean();
+        if (m_hasMissing) {
+            readBits(in, m_missing, rowCount);
+            int errorCount = in.readInt();
+            for (int i = 0; i < errorCount; i++) {
+                int row = in.readInt();
+                m_missingErrors.put(row, readString(in));
+            }
+        }
+        readValues(in, rowCount);
+    }
+
+    private void reset() {
+        if (m_hasMissing) {
+            Arrays.fill(m_missing, 0L);
+            m_missingErrors.clear();
+            m_hasMissing = false;
+        }
+    }
+
+    /**
+     * Sets the value of a non-missing cell.
+     * @param row The row index.
+     * @param cell The non-missing cell.
+     * @throws IOException If the cell's class isn't supported.
+     */
+    abstract void setValue(final int row, final DataCell cell) throws IOException;
+
+    /**
+     * @param row The row index, value is not missing.
+     * @return A cell representing the value.
+     */
+    abstract DataCell getValue(final int row);
+
+    /** Type specific write routine, see {@link #write(DataOutput, int)}. */
+    abstract void writeValues(final DataOutput out, final int rowCount) throws IOException;
+
+    /** Type specific read routine, see {@link #read(DataInput, int)}. */
+    abstract void readValues(final DataInput in, final int rowCount) throws IOException;
+
+    /** Throws an exception reporting an unexpected cell class. */
+    static IOException newUnsupportedCellException(final DataCell cell, final Class<? extends DataCell> expected) {
+        return new IOException("Columnar table format cannot store cell of class \"" + cell.getClass().getName()
+            + "\", expected \"" + expected.getName() + "\"");
+    }
+
+    /** Writes the first <code>count</code> bits of a bit set. */
+    static void writeBits(final DataOutput out, final long[] bits, final int count) throws IOException {
+        for (int i = 0, words = (count + 63) >>> 6; i < words; i++) {
+            out.writeLong(bits[i]);
+        }
+    }
+
+    /** Reads <code>count</code> bits into a bit set. */
+    static void readBits(final DataInput in, final long[] bits, final int count) throws IOException {
+        for (int i = 0, words = (count + 63) >>> 6; i < words; i++) {
+            bits[i] = in.readLong();
+        }
+    }
+
+    /** Writes a string as length prefixed UTF-8 bytes (not limited to 64k as {@link DataOutput#writeUTF(String)}). */
+    static void writeString(final DataOutput out, final String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reads a string written by {@link #writeString(DataOutput, String)}. */
+    static String readString(final DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Vector for {@link IntCell}. */
+    static final class IntVector extends ColumnarColumnVector {
+
+        private final int[] m_values;
+
+        IntVector(final int capacity) {
+            super(capacity);
+            m_values = new int[capacity];
+        }
+
+        @Override
+        void setValue(final int row, final DataCell cell) throws IOException {
+            if (cell.getClass() != IntCell.class) {
+                throw newUnsupportedCellException(cell, IntCell.class);
+            }
+            m_values[row] = ((IntCell)cell).getIntValue();
+        }
+
+        @Override
+        DataCell getValue(final int row) {
+            return new IntCell(m_values[row]);
+        }
+
+        @Override
+        void writeValues(final DataOutput out, final int rowCount) throws IOException {
+            for (int i = 0; i < rowCount; i++) {
+                out.writeInt(m_values[i]);
+            }
+        }
+
+        @Override
+        void readValues(final DataInput in, final int rowCount) throws IOException {
+            for (int i = 0; i < rowCount; i++) {
+                m_values[i] = in.readInt();
+            }
+        }
+    }
+
+    /** Vector for {@link LongCell}. */
+    static final class LongVector extends ColumnarColumnVector {
+
+        private final long[] m_values;
+
+        LongVector(final int capacity) {
+            super(capacity);
+            m_values = new long[capacity];
+        }
+
+        @Override
+        void setValue(final int row, final DataCell cell) throws IOException {
+            if (cell.getClass() != LongCell.class) {
+                throw newUnsupportedCellException(cell, LongCell.class);
+            }
+            m_values[row] = ((LongCell)cell).getLongValue();
+        }
+
+        @Override
+        DataCell getValue(final int row) {
+            return new LongCell(m_values[row]);
+        }
+
+        @Override
+        void writeValues(final DataOutput out, final int rowCount) throws IOException {
+            for (int i = 0; i < rowCount; i++) {
+                out.writeLong(m_values[i]);
+            }
+        }
+
+        @Override
+        void readValues(final DataInput in, final int rowCount) throws IOException {
+            for (int i = 0; i < rowCount; i++) {
+                m_values[i] = in.readLong();
+            }
+        }
+    }
+
+    /** Vector for {@link DoubleCell}. */
+    static final class DoubleVector extends ColumnarColumnVector {
+
+        private final double[] m_values;
+
+        DoubleVector(final int capacity) {
+            super(capacity);
+            m_values = new double[capacity];
+        }
+
+        @Override
+        void setValue(final int row, final DataCell cell) throws IOException {
+            if (cell.getClass() != DoubleCell.class) {
+                throw newUnsupportedCellException(cell, DoubleCell.class);
+            }
+            m_values[row] = ((DoubleCell)cell).getDoubleValue();
+        }
+
+        @Override
+        DataCell getValue(final int row) {
+            return new DoubleCell(m_values[row]);
+        }
+
+        @Override
+        void writeValues(final DataOutput out, final int rowCount) throws IOException {
+            for (int i = 0; i < rowCount; i++) {
+                out.writeDouble(m_values[i]);
+            }
+        }
+
+        @Override
+        void readValues(final DataInput in, final int rowCount) throws IOException {
+            for (int i = 0; i < rowCount; i++) {
+                m_values[i] = in.readDouble();
+            }
+        }
+    }
+
+    /** Vector for {@link BooleanCell}, values are kept in a bit set. */
+    static final class BooleanVector extends ColumnarColumnVector {
+
+        private final long[] m_values;
+
+        BooleanVector(final int capacity) {
+            super(capacity);
+            m_values = new long[(capacity + 63) >>> 6];
+        }
+
+        @Override
+        void setValue(final int row, final DataCell cell) throws IOException {
+            if (cell.getClass() != BooleanCell.class) {
+                throw newUnsupportedCellException(cell, BooleanCell.class);
+            }
+            if (((BooleanCell)cell).getBooleanValue()) {
+                m_values[row >>> 6] |= 1L << row;
+            } else {
+                m_values[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        @Override
+        DataCell getValue(final int row) {
+            return BooleanCell.get((m_values[row >>> 6] & (1L << row)) != 0L);
+        }
+
+        @Override
+        void writeValues(final DataOutput out, final int rowCount) throws IOException {
+            writeBits(out, m_values, rowCount);
+        }
+
+        @Override
+        void readValues(final DataInput in, final int rowCount) throws IOException {
+            readBits(in, m_values, rowCount);
+        }
+    }
+
+    /**
+     * Vector for {@link StringCell}. Values are dictionary encoded if the number of distinct values in the chunk is
+     * small enough, in which case all rows with the same value share the same {@link StringCell} instance when read.
+     */
+    static final class StringVector extends ColumnarColumnVector {
+
+        private final String[] m_values;
+
+        private final StringCell[] m_cells;
+
+        StringVector(final int capacity) {
+            super(capacity);
+            m_values = new String[capacity];
+            m_cells = new StringCell[capacity];
+        }
+
+        @Override
+        void setValue(final int row, final DataCell cell) throws IOException {
+            if (cell.getClass() != StringCell.class) {
+                throw newUnsupportedCellException(cell, StringCell.class);
+            }
+            m_values[row] = ((StringCell)cell).getStringValue();
+        }
+
+        @Override
+        DataCell getValue(final int row) {
+            return m_cells[row];
+        }
+
+        @Override
+        void writeValues(final DataOutput out, final int rowCount) throws IOException {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            int maxDictionarySize = rowCount / 2;
+            for (int i = 0; i < rowCount && dictionary.size() <= maxDictionarySize; i++) {
+                if (!isMissing(i)) {
+                    dictionary.putIfAbsent(m_values[i], dictionary.size());
+                }
+            }
+            if (dictionary.size() <= maxDictionarySize) {
+                out.writeByte(STRING_ENCODING_DICTIONARY);
+                out.writeInt(dictionary.size());
+                for (String s : dictionary.keySet()) {
+                    writeString(out, s);
+                }
+                for (int i = 0; i < rowCount; i++) {
+                    int id = isMissing(i) ? 0 : dictionary.get(m_values[i]);
+                    if (dictionary.size() <= (1 << 8)) {
+                        out.writeByte(id);
+                    } else if (dictionary.size() <= (1 << 16)) {
+                        out.writeShort(id);
+                    } else {
+                        out.writeInt(id);
+                    }
+                }
+            } else {
+                out.writeByte(STRING_ENCODING_PLAIN);
+                for (int i = 0; i < rowCount; i++) {
+                    if (!isMissing(i)) {
+                        writeString(out, m_values[i]);
+                    }
+                }
+            }
+            Arrays.fill(m_values, 0, rowCount, null);
+        }
+
+        @Override
+        void readValues(final DataInput in, final int rowCount) throws IOException {
+            byte encoding = in.readByte();
+            switch (encoding) {
+                case STRING_ENCODING_DICTIONARY:
+                    StringCell[] dictionary = new StringCell[in.readInt()];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = new StringCell(readString(in));
+                    }
+                    for (int i = 0; i < rowCount; i++) {
+                        int id;
+                        if (dictionary.length <= (1 << 8)) {
+                            id = in.readUnsignedByte();
+                        } else if (dictionary.length <= (1 << 16)) {
+                            id = in.readUnsignedShort();
+                        } else {
+                            id = in.readInt();
+                        }
+                        m_cells[i] = isMissing(i) ? null : dictionary[id];
+                    }
+                    break;
+                case STRING_ENCODING_PLAIN:
+                    for (int i = 0; i < rowCount; i++) {
+                        m_cells[i] = isMissing(i) ? null : new StringCell(readString(in));
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown string encoding in columnar table: " + encoding);
+            }
+        }
+    }
+}
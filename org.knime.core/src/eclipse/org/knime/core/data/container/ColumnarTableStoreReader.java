@@ -0,0 +1,242 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+
+/**
+ * Reader for files written by the {@link ColumnarTableStoreWriter}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarTableStoreReader extends AbstractTableStoreReader {
+
+    private final File m_binFile;
+
+    private final DataTableSpec m_spec;
+
+    private final boolean m_isReadRowKey;
+
+    /** Assigned in {@link #readMetaFromFile(NodeSettingsRO, int)}, which is called from the super constructor. */
+    private int m_chunkSize;
+
+    /**
+     * Constructs a reader for materializing columnar KNIME tables.
+     *
+     * @param binFile the local file from which to read
+     * @param spec the specification of the data table
+     * @param settings The settings (written by
+     *            {@link ColumnarTableStoreWriter#writeMetaInfoAfterWrite(org.knime.core.node.NodeSettingsWO)})
+     * @param version The version as defined in the {@link Buffer} class
+     * @param isReadRowKey whether or not row keys are to be read
+     * @throws IOException any type of I/O problem
+     * @throws InvalidSettingsException If the settings are invalid
+     */
+    ColumnarTableStoreReader(final File binFile, final DataTableSpec spec, final NodeSettingsRO settings,
+        final int version, final boolean isReadRowKey) throws IOException, InvalidSettingsException {
+        super(binFile, settings, version);
+        m_binFile = binFile;
+        m_spec = spec;
+        m_isReadRowKey = isReadRowKey;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TableStoreCloseableRowIterator iterator() throws IOException {
+        return iterator(null);
+    }
+
+    /**
+     * {@inheritDoc} The vectors of all other columns are skipped in the stream and their cells are returned as missing.
+     */
+    @Override
+    public TableStoreCloseableRowIterator iterator(final boolean[] includedColumns) throws IOException {
+        if (m_binFile == null) {
+            throw new IOException("Unable to read table from file, table has been cleared.");
+        }
+        return new ColumnarFromFileIterator(includedColumns);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readMetaFromFile(final NodeSettingsRO settings, final int version)
+        throws IOException, InvalidSettingsException {
+        m_chunkSize = settings.getInt(ColumnarTableStoreFormat.CFG_CHUNK_SIZE);
+        if (m_chunkSize <= 0) {
+            throw new InvalidSettingsException("Invalid chunk size in columnar table: " + m_chunkSize);
+        }
+        super.readMetaFromFile(settings, version);
+    }
+
+    /** Iterator reading one chunk at a time. */
+    private final class ColumnarFromFileIterator extends TableStoreCloseableRowIterator {
+
+        private final ColumnarColumnVector[] m_vectors;
+
+        private final String[] m_rowKeys;
+
+        private DataInputStream m_inStream;
+
+        private int m_rowsInChunk;
+
+        private int m_indexInChunk;
+
+        ColumnarFromFileIterator(final boolean[] includedColumns) throws IOException {
+            final int colCount = m_spec.getNumColumns();
+            m_vectors = new ColumnarColumnVector[colCount];
+            for (int i = 0; i < colCount; i++) {
+                if (includedColumns == null || includedColumns[i]) {
+                    m_vectors[i] = ColumnarColumnVector.create(m_spec.getColumnSpec(i).getType(), m_chunkSize);
+                }
+            }
+            m_rowKeys = m_isReadRowKey ? new String[m_chunkSize] : null;
+            m_inStream = new DataInputStream(new BufferedInputStream(new FileInputStream(m_binFile), 1 << 16));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean hasNext() {
+            if (m_indexInChunk < m_rowsInChunk) {
+                return true;
+            }
+            if (m_inStream == null) {
+                return false;
+            }
+            try {
+                readChunk();
+            } catch (IOException ioe) {
+                throw new RuntimeException("Unable to read chunk from file \"" + m_binFile.getName() + "\": "
+                    + ioe.getMessage(), ioe);
+            }
+            boolean hasNext = m_rowsInChunk > 0;
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+
+        private void readChunk() throws IOException {
+            final DataInputStream in = m_inStream;
+            m_indexInChunk = 0;
+            m_rowsInChunk = in.readInt();
+            if (m_rowsInChunk <= 0) {
+                m_rowsInChunk = 0;
+                return;
+            }
+            if (m_rowKeys != null) {
+                in.readInt(); // byte length of the row keys
+                for (int i = 0; i < m_rowsInChunk; i++) {
+                    m_rowKeys[i] = ColumnarColumnVector.readString(in);
+                }
+            }
+            for (ColumnarColumnVector vector : m_vectors) {
+                int byteLength = in.readInt();
+                if (vector != null) {
+                    vector.read(in, m_rowsInChunk);
+                } else {
+                    skipFully(in, byteLength);
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized BlobSupportDataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator at end");
+            }
+            final int index = m_indexInChunk++;
+            DataCell[] cells = new DataCell[m_vectors.length];
+            for (int i = 0; i < cells.length; i++) {
+                ColumnarColumnVector vector = m_vectors[i];
+                cells[i] = vector != null ? vector.getCell(index) : DataType.getMissingCell();
+            }
+            RowKey key = m_rowKeys != null ? new RowKey(m_rowKeys[index]) : DUMMY_ROW_KEY;
+            return new BlobSupportDataRow(key, cells);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean performClose() throws IOException {
+            if (m_inStream == null) {
+                return false;
+            }
+            DataInputStream in = m_inStream;
+            m_inStream = null;
+            m_rowsInChunk = 0;
+            m_indexInChunk = 0;
+            in.close();
+            return true;
+        }
+    }
+
+    /** Skips exactly <code>count</code> bytes, fails if the stream ends before. */
+    static void skipFully(final DataInputStream in, final int count) throws IOException {
+        int remaining = count;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                in.readByte(); // throws EOFException at end of stream
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+}
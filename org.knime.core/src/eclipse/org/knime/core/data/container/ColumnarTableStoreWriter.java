@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Writer to the {@link ColumnarTableStoreFormat}. Rows are collected into column vectors; once a chunk is full it is
+ * written to the stream. The layout of a chunk is:
+ * <pre>
+ *   int rowCount
+ *   [int byteLength, row keys]   -- only if row keys are written
+ *   (int byteLength, column vector)*
+ * </pre>
+ * The stream is terminated by a row count of 0. The byte lengths allow readers to skip row keys and columns.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarTableStoreWriter extends AbstractTableStoreWriter {
+
+    private final DataOutputStream m_outStream;
+
+    private final int m_chunkSize;
+
+    private final ColumnarColumnVector[] m_vectors;
+
+    private final String[] m_rowKeys;
+
+    /** Temporary buffer for a row key block or a single column vector, used to determine its length. */
+    private final ByteArrayOutputStream m_blockBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream m_blockOut = new DataOutputStream(m_blockBytes);
+
+    private int m_rowsInChunk;
+
+    private int m_chunkCount;
+
+    private boolean m_isClosed;
+
+    /**
+     * Constructs a writer for writing KNIME tables to disk.
+     *
+     * @param spec the specification of the KNIME table to write to disk
+     * @param outputStream the stream to write to
+     * @param writeRowKey whether to also write the row keys
+     * @param chunkSize number of rows per chunk, &gt; 0
+     */
+    ColumnarTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey,
+        final int chunkSize) {
+        super(spec, writeRowKey);
+        m_outStream = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        m_chunkSize = chunkSize;
+        m_vectors = new ColumnarColumnVector[spec.getNumColumns()];
+        for (int i = 0; i < m_vectors.length; i++) {
+            m_vectors[i] = ColumnarColumnVector.create(spec.getColumnSpec(i).getType(), chunkSize);
+        }
+        m_rowKeys = writeRowKey ? new String[chunkSize] : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeRow(final DataRow row) throws IOException {
+        if (m_rowKeys != null) {
+            m_rowKeys[m_rowsInChunk] = row.getKey().getString();
+        }
+        for (int i = 0; i < m_vectors.length; i++) {
+            m_vectors[i].setCell(m_rowsInChunk,
+                row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i));
+        }
+        if (++m_rowsInChunk == m_chunkSize) {
+            writeChunk();
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        if (m_rowsInChunk == 0) {
+            return;
+        }
+        m_outStream.writeInt(m_rowsInChunk);
+        if (m_rowKeys != null) {
+            for (int i = 0; i < m_rowsInChunk; i++) {
+                ColumnarColumnVector.writeString(m_blockOut, m_rowKeys[i]);
+                m_rowKeys[i] = null;
+            }
+            flushBlock();
+        }
+        for (ColumnarColumnVector vector : m_vectors) {
+            vector.write(m_blockOut, m_rowsInChunk);
+            flushBlock();
+        }
+        m_rowsInChunk = 0;
+        m_chunkCount++;
+    }
+
+    /** Writes the content of the block buffer (length prefixed) to the file. */
+    private void flushBlock() throws IOException {
+        m_blockOut.flush();
+        m_outStream.writeInt(m_blockBytes.size());
+        m_blockBytes.writeTo(m_outStream);
+        m_blockBytes.reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
+        settings.addInt(ColumnarTableStoreFormat.CFG_CHUNK_SIZE, m_chunkSize);
+        settings.addInt(ColumnarTableStoreFormat.CFG_CHUNK_COUNT, m_chunkCount);
+        super.writeMetaInfoAfterWrite(settings);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        writeChunk();
+        m_outStream.writeInt(0);
+        m_outStream.close();
+    }
+
+}
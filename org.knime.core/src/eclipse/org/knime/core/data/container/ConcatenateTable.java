@@ -174,12 +174,34 @@ public DataTableSpec getDataTableSpec() {
     public CloseableRowIterator iterator() {
         // return MyIterator if all specs are the same indicated by m_tablesWrapper == null
         if(m_tablesWrapper == null) {
-            return new MyIterator();
+            return new MyIterator(null, 0L, Long.MAX_VALUE);
         } else {
             return m_tablesWrapper.iterator(null, -1);
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator projectedIterator(final int[] columnIndices) {
+        // all tables have the same structure unless there is a table wrapper
+        if (m_tablesWrapper == null) {
+            return new MyIterator(columnIndices, 0L, Long.MAX_VALUE);
+        } else {
+            return m_tablesWrapper.iterator(null, -1);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        // only the underlying tables touched by the range are read
+        if (m_tablesWrapper == null) {
+            return new MyIterator(null, fromIndex, toIndex);
+        } else {
+            return KnowsRowCountTable.super.rangeIterator(fromIndex, toIndex);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void putIntoTableRepository(
@@ -321,14 +343,41 @@ private class MyIterator extends CloseableRowIterator {
         private int m_tableIndex;
         private CloseableRowIterator m_curIterator;
         private DataRow m_next;
+        private final int[] m_columnIndices;
+        private final long m_fromIndex;
+        private final long m_toIndex;
+        /** Index of the first row of the current table in the concatenated table. */
+        private long m_tableOffset;
 
-        /** Creates new iterator. */
-        public MyIterator() {
+        /** Creates new iterator.
+         * @param columnIndices the columns to read from the underlying tables or <code>null</code> for all columns
+         * @param fromIndex index of the first row to return
+         * @param toIndex index after the last row to return */
+        public MyIterator(final int[] columnIndices, final long fromIndex, final long toIndex) {
             m_tableIndex = 0;
-            m_curIterator = m_tables[m_tableIndex].iterator();
+            m_tableOffset = 0L;
+            m_columnIndices = columnIndices;
+            m_fromIndex = fromIndex;
+            m_toIndex = toIndex;
+            // skip all tables before the first row
+            while (m_tableIndex < m_tables.length - 1 && m_tableOffset + m_tables[m_tableIndex].size() <= fromIndex) {
+                m_tableOffset += m_tables[m_tableIndex].size();
+                m_tableIndex++;
+            }
+            m_curIterator = createIterator(m_tables[m_tableIndex]);
             m_next = internalNext();
         }
 
+        private CloseableRowIterator createIterator(final BufferedDataTable table) {
+            final long size = table.size();
+            final long localFrom = Math.min(size, Math.max(0L, m_fromIndex - m_tableOffset));
+            final long localTo = Math.max(localFrom, Math.min(size, m_toIndex - m_tableOffset));
+            if (localFrom > 0L || localTo < size) {
+                return table.rangeIterator(localFrom, localTo);
+            }
+            return m_columnIndices == null ? table.iterator() : table.projectedIterator(m_columnIndices);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -348,12 +397,18 @@ public DataRow next() {
         }
 
         private DataRow internalNext() {
+            if (m_tableIndex >= m_tables.length) {
+                // closed
+                return null;
+            }
             if (m_curIterator.hasNext()) {
                 return m_curIterator.next();
             }
-            if (m_tableIndex < m_tables.length - 1) {
+            final long nextTableOffset = m_tableOffset + m_tables[m_tableIndex].size();
+            if (m_tableIndex < m_tables.length - 1 && nextTableOffset < m_toIndex) {
+                m_tableOffset = nextTableOffset;
                 m_tableIndex++;
-                m_curIterator = m_tables[m_tableIndex].iterator();
+                m_curIterator = createIterator(m_tables[m_tableIndex]);
                 return internalNext();
             }
             return null;
@@ -364,6 +419,7 @@ private DataRow internalNext() {
         public void close() {
             m_curIterator.close();
             m_tableIndex = m_tables.length;
+            m_next = null;
         }
 
     }
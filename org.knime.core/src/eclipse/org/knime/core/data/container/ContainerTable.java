@@ -127,6 +127,37 @@ public CloseableRowIterator iterator() {
         return m_buffer.iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator projectedIterator(final int[] columnIndices) {
+        ensureBufferOpen();
+        boolean[] includedColumns = new boolean[getDataTableSpec().getNumColumns()];
+        for (int i : columnIndices) {
+            includedColumns[i] = true;
+        }
+        return m_buffer.iterator(includedColumns);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        ensureBufferOpen();
+        return m_buffer.iterator(null, fromIndex, toIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ZoneMap getZoneMap() {
+        ensureBufferOpen();
+        return m_buffer.getZoneMap();
+    }
+
     /**
      * {@inheritDoc}
      * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
@@ -160,6 +160,22 @@ RowKey readRowKey() throws IOException {
         return new RowKey(m_dataIn.readUTF());
     }
 
+    /** Reads a string written by {@link DCObjectOutputVersion2#writeDictionaryEntry(String)}.
+     * @return The string.
+     * @throws IOException If IO problems occur.
+     */
+    String readDictionaryEntry() throws IOException {
+        return m_dataIn.readUTF();
+    }
+
+    /** Reads an index written by {@link DCObjectOutputVersion2#writeDictionaryReference(int)}.
+     * @return The index of the dictionary entry.
+     * @throws IOException If IO problems occur.
+     */
+    int readDictionaryReference() throws IOException {
+        return m_dataIn.readInt();
+    }
+
     /** Reads a single byte from the stream.
      * @return That byte.
      * @throws IOException If IO problems occur. */
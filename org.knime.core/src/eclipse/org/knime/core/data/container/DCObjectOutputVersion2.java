@@ -149,6 +149,22 @@ void writeRowKey(final RowKey key) throws IOException {
         m_dataOut.writeUTF(key.getString());
     }
 
+    /** Writes a string that is added to a dictionary, see {@link #BYTE_TYPE_DICTIONARY_ENTRY}.
+     * @param value The string to write.
+     * @throws IOException In case of stream corruption.
+     */
+    void writeDictionaryEntry(final String value) throws IOException {
+        m_dataOut.writeUTF(value);
+    }
+
+    /** Writes the index of a dictionary entry, see {@link #BYTE_TYPE_DICTIONARY_REFERENCE}.
+     * @param index The index of the entry.
+     * @throws IOException In case of stream corruption.
+     */
+    void writeDictionaryReference(final int index) throws IOException {
+        m_dataOut.writeInt(index);
+    }
+
     /** Writes the argument byte.
      * @param controlByte The byte to write.
      * @throws IOException In case of stream corruption.
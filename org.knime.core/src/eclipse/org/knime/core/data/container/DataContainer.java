@@ -51,22 +51,18 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.WeakReference;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Exchanger;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
@@ -81,6 +77,9 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.batch.RowBatch;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.data.filestore.internal.FileStoreHandlerRepository;
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
@@ -147,9 +146,20 @@ public class DataContainer implements RowAppender {
      * handed off to the write routines.
      *
      * @see KNIMEConstants#PROPERTY_ASYNC_WRITE_CACHE_SIZE
+     * @deprecated rows are handed off in batches of {@link #DEF_ASYNC_BATCH_SIZE} bytes, this value is not used
      */
+    @Deprecated
     public static final int DEF_ASYNC_CACHE_SIZE = 10;
 
+    /**
+     * For asynchronous table writing (default) the approximate size in bytes of a batch of rows that are kept in
+     * memory until handed off to the write routines.
+     *
+     * @see KNIMEConstants#PROPERTY_ASYNC_WRITE_BATCH_SIZE
+     * @since 3.6
+     */
+    public static final int DEF_ASYNC_BATCH_SIZE = 128 * 1024;
+
     /**
      * The default number of possible values being kept at most. If the number of possible values in a column exceeds
      * this values, no values will be memorized. Can be changed via system property
@@ -216,24 +226,28 @@ public class DataContainer implements RowAppender {
         }
         MIN_FREE_DISC_SPACE_IN_TEMP_IN_MB = minFreeDiscSpaceMB;
 
-        int asyncCacheSize = DEF_ASYNC_CACHE_SIZE;
-        String envAsyncCache = KNIMEConstants.PROPERTY_ASYNC_WRITE_CACHE_SIZE;
-        String valAsyncCache = System.getProperty(envAsyncCache);
-        if (valAsyncCache != null) {
-            String s = valAsyncCache.trim();
+        int asyncBatchSize = DEF_ASYNC_BATCH_SIZE;
+        String envAsyncBatch = KNIMEConstants.PROPERTY_ASYNC_WRITE_BATCH_SIZE;
+        String valAsyncBatch = System.getProperty(envAsyncBatch);
+        if (valAsyncBatch != null) {
+            String s = valAsyncBatch.trim();
             try {
                 int newSize = Integer.parseInt(s);
                 if (newSize < 0) {
-                    throw new NumberFormatException("async write cache < 0" + newSize);
+                    throw new NumberFormatException("async write batch size < 0" + newSize);
                 }
-                asyncCacheSize = newSize;
-                LOGGER.debug("Setting asynchronous write cache to " + asyncCacheSize + " row(s)");
+                asyncBatchSize = newSize;
+                LOGGER.debug("Setting asynchronous write batch size to " + asyncBatchSize + " bytes");
             } catch (NumberFormatException e) {
-                LOGGER.warn("Unable to parse property " + envAsyncCache + ", using default (" + DEF_ASYNC_CACHE_SIZE
+                LOGGER.warn("Unable to parse property " + envAsyncBatch + ", using default (" + DEF_ASYNC_BATCH_SIZE
                     + ")", e);
             }
         }
-        ASYNC_CACHE_SIZE = asyncCacheSize;
+        if (System.getProperty(KNIMEConstants.PROPERTY_ASYNC_WRITE_CACHE_SIZE) != null) {
+            LOGGER.debug("Property " + KNIMEConstants.PROPERTY_ASYNC_WRITE_CACHE_SIZE + " is not used anymore, use "
+                + envAsyncBatch + " instead");
+        }
+        ASYNC_BATCH_SIZE = asyncBatchSize;
         if (Boolean.getBoolean(KNIMEConstants.PROPERTY_SYNCHRONOUS_IO)) {
             LOGGER.debug("Using synchronous IO; " + KNIMEConstants.PROPERTY_SYNCHRONOUS_IO + " is set");
             SYNCHRONOUS_IO = true;
@@ -242,7 +256,22 @@ public class DataContainer implements RowAppender {
         }
 
         // enh 5835: Number of asynchronous write threads to have different limits on different architectures
-        MAX_ASYNC_WRITE_THREADS = Platform.ARCH_X86.equals(Platform.getOSArch()) ? 10 : 50;
+        // (the thread count is bounded by the number of processors as the threads are shared by all containers)
+        int maxWriteThreads = Math.min(Platform.ARCH_X86.equals(Platform.getOSArch()) ? 10 : 50,
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+        MAX_ASYNC_WRITE_THREADS = maxWriteThreads;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxWriteThreads, maxWriteThreads, 60L,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger m_threadCount = new AtomicInteger();
+
+                /** {@inheritDoc} */
+                @Override
+                public Thread newThread(final Runnable r) {
+                    return new Thread(r, "KNIME-TableIO-" + m_threadCount.incrementAndGet());
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        ASYNC_EXECUTORS = executor;
     }
 
     /**
@@ -266,22 +295,15 @@ public class DataContainer implements RowAppender {
      */
     public static final int MAX_POSSIBLE_VALUES;
 
-    /** Size of buffers. */
-    static final int ASYNC_CACHE_SIZE;
+    /** Approximate size of a batch of rows in bytes, see {@link #DEF_ASYNC_BATCH_SIZE}. */
+    static final int ASYNC_BATCH_SIZE;
 
-    /** The executor, which runs the IO tasks. Currently used only while writing rows. */
-    static final ThreadPoolExecutor ASYNC_EXECUTORS =
-    // see also Executors.newCachedThreadPool(ThreadFactory)
-        new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
-            new ThreadFactory() {
-                private final AtomicInteger m_threadCount = new AtomicInteger();
+    /** Number of batches that are queued per container before the adding thread has to wait for the writer. */
+    static final int ASYNC_QUEUE_CAPACITY = 4;
 
-                /** {@inheritDoc} */
-                @Override
-                public Thread newThread(final Runnable r) {
-                    return new Thread(r, "KNIME-TableIO-" + m_threadCount.incrementAndGet());
-                }
-            });
+    /** The executor, which runs the IO tasks. Currently used only while writing rows. Its threads are shared by all
+     * containers, see {@link ASyncWriteTask}. */
+    static final ThreadPoolExecutor ASYNC_EXECUTORS;
 
     /**
      * Whether to use synchronous IO while adding rows to a buffer or reading from an file iterator. This is by default
@@ -290,7 +312,7 @@ public Thread newThread(final Runnable r) {
     static final boolean SYNCHRONOUS_IO;
 
     /**
-     * the maximum number of asynchronous write threads, each additional container will switch to synchronous mode.
+     * The number of asynchronous write threads, i.e. the fixed size of {@link #ASYNC_EXECUTORS}.
      */
     static final int MAX_ASYNC_WRITE_THREADS;
 
@@ -299,9 +321,6 @@ public Thread newThread(final Runnable r) {
 
     private static final Object FLUSH_CACHE = new Object();
 
-    /** Put into read queue to signal failure while writing a row. */
-    private static final Object CONTAINER_WRITE_FAILED = new Object();
-
     /**
      * The object that instantiates the buffer, may be set right after constructor call before any rows are added.
      */
@@ -317,26 +336,27 @@ public Thread newThread(final Runnable r) {
     private int m_size;
 
     /**
-     * The object that represent the pending task of adding a data rows to a table.
+     * The task writing the batches of rows from {@link #m_writeQueue} to the buffer.
      */
-    private Future<Void> m_asyncAddFuture;
+    private ASyncWriteTask m_writeTask;
 
     private AtomicReference<Throwable> m_writeThrowable;
 
     /**
      * Whether this container writes synchronously, i.e. when rows come in they get written immediately. If true the
-     * fields {@link #m_asyncAddFuture} and {@link #m_writeThrowable} are null. This field coincides most of times with
-     * the {@link #SYNCHRONOUS_IO}, but may be true if there are too many concurrent write threads (more than
-     * {@value #MAX_ASYNC_WRITE_THREADS}).
+     * fields {@link #m_writeTask} and {@link #m_writeThrowable} are null. This field coincides with
+     * the {@link #SYNCHRONOUS_IO} unless synchronous IO is forced in the constructor.
      */
     private final boolean m_isSynchronousWrite;
 
-    /** The asynchronous queue holding the most recently added rows. */
-    private Exchanger<List<Object>> m_rowBufferExchanger;
+    /** The asynchronous queue holding the batches of rows that are to be written. */
+    private RingBuffer<List<Object>> m_writeQueue;
 
+    /** The batch of most recently added rows, not yet handed to {@link #m_writeQueue}. */
     private List<Object> m_fillingRowBuffer;
 
-    private List<Object> m_emptyingRowBuffer;
+    /** Estimated size of {@link #m_fillingRowBuffer} in bytes. */
+    private long m_fillingRowBufferSize;
 
     private int m_maxRowsInMemory;
 
@@ -428,25 +448,17 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
         }
         m_spec = spec;
         m_duplicateChecker = new DuplicateChecker();
-        boolean isSynchronousWrite = forceSynchronousIO || SYNCHRONOUS_IO;
-        if (!isSynchronousWrite && ASYNC_EXECUTORS.getActiveCount() > MAX_ASYNC_WRITE_THREADS) {
-            LOGGER.debug("Number of Table IO write threads exceeds " + MAX_ASYNC_WRITE_THREADS
-                + " -- switching to synchronous write mode");
-            isSynchronousWrite = true;
-        }
-        m_isSynchronousWrite = isSynchronousWrite;
+        m_isSynchronousWrite = forceSynchronousIO || SYNCHRONOUS_IO;
         if (m_isSynchronousWrite) {
             m_fillingRowBuffer = null;
-            m_emptyingRowBuffer = null;
-            m_asyncAddFuture = null;
-            m_rowBufferExchanger = null;
+            m_writeQueue = null;
+            m_writeTask = null;
             m_writeThrowable = null;
         } else {
-            m_fillingRowBuffer = new ArrayList<Object>(ASYNC_CACHE_SIZE);
-            m_emptyingRowBuffer = new ArrayList<Object>(ASYNC_CACHE_SIZE);
-            m_rowBufferExchanger = new Exchanger<List<Object>>();
+            m_fillingRowBuffer = new ArrayList<Object>();
+            m_writeQueue = new RingBuffer<List<Object>>(ASYNC_QUEUE_CAPACITY);
             m_writeThrowable = new AtomicReference<Throwable>();
-            m_asyncAddFuture = ASYNC_EXECUTORS.submit(new ASyncWriteCallable(this, NodeContext.getContext()));
+            m_writeTask = new ASyncWriteTask(this, NodeContext.getContext());
         }
 
         m_domainCreator = new DataTableDomainCreator(m_spec, initDomain);
@@ -614,12 +626,10 @@ public void close() {
         if (!m_isSynchronousWrite) {
             try {
                 offerToAsynchronousQueue(CONTAINER_CLOSE);
-                m_asyncAddFuture.get();
+                m_writeTask.awaitClose();
                 checkAsyncWriteThrowable();
             } catch (InterruptedException e) {
                 throw new DataContainerException("Adding rows to table was interrupted", e);
-            } catch (ExecutionException e) {
-                throw new DataContainerException("Adding rows to table threw exception", e);
             }
         }
         // create table spec _after_ all_ rows have been added (i.e. wait for
@@ -645,41 +655,51 @@ public void close() {
     }
 
     /**
-     * Adds the argument object (which will be a DataRow unless when called from close()) to the filling data row queue.
-     * It will exchange the filling queue with the emptying queue from the write thread in case the queue is full.
+     * Adds the argument object (which will be a DataRow unless when called from close()) to the filling batch. The
+     * batch is handed to the write queue once its estimated size exceeds {@link #ASYNC_BATCH_SIZE} (or the argument is
+     * a control object); this blocks while the write queue is full.
      *
      * @param object the object to add.
      */
     private void offerToAsynchronousQueue(final Object object) {
         m_fillingRowBuffer.add(object);
-        if (m_fillingRowBuffer.size() >= ASYNC_CACHE_SIZE || object == CONTAINER_CLOSE || object == FLUSH_CACHE) {
-            while (true) {
-                try {
-                    m_fillingRowBuffer = m_rowBufferExchanger.exchange(m_fillingRowBuffer, 30, TimeUnit.SECONDS);
-                    if (!m_fillingRowBuffer.isEmpty()) {
-                        Object ob = m_fillingRowBuffer.get(0);
-                        assert ob == CONTAINER_WRITE_FAILED : "Not expected element in write queue: " + ob;
-                        m_fillingRowBuffer.clear();
-                        checkAsyncWriteThrowable();
-                    }
-                    return;
-                } catch (TimeoutException e) {
-                    if (m_asyncAddFuture.isDone()) {
-                        checkAsyncWriteThrowable();
-                        // if we reach this code, the write process has not
-                        // thrown an exception (the above line will likely
-                        // throw an exc.)
-                        throw new DataContainerException("Writing to table has unexpectedly stopped");
-                    }
-                    continue;
-                } catch (InterruptedException e) {
-                    m_asyncAddFuture.cancel(true);
-                    throw new DataContainerException("Adding rows to buffer was interrupted", e);
-                }
+        if (object instanceof DataRow) {
+            m_fillingRowBufferSize += estimateSize((DataRow)object);
+        }
+        if (m_fillingRowBufferSize >= ASYNC_BATCH_SIZE || object == CONTAINER_CLOSE || object == FLUSH_CACHE) {
+            try {
+                m_writeQueue.put(m_fillingRowBuffer);
+            } catch (InterruptedException e) {
+                throw new DataContainerException("Adding rows to buffer was interrupted", e);
             }
+            m_writeTask.schedule();
+            m_fillingRowBuffer = new ArrayList<Object>(m_fillingRowBuffer.size());
+            m_fillingRowBufferSize = 0L;
         }
     }
 
+    /**
+     * Rough estimate of the memory occupied by a row, used to size the batches of asynchronously written rows. Only
+     * strings, collections and blobs are considered, all other cells count as a small constant.
+     */
+    private static long estimateSize(final DataRow row) {
+        long size = 64L;
+        for (int i = 0, numCells = row.getNumCells(); i < numCells; i++) {
+            DataCell c = row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
+            if (c instanceof StringCell) {
+                size += 48L + 2L * ((StringCell)c).getStringValue().length();
+            } else if (c instanceof CollectionDataValue) {
+                size += 48L + 16L * ((CollectionDataValue)c).size();
+            } else if (c instanceof BlobDataCell) {
+                // content unknown but likely large
+                size += 1024L;
+            } else {
+                size += 16L;
+            }
+        }
+        return size;
+    }
+
     /**
      * Get the number of rows that have been added so far. (How often has <code>addRowToTable</code> been called.)
      *
@@ -751,6 +771,35 @@ public DataTableSpec getTableSpec() {
         throw new IllegalStateException("Cannot get spec: container not open.");
     }
 
+    /**
+     * Adds all rows of a batch to the container, in order. The batch can be cleared and reused after this method
+     * returns.
+     *
+     * @param batch the batch whose rows are added; all columns of the container's spec must be included
+     * @throws IllegalArgumentException if the batch's spec doesn't have the same number of columns as the container
+     *             or if it doesn't include all columns
+     * @since 3.6
+     */
+    public void addRowBatch(final RowBatch batch) {
+        if (!isOpen()) {
+            throw new IllegalStateException("Cannot add rows: container has not been initialized (opened).");
+        }
+        final int colCount = m_spec.getNumColumns();
+        if (batch.getSpec().getNumColumns() != colCount) {
+            throw new IllegalArgumentException("Batch has " + batch.getSpec().getNumColumns()
+                + " column(s), container expects " + colCount);
+        }
+        for (int c = 0; c < colCount; c++) {
+            if (!batch.isIncluded(c)) {
+                throw new IllegalArgumentException("Batch doesn't include column " + c + " (\""
+                    + m_spec.getColumnSpec(c).getName() + "\")");
+            }
+        }
+        for (int i = 0, size = batch.size(); i < size; i++) {
+            addRowToTable(batch.getRow(i));
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void addRowToTable(final DataRow row) {
@@ -1197,90 +1246,93 @@ public static final boolean isContainerTable(final DataTable table) {
     }
 
     /**
-     * Background task that will write the output data. This is kept as static inner class in order to allow for a
-     * garbage collection of the outer class (which indicates an early stopped buffer writing).
+     * Background task that writes the batches queued in {@link DataContainer#m_writeQueue} to the buffer. The task is
+     * only scheduled while there are batches to write, i.e. it does not block a thread of the (fixed size)
+     * {@link DataContainer#ASYNC_EXECUTORS} while the producer is busy computing rows. At most one instance per
+     * container is running or scheduled at any time so that rows are written in order. After writing
+     * {@link DataContainer#ASYNC_QUEUE_CAPACITY} batches it re-schedules itself to give other containers a chance.
      */
-    private static final class ASyncWriteCallable implements Callable<Void> {
+    private static final class ASyncWriteTask implements Runnable {
 
-        private final WeakReference<DataContainer> m_containerRef;
+        private final DataContainer m_container;
 
         private final NodeContext m_context;
 
+        /** Whether this task is currently running or scheduled in the executor. */
+        private final AtomicBoolean m_isScheduled = new AtomicBoolean();
+
+        /** Released when the {@link DataContainer#CONTAINER_CLOSE} object has been processed. */
+        private final CountDownLatch m_closeLatch = new CountDownLatch(1);
+
         /**
          * @param cont The outer container.
          * @param context owner node information, if any.
          */
-        ASyncWriteCallable(final DataContainer cont, final NodeContext context) {
+        ASyncWriteTask(final DataContainer cont, final NodeContext context) {
             m_context = context;
-            m_containerRef = new WeakReference<DataContainer>(cont);
+            m_container = cont;
+        }
+
+        /** Submits this task to the executor unless it is already running or scheduled. */
+        void schedule() {
+            if (m_isScheduled.compareAndSet(false, true)) {
+                ASYNC_EXECUTORS.execute(this);
+            }
+        }
+
+        /** Waits until all batches including the close request have been processed.
+         * @throws InterruptedException If interrupted while waiting */
+        void awaitClose() throws InterruptedException {
+            m_closeLatch.await();
         }
 
         /** {@inheritDoc} */
         @Override
-        public Void call() throws Exception {
+        public void run() {
             NodeContext.pushContext(m_context);
             try {
-                return callWithContext();
+                final RingBuffer<List<Object>> queue = m_container.m_writeQueue;
+                int batchCount = 0;
+                while (true) {
+                    List<Object> batch = queue.poll();
+                    if (batch == null) {
+                        m_isScheduled.set(false);
+                        // the producer may have added a batch after the poll but before the flag was cleared
+                        if (queue.isEmpty() || !m_isScheduled.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    write(batch);
+                    if (++batchCount >= ASYNC_QUEUE_CAPACITY && !queue.isEmpty()) {
+                        // still scheduled, give other containers' tasks a chance
+                        ASYNC_EXECUTORS.execute(this);
+                        return;
+                    }
+                }
             } finally {
                 NodeContext.removeLastContext();
             }
         }
 
-        private Void callWithContext() throws Exception {
-            DataContainer d = m_containerRef.get();
-            if (d == null) {
-                // data container was already discarded (no rows added)
-                return null;
-            }
-            List<Object> queue = d.m_emptyingRowBuffer;
-            final AtomicReference<Throwable> throwable = d.m_writeThrowable;
-            final Exchanger<List<Object>> exchanger = d.m_rowBufferExchanger;
-            try {
-                do {
-                    final int size = queue.size();
-                    for (int i = 0; i < size; i++) {
-                        Object obj = queue.set(i, null);
-                        if (obj == CONTAINER_CLOSE) {
-                            assert i == size - 1;
-                            // table has been closed
-                            // (some non-DataRow was queued)
-                            return null;
-                        } else if (obj == FLUSH_CACHE) {
-                            assert i == size - 1;
+        /** Writes all rows of the batch. Once writing failed all subsequent rows are ignored, the failure is reported
+         * to the producer via {@link DataContainer#m_writeThrowable}. */
+        private void write(final List<Object> batch) {
+            final DataContainer d = m_container;
+            for (Object obj : batch) {
+                if (obj == CONTAINER_CLOSE) {
+                    m_closeLatch.countDown();
+                } else if (d.m_writeThrowable.get() == null) {
+                    try {
+                        if (obj == FLUSH_CACHE) {
                             d.m_buffer.flushBuffer();
                         } else {
-                            DataRow row = (DataRow)obj;
-                            d.addRowToTableWrite(row);
+                            d.addRowToTableWrite((DataRow)obj);
                         }
-                    }
-                    queue.clear();
-                    d = null;
-                    try {
-                        queue = exchanger.exchange(queue, 30, TimeUnit.SECONDS);
-                    } catch (TimeoutException te) {
-                        // can be safely ignored, do another loop on the same
-                        // (empty!) queue (or don't if container is gc'ed)
-                    }
-                    d = m_containerRef.get();
-                } while (d != null);
-                // m_containerRef.get() returned null -> close() was never
-                // called on the container (which was garbage collected
-                // already); we can end this thread
-                LOGGER.debug("Ending DataContainer write thread since container was garbage collected");
-                return null;
-            } catch (Throwable t) {
-                throwable.compareAndSet(null, t);
-                boolean callExchange = !queue.contains(CONTAINER_CLOSE);
-                queue.clear();
-                queue.add(CONTAINER_WRITE_FAILED);
-                if (callExchange) {
-                    try {
-                        exchanger.exchange(queue, 30, TimeUnit.SECONDS);
-                    } catch (Exception e) {
-                        // ignore
+                    } catch (Throwable t) {
+                        d.m_writeThrowable.compareAndSet(null, t);
                     }
                 }
-                return null;
             }
         }
     }
@@ -47,11 +47,16 @@
  */
 package org.knime.core.data.container;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
@@ -75,11 +80,49 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
     /** Compression format. */
     static final String CFG_COMPRESSION = "container.compression";
 
+    /** Number of rows between two checkpoints (see {@link #CFG_CHECKPOINT_OFFSETS}). */
+    static final String CFG_CHECKPOINT_INTERVAL = "container.checkpoint.interval";
+
+    /** Byte offsets in the binary file of the rows with index <i>k * interval</i> (k &gt;= 1). The compression stream
+     * is restarted at each of these rows so that reading can start at the offset. Not present in tables written
+     * prior 3.6. */
+    static final String CFG_CHECKPOINT_OFFSETS = "container.checkpoint.offsets";
+
+    /** Default number of rows between two checkpoints. */
+    static final int DEF_CHECKPOINT_INTERVAL = 8192;
+
+    /** Flags for each column whether its string cells are dictionary encoded. Not present in tables written without
+     * dictionary encoding (including all tables prior 3.6). */
+    static final String CFG_DICTIONARY_COLUMNS = "container.dictionary.columns";
+
+    /** Sub config containing the initial dictionary entries of each dictionary encoded column (taken from the
+     * column's domain), keyed by column index. */
+    static final String CFG_DICTIONARY_SEEDS = "container.dictionary.seeds";
+
+    /** Statistics per chunk of rows (see {@link ZoneMap}), chunks correspond to the checkpoints. Not present in
+     * tables written prior 3.6. */
+    static final String CFG_ZONE_MAP = "container.zonemap";
+
+    /** Whether string columns of newly written tables are dictionary encoded, see
+     * {@link KNIMEConstants#PROPERTY_TABLE_DICTIONARY_ENCODING}. Off by default as prior versions don't reject such
+     * tables (the container version isn't checked strictly) but misread them. Read on each call so that it can be
+     * toggled (e.g. in tests).
+     * @return that property
+     */
+    static boolean isUseDictionaryEncoding() {
+        return Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_DICTIONARY_ENCODING);
+    }
+
     /**
      * Static field to enable/disable the usage of a GZipInput/OutpuStream when writing the binary data. This option
-     * defaults to {@value DataContainer#DEF_GZIP_COMPRESSION}. */
+     * defaults to {@value DataContainer#DEF_GZIP_COMPRESSION}. Only used if no codec is specified via
+     * {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_CODEC}. */
     static final boolean IS_USE_GZIP;
 
+    /** The compression used when writing the binary data, see {@link #IS_USE_GZIP} and
+     * {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_CODEC}. */
+    static final CompressionFormat COMPRESSION_FORMAT;
+
     static {
         // prefer this block over Boolean.getBoolean(...) to cover typos
         // on command line (warn on console)
@@ -102,12 +145,100 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
         if (debugLog) {
             LOGGER.debug("Setting table stream compression to " + IS_USE_GZIP);
         }
+        CompressionFormat defaultFormat = IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
+        String codecString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_COMPRESSION_CODEC);
+        CompressionFormat format = defaultFormat;
+        if (codecString != null) {
+            try {
+                format = CompressionFormat.fromString(codecString);
+                LOGGER.debug("Setting table stream compression codec to " + format);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_COMPRESSION_CODEC + " (\""
+                    + codecString + "\"); defaulting to " + defaultFormat);
+            }
+        }
+        COMPRESSION_FORMAT = format;
     }
 
-    /** Compression on the binary (main) file. */
+    /** Compression on the binary (main) file. The name of the constant is stored in the meta information of a
+     * table, constants must not be renamed. */
     enum CompressionFormat {
-            Gzip,
-            None;
+            /** Deflate via {@link GZIPOutputStream}, good compression ratio but CPU intensive. */
+            Gzip {
+                @Override
+                OutputStream wrapOutput(final OutputStream out) throws IOException {
+                    // buffering the input stream is important as the blockable
+                    // stream, which will be put on top of it, reads bytes individually
+                    // (had a table, on which a single read-scan took ~6min without
+                    // and ~30s with buffering)
+                    return new BufferedOutputStream(new GZIPOutputStream(out));
+                }
+
+                @Override
+                InputStream wrapInput(final InputStream in) throws IOException {
+                    // buffering is important when reading gzip streams
+                    return new BufferedInputStream(new GZIPInputStream(in));
+                }
+            },
+            /** LZ4 block compression, see {@link Lz4BlockOutputStream}. Much faster than gzip at a lower ratio. */
+            Lz4 {
+                @Override
+                OutputStream wrapOutput(final OutputStream out) {
+                    // the block stream buffers internally
+                    return new Lz4BlockOutputStream(out);
+                }
+
+                @Override
+                InputStream wrapInput(final InputStream in) {
+                    return new Lz4BlockInputStream(in);
+                }
+            },
+            /** No compression. */
+            None {
+                @Override
+                OutputStream wrapOutput(final OutputStream out) {
+                    return out;
+                }
+
+                @Override
+                InputStream wrapInput(final InputStream in) {
+                    return in;
+                }
+            };
+
+        /**
+         * Wraps the argument stream so that data written to the returned stream is compressed.
+         *
+         * @param out the (buffered) stream to the file
+         * @return the stream to write to, closing it closes the argument
+         * @throws IOException if the stream can't be created
+         */
+        abstract OutputStream wrapOutput(OutputStream out) throws IOException;
+
+        /**
+         * Wraps the argument stream so that data read from the returned stream is decompressed.
+         *
+         * @param in the (buffered) stream from the file
+         * @return the stream to read from, closing it closes the argument
+         * @throws IOException if the stream can't be created, e.g. because of an invalid header
+         */
+        abstract InputStream wrapInput(InputStream in) throws IOException;
+
+        /**
+         * Parses the value of the {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_CODEC} property (case-insensitive).
+         *
+         * @param codec the codec name, e.g. "lz4"
+         * @return the corresponding format
+         * @throws IllegalArgumentException if the name is not known
+         */
+        static CompressionFormat fromString(final String codec) {
+            for (CompressionFormat f : values()) {
+                if (f.name().equalsIgnoreCase(codec.trim())) {
+                    return f;
+                }
+            }
+            throw new IllegalArgumentException("Unknown compression codec: " + codec);
+        }
     }
 
     @Override
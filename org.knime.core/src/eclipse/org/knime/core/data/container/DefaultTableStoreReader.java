@@ -47,14 +47,19 @@
  */
 package org.knime.core.data.container;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.container.Buffer.CompressionFormat;
+import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 
 /**
@@ -63,11 +68,19 @@
  */
 final class DefaultTableStoreReader extends AbstractTableStoreReader {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DefaultTableStoreReader.class);
+
     private CompressionFormat m_compressionFormat;
     private final File m_binFile;
+    private final OffHeapStore m_offHeapStore;
     private final DataTableSpec m_spec;
     private int m_version;
     private final boolean m_isReadRowKey;
+    private int m_checkpointInterval;
+    private long[] m_checkpointOffsets;
+    private StringCell[][] m_dictionarySeeds;
+    private NodeSettingsRO m_zoneMapSettings;
+    private ZoneMap m_zoneMap;
 
     /**
      * Constructs a reader for materializing serialized KNIME tables.
@@ -85,11 +98,42 @@ final class DefaultTableStoreReader extends AbstractTableStoreReader {
     DefaultTableStoreReader(final File binFile, final DataTableSpec spec, final NodeSettingsRO settings,
         final int version, final boolean isReadRowKey)
                 throws IOException, InvalidSettingsException {
+        this(binFile, null, spec, settings, version, isReadRowKey);
+    }
+
+    /**
+     * Constructs a reader for a table that was written into off-heap memory (see {@link OffHeapRowList}).
+     *
+     * @param offHeapStore the sealed store containing the data
+     * @param spec the specification of the data table
+     * @param settings The settings written by the {@link DefaultTableStoreWriter}
+     * @param isReadRowKey whether or not row keys are to be read (or generated anew)
+     * @throws IOException any type of I/O problem
+     * @throws InvalidSettingsException If the settings are invalid
+     */
+    DefaultTableStoreReader(final OffHeapStore offHeapStore, final DataTableSpec spec,
+        final NodeSettingsRO settings, final boolean isReadRowKey) throws IOException, InvalidSettingsException {
+        this(null, offHeapStore, spec, settings, Buffer.IVERSION, isReadRowKey);
+    }
+
+    private DefaultTableStoreReader(final File binFile, final OffHeapStore offHeapStore, final DataTableSpec spec,
+        final NodeSettingsRO settings, final int version, final boolean isReadRowKey)
+                throws IOException, InvalidSettingsException {
         super(binFile, settings, version);
         m_binFile = binFile;
+        m_offHeapStore = offHeapStore;
         m_spec = spec;
         m_version = version;
         m_isReadRowKey = isReadRowKey;
+        if (m_zoneMapSettings != null) {
+            try {
+                m_zoneMap = ZoneMap.load(m_zoneMapSettings, spec.getNumColumns());
+            } catch (InvalidSettingsException ise) {
+                // the statistics are optional, the data can still be read
+                LOGGER.debug("Ignoring invalid zone map: " + ise.getMessage(), ise);
+            }
+            m_zoneMapSettings = null;
+        }
     }
 
     @Override
@@ -101,16 +145,98 @@ public TableStoreCloseableRowIterator iterator() throws IOException {
         }
     }
 
+    /**
+     * {@inheritDoc} Cells of columns not selected are skipped in the stream (without de-serialization) and returned
+     * as missing cells. Tables written with very old versions are always read completely.
+     */
+    @Override
+    public TableStoreCloseableRowIterator iterator(final boolean[] includedColumns) throws IOException {
+        if (m_version <= 5 || includedColumns == null) {
+            return iterator();
+        }
+        return new BufferFromFileIteratorVersion20(this, includedColumns);
+    }
+
+    /**
+     * {@inheritDoc} If the table was written with checkpoints, reading starts at the last checkpoint before
+     * <code>fromIndex</code>, otherwise at the beginning of the file. Rows before <code>fromIndex</code> are skipped
+     * without de-serializing their cells.
+     */
+    @Override
+    public TableStoreCloseableRowIterator iterator(final boolean[] includedColumns, final long fromIndex,
+        final long toIndex) throws IOException {
+        if (m_version <= 5) {
+            return super.iterator(includedColumns, fromIndex, toIndex);
+        }
+        return new BufferFromFileIteratorVersion20(this, includedColumns, fromIndex, toIndex);
+    }
+
+    /**
+     * @return the number of rows between two checkpoints, 0 if the table has no checkpoints
+     * @see #getCheckpointOffsets()
+     */
+    int getCheckpointInterval() {
+        return m_checkpointInterval;
+    }
+
+    /**
+     * @return the file offsets of the rows <i>k * {@link #getCheckpointInterval()}</i> (k &gt;= 1), empty if the table
+     *         has no checkpoints
+     */
+    long[] getCheckpointOffsets() {
+        return m_checkpointOffsets;
+    }
+
+    /**
+     * @return for each column the cells that are initially contained in the column's dictionary (shared among all
+     *         iterators), <code>null</code> elements for columns without dictionary encoding; <code>null</code> if
+     *         the table was written without dictionary encoding.
+     */
+    StringCell[][] getDictionarySeeds() {
+        return m_dictionarySeeds;
+    }
+
+    /** @return statistics of the chunks between two checkpoints, <code>null</code> if not available */
+    ZoneMap getZoneMap() {
+        return m_zoneMap;
+    }
+
     /** @return Whether stream is zipped. */
     CompressionFormat getBinFileCompressionFormat() {
         return m_compressionFormat;
     }
 
-    /** @return Underlying binary file. */
+    /** @return Underlying binary file, <code>null</code> if the table is kept in off-heap memory. */
     final File getBinFile() {
         return m_binFile;
     }
 
+    /**
+     * Opens the (uncompressed) stream of the underlying file or off-heap store at the given position.
+     *
+     * @param offset byte offset to start reading at, 0 or the offset of a checkpoint
+     * @return a new stream, the caller needs to close it
+     * @throws IOException If the data can't be accessed, e.g. because the table has been cleared
+     */
+    InputStream openRawInputStream(final long offset) throws IOException {
+        if (m_offHeapStore != null) {
+            return m_offHeapStore.openInputStream(offset);
+        }
+        if (m_binFile == null) {
+            throw new IOException("Unable to read table from file, table has been cleared.");
+        }
+        FileInputStream fileStream = new FileInputStream(m_binFile);
+        if (offset > 0L) {
+            fileStream.getChannel().position(offset);
+        }
+        return new BufferedInputStream(fileStream);
+    }
+
+    /** @return Name of the underlying file or a description of the off-heap store, used in error messages. */
+    String getSourceName() {
+        return m_binFile != null ? m_binFile.getName() : "<off-heap memory>";
+    }
+
     /** @return The spec the buffer uses. */
     DataTableSpec getTableSpec() {
         return m_spec;
@@ -159,6 +285,32 @@ public void readMetaFromFile(final NodeSettingsRO settings, final int version)
             cF = CompressionFormat.Gzip;
         }
         m_compressionFormat = cF;
+        // added in 3.6 - no increment of version number as older versions ignore it
+        m_checkpointInterval = settings.getInt(DefaultTableStoreFormat.CFG_CHECKPOINT_INTERVAL, 0);
+        m_checkpointOffsets = settings.getLongArray(DefaultTableStoreFormat.CFG_CHECKPOINT_OFFSETS, new long[0]);
+        if (m_checkpointInterval < 0 || m_checkpointOffsets == null) {
+            throw new InvalidSettingsException("Invalid checkpoint information (interval " + m_checkpointInterval
+                + ")");
+        }
+        // added in 3.6 - tables written with dictionary encoding can't be read by prior versions
+        boolean[] dictionaryColumns = settings.getBooleanArray(DefaultTableStoreFormat.CFG_DICTIONARY_COLUMNS, null);
+        if (dictionaryColumns != null) {
+            NodeSettingsRO seedSettings = settings.getNodeSettings(DefaultTableStoreFormat.CFG_DICTIONARY_SEEDS);
+            m_dictionarySeeds = new StringCell[dictionaryColumns.length][];
+            for (int i = 0; i < dictionaryColumns.length; i++) {
+                if (dictionaryColumns[i]) {
+                    String[] seeds = seedSettings.getStringArray(Integer.toString(i));
+                    m_dictionarySeeds[i] = new StringCell[seeds.length];
+                    for (int j = 0; j < seeds.length; j++) {
+                        m_dictionarySeeds[i][j] = new StringCell(seeds[j]);
+                    }
+                }
+            }
+        }
+        // added in 3.6 - zone map is parsed once the spec is known (in the constructor)
+        if (settings.containsKey(DefaultTableStoreFormat.CFG_ZONE_MAP)) {
+            m_zoneMapSettings = settings.getNodeSettings(DefaultTableStoreFormat.CFG_ZONE_MAP);
+        }
         super.readMetaFromFile(settings, version);
     }
 
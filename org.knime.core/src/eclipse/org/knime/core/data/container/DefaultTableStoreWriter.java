@@ -50,17 +50,27 @@
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.data.filestore.FileStoreKey;
+import org.knime.core.data.util.NonClosableOutputStream;
 import org.knime.core.node.NodeSettingsWO;
 
 /**
@@ -77,6 +87,27 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
      */
     private final DCObjectOutputVersion2 m_outStream;
 
+    /** Counts the bytes written to the file, used to determine the offsets of checkpoints. */
+    private final CountingOutputStream m_countingStream;
+
+    /** The stream below {@link #m_outStream}, restarted at each checkpoint. */
+    private final SegmentOutputStream m_segmentStream;
+
+    /** Rows between two checkpoints. */
+    private final int m_checkpointInterval;
+
+    /** File offsets of the checkpoints, see {@link DefaultTableStoreFormat#CFG_CHECKPOINT_OFFSETS}. */
+    private final List<Long> m_checkpointOffsets = new ArrayList<>();
+
+    private long m_rowCount;
+
+    /** Dictionaries of the string columns (<code>null</code> elements for other columns), <code>null</code> if
+     * dictionary encoding is disabled. */
+    private final StringDictionary[] m_dictionaries;
+
+    /** Collects the statistics of the chunks between two checkpoints, <code>null</code> if no column qualifies. */
+    private final ZoneMap.Builder m_zoneMapBuilder;
+
     /**
      * Constructs a writer for writing KNIME tables to disk.
      *
@@ -87,9 +118,54 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
      */
     public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey)
         throws IOException {
+        this(spec, outputStream, writeRowKey, DefaultTableStoreFormat.COMPRESSION_FORMAT,
+            DefaultTableStoreFormat.DEF_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Constructs a writer with a custom compression and checkpoint interval, used for instance to keep tables in
+     * off-heap memory (see {@link OffHeapRowList}).
+     *
+     * @param spec the specification of the KNIME table to write
+     * @param outputStream the stream to write to
+     * @param writeRowKey a flag that determines whether to store the row keys
+     * @param compressionFormat the compression of the stream
+     * @param checkpointInterval the number of rows between two checkpoints, must be &gt; 0
+     * @throws IOException any type of I/O problem
+     */
+    DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey,
+        final CompressionFormat compressionFormat, final int checkpointInterval) throws IOException {
         super(spec, writeRowKey);
-        m_compressionFormat = DefaultTableStoreFormat.IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
-        m_outStream = initOutFile(new BufferedOutputStream(outputStream));
+        m_compressionFormat = compressionFormat;
+        m_checkpointInterval = checkpointInterval;
+        m_countingStream = new CountingOutputStream(new BufferedOutputStream(outputStream));
+        m_segmentStream = new SegmentOutputStream();
+        m_outStream = new DCObjectOutputVersion2(m_segmentStream, this);
+        m_dictionaries = DefaultTableStoreFormat.isUseDictionaryEncoding() ? createDictionaries(spec) : null;
+        ZoneMap.Builder zoneMapBuilder = new ZoneMap.Builder(spec, checkpointInterval);
+        m_zoneMapBuilder = zoneMapBuilder.hasStatistics() ? zoneMapBuilder : null;
+    }
+
+    /** Creates a dictionary for each string column, seeded with the column's possible values. */
+    private static StringDictionary[] createDictionaries(final DataTableSpec spec) {
+        StringDictionary[] dictionaries = new StringDictionary[spec.getNumColumns()];
+        for (int i = 0; i < dictionaries.length; i++) {
+            DataColumnSpec colSpec = spec.getColumnSpec(i);
+            if (StringCell.TYPE.equals(colSpec.getType())) {
+                List<String> seeds = new ArrayList<>();
+                Set<DataCell> values = colSpec.getDomain().getValues();
+                if (values != null) {
+                    for (DataCell value : values) {
+                        if (value instanceof StringCell && seeds.size() < StringDictionary.MAX_SIZE / 2
+                                && StringDictionary.isEncodable(((StringCell)value).getStringValue())) {
+                            seeds.add(((StringCell)value).getStringValue());
+                        }
+                    }
+                }
+                dictionaries[i] = new StringDictionary(seeds.toArray(new String[seeds.size()]));
+            }
+        }
+        return dictionaries;
     }
 
     /**
@@ -99,13 +175,36 @@ public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outp
      */
     @Override
     public void writeRow(final DataRow row) throws IOException {
+        if (m_rowCount > 0 && m_rowCount % m_checkpointInterval == 0) {
+            m_segmentStream.restart();
+            m_checkpointOffsets.add(m_countingStream.getByteCount());
+            if (m_dictionaries != null) {
+                // reading may start at the checkpoint, which only knows the seeds
+                for (StringDictionary dictionary : m_dictionaries) {
+                    if (dictionary != null) {
+                        dictionary.reset();
+                    }
+                }
+            }
+        }
+        m_rowCount++;
         RowKey id = row.getKey();
         writeRowKey(id, m_outStream);
         for (int i = 0; i < row.getNumCells(); i++) {
             DataCell cell =
                 row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
-            writeDataCell(cell, m_outStream);
+            StringDictionary dictionary = m_dictionaries != null ? m_dictionaries[i] : null;
+            if (dictionary == null || cell.getClass() != StringCell.class
+                    || !writeDictionaryCell(((StringCell)cell).getStringValue(), dictionary, m_outStream)) {
+                writeDataCell(cell, m_outStream);
+            }
             m_outStream.endBlock();
+            if (m_zoneMapBuilder != null) {
+                m_zoneMapBuilder.update(i, cell);
+            }
+        }
+        if (m_zoneMapBuilder != null) {
+            m_zoneMapBuilder.endRow();
         }
         m_outStream.endRow();
     }
@@ -125,6 +224,30 @@ void writeRowKey(final RowKey key, final DCObjectOutputVersion2 outStream) throw
         }
     }
 
+    /**
+     * Writes a string cell as reference to the dictionary of its column or as new dictionary entry.
+     *
+     * @param value The string value of the cell.
+     * @param dictionary The dictionary of the cell's column.
+     * @param outStream To write to.
+     * @return false if the cell was not written as the string can't be added to the dictionary.
+     * @throws IOException If stream corruption happens.
+     */
+    private static boolean writeDictionaryCell(final String value, final StringDictionary dictionary,
+        final DCObjectOutputVersion2 outStream) throws IOException {
+        int index = dictionary.indexOf(value);
+        if (index >= 0) {
+            outStream.writeControlByte(BYTE_TYPE_DICTIONARY_REFERENCE);
+            outStream.writeDictionaryReference(index);
+        } else if (dictionary.add(value)) {
+            outStream.writeControlByte(BYTE_TYPE_DICTIONARY_ENTRY);
+            outStream.writeDictionaryEntry(value);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Writes a data cell to the outStream.
      *
@@ -165,40 +288,137 @@ void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream)
         }
     }
 
-    /**
-     * Creates short cut array and wraps the argument stream in a {@link DCObjectOutputVersion2}.
-     */
-    private DCObjectOutputVersion2 initOutFile(final OutputStream outStream) throws IOException {
-        OutputStream wrap;
-        switch (m_compressionFormat) {
-            case Gzip:
-                wrap = new GZIPOutputStream(outStream);
-                // buffering the input stream is important as the blockable
-                // stream, which will be put on top of it, reads bytes individually
-                // (had a table, on which a single read-scan took ~6min without
-                // and ~30s with buffering)
-                wrap = new BufferedOutputStream(wrap);
-                break;
-            case None:
-                wrap = outStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + m_compressionFormat);
-        }
-        return new DCObjectOutputVersion2(wrap, this);
-    }
-
     /** {@inheritDoc} */
     @Override
     public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
         settings.addString(DefaultTableStoreFormat.CFG_COMPRESSION, m_compressionFormat.name());
+        settings.addInt(DefaultTableStoreFormat.CFG_CHECKPOINT_INTERVAL, m_checkpointInterval);
+        settings.addLongArray(DefaultTableStoreFormat.CFG_CHECKPOINT_OFFSETS,
+            m_checkpointOffsets.stream().mapToLong(Long::longValue).toArray());
+        if (m_zoneMapBuilder != null) {
+            m_zoneMapBuilder.build().save(settings.addNodeSettings(DefaultTableStoreFormat.CFG_ZONE_MAP));
+        }
+        if (m_dictionaries != null) {
+            boolean[] dictionaryColumns = new boolean[m_dictionaries.length];
+            NodeSettingsWO seedSettings = settings.addNodeSettings(DefaultTableStoreFormat.CFG_DICTIONARY_SEEDS);
+            for (int i = 0; i < m_dictionaries.length; i++) {
+                if (m_dictionaries[i] != null) {
+                    dictionaryColumns[i] = true;
+                    seedSettings.addStringArray(Integer.toString(i), m_dictionaries[i].getSeeds());
+                }
+            }
+            settings.addBooleanArray(DefaultTableStoreFormat.CFG_DICTIONARY_COLUMNS, dictionaryColumns);
+        }
         super.writeMetaInfoAfterWrite(settings);
     }
 
+    /** The dictionary control bytes are reserved if at least one column is dictionary encoded. */
+    @Override
+    protected boolean isDictionaryEncoded() {
+        return m_dictionaries != null && Arrays.stream(m_dictionaries).anyMatch(Objects::nonNull);
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
         m_outStream.close();
     }
 
+    /**
+     * Stream writing to the compressed stream of the current segment. At each checkpoint the compressed stream is
+     * finished and a new one is started at the current position in the file, so that reading can start there.
+     */
+    private final class SegmentOutputStream extends OutputStream {
+
+        private OutputStream m_segment;
+
+        SegmentOutputStream() throws IOException {
+            m_segment = newSegment();
+        }
+
+        private OutputStream newSegment() throws IOException {
+            return m_compressionFormat.wrapOutput(new NonClosableOutputStream(m_countingStream));
+        }
+
+        /** Finishes the current segment and starts a new one. */
+        void restart() throws IOException {
+            m_segment.close();
+            m_segment = newSegment();
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            m_segment.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            m_segment.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            m_segment.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            m_segment.close();
+            m_countingStream.close();
+        }
+    }
+
+    /**
+     * The strings of a column written since the last checkpoint, plus the seeds (which are stored in the meta
+     * information). The index of an entry is its insertion position; the reader builds the same list.
+     */
+    private static final class StringDictionary {
+
+        /** Maximum number of entries, additional distinct strings are written as ordinary cells. */
+        static final int MAX_SIZE = 1 << 14;
+
+        /** Longer strings are not added, they are unlikely to be repeated and would waste memory. */
+        static final int MAX_STRING_LENGTH = 256;
+
+        private final String[] m_seeds;
+
+        private final Map<String, Integer> m_indices = new HashMap<>();
+
+        StringDictionary(final String[] seeds) {
+            m_seeds = seeds;
+            reset();
+        }
+
+        static boolean isEncodable(final String value) {
+            return value.length() <= MAX_STRING_LENGTH;
+        }
+
+        String[] getSeeds() {
+            return m_seeds;
+        }
+
+        /** @return index of the value or -1 if not in the dictionary. */
+        int indexOf(final String value) {
+            Integer index = m_indices.get(value);
+            return index == null ? -1 : index;
+        }
+
+        /** @return true if the value was added, false if the dictionary is full or the value too long. */
+        boolean add(final String value) {
+            if (m_indices.size() >= MAX_SIZE || !isEncodable(value)) {
+                return false;
+            }
+            m_indices.put(value, m_indices.size());
+            return true;
+        }
+
+        /** Removes all entries except for the seeds. */
+        void reset() {
+            m_indices.clear();
+            for (String seed : m_seeds) {
+                m_indices.put(seed, m_indices.size());
+            }
+        }
+    }
+
 }
@@ -47,6 +47,8 @@
  */
 package org.knime.core.data.container;
 
+import java.util.stream.IntStream;
+
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 
@@ -133,6 +135,20 @@ public void close() {
         m_itReference.close();
     }
 
+    /** Determines the columns of one of the underlying tables that are needed to assemble the given output columns.
+     * Used to pass a column projection down to the underlying tables.
+     * @param columnIndices The output columns to read or <code>null</code> for all columns.
+     * @param map The map containing which column maps to which index
+     * @param flags which column from which row.
+     * @param fromReference Whether to return the columns of the reference (flag <code>true</code>) or of the appended
+     *            table (flag <code>false</code>).
+     * @return The sorted, distinct indices of the columns in the underlying table. */
+    static int[] getReferencedColumns(final int[] columnIndices, final int[] map, final boolean[] flags,
+        final boolean fromReference) {
+        IntStream outputColumns = columnIndices == null ? IntStream.range(0, map.length) : IntStream.of(columnIndices);
+        return outputColumns.filter(i -> flags[i] == fromReference).map(i -> map[i]).distinct().sorted().toArray();
+    }
+
     private static DataCell getUnwrappedCell(final DataRow row, final int i) {
         return row instanceof BlobSupportDataRow
             ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
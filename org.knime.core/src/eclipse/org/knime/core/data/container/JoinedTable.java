@@ -126,6 +126,26 @@ public CloseableRowIterator iterator() {
                 m_rightTable.iterator(), m_map, m_flags);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator projectedIterator(final int[] columnIndices) {
+        return new JoinTableIterator(
+            m_leftTable.projectedIterator(JoinTableIterator.getReferencedColumns(columnIndices, m_map, m_flags, true)),
+            m_rightTable.projectedIterator(JoinTableIterator.getReferencedColumns(columnIndices, m_map, m_flags, false)),
+            m_map, m_flags);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        return new JoinTableIterator(m_leftTable.rangeIterator(fromIndex, toIndex),
+            m_rightTable.rangeIterator(fromIndex, toIndex), m_map, m_flags);
+    }
+
     /**
      * Does nothing.
      * {@inheritDoc}
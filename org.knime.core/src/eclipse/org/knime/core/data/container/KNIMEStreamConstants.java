@@ -81,5 +81,15 @@ public interface KNIMEStreamConstants {
     /** Separator for different rows. */
     static final byte BYTE_ROW_SEPARATOR = BYTE_TYPE_MISSING + 3;
 
+    /** The char for a string cell that is added to the dictionary of its column, followed by the string. Only used
+     * in tables written with dictionary encoding, the type map (starting at {@link #BYTE_TYPE_START}) ends before.
+     * @since 3.6 */
+    static final byte BYTE_TYPE_DICTIONARY_ENTRY = Byte.MAX_VALUE - 1;
+
+    /** The char for a string cell that refers to an entry in the dictionary of its column, followed by the index of
+     * the entry (int). See {@link #BYTE_TYPE_DICTIONARY_ENTRY}.
+     * @since 3.6 */
+    static final byte BYTE_TYPE_DICTIONARY_REFERENCE = Byte.MAX_VALUE;
+
 
 }
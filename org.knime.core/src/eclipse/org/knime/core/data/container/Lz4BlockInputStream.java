@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream reading data written by {@link Lz4BlockOutputStream}. Similar to
+ * {@link java.util.zip.GZIPInputStream} concatenated streams are read as one stream, i.e. an end of stream marker
+ * followed by more data continues with the next stream.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class Lz4BlockInputStream extends InputStream {
+
+    private final InputStream m_in;
+
+    private final byte[] m_block = new byte[Lz4BlockOutputStream.BLOCK_SIZE];
+
+    private final byte[] m_compressed = new byte[Lz4BlockOutputStream.maxCompressedLength(
+        Lz4BlockOutputStream.BLOCK_SIZE)];
+
+    private final byte[] m_header = new byte[8];
+
+    private int m_blockLength;
+
+    private int m_blockPos;
+
+    private boolean m_isEndOfStream;
+
+    /** Number of bytes of the next header that have already been read. */
+    private int m_headerPos;
+
+    /**
+     * @param in the stream to read the compressed data from, not null
+     */
+    Lz4BlockInputStream(final InputStream in) {
+        m_in = in;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        if (m_blockPos == m_blockLength && !readBlock()) {
+            return -1;
+        }
+        return m_block[m_blockPos++] & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (m_blockPos == m_blockLength && !readBlock()) {
+            return -1;
+        }
+        int count = Math.min(len, m_blockLength - m_blockPos);
+        System.arraycopy(m_block, m_blockPos, b, off, count);
+        m_blockPos += count;
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() throws IOException {
+        return m_blockLength - m_blockPos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        m_in.close();
+    }
+
+    /** Reads and decompresses the next block, returns false if the end of the (last) stream is reached. */
+    private boolean readBlock() throws IOException {
+        int rawLength;
+        int storedLength;
+        do {
+            if (m_isEndOfStream) {
+                return false;
+            }
+            readFully(m_header, 8);
+            rawLength = getIntBE(m_header, 0);
+            storedLength = getIntBE(m_header, 4);
+            if (rawLength == 0) {
+                // end of stream marker, continue if another stream follows
+                int next = m_in.read();
+                if (next < 0) {
+                    m_isEndOfStream = true;
+                } else {
+                    m_header[0] = (byte)next;
+                    m_headerPos = 1;
+                }
+            }
+        } while (rawLength == 0);
+        if (rawLength < 0 || rawLength > m_block.length || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException(
+                "Corrupt LZ4 block header (length " + rawLength + ", stored length " + storedLength + ")");
+        }
+        if (storedLength == rawLength) {
+            readFully(m_block, rawLength);
+        } else {
+            readFully(m_compressed, storedLength);
+            decompress(m_compressed, storedLength, m_block, rawLength);
+        }
+        m_blockLength = rawLength;
+        m_blockPos = 0;
+        return true;
+    }
+
+    private void readFully(final byte[] buf, final int length) throws IOException {
+        int pos = 0;
+        if (buf == m_header) {
+            // first byte of the header may have been read already when checking for a subsequent stream
+            pos = m_headerPos;
+            m_headerPos = 0;
+        }
+        while (pos < length) {
+            int read = m_in.read(buf, pos, length - pos);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of LZ4 stream");
+            }
+            pos += read;
+        }
+    }
+
+    private static int getIntBE(final byte[] buf, final int pos) {
+        return (buf[pos] & 0xFF) << 24 | (buf[pos + 1] & 0xFF) << 16 | (buf[pos + 2] & 0xFF) << 8
+            | (buf[pos + 3] & 0xFF);
+    }
+
+    /**
+     * Decompresses a LZ4 block.
+     *
+     * @param src the compressed data
+     * @param srcLength number of valid bytes in src
+     * @param dest the destination array
+     * @param destLength the expected number of uncompressed bytes
+     * @throws IOException if the data is corrupt
+     */
+    static void decompress(final byte[] src, final int srcLength, final byte[] dest, final int destLength)
+        throws IOException {
+        int srcPos = 0;
+        int destPos = 0;
+        while (true) {
+            if (srcPos >= srcLength) {
+                throw new IOException("Corrupt LZ4 block (unexpected end of data)");
+            }
+            final int token = src[srcPos++] & 0xFF;
+            // literals
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    if (srcPos >= srcLength) {
+                        throw new IOException("Corrupt LZ4 block (unexpected end of data)");
+                    }
+                    b = src[srcPos++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            if (srcPos + literalLength > srcLength || destPos + literalLength > destLength) {
+                throw new IOException("Corrupt LZ4 block (literal length out of bounds)");
+            }
+            System.arraycopy(src, srcPos, dest, destPos, literalLength);
+            srcPos += literalLength;
+            destPos += literalLength;
+            if (srcPos == srcLength) {
+                break; // last literals
+            }
+            // match
+            if (srcPos + 2 > srcLength) {
+                throw new IOException("Corrupt LZ4 block (unexpected end of data)");
+            }
+            final int offset = (src[srcPos] & 0xFF) | (src[srcPos + 1] & 0xFF) << 8;
+            srcPos += 2;
+            int matchLength = token & 0x0F;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (srcPos >= srcLength) {
+                        throw new IOException("Corrupt LZ4 block (unexpected end of data)");
+                    }
+                    b = src[srcPos++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += Lz4BlockOutputStream.MIN_MATCH;
+            int ref = destPos - offset;
+            if (offset == 0 || ref < 0 || destPos + matchLength > destLength) {
+                throw new IOException("Corrupt LZ4 block (invalid match offset " + offset + ")");
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dest, ref, dest, destPos, matchLength);
+                destPos += matchLength;
+            } else {
+                // overlapping copy, repeats the last 'offset' bytes
+                for (int i = 0; i < matchLength; i++) {
+                    dest[destPos++] = dest[ref++];
+                }
+            }
+        }
+        if (destPos != destLength) {
+            throw new IOException("Corrupt LZ4 block (expected " + destLength + " bytes but got " + destPos + ")");
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Output stream compressing its data in independent blocks using the LZ4 block format. LZ4 trades compression ratio
+ * for speed: compared to deflate (as used by {@link java.util.zip.GZIPOutputStream}) it compresses several times
+ * faster, which matters when writing tables to fast local disks.
+ *
+ * <p>
+ * The stream consists of a sequence of blocks, each prefixed by two (big endian) ints: the number of uncompressed
+ * bytes and the number of bytes stored. If both are equal the block is stored uncompressed (data that can't be
+ * compressed). The stream is terminated by a block with length 0. It is read by {@link Lz4BlockInputStream}.
+ *
+ * <p>
+ * Similar to the gzip stream a call to {@link #flush()} does not end the current block, it only flushes the underlying
+ * stream. Data is only guaranteed to be written after {@link #close()}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class Lz4BlockOutputStream extends OutputStream {
+
+    /** Number of uncompressed bytes per block, matches the maximum match offset of LZ4. */
+    static final int BLOCK_SIZE = 1 << 16;
+
+    static final int MIN_MATCH = 4;
+
+    /** The last bytes of a block are always literals (as per LZ4 block format specification). */
+    static final int LAST_LITERALS = 5;
+
+    /** A match must start at least that many bytes before the end of a block. */
+    static final int MF_LIMIT = 12;
+
+    private static final int HASH_LOG = 14;
+
+    private static final int MAX_OFFSET = 65535;
+
+    private final OutputStream m_out;
+
+    private final byte[] m_block = new byte[BLOCK_SIZE];
+
+    private final byte[] m_compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+
+    private final int[] m_hashTable = new int[1 << HASH_LOG];
+
+    private final byte[] m_header = new byte[8];
+
+    private int m_blockLength;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param out the stream to write the compressed data to, not null
+     */
+    Lz4BlockOutputStream(final OutputStream out) {
+        m_out = out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        if (m_blockLength == BLOCK_SIZE) {
+            writeBlock();
+        }
+        m_block[m_blockLength++] = (byte)b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_blockLength == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int chunk = Math.min(remaining, BLOCK_SIZE - m_blockLength);
+            System.arraycopy(b, offset, m_block, m_blockLength, chunk);
+            m_blockLength += chunk;
+            offset += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void flush() throws IOException {
+        m_out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        try {
+            writeBlock();
+            writeHeader(0, 0);
+        } finally {
+            m_out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (m_blockLength == 0) {
+            return;
+        }
+        int compressedLength = compress(m_block, m_blockLength, m_compressed, m_hashTable);
+        if (compressedLength < m_blockLength) {
+            writeHeader(m_blockLength, compressedLength);
+            m_out.write(m_compressed, 0, compressedLength);
+        } else {
+            writeHeader(m_blockLength, m_blockLength);
+            m_out.write(m_block, 0, m_blockLength);
+        }
+        m_blockLength = 0;
+    }
+
+    private void writeHeader(final int rawLength, final int storedLength) throws IOException {
+        putIntBE(m_header, 0, rawLength);
+        putIntBE(m_header, 4, storedLength);
+        m_out.write(m_header);
+    }
+
+    private static void putIntBE(final byte[] buf, final int pos, final int value) {
+        buf[pos] = (byte)(value >>> 24);
+        buf[pos + 1] = (byte)(value >>> 16);
+        buf[pos + 2] = (byte)(value >>> 8);
+        buf[pos + 3] = (byte)value;
+    }
+
+    /**
+     * @param length number of uncompressed bytes
+     * @return an upper bound of the number of bytes the LZ4 encoding of data with the given length may need
+     */
+    static int maxCompressedLength(final int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the first <code>srcLength</code> bytes of <code>src</code> into <code>dest</code> (LZ4 block
+     * format).
+     *
+     * @param src the data to compress
+     * @param srcLength number of valid bytes in src
+     * @param dest destination, must have at least {@link #maxCompressedLength(int)} bytes
+     * @param hashTable scratch table (size is a power of two), overwritten
+     * @return the number of bytes written to dest
+     */
+    static int compress(final byte[] src, final int srcLength, final byte[] dest, final int[] hashTable) {
+        Arrays.fill(hashTable, -1);
+        final int hashShift = 32 - Integer.numberOfTrailingZeros(hashTable.length);
+        final int matchStartLimit = srcLength - MF_LIMIT;
+        final int matchEndLimit = srcLength - LAST_LITERALS;
+        int anchor = 0;
+        int destPos = 0;
+        int pos = 0;
+        while (pos < matchStartLimit) {
+            final int sequence = getIntLE(src, pos);
+            final int hash = (sequence * -1640531535) >>> hashShift;
+            int ref = hashTable[hash];
+            hashTable[hash] = pos;
+            if (ref < 0 || pos - ref > MAX_OFFSET || getIntLE(src, ref) != sequence) {
+                pos++;
+                continue;
+            }
+            // extend match backwards into pending literals
+            int matchStart = pos;
+            while (matchStart > anchor && ref > 0 && src[matchStart - 1] == src[ref - 1]) {
+                matchStart--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH + pos - matchStart;
+            while (matchStart + matchLength < matchEndLimit && src[matchStart + matchLength] == src[ref + matchLength]) {
+                matchLength++;
+            }
+            destPos = writeSequence(src, anchor, matchStart - anchor, matchStart - ref, matchLength, dest, destPos);
+            pos = matchStart + matchLength;
+            anchor = pos;
+        }
+        // last literals
+        final int literalLength = srcLength - anchor;
+        int token = Math.min(literalLength, 15) << 4;
+        dest[destPos++] = (byte)token;
+        destPos = writeLength(literalLength, dest, destPos);
+        System.arraycopy(src, anchor, dest, destPos, literalLength);
+        return destPos + literalLength;
+    }
+
+    private static int writeSequence(final byte[] src, final int literalStart, final int literalLength,
+        final int offset, final int matchLength, final byte[] dest, final int destPos) {
+        int pos = destPos;
+        final int matchCode = matchLength - MIN_MATCH;
+        dest[pos++] = (byte)((Math.min(literalLength, 15) << 4) | Math.min(matchCode, 15));
+        pos = writeLength(literalLength, dest, pos);
+        System.arraycopy(src, literalStart, dest, pos, literalLength);
+        pos += literalLength;
+        dest[pos++] = (byte)offset;
+        dest[pos++] = (byte)(offset >>> 8);
+        return writeLength(matchCode, dest, pos);
+    }
+
+    /** Writes the additional length bytes if the length didn't fit into the 4 bit token field. */
+    private static int writeLength(final int length, final byte[] dest, final int destPos) {
+        int pos = destPos;
+        if (length >= 15) {
+            int remaining = length - 15;
+            while (remaining >= 255) {
+                dest[pos++] = (byte)255;
+                remaining -= 255;
+            }
+            dest[pos++] = (byte)remaining;
+        }
+        return pos;
+    }
+
+    private static int getIntLE(final byte[] buf, final int pos) {
+        return (buf[pos] & 0xFF) | (buf[pos + 1] & 0xFF) << 8 | (buf[pos + 2] & 0xFF) << 16
+            | (buf[pos + 3] & 0xFF) << 24;
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractList;
+import java.util.List;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
+import org.knime.core.data.container.storage.AbstractTableStoreReader.TableStoreCloseableRowIterator;
+import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Unmodifiable list of rows that are kept serialized in off-heap memory rather than as objects on the Java heap. Used
+ * by the {@link Buffer} for small tables that are held in memory (if enabled via
+ * {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_OFF_HEAP}), which reduces the heap usage and the garbage
+ * collection load caused by many resident intermediate tables.
+ *
+ * <p>
+ * The rows are written in the default table format (uncompressed and with a checkpoint every
+ * {@value #CHECKPOINT_INTERVAL} rows) into an {@link OffHeapStore}. Rows are only de-serialized when accessed: the
+ * {@link #iterator(boolean[], long, long) iterators} of this list materialize only the selected columns, and
+ * {@link #get(int)} is cheap for ascending indices (it continues the previous read) and otherwise seeks to the
+ * closest checkpoint.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class OffHeapRowList extends AbstractList<BlobSupportDataRow> {
+
+    /** Rows between two checkpoints, small as seeking in memory is cheap and random access by index is common. */
+    static final int CHECKPOINT_INTERVAL = 256;
+
+    private final Buffer m_buffer;
+
+    private final OffHeapStore m_store;
+
+    private final DefaultTableStoreReader m_reader;
+
+    private final int m_size;
+
+    /** Iterator used by {@link #get(int)}, positioned at {@link #m_cursorIndex}. */
+    private TableStoreCloseableRowIterator m_cursor;
+
+    private int m_cursorIndex;
+
+    private OffHeapRowList(final Buffer buffer, final OffHeapStore store, final DefaultTableStoreReader reader,
+        final int size) {
+        m_buffer = buffer;
+        m_store = store;
+        m_reader = reader;
+        m_size = size;
+    }
+
+    /**
+     * Serializes the argument rows into a new off-heap list.
+     *
+     * @param buffer the buffer owning the rows, used to resolve blobs and file stores when reading
+     * @param rows the rows to copy
+     * @param spec the spec of the rows
+     * @param writeRowKey whether to keep the row keys (false for {@link NoKeyBuffer})
+     * @param fileStoreHandler the file store handler of the buffer
+     * @return a new list containing the same rows as the argument
+     * @throws IOException if writing the rows fails
+     * @throws OutOfMemoryError if there is not enough direct memory (see JVM option -XX:MaxDirectMemorySize)
+     */
+    static OffHeapRowList create(final Buffer buffer, final List<BlobSupportDataRow> rows, final DataTableSpec spec,
+        final boolean writeRowKey, final IWriteFileStoreHandler fileStoreHandler) throws IOException {
+        OffHeapStore store = new OffHeapStore();
+        NodeSettings formatSettings = new NodeSettings("offheap_format");
+        try (OutputStream out = store.getOutputStream()) {
+            DefaultTableStoreWriter writer =
+                new DefaultTableStoreWriter(spec, out, writeRowKey, CompressionFormat.None, CHECKPOINT_INTERVAL);
+            writer.setFileStoreHandler(fileStoreHandler);
+            for (BlobSupportDataRow row : rows) {
+                writer.writeRow(row);
+            }
+            writer.close();
+            writer.writeMetaInfoAfterWrite(formatSettings);
+        }
+        try {
+            DefaultTableStoreReader reader = new DefaultTableStoreReader(store, spec, formatSettings, writeRowKey);
+            reader.setBufferAndFileStoreHandlerRepository(buffer, buffer.getFileStoreHandlerRepository());
+            return new OffHeapRowList(buffer, store, reader, rows.size());
+        } catch (InvalidSettingsException ex) {
+            throw new IOException("Unable to read back settings of off-heap table: " + ex.getMessage(), ex);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BlobSupportDataRow get(final int index) {
+        if (index < 0 || index >= m_size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + m_size);
+        }
+        // iterators are closed outside the lock as closing synchronizes on the buffer
+        TableStoreCloseableRowIterator abandoned = null;
+        TableStoreCloseableRowIterator finished = null;
+        BlobSupportDataRow row;
+        synchronized (this) {
+            if (m_cursor == null || m_cursorIndex != index) {
+                abandoned = m_cursor;
+                m_cursor = iterator(null, index, m_size);
+                m_cursorIndex = index;
+            }
+            m_cursorIndex++;
+            row = (BlobSupportDataRow)m_cursor.next();
+            if (m_cursorIndex == m_size) {
+                finished = m_cursor;
+                m_cursor = null;
+            }
+        }
+        if (abandoned != null) {
+            abandoned.close();
+        }
+        if (finished != null) {
+            finished.close();
+        }
+        return row;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * Creates an iterator over a range of rows, which is registered as open iterator of the buffer.
+     *
+     * @param includedColumns Flags for each column whether it is read, or <code>null</code> to read all columns.
+     * @param fromIndex Index of the first row to return.
+     * @param toIndex Index after the last row to return.
+     * @return A new iterator.
+     */
+    TableStoreCloseableRowIterator iterator(final boolean[] includedColumns, final long fromIndex,
+        final long toIndex) {
+        try {
+            TableStoreCloseableRowIterator iterator = m_reader.iterator(includedColumns, fromIndex, toIndex);
+            m_buffer.registerOpenIterator(iterator);
+            return iterator;
+        } catch (IOException ioe) {
+            throw new RuntimeException("Unable to read rows from off-heap memory: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    /** @return the statistics of the rows, see {@link Buffer#getZoneMap()}. */
+    ZoneMap getZoneMap() {
+        return m_reader.getZoneMap();
+    }
+
+    /** @return the number of bytes used in off-heap memory. */
+    long getSizeInBytes() {
+        return m_store.size();
+    }
+
+    /** Frees the off-heap memory, the list must not be accessed afterwards. */
+    void release() {
+        TableStoreCloseableRowIterator cursor;
+        synchronized (this) {
+            cursor = m_cursor;
+            m_cursor = null;
+        }
+        if (cursor != null) {
+            cursor.close();
+        }
+        m_store.release();
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Byte storage outside the Java heap, used to keep the serialized rows of small tables in memory (see
+ * {@link OffHeapRowList}). The data is written once through {@link #getOutputStream()} and then read (possibly
+ * concurrently) through {@link #openInputStream(long)}. Memory is allocated in direct {@link ByteBuffer} slabs whose
+ * size doubles from {@value #MIN_SLAB_SIZE} bytes up to {@value #MAX_SLAB_SIZE} bytes, so that small tables don't
+ * reserve large chunks; the last slab is trimmed when the store is sealed.
+ *
+ * <p>
+ * The slabs are released when the store (and all streams reading from it) are garbage collected; {@link #release()}
+ * only drops the references held by the store so that no new streams can be opened.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class OffHeapStore {
+
+    /** Size of the first slab. */
+    static final int MIN_SLAB_SIZE = 8 * 1024;
+
+    /** Size limit of a single slab. */
+    static final int MAX_SLAB_SIZE = 4 * 1024 * 1024;
+
+    /** Slabs, all but the last one are completely filled. <code>null</code> if released. */
+    private List<ByteBuffer> m_slabs = new ArrayList<>();
+
+    /** Offset of the first byte of each slab in the store, set when sealed. */
+    private long[] m_slabOffsets;
+
+    private long m_size;
+
+    private boolean m_isSealed;
+
+    /**
+     * @return a stream appending to this store, must be closed (or the store {@link #seal() sealed}) before data can
+     *         be read.
+     * @throws IllegalStateException if the store is already sealed.
+     */
+    OutputStream getOutputStream() {
+        if (m_isSealed) {
+            throw new IllegalStateException("Off-heap store is sealed");
+        }
+        return new SlabOutputStream();
+    }
+
+    /**
+     * Finishes writing, shrinks the last slab to its content. Subsequent calls have no effect.
+     */
+    synchronized void seal() {
+        if (m_isSealed) {
+            return;
+        }
+        m_isSealed = true;
+        final int slabCount = m_slabs.size();
+        if (slabCount > 0) {
+            ByteBuffer last = m_slabs.get(slabCount - 1);
+            if (last.remaining() > 0) {
+                last.flip();
+                ByteBuffer trimmed = ByteBuffer.allocateDirect(last.remaining());
+                trimmed.put(last);
+                m_slabs.set(slabCount - 1, trimmed);
+            }
+        }
+        m_slabOffsets = new long[slabCount];
+        long offset = 0L;
+        for (int i = 0; i < slabCount; i++) {
+            ByteBuffer slab = m_slabs.get(i);
+            m_slabOffsets[i] = offset;
+            offset += slab.capacity();
+            // read-only views are handed out to readers, the slab's own position is irrelevant from now on
+            slab.clear();
+        }
+    }
+
+    /** @return number of bytes written. */
+    synchronized long size() {
+        return m_size;
+    }
+
+    /** @return whether {@link #release()} has been called. */
+    synchronized boolean isReleased() {
+        return m_slabs == null;
+    }
+
+    /** Drops the slabs; the memory is freed once all open streams are garbage collected, too. */
+    synchronized void release() {
+        m_slabs = null;
+        m_slabOffsets = null;
+    }
+
+    /**
+     * Opens a stream reading the content of this store, starting at the given byte offset.
+     *
+     * @param offset the position of the first byte to read
+     * @return a new stream, positioned at <code>offset</code>
+     * @throws IOException if the store has been released
+     * @throws IllegalStateException if the store has not been sealed
+     */
+    synchronized InputStream openInputStream(final long offset) throws IOException {
+        if (!m_isSealed) {
+            throw new IllegalStateException("Off-heap store is still being written");
+        }
+        if (m_slabs == null) {
+            throw new IOException("Off-heap store has been released");
+        }
+        ByteBuffer[] slabs = new ByteBuffer[m_slabs.size()];
+        for (int i = 0; i < slabs.length; i++) {
+            slabs[i] = m_slabs.get(i).asReadOnlyBuffer();
+        }
+        int slabIndex = Arrays.binarySearch(m_slabOffsets, offset);
+        if (slabIndex < 0) {
+            slabIndex = -slabIndex - 2;
+        }
+        if (slabIndex >= 0 && slabIndex < slabs.length) {
+            slabs[slabIndex].position((int)(offset - m_slabOffsets[slabIndex]));
+        } else {
+            slabIndex = Math.max(0, slabIndex);
+        }
+        return new SlabInputStream(slabs, slabIndex);
+    }
+
+    /** Appends to the last slab, allocating new slabs as needed. */
+    private final class SlabOutputStream extends OutputStream {
+
+        private ByteBuffer m_current;
+
+        private ByteBuffer nextSlab() {
+            synchronized (OffHeapStore.this) {
+                if (m_isSealed || m_slabs == null) {
+                    throw new IllegalStateException("Off-heap store is closed for writing");
+                }
+                int slabSize = m_current == null ? MIN_SLAB_SIZE : Math.min(2 * m_current.capacity(), MAX_SLAB_SIZE);
+                m_current = ByteBuffer.allocateDirect(slabSize);
+                m_slabs.add(m_current);
+                return m_current;
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            ByteBuffer slab = m_current == null || !m_current.hasRemaining() ? nextSlab() : m_current;
+            slab.put((byte)b);
+            synchronized (OffHeapStore.this) {
+                m_size += 1;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int pos = off;
+            int remaining = len;
+            while (remaining > 0) {
+                ByteBuffer slab = m_current == null || !m_current.hasRemaining() ? nextSlab() : m_current;
+                int chunk = Math.min(remaining, slab.remaining());
+                slab.put(b, pos, chunk);
+                pos += chunk;
+                remaining -= chunk;
+            }
+            synchronized (OffHeapStore.this) {
+                m_size += len;
+            }
+        }
+
+        @Override
+        public void close() {
+            seal();
+        }
+    }
+
+    /** Reads sequentially through read-only views of the slabs. */
+    private static final class SlabInputStream extends InputStream {
+
+        private final ByteBuffer[] m_slabs;
+
+        private int m_slabIndex;
+
+        SlabInputStream(final ByteBuffer[] slabs, final int slabIndex) {
+            m_slabs = slabs;
+            m_slabIndex = slabIndex;
+        }
+
+        /** @return the slab to read from next, <code>null</code> at the end of the store. */
+        private ByteBuffer current() {
+            while (m_slabIndex < m_slabs.length) {
+                ByteBuffer slab = m_slabs[m_slabIndex];
+                if (slab.hasRemaining()) {
+                    return slab;
+                }
+                m_slabs[m_slabIndex++] = null;
+            }
+            return null;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer slab = current();
+            return slab == null ? -1 : slab.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer slab = current();
+            if (slab == null) {
+                return -1;
+            }
+            int chunk = Math.min(len, slab.remaining());
+            slab.get(b, off, chunk);
+            return chunk;
+        }
+
+        @Override
+        public long skip(final long n) {
+            long skipped = 0L;
+            ByteBuffer slab;
+            while (skipped < n && (slab = current()) != null) {
+                int chunk = (int)Math.min(n - skipped, slab.remaining());
+                slab.position(slab.position() + chunk);
+                skipped += chunk;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            ByteBuffer slab = current();
+            return slab == null ? 0 : slab.remaining();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Special table implementation that represents a contiguous range of rows of a given {@link BufferedDataTable}
+ * without copying them. Instances are created by {@link BufferedDataTable#partition(int)}. This class is used by the
+ * framework and should not be of public interest.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class PartitionTable implements KnowsRowCountTable {
+
+    private final BufferedDataTable m_table;
+
+    private final long m_fromIndex;
+
+    private final long m_toIndex;
+
+    /** Creates new table representing the rows [fromIndex, toIndex) of the argument.
+     * @param table Underlying table
+     * @param fromIndex Index of the first row in the partition
+     * @param toIndex Index after the last row in the partition
+     * @throws NullPointerException If table argument is null.
+     * @throws IndexOutOfBoundsException If the range is not valid for the table.
+     */
+    public PartitionTable(final BufferedDataTable table, final long fromIndex, final long toIndex) {
+        if (table == null) {
+            throw new NullPointerException("Table must not be null.");
+        }
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > table.size()) {
+            throw new IndexOutOfBoundsException("Invalid row range [" + fromIndex + ", " + toIndex
+                + ") for table with " + table.size() + " row(s)");
+        }
+        m_table = table;
+        m_fromIndex = fromIndex;
+        m_toIndex = toIndex;
+    }
+
+    /** @return Index of the first row of the underlying table in this partition. */
+    public long getFromIndex() {
+        return m_fromIndex;
+    }
+
+    /** @return Index after the last row of the underlying table in this partition. */
+    public long getToIndex() {
+        return m_toIndex;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void ensureOpen() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedDataTable[] getReferenceTables() {
+        return new BufferedDataTable[]{m_table};
+    }
+
+    /**
+     * {@inheritDoc}
+     * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
+     */
+    @Override
+    @Deprecated
+    public int getRowCount() {
+        return KnowsRowCountTable.checkRowCount(size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long size() {
+        return m_toIndex - m_fromIndex;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator iterator() {
+        return m_table.rangeIterator(m_fromIndex, m_toIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        return m_table.rangeIterator(m_fromIndex + fromIndex, m_fromIndex + toIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataTableSpec getDataTableSpec() {
+        return m_table.getDataTableSpec();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean removeFromTableRepository(final HashMap<Integer, ContainerTable> rep) {
+        return false;
+    }
+
+    private static final String CFG_INTERNAL_META = "meta_internal";
+    private static final String CFG_REFERENCE_ID = "table_reference_ID";
+    private static final String CFG_FROM_INDEX = "from_index";
+    private static final String CFG_TO_INDEX = "to_index";
+
+    /** {@inheritDoc} */
+    @Override
+    public void saveToFile(final File f, final NodeSettingsWO s, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        NodeSettingsWO subSettings = s.addNodeSettings(CFG_INTERNAL_META);
+        subSettings.addInt(CFG_REFERENCE_ID, m_table.getBufferedTableId());
+        subSettings.addLong(CFG_FROM_INDEX, m_fromIndex);
+        subSettings.addLong(CFG_TO_INDEX, m_toIndex);
+    }
+
+    /** Restore table, reverse operation to
+     * {@link #saveToFile(File, NodeSettingsWO, ExecutionMonitor) save}.
+     * @param s To load from
+     * @param tblRep Global table loader map.
+     * @return A freshly created partition table.
+     * @throws InvalidSettingsException If settings are invalid.
+     */
+    public static PartitionTable load(final NodeSettingsRO s, final Map<Integer, BufferedDataTable> tblRep)
+        throws InvalidSettingsException {
+        NodeSettingsRO subSettings = s.getNodeSettings(CFG_INTERNAL_META);
+        int refID = subSettings.getInt(CFG_REFERENCE_ID);
+        BufferedDataTable reference = BufferedDataTable.getDataTable(tblRep, refID);
+        try {
+            return new PartitionTable(reference, subSettings.getLong(CFG_FROM_INDEX),
+                subSettings.getLong(CFG_TO_INDEX));
+        } catch (IndexOutOfBoundsException e) {
+            throw new InvalidSettingsException(e.getMessage(), e);
+        }
+    }
+
+}
@@ -283,6 +283,29 @@ public CloseableRowIterator iterator() {
         return new JoinTableIterator(m_reference.iterator(), appendIt, m_map, m_isFromRefTable);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator projectedIterator(final int[] columnIndices) {
+        int[] refColumns = JoinTableIterator.getReferencedColumns(columnIndices, m_map, m_isFromRefTable, true);
+        CloseableRowIterator refIt = refColumns.length == m_reference.getDataTableSpec().getNumColumns()
+            ? m_reference.iterator() : m_reference.projectedIterator(refColumns);
+        CloseableRowIterator appendIt = m_appendTable == null ? EMPTY_ITERATOR : m_appendTable.projectedIterator(
+            JoinTableIterator.getReferencedColumns(columnIndices, m_map, m_isFromRefTable, false));
+        return new JoinTableIterator(refIt, appendIt, m_map, m_isFromRefTable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        CloseableRowIterator appendIt = m_appendTable == null
+            ? EMPTY_ITERATOR : m_appendTable.rangeIterator(fromIndex, toIndex);
+        return new JoinTableIterator(m_reference.rangeIterator(fromIndex, toIndex), appendIt, m_map, m_isFromRefTable);
+    }
+
     /**
      * This factory method is intended to be used immediately before the {@link BufferedDataTable} is created.
      *
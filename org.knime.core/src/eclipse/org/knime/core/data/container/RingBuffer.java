@@ -0,0 +1,161 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free queue for exactly one producer thread and one consumer (which may be a different thread each
+ * time, as long as there are no concurrent consumers). Used to hand batches of rows from a {@link DataContainer} to
+ * its asynchronous write task. The producer blocks in {@link #put(Object)} while the queue is full.
+ *
+ * @param <T> the element type
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RingBuffer<T> {
+
+    /** Upper bound for a single wait of the producer, guards against missed wake-up calls. */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Object[] m_elements;
+
+    private final int m_mask;
+
+    /** Index of the next element to read, only written by the consumer. */
+    private final AtomicLong m_head = new AtomicLong();
+
+    /** Index of the next element to write, only written by the producer. */
+    private final AtomicLong m_tail = new AtomicLong();
+
+    /** The producer thread while it waits for free space, otherwise <code>null</code>. */
+    private volatile Thread m_waitingProducer;
+
+    /**
+     * @param capacity number of elements the queue can hold, must be a power of two.
+     * @throws IllegalArgumentException if the capacity is not a positive power of two.
+     */
+    RingBuffer(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        m_elements = new Object[capacity];
+        m_mask = capacity - 1;
+    }
+
+    /** @return the number of elements the queue can hold. */
+    int capacity() {
+        return m_elements.length;
+    }
+
+    /** @return whether the queue contains no elements. */
+    boolean isEmpty() {
+        return m_head.get() == m_tail.get();
+    }
+
+    /**
+     * Adds the element unless the queue is full. Producer only.
+     *
+     * @param element to add, not null.
+     * @return whether the element was added.
+     */
+    boolean offer(final T element) {
+        final long tail = m_tail.get();
+        if (tail - m_head.get() >= m_elements.length) {
+            return false;
+        }
+        m_elements[(int)tail & m_mask] = element;
+        // ordered store publishes the element to the consumer
+        m_tail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Adds the element, waiting for free space if necessary. Producer only.
+     *
+     * @param element to add, not null.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void put(final T element) throws InterruptedException {
+        while (!offer(element)) {
+            m_waitingProducer = Thread.currentThread();
+            try {
+                if (m_tail.get() - m_head.get() >= m_elements.length) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+            } finally {
+                m_waitingProducer = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Removes the head of the queue. Consumer only.
+     *
+     * @return the head element or <code>null</code> if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        final long head = m_head.get();
+        if (head == m_tail.get()) {
+            return null;
+        }
+        final int index = (int)head & m_mask;
+        T element = (T)m_elements[index];
+        m_elements[index] = null;
+        // volatile store (not lazySet) so that it can't be reordered with the read of the waiting producer
+        m_head.set(head + 1);
+        Thread waitingProducer = m_waitingProducer;
+        if (waitingProducer != null) {
+            LockSupport.unpark(waitingProducer);
+        }
+        return element;
+    }
+}
@@ -207,6 +207,22 @@ public CloseableRowIterator iterator() {
         return m_reference.iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator projectedIterator(final int[] columnIndices) {
+        return m_reference.projectedIterator(columnIndices);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        return m_reference.rangeIterator(fromIndex, toIndex);
+    }
+
     /**
      * {@inheritDoc}
      * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
@@ -124,6 +124,24 @@ public CloseableRowIterator iterator() {
         return m_table.iterator();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator projectedIterator(final int[] columnIndices) {
+        return m_table.projectedIterator(columnIndices);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        return m_table.rangeIterator(fromIndex, toIndex);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ZoneMap getZoneMap() {
+        return m_table.getZoneMap();
+    }
+
     /** {@inheritDoc} */
     @Override
     public DataTableSpec getDataTableSpec() {
@@ -0,0 +1,360 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.knime.core.data.BoundedValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.StringValue;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.config.ConfigRO;
+import org.knime.core.node.config.ConfigWO;
+
+/**
+ * Statistics about consecutive chunks of rows of a table: the minimum, maximum and number of missing cells per chunk
+ * and column. They are recorded while a table is written to disc and allow filtering algorithms to skip chunks
+ * whose values can't match (e.g. by reading only the remaining chunks using
+ * {@link BufferedDataTable#rangeIterator(long, long)}).
+ *
+ * <p>
+ * Statistics are available for all columns whose type is compatible to {@link BoundedValue} (numbers, dates) or
+ * {@link StringValue}. Minimum and maximum are determined using the comparator of the column type
+ * ({@link DataType#getComparator()}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ * @see BufferedDataTable#getZoneMap()
+ */
+public final class ZoneMap {
+
+    private static final String CFG_CHUNK_SIZE = "chunk_size";
+
+    private static final String CFG_ROW_COUNT = "row_count";
+
+    private static final String CFG_COLUMN_PREFIX = "column_";
+
+    private static final String CFG_MIN = "min";
+
+    private static final String CFG_MAX = "max";
+
+    private static final String CFG_MISSING_COUNT = "missing_count";
+
+    private final int m_chunkSize;
+
+    private final long m_rowCount;
+
+    /** Statistics per column, <code>null</code> elements for columns without statistics. */
+    private final ColumnZones[] m_columns;
+
+    private ZoneMap(final int chunkSize, final long rowCount, final ColumnZones[] columns) {
+        m_chunkSize = chunkSize;
+        m_rowCount = rowCount;
+        m_columns = columns;
+    }
+
+    /** @return the number of rows in each chunk (except for the last one, which may contain fewer rows) */
+    public int getChunkSize() {
+        return m_chunkSize;
+    }
+
+    /** @return the number of chunks */
+    public int getChunkCount() {
+        return (int)((m_rowCount + m_chunkSize - 1) / m_chunkSize);
+    }
+
+    /**
+     * @param chunk the chunk index
+     * @return index of the first row of the chunk
+     */
+    public long getChunkStart(final int chunk) {
+        return (long)chunk * m_chunkSize;
+    }
+
+    /**
+     * @param chunk the chunk index
+     * @return index after the last row of the chunk
+     */
+    public long getChunkEnd(final int chunk) {
+        return Math.min(m_rowCount, getChunkStart(chunk + 1));
+    }
+
+    /**
+     * @param column the column index
+     * @return whether statistics are available for the column
+     */
+    public boolean hasStatistics(final int column) {
+        return column >= 0 && column < m_columns.length && m_columns[column] != null;
+    }
+
+    /**
+     * @param column the column index, must have {@link #hasStatistics(int) statistics}
+     * @param chunk the chunk index
+     * @return the smallest value of the column in the chunk or <code>null</code> if all values are missing
+     */
+    public DataCell getMin(final int column, final int chunk) {
+        return m_columns[column].m_min[chunk];
+    }
+
+    /**
+     * @param column the column index, must have {@link #hasStatistics(int) statistics}
+     * @param chunk the chunk index
+     * @return the largest value of the column in the chunk or <code>null</code> if all values are missing
+     */
+    public DataCell getMax(final int column, final int chunk) {
+        return m_columns[column].m_max[chunk];
+    }
+
+    /**
+     * @param column the column index, must have {@link #hasStatistics(int) statistics}
+     * @param chunk the chunk index
+     * @return the number of missing cells of the column in the chunk
+     */
+    public long getMissingCount(final int column, final int chunk) {
+        return m_columns[column].m_missingCount[chunk];
+    }
+
+    /**
+     * Saves the statistics.
+     *
+     * @param config to save to
+     */
+    void save(final ConfigWO config) {
+        config.addInt(CFG_CHUNK_SIZE, m_chunkSize);
+        config.addLong(CFG_ROW_COUNT, m_rowCount);
+        for (int i = 0; i < m_columns.length; i++) {
+            if (m_columns[i] != null) {
+                ConfigWO columnConfig = config.addConfig(CFG_COLUMN_PREFIX + i);
+                columnConfig.addDataCellArray(CFG_MIN, m_columns[i].m_min);
+                columnConfig.addDataCellArray(CFG_MAX, m_columns[i].m_max);
+                columnConfig.addLongArray(CFG_MISSING_COUNT, m_columns[i].m_missingCount);
+            }
+        }
+    }
+
+    /**
+     * Loads statistics saved with {@link #save(ConfigWO)}.
+     *
+     * @param config to load from
+     * @param columnCount number of columns of the table
+     * @return the statistics
+     * @throws InvalidSettingsException if the config is invalid
+     */
+    static ZoneMap load(final ConfigRO config, final int columnCount) throws InvalidSettingsException {
+        int chunkSize = config.getInt(CFG_CHUNK_SIZE);
+        long rowCount = config.getLong(CFG_ROW_COUNT);
+        if (chunkSize <= 0 || rowCount < 0) {
+            throw new InvalidSettingsException("Invalid zone map (chunk size " + chunkSize + ", row count "
+                + rowCount + ")");
+        }
+        int chunkCount = (int)((rowCount + chunkSize - 1) / chunkSize);
+        ColumnZones[] columns = new ColumnZones[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            if (config.containsKey(CFG_COLUMN_PREFIX + i)) {
+                ConfigRO columnConfig = config.getConfig(CFG_COLUMN_PREFIX + i);
+                ColumnZones zones = new ColumnZones(columnConfig.getDataCellArray(CFG_MIN),
+                    columnConfig.getDataCellArray(CFG_MAX), columnConfig.getLongArray(CFG_MISSING_COUNT));
+                if (zones.m_min.length != chunkCount || zones.m_max.length != chunkCount
+                        || zones.m_missingCount.length != chunkCount) {
+                    throw new InvalidSettingsException("Invalid zone map of column " + i + ", expected "
+                        + chunkCount + " chunks");
+                }
+                columns[i] = zones;
+            }
+        }
+        return new ZoneMap(chunkSize, rowCount, columns);
+    }
+
+    /** The statistics of a single column. */
+    private static final class ColumnZones {
+
+        private final DataCell[] m_min;
+
+        private final DataCell[] m_max;
+
+        private final long[] m_missingCount;
+
+        ColumnZones(final DataCell[] min, final DataCell[] max, final long[] missingCount) {
+            m_min = min;
+            m_max = max;
+            m_missingCount = missingCount;
+        }
+    }
+
+    /**
+     * Collects the statistics while rows are written. Cells are passed in column order via
+     * {@link #update(int, DataCell)}, each row is finished with {@link #endRow()}.
+     */
+    static final class Builder {
+
+        /** Columns containing longer strings have no statistics. */
+        static final int MAX_STRING_LENGTH = 256;
+
+        private final int m_chunkSize;
+
+        /** Comparators of the columns with statistics, <code>null</code> elements for other columns. */
+        private final DataValueComparator[] m_comparators;
+
+        private final DataCell[] m_currentMin;
+
+        private final DataCell[] m_currentMax;
+
+        private final long[] m_currentMissingCount;
+
+        private final List<DataCell[]> m_min = new ArrayList<>();
+
+        private final List<DataCell[]> m_max = new ArrayList<>();
+
+        private final List<long[]> m_missingCount = new ArrayList<>();
+
+        private long m_rowCount;
+
+        /**
+         * @param spec the spec of the table
+         * @param chunkSize number of rows per chunk, &gt; 0
+         */
+        Builder(final DataTableSpec spec, final int chunkSize) {
+            m_chunkSize = chunkSize;
+            final int colCount = spec.getNumColumns();
+            m_comparators = new DataValueComparator[colCount];
+            for (int i = 0; i < colCount; i++) {
+                DataColumnSpec colSpec = spec.getColumnSpec(i);
+                DataType type = colSpec.getType();
+                if (type.isCompatible(BoundedValue.class) || type.isCompatible(StringValue.class)) {
+                    m_comparators[i] = type.getComparator();
+                }
+            }
+            m_currentMin = new DataCell[colCount];
+            m_currentMax = new DataCell[colCount];
+            m_currentMissingCount = new long[colCount];
+        }
+
+        /** @return whether any column has statistics, i.e. whether it's worth using this builder */
+        boolean hasStatistics() {
+            for (DataValueComparator comparator : m_comparators) {
+                if (comparator != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Updates the statistics of the current chunk.
+         *
+         * @param column the column index
+         * @param cell the cell as written to the table (blobs may be wrapped)
+         */
+        void update(final int column, final DataCell cell) {
+            final DataValueComparator comparator = m_comparators[column];
+            if (comparator == null) {
+                return;
+            }
+            if (cell.isMissing()) {
+                m_currentMissingCount[column]++;
+            } else if (cell instanceof BlobWrapperDataCell || (cell instanceof StringValue
+                    && ((StringValue)cell).getStringValue().length() > MAX_STRING_LENGTH)) {
+                // blobs are not worth reading, long strings would bloat the meta information (and are unlikely
+                // to be filtered by range)
+                m_comparators[column] = null;
+            } else {
+                if (m_currentMin[column] == null || comparator.compare(cell, m_currentMin[column]) < 0) {
+                    m_currentMin[column] = cell;
+                }
+                if (m_currentMax[column] == null || comparator.compare(cell, m_currentMax[column]) > 0) {
+                    m_currentMax[column] = cell;
+                }
+            }
+        }
+
+        /** Finishes the current row. */
+        void endRow() {
+            m_rowCount++;
+            if (m_rowCount % m_chunkSize == 0) {
+                endChunk();
+            }
+        }
+
+        private void endChunk() {
+            m_min.add(m_currentMin.clone());
+            m_max.add(m_currentMax.clone());
+            m_missingCount.add(m_currentMissingCount.clone());
+            Arrays.fill(m_currentMin, null);
+            Arrays.fill(m_currentMax, null);
+            Arrays.fill(m_currentMissingCount, 0L);
+        }
+
+        /** @return the statistics of all rows passed so far */
+        ZoneMap build() {
+            if ((long)m_min.size() * m_chunkSize < m_rowCount) {
+                endChunk();
+            }
+            final int chunkCount = m_min.size();
+            ColumnZones[] columns = new ColumnZones[m_comparators.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (m_comparators[i] != null) {
+                    DataCell[] min = new DataCell[chunkCount];
+                    DataCell[] max = new DataCell[chunkCount];
+                    long[] missingCount = new long[chunkCount];
+                    for (int c = 0; c < chunkCount; c++) {
+                        min[c] = m_min.get(c)[i];
+                        max[c] = m_max.get(c)[i];
+                        missingCount[c] = m_missingCount.get(c)[i];
+                    }
+                    columns[i] = new ColumnZones(min, max, missingCount);
+                }
+            }
+            return new ZoneMap(m_chunkSize, m_rowCount, columns);
+        }
+    }
+}
@@ -49,9 +49,11 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
@@ -134,6 +136,43 @@ public final FileStoreHandlerRepository getFileStoreHandlerRepository() {
 
     public abstract TableStoreCloseableRowIterator iterator() throws IOException;
 
+    /**
+     * Creates an iterator that only needs to materialize the selected columns. Rows returned by the iterator have the
+     * full number of cells but the cells of columns not selected may be arbitrary (usually missing) cells.
+     * Implementations should skip the data of those columns when reading; this default implementation reads all
+     * columns.
+     *
+     * @param includedColumns Flags for each column whether it is read, or <code>null</code> to read all columns.
+     * @return A new iterator.
+     * @throws IOException If the file can't be opened.
+     * @since 3.6
+     */
+    public TableStoreCloseableRowIterator iterator(final boolean[] includedColumns) throws IOException {
+        return iterator();
+    }
+
+    /**
+     * Creates an iterator over the rows with index <code>fromIndex</code> (inclusive) to <code>toIndex</code>
+     * (exclusive). Implementations should seek to the first row if the format allows it; this default implementation
+     * reads and discards all rows before <code>fromIndex</code>.
+     *
+     * @param includedColumns Flags for each column whether it is read, or <code>null</code> to read all columns (see
+     *            {@link #iterator(boolean[])}).
+     * @param fromIndex Index of the first row to return, &gt;= 0.
+     * @param toIndex Index after the last row to return, may be larger than the number of rows.
+     * @return A new iterator.
+     * @throws IOException If the file can't be opened or read.
+     * @since 3.6
+     */
+    public TableStoreCloseableRowIterator iterator(final boolean[] includedColumns, final long fromIndex,
+        final long toIndex) throws IOException {
+        TableStoreCloseableRowIterator it = includedColumns == null ? iterator() : iterator(includedColumns);
+        for (long i = 0; i < fromIndex && it.hasNext(); i++) {
+            it.next();
+        }
+        return new RangeRowIterator(it, Math.max(0, toIndex - fromIndex));
+    }
+
     /**
      * Reads meta information, such as the classes of serialized {@link DataCell} instances.
      *
@@ -239,4 +278,48 @@ public final void close() {
         public abstract boolean performClose() throws IOException;
     }
 
+    /** Iterator returning a limited number of rows of another iterator. */
+    private static final class RangeRowIterator extends TableStoreCloseableRowIterator {
+
+        private final TableStoreCloseableRowIterator m_iterator;
+
+        private long m_remaining;
+
+        RangeRowIterator(final TableStoreCloseableRowIterator iterator, final long rowCount) {
+            m_iterator = iterator;
+            m_remaining = rowCount;
+        }
+
+        @Override
+        public void setBuffer(final Buffer buffer) {
+            super.setBuffer(buffer);
+            m_iterator.setBuffer(buffer);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (m_remaining <= 0) {
+                // release the stream as early as possible (as done by the other iterators at the end of the table)
+                close();
+                return false;
+            }
+            return m_iterator.hasNext();
+        }
+
+        @Override
+        public DataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator at end");
+            }
+            m_remaining--;
+            return m_iterator.next();
+        }
+
+        @Override
+        public boolean performClose() throws IOException {
+            m_remaining = 0;
+            return m_iterator.performClose();
+        }
+    }
+
 }
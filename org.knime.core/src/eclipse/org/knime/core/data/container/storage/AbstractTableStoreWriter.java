@@ -173,7 +173,7 @@ public Byte getTypeShortCut(final CellClassInfo cellClass) {
      * @param cellClass The cell's class to write out.
      * @return The serializer to use or <code>null</code>.
      * @throws IOException If there are too many different cell implementations (currently 253 are theoretically
-     *             supported)
+     *             supported, 252 if {@link #isDictionaryEncoded() dictionary encoded})
      */
     public DataCellSerializer<DataCell> getSerializerForDataCell(final CellClassInfo cellClass) throws IOException {
         if (m_typeShortCuts == null) {
@@ -183,7 +183,8 @@ public DataCellSerializer<DataCell> getSerializerForDataCell(final CellClassInfo
         DataCellSerializer<DataCell> serializer = (DataCellSerializer<DataCell>)cellClass.getSerializer();
         if (!m_typeShortCuts.containsKey(cellClass)) {
             int size = m_typeShortCuts.size();
-            if (size + BYTE_TYPE_START > Byte.MAX_VALUE) {
+            int limit = isDictionaryEncoded() ? BYTE_TYPE_DICTIONARY_ENTRY : Byte.MAX_VALUE + 1;
+            if (size + BYTE_TYPE_START >= limit) {
                 throw new IOException("Too many different cell implementations");
             }
             Byte identifier = (byte)(size + BYTE_TYPE_START);
@@ -192,6 +193,17 @@ public DataCellSerializer<DataCell> getSerializerForDataCell(final CellClassInfo
         return serializer;
     }
 
+    /**
+     * Whether the last two type shortcuts ({@link #BYTE_TYPE_DICTIONARY_ENTRY} and
+     * {@link #BYTE_TYPE_DICTIONARY_REFERENCE}) are reserved for the dictionary encoding of string columns and hence
+     * not assigned to cell implementations. This implementation returns <code>false</code>.
+     *
+     * @return whether the table is written with dictionary encoded columns
+     */
+    protected boolean isDictionaryEncoded() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     public abstract void close() throws IOException;
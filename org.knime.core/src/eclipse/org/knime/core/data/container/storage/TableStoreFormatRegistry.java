@@ -50,7 +50,6 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -93,6 +92,12 @@ public final class TableStoreFormatRegistry {
     /** Preference constant for selecting data storage format. */
     public static final String PREF_KEY_STORAGE_FORMAT = "knime.core.table-store-format";
 
+    /** Sorts formats so that the "KNIME standard" format comes first (it's the fallback, see
+     * {@link #getInstanceTableStoreFormat()}), all others by class name. */
+    static final Comparator<TableStoreFormat> FORMAT_ORDER =
+        Comparator.comparing((TableStoreFormat f) -> !f.getClass().equals(DefaultTableStoreFormat.class))
+            .thenComparing(f -> f.getClass().getSimpleName());
+
     private static TableStoreFormatRegistry INSTANCE = createInstance();
 
     private static TableStoreFormatRegistry createInstance() {
@@ -103,18 +108,7 @@ private static TableStoreFormatRegistry createInstance() {
                 .flatMap(ext -> Stream.of(ext.getConfigurationElements()))
                 .map(cfe -> readFormat(cfe))
                 .filter(f -> f != null)
-                .sorted(Comparator.comparing(f -> f.getClass().getSimpleName(), (a, b) -> {
-                    // sort formats so that the "KNIME standard" format comes first.
-                    if (Objects.equals(a, b)) {
-                        return 0;
-                    } else if (DefaultTableStoreFormat.class.getName().equals(a)) {
-                        return -1;
-                    } else if (DefaultTableStoreFormat.class.getName().equals(b)) {
-                        return +1;
-                    } else {
-                        return a.compareTo(b);
-                    }
-                })).collect(Collectors.toList());
+                .sorted(FORMAT_ORDER).collect(Collectors.toList());
 
         boolean hasFallback= formatList.stream().anyMatch(f -> f.getClass().equals(DefaultTableStoreFormat.class));
         CheckUtils.checkState(hasFallback, "No fallback table format registered, expected '%s' but not present in '%s'",
@@ -83,8 +83,11 @@ void close() {
         } catch (IOException e) {
             throw new IllegalStateException(e.getClass().getSimpleName()
                     + " while checking for duplicate names", e);
+        } finally {
+            // delete the temp files and return the hash table memory
+            m_duplicateChecker.clear();
+            m_duplicateChecker = null;
         }
-        m_duplicateChecker = null;
     }
 
 }
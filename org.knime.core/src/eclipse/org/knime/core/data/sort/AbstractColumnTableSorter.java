@@ -53,6 +53,7 @@
 import static org.knime.core.node.util.CheckUtils.checkSettingNotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -77,6 +78,7 @@
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
@@ -187,8 +189,8 @@ void sort(final DataTable dataTable, final ExecutionMonitor exec, final SortingC
         throws CanceledExecutionException {
 
         if (m_sortDescriptions.length <= 0) {
-            for (DataRow r : dataTable) {
-                resultListener.consume(new DefaultRow(r.getKey(), new DataCell[0]));
+            for (RowIterator it = createIterator(dataTable); it.hasNext();) {
+                resultListener.consume(new DefaultRow(it.next().getKey(), new DataCell[0]));
             }
         } else {
             clearBuffer();
@@ -196,6 +198,19 @@ void sort(final DataTable dataTable, final ExecutionMonitor exec, final SortingC
         }
     }
 
+    /**
+     * Creates an iterator on the argument table that, if possible, only reads the columns used by the sorting
+     * descriptions.
+     */
+    private RowIterator createIterator(final DataTable dataTable) {
+        if (dataTable instanceof BufferedDataTable) {
+            int[] columnIndices = Arrays.stream(m_sortDescriptions)
+                .flatMapToInt(d -> Arrays.stream(d.getColumnIndices())).distinct().toArray();
+            return ((BufferedDataTable)dataTable).projectedIterator(columnIndices);
+        }
+        return dataTable.iterator();
+    }
+
     /**
      * Changes the number of maximum open containers (=files) during the sorting. Containers are used in the k-way merge
      * sort, the higher the number the fewer iterations in the final merge need to be done.
@@ -242,7 +257,7 @@ private void sortOnDisk(final DataTable dataTable, final ExecutionMonitor exec,
         }
 
         exec.setMessage("Reading table");
-        RowIterator iterator = dataTable.iterator();
+        RowIterator iterator = createIterator(dataTable);
 
         ExecutionMonitor readProgress = exec.createSubProgress(0.7);
 
@@ -62,6 +62,8 @@
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -75,10 +77,13 @@
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.data.util.memory.MemoryBudget;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Class to sort a table. See <a href="package.html">package description</a> for details.
@@ -98,8 +103,14 @@ abstract class AbstractTableSorter {
      */
     public static final int DEF_MAX_OPENCONTAINER = 40;
 
+    /** The minimum number of chunks merged by one task of the parallel merge (unless fewer containers may be open). */
+    private static final int MIN_PARALLEL_MERGE_GROUP_SIZE = 8;
+
     private MemoryAlertSystem m_memService = MemoryAlertSystem.getInstance();
 
+    /** Memory reserved for the rows of the chunks held in memory while sorting on disk. */
+    private MemoryBudget.Reservation m_memoryReservation;
+
     private final DataTable m_inputTable;
 
     private final DataTableSpec m_dataTableSpec;
@@ -118,9 +129,24 @@ abstract class AbstractTableSorter {
 
     private boolean m_sortInMemory = false;
 
+    /** Number of threads sorting and merging chunks, 1 for the sequential algorithm. */
+    private int m_parallelism = 1;
+
+    /**
+     * Guards creation, closing and clearing of chunk containers, which modify the (unsynchronized) table
+     * repositories of the execution context and may happen concurrently when sorting in parallel.
+     */
+    private final Object m_chunkContainerLock = new Object();
+
     /** The RowComparator to compare two DataRows (inner class). */
     private Comparator<DataRow> m_rowComparator;
 
+    /**
+     * Creates keys equivalent to {@link #m_rowComparator}, used instead of the comparator if not <code>null</code>.
+     * Only set if the comparator was created by {@link #setSortColumns(Collection, boolean[], boolean)}.
+     */
+    private NormalizedKeyEncoder m_keyEncoder;
+
     private DataContainer m_currentContainer;
 
     private Queue<Iterable<DataRow>> m_chunksContainer = new LinkedList<Iterable<DataRow>>();
@@ -278,6 +304,7 @@ public void setRowComparator(final Comparator<DataRow> rowComparator) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_rowComparator = rowComparator;
+        m_keyEncoder = null;
     }
 
     /**
@@ -334,6 +361,7 @@ public void setSortColumns(final Collection<String> inclList, final boolean[] so
             indices[curIndex++] = index;
         }
         setRowComparator(new RowComparator(indices, sortAscending, sortMissingsToEnd, spec));
+        m_keyEncoder = NormalizedKeyEncoder.create(indices, sortAscending, sortMissingsToEnd, spec);
     }
 
     /**
@@ -405,6 +433,39 @@ public void setSortInMemory(final boolean sortInMemory) {
         m_sortInMemory = sortInMemory;
     }
 
+    /**
+     * @return the number of threads used to sort and merge chunks, see {@link #setParallelism(int)}.
+     * @since 3.6
+     */
+    public int getParallelism() {
+        return m_parallelism;
+    }
+
+    /**
+     * Sets the number of threads used when the table is sorted on disk. If larger than 1, chunks of the input are
+     * sorted and written to disk concurrently (on the {@link KNIMEConstants#GLOBAL_THREAD_POOL global thread pool})
+     * while the input is still being read, and the intermediate merge steps, which are needed if there are more chunks
+     * than {@link #getMaxOpenContainers()}, merge groups of chunks concurrently (the concurrent merges share the
+     * maximum number of open containers). The final merge into the output table remains sequential. The result is the same as with the sequential algorithm (the sort is stable in both cases).
+     *
+     * <p>
+     * The row comparator must be thread-safe if the parallelism is larger than 1, which is the case for the comparator
+     * created by {@link #setSortColumns(Collection, boolean[], boolean)}.
+     *
+     * <p>
+     * The default is 1 (sequential).
+     *
+     * @param parallelism the number of threads, e.g. {@link Runtime#availableProcessors()}
+     * @throws IllegalArgumentException If argument is smaller than 1.
+     * @since 3.6
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        m_parallelism = parallelism;
+    }
+
     /**
      * Sorts the table passed in the constructor according to the settings and returns the sorted output table.
      *
@@ -420,7 +481,7 @@ DataTable sortInternal(final ExecutionMonitor exec) throws CanceledExecutionExce
             if (m_rowsInInputTable > Integer.MAX_VALUE) {
                 LOGGER.info("Not sorting table in memory, because it has more than " + Integer.MAX_VALUE + " rows.");
             }
-            result = sortOnDisk(exec);
+            result = m_parallelism > 1 ? sortOnDiskInParallel(exec) : sortOnDisk(exec);
         }
         exec.setProgress(1.0);
         return result;
@@ -451,7 +512,7 @@ private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecu
         }
 
         exec.setMessage("Sorting");
-        Collections.sort(rowList, m_rowComparator);
+        sortRows(rowList);
 
         exec.setMessage("Creating sorted table");
 
@@ -497,31 +558,279 @@ private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecu
      * @throws CanceledExecutionException if the user has canceled execution
      */
     private DataTable sortOnDisk(final ExecutionMonitor exec) throws CanceledExecutionException {
+        return sortOnDisk(exec, null);
+    }
+
+    /**
+     * Sorts the data table using a disk-based k-way merge sort.
+     *
+     * @param exec an execution context for reporting progress and creating BufferedDataContainers
+     * @param pool the pool to sort and merge chunks in, or <code>null</code> to do all work in the current thread
+     * @throws CanceledExecutionException if the user has canceled execution
+     */
+    private DataTable sortOnDisk(final ExecutionMonitor exec, final ThreadPool pool)
+        throws CanceledExecutionException {
         final DataTable dataTable = m_inputTable;
 
         m_progress = 0.0;
         m_incProgress = m_rowsInInputTable <= 0 ? -1.0 : 1.0 / (2.0 * m_rowsInInputTable);
-        long counter = createInitialChunks(exec, dataTable);
-        // no or one row only in input table, can exit immediately
-        // (can't rely on global rowCount - might not be set)
-        if (counter <= 1) {
-            return m_inputTable;
+        m_memoryReservation = MemoryBudget.getInstance().newReservation();
+        try {
+            long counter = pool == null ? createInitialChunks(exec, dataTable)
+                : createInitialChunksInParallel(exec, dataTable, pool);
+            // no or one row only in input table, can exit immediately
+            // (can't rely on global rowCount - might not be set)
+            if (counter <= 1) {
+                return m_inputTable;
+            }
+
+            exec.setMessage("Merging temporary tables");
+            // The final output container
+            // merge chunks until there are only so much left, as m_maxopencontainers
+            Iterator<DataRow> result = pool == null ? mergeChunks(exec, false) : mergeChunksInParallel(exec, pool);
+
+            // add results to the final container
+            // The final output container, leave it to the
+            // system to do the caching (bug 1809)
+            DataContainer resultContainer = createDataContainer(dataTable.getDataTableSpec(), false);
+            while (result.hasNext()) {
+                resultContainer.addRowToTable(result.next());
+            }
+            resultContainer.close();
+            return resultContainer.getTable();
+        } finally {
+            m_memoryReservation.close();
+            m_memoryReservation = null;
         }
+    }
+
+    /**
+     * Sorts on disk using a sub pool of the global thread pool. The current thread reads the input and does the final
+     * merge, while waiting for the workers it runs invisibly if it is itself taken out of a thread pool (see
+     * {@link #waitFor(Future)}).
+     */
+    private DataTable sortOnDiskInParallel(final ExecutionMonitor exec) throws CanceledExecutionException {
+        return sortOnDisk(exec, KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_parallelism));
+    }
+
+    /**
+     * Parallel counterpart of {@link #createInitialChunks(ExecutionMonitor, DataTable)}: the current thread reads the
+     * input while up to {@link #m_parallelism} previously read chunks are sorted and written in the pool. Chunks are
+     * added to {@link #m_chunksContainer} in the order they were read.
+     */
+    private long createInitialChunksInParallel(final ExecutionMonitor exec, final DataTable dataTable,
+        final ThreadPool pool) throws CanceledExecutionException {
+        long counter = 0;
+        ArrayList<DataRow> buffer = new ArrayList<DataRow>();
+        int rowsInCurrentChunk = 0;
+        long bytesInCurrentChunk = 0;
+        final Queue<PendingChunk> pendingChunks = new ArrayDeque<>();
 
-        exec.setMessage("Merging temporary tables");
-        // The final output container
-        // merge chunks until there are only so much left, as m_maxopencontainers
-        Iterator<DataRow> result = mergeChunks(exec, false);
+        MemoryActionIndicator memObservable = m_memService.newIndicator();
 
-        // add results to the final container
-        // The final output container, leave it to the
-        // system to do the caching (bug 1809)
-        DataContainer resultContainer = createDataContainer(dataTable.getDataTableSpec(), false);
-        while (result.hasNext()) {
-            resultContainer.addRowToTable(result.next());
+        exec.setMessage("Reading table");
+        boolean success = false;
+        try {
+            for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
+                counter++;
+                rowsInCurrentChunk++;
+                exec.checkCanceled();
+                String message = "Reading table, " + counter + " rows read";
+                if (m_rowsInInputTable > 0) {
+                    m_progress += m_incProgress;
+                    exec.setProgress(m_progress, message);
+                } else {
+                    exec.setMessage(message);
+                }
+                final DataRow row = iter.next();
+                buffer.add(row);
+                final long rowBytes = MemoryBudget.estimateSize(row);
+                final boolean memoryGranted = m_memoryReservation.tryReserve(rowBytes);
+                if (memoryGranted) {
+                    bytesInCurrentChunk += rowBytes;
+                }
+                final boolean memoryShort = !memoryGranted || memObservable.lowMemoryActionRequired();
+                if ((memoryShort && (rowsInCurrentChunk >= m_maxOpenContainers))
+                    || (counter % m_maxRowsPerChunk == 0)) {
+                    if (pendingChunks.size() >= m_parallelism) {
+                        finishChunk(pendingChunks.poll(), exec);
+                    }
+                    LOGGER.debug("Submitting chunk [" + (counter - buffer.size()) + ":" + counter
+                        + "] - mem usage: " + getMemUsage());
+                    final List<DataRow> chunk = buffer;
+                    final Future<DataTable> future = pool.enqueue(() -> {
+                        sortRows(chunk);
+                        return writeChunk(chunk.iterator(), exec);
+                    });
+                    pendingChunks.add(new PendingChunk(future, chunk.size(), bytesInCurrentChunk));
+                    buffer = new ArrayList<DataRow>();
+                    rowsInCurrentChunk = 0;
+                    bytesInCurrentChunk = 0;
+                    if (memoryShort) {
+                        // the rows of the pending chunks are still in memory, write them before reading on
+                        while (!pendingChunks.isEmpty()) {
+                            finishChunk(pendingChunks.poll(), exec);
+                        }
+                    }
+                }
+            }
+            while (!pendingChunks.isEmpty()) {
+                finishChunk(pendingChunks.poll(), exec);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                pendingChunks.stream().forEach(c -> c.m_future.cancel(true));
+            }
+        }
+        // Add buffer to the chunks
+        if (!buffer.isEmpty()) {
+            sortRows(buffer);
+            m_chunksContainer.add(buffer);
+        }
+        return counter;
+    }
+
+    /** Waits for a chunk submitted in the initial phase, adds it to the chunk list and updates the progress. */
+    private void finishChunk(final PendingChunk chunk, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        exec.setMessage("Sorting and writing temporary tables");
+        m_chunksContainer.add(waitFor(chunk.m_future));
+        m_memoryReservation.release(chunk.m_reservedBytes);
+        if (m_rowsInInputTable > 0) {
+            m_progress += chunk.m_rowCount * m_incProgress;
+            exec.setProgress(m_progress);
+        }
+    }
+
+    /**
+     * Parallel counterpart of {@link #mergeChunks(ExecutionMonitor, boolean)}: as long as there are more chunks than
+     * {@link #m_maxOpenContainers}, consecutive groups of chunks are merged concurrently into new chunks (one level of
+     * the merge tree at a time, which keeps the order of equal rows). The concurrent merges share
+     * {@link #m_maxOpenContainers}, so that not more containers are open than in the sequential algorithm: groups are
+     * smaller and only as many merges run at the same time as fit into the limit. Returns the iterator merging the last
+     * level.
+     */
+    private Iterator<DataRow> mergeChunksInParallel(final ExecutionMonitor exec, final ThreadPool pool)
+        throws CanceledExecutionException {
+        final int groupSize = Math.max(Math.min(MIN_PARALLEL_MERGE_GROUP_SIZE, m_maxOpenContainers),
+            m_maxOpenContainers / m_parallelism);
+        final int maxConcurrentMerges = Math.max(1, m_maxOpenContainers / groupSize);
+        final double progressPerLevel;
+        if (m_chunksContainer.size() > m_maxOpenContainers) {
+            int levels = (int)Math.ceil(Math.log(m_chunksContainer.size()) / Math.log(groupSize));
+            progressPerLevel = (1.0 - m_progress) / levels;
+        } else {
+            progressPerLevel = 0.0;
+        }
+        while (m_chunksContainer.size() > m_maxOpenContainers) {
+            exec.setMessage("Merging temporary tables, " + m_chunksContainer.size() + " remaining");
+            final int groupCount = (m_chunksContainer.size() + groupSize - 1) / groupSize;
+            final List<Future<? extends Iterable<DataRow>>> level = new ArrayList<>();
+            final List<Iterable<DataRow>> merged = new ArrayList<>();
+            boolean success = false;
+            try {
+                while (!m_chunksContainer.isEmpty()) {
+                    if (level.size() - merged.size() >= maxConcurrentMerges) {
+                        finishMerge(level.get(merged.size()), merged, progressPerLevel / groupCount, exec);
+                    }
+                    final Queue<MergeEntry> group = new ArrayDeque<>();
+                    for (int i = 0; !m_chunksContainer.isEmpty() && i < groupSize; i++) {
+                        group.add(new MergeEntry(m_chunksContainer.poll(), i, m_rowComparator));
+                    }
+                    if (group.size() == 1) {
+                        level.add(CompletableFuture.completedFuture(group.poll().m_iterable));
+                    } else {
+                        level.add(pool.enqueue(() -> writeChunk(new MergingIterator(group), exec)));
+                    }
+                }
+                while (merged.size() < level.size()) {
+                    finishMerge(level.get(merged.size()), merged, progressPerLevel / groupCount, exec);
+                }
+                success = true;
+            } finally {
+                if (!success) {
+                    level.stream().forEach(f -> f.cancel(true));
+                }
+            }
+            m_chunksContainer.addAll(merged);
+        }
+        if (m_rowsInInputTable > 0) {
+            m_incProgress = (1.0 - m_progress) / m_rowsInInputTable;
+        }
+        final Queue<MergeEntry> containersToMerge = new ArrayDeque<>();
+        for (int i = 0; !m_chunksContainer.isEmpty(); i++) {
+            containersToMerge.add(new MergeEntry(m_chunksContainer.poll(), i, m_rowComparator));
+        }
+        return new MergingIterator(containersToMerge);
+    }
+
+    /** Waits for a merge of the parallel sort, adds its result to the merged chunks and updates the progress. */
+    private void finishMerge(final Future<? extends Iterable<DataRow>> future, final List<Iterable<DataRow>> merged,
+        final double progress, final ExecutionMonitor exec) throws CanceledExecutionException {
+        merged.add(waitFor(future));
+        if (m_rowsInInputTable > 0) {
+            m_progress += progress;
+            exec.setProgress(m_progress);
+        }
+    }
+
+    /**
+     * Writes the rows to a new temporary table. Used by the parallel sort, possibly concurrently.
+     *
+     * @param rows the (sorted) rows
+     * @param exec to check for cancellation
+     * @return the new table
+     * @throws CanceledExecutionException if canceled, the table is then cleared
+     */
+    private DataTable writeChunk(final Iterator<DataRow> rows, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final DataContainer container;
+        synchronized (m_chunkContainerLock) {
+            container = createDataContainer(m_dataTableSpec, true);
+        }
+        container.setMaxPossibleValues(0);
+        boolean success = false;
+        try {
+            while (rows.hasNext()) {
+                exec.checkCanceled();
+                container.addRowToTable(rows.next());
+            }
+            success = true;
+        } finally {
+            synchronized (m_chunkContainerLock) {
+                container.close();
+                if (!success) {
+                    clearTable(container.getTable());
+                }
+            }
+        }
+        return container.getTable();
+    }
+
+    /**
+     * Waits for a worker of the parallel sort, rethrowing its exception. If the current thread is taken out of a thread
+     * pool, it doesn't count against the pool's thread limit while waiting.
+     */
+    private static <T> T waitFor(final Future<T> future) throws CanceledExecutionException {
+        return ThreadPool.callInvisible(future::get);
+    }
+
+    /** A chunk being sorted and written in the initial phase of the parallel sort. */
+    private static final class PendingChunk {
+
+        private final Future<DataTable> m_future;
+
+        private final int m_rowCount;
+
+        /** The memory reserved for the rows of the chunk, released once it is written. */
+        private final long m_reservedBytes;
+
+        PendingChunk(final Future<DataTable> future, final int rowCount, final long reservedBytes) {
+            m_future = future;
+            m_rowCount = rowCount;
+            m_reservedBytes = reservedBytes;
         }
-        resultContainer.close();
-        return resultContainer.getTable();
     }
 
     /**
@@ -602,8 +911,9 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
             }
             DataRow row = iter.next();
             buffer.add(row);
-            if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
-                || (counter % m_maxRowsPerChunk == 0)) {
+            final boolean memoryGranted = m_memoryReservation.tryReserve(MemoryBudget.estimateSize(row));
+            if (((!memoryGranted || memObservable.lowMemoryActionRequired())
+                && (rowsInCurrentChunk >= m_maxOpenContainers)) || (counter % m_maxRowsPerChunk == 0)) {
                 LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
                 if (m_rowsInInputTable > 0) {
                     long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
@@ -611,7 +921,7 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
                 }
                 exec.setMessage("Sorting temporary buffer");
                 // sort buffer
-                Collections.sort(buffer, m_rowComparator);
+                sortRows(buffer);
                 // write buffer to disk
                 openChunk();
                 final int totalBufferSize = buffer.size();
@@ -629,6 +939,7 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
                 }
                 buffer.clear();
                 closeChunk();
+                m_memoryReservation.releaseAll();
 
                 LOGGER.debug("Wrote chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
                 chunkStartRow = counter + 1;
@@ -638,7 +949,7 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
         // Add buffer to the chunks
         if (!buffer.isEmpty()) {
             // sort buffer
-            Collections.sort(buffer, m_rowComparator);
+            sortRows(buffer);
             m_chunksContainer.add(buffer);
         }
         outerCounter = counter;
@@ -679,6 +990,20 @@ void closeChunk() {
         }
     }
 
+    /**
+     * Sorts a chunk of rows in memory, using normalized keys if available.
+     *
+     * @param rows the rows to sort
+     */
+    private void sortRows(final List<DataRow> rows) {
+        final NormalizedKeyEncoder keyEncoder = m_keyEncoder;
+        if (keyEncoder != null) {
+            keyEncoder.sort(rows);
+        } else {
+            Collections.sort(rows, m_rowComparator);
+        }
+    }
+
     private String getMemUsage() {
         Runtime runtime = Runtime.getRuntime();
         long free = runtime.freeMemory();
@@ -696,6 +1021,9 @@ private String getMemUsage() {
     private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataRow> {
         private DataRow m_row;
 
+        /** Normalized key of {@link #m_row} or <code>null</code> if the comparator is used. */
+        private byte[] m_key;
+
         private Iterable<DataRow> m_iterable;
 
         private Iterator<DataRow> m_iterator;
@@ -719,7 +1047,7 @@ private void open() {
             if (m_iterator == null) {
                 m_iterator = m_iterable.iterator();
                 if (m_iterator.hasNext()) {
-                    m_row = m_iterator.next();
+                    setRow(m_iterator.next());
                 }
             }
         }
@@ -732,7 +1060,9 @@ public boolean hasNext() {
             // open the file lazily
             if (m_row == null) {
                 if (m_iterable instanceof DataTable) {
-                    clearTable((DataTable)m_iterable);
+                    synchronized (m_chunkContainerLock) {
+                        clearTable((DataTable)m_iterable);
+                    }
                 }
                 return false;
             }
@@ -749,10 +1079,15 @@ public DataRow next() {
                 throw new NoSuchElementException();
             }
             DataRow toReturn = m_row;
-            m_row = m_iterator.hasNext() ? m_iterator.next() : null;
+            setRow(m_iterator.hasNext() ? m_iterator.next() : null);
             return toReturn;
         }
 
+        private void setRow(final DataRow row) {
+            m_row = row;
+            m_key = row != null && m_keyEncoder != null ? m_keyEncoder.encode(row) : null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -766,7 +1101,8 @@ public void remove() {
          */
         @Override
         public int compareTo(final MergeEntry that) {
-            int value = m_comparator.compare(this.m_row, that.m_row);
+            int value = m_key != null && that.m_key != null ? NormalizedKeyEncoder.compare(m_key, that.m_key)
+                : m_comparator.compare(this.m_row, that.m_row);
             if (value == 0) {
                 return this.m_index - that.m_index;
             } else {
@@ -0,0 +1,314 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.sort;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.DoubleValueComparator;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.IntValueComparator;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.LongValueComparator;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.StringValueComparator;
+
+/**
+ * Encodes the sort columns of a row into a byte array whose unsigned lexicographic order is the order defined by the
+ * sorter's row comparator. Comparing keys is a plain byte comparison without virtual calls or cell access, so the key
+ * of each row is computed once and the rows themselves are only touched again when they are written out.
+ *
+ * <p>
+ * Keys can only be created for the types whose comparators are known to this class (int, long, double and string
+ * values and the row key); {@link #create(int[], boolean[], boolean, DataTableSpec)} returns <code>null</code> if any
+ * other column is sorted. Per column, a key contains a flag byte (placing missing values first or last) followed by
+ * the value: numbers as big-endian bytes with the sign bit flipped (all bits of negative doubles, as
+ * {@link Double#compare(double, double)}), strings as big-endian chars with 0-bytes escaped and a 0-0 terminator
+ * (as {@link String#compareTo(String)}). Value bytes are inverted for descending columns.
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NormalizedKeyEncoder {
+
+    private static final byte MISSING_FIRST = 0x00;
+
+    private static final byte PRESENT = 0x01;
+
+    private static final byte MISSING_LAST = 0x02;
+
+    private enum Encoding {
+        INT, LONG, DOUBLE, STRING, ROWKEY;
+    }
+
+    private final int[] m_indices;
+
+    private final Encoding[] m_encodings;
+
+    private final boolean[] m_descending;
+
+    private final byte[] m_missingFlags;
+
+    private NormalizedKeyEncoder(final int[] indices, final Encoding[] encodings, final boolean[] descending,
+        final byte[] missingFlags) {
+        m_indices = indices;
+        m_encodings = encodings;
+        m_descending = descending;
+        m_missingFlags = missingFlags;
+    }
+
+    /**
+     * Creates an encoder for the given sort criteria, which are the same as for the sorter's row comparator.
+     *
+     * @param indices the column indices, -1 for the row key
+     * @param sortAscending the sort order per column
+     * @param sortMissingsToEnd whether missing values are always sorted last (otherwise they are smaller than any
+     *            other value)
+     * @param spec the table spec
+     * @return the encoder or <code>null</code> if any column's comparator isn't supported
+     */
+    static NormalizedKeyEncoder create(final int[] indices, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd, final DataTableSpec spec) {
+        final Encoding[] encodings = new Encoding[indices.length];
+        final boolean[] descending = new boolean[indices.length];
+        final byte[] missingFlags = new byte[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == -1) {
+                encodings[i] = Encoding.ROWKEY;
+            } else {
+                final DataValueComparator comp = spec.getColumnSpec(indices[i]).getType().getComparator();
+                // exact class checks -- subclasses may define a different order
+                if (comp.getClass() == IntValueComparator.class) {
+                    encodings[i] = Encoding.INT;
+                } else if (comp.getClass() == LongValueComparator.class) {
+                    encodings[i] = Encoding.LONG;
+                } else if (comp.getClass() == DoubleValueComparator.class) {
+                    encodings[i] = Encoding.DOUBLE;
+                } else if (comp.getClass() == StringValueComparator.class) {
+                    encodings[i] = Encoding.STRING;
+                } else {
+                    return null;
+                }
+            }
+            descending[i] = !sortAscending[i];
+            // missing values are smallest unless sorted to the end, descending order then puts them last
+            missingFlags[i] = sortMissingsToEnd || descending[i] ? MISSING_LAST : MISSING_FIRST;
+        }
+        return new NormalizedKeyEncoder(indices.clone(), encodings, descending, missingFlags);
+    }
+
+    /**
+     * @param row the row
+     * @return the normalized key of the row's sort columns
+     */
+    byte[] encode(final DataRow row) {
+        final KeyBuilder builder = new KeyBuilder();
+        for (int i = 0; i < m_indices.length; i++) {
+            final int start;
+            if (m_encodings[i] == Encoding.ROWKEY) {
+                builder.add(PRESENT);
+                start = builder.m_length;
+                builder.addString(row.getKey().getString());
+            } else {
+                final DataCell cell = row.getCell(m_indices[i]);
+                if (cell.isMissing()) {
+                    builder.add(m_missingFlags[i]);
+                    continue;
+                }
+                builder.add(PRESENT);
+                start = builder.m_length;
+                switch (m_encodings[i]) {
+                    case INT:
+                        builder.addInt(((IntValue)cell).getIntValue() ^ Integer.MIN_VALUE);
+                        break;
+                    case LONG:
+                        builder.addLong(((LongValue)cell).getLongValue() ^ Long.MIN_VALUE);
+                        break;
+                    case DOUBLE:
+                        final long bits = Double.doubleToLongBits(((DoubleValue)cell).getDoubleValue());
+                        builder.addLong(bits ^ ((bits >> 63) | Long.MIN_VALUE));
+                        break;
+                    case STRING:
+                        builder.addString(((StringValue)cell).getStringValue());
+                        break;
+                    default:
+                        throw new IllegalStateException("Unsupported encoding: " + m_encodings[i]);
+                }
+            }
+            if (m_descending[i]) {
+                builder.invert(start);
+            }
+        }
+        return builder.toArray();
+    }
+
+    /**
+     * Sorts the list according to the normalized keys of its rows, which is equivalent to sorting it with the row
+     * comparator (the sort is stable, too).
+     *
+     * @param rows the rows to sort
+     */
+    <T extends DataRow> void sort(final List<T> rows) {
+        final KeyedRow[] keyedRows = new KeyedRow[rows.size()];
+        for (int i = 0; i < keyedRows.length; i++) {
+            final T row = rows.get(i);
+            keyedRows[i] = new KeyedRow(encode(row), row);
+        }
+        Arrays.sort(keyedRows);
+        for (int i = 0; i < keyedRows.length; i++) {
+            @SuppressWarnings("unchecked")
+            final T row = (T)keyedRows[i].m_row;
+            rows.set(i, row);
+            keyedRows[i] = null;
+        }
+    }
+
+    /**
+     * Compares two keys, unsigned byte by byte.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return a negative number, zero or a positive number if the first key is smaller, equal or larger
+     */
+    static int compare(final byte[] key1, final byte[] key2) {
+        final int length = Math.min(key1.length, key2.length);
+        for (int i = 0; i < length; i++) {
+            if (key1[i] != key2[i]) {
+                return (key1[i] & 0xFF) - (key2[i] & 0xFF);
+            }
+        }
+        return key1.length - key2.length;
+    }
+
+    /** A row and its key, ordered by key. */
+    private static final class KeyedRow implements Comparable<KeyedRow> {
+
+        private final byte[] m_key;
+
+        private final DataRow m_row;
+
+        KeyedRow(final byte[] key, final DataRow row) {
+            m_key = key;
+            m_row = row;
+        }
+
+        @Override
+        public int compareTo(final KeyedRow other) {
+            return compare(m_key, other.m_key);
+        }
+    }
+
+    /** Growable byte array for building a single key. */
+    private static final class KeyBuilder {
+
+        private byte[] m_bytes = new byte[32];
+
+        private int m_length;
+
+        private void ensureCapacity(final int additional) {
+            if (m_length + additional > m_bytes.length) {
+                m_bytes = Arrays.copyOf(m_bytes, Math.max(2 * m_bytes.length, m_length + additional));
+            }
+        }
+
+        void add(final byte b) {
+            ensureCapacity(1);
+            m_bytes[m_length++] = b;
+        }
+
+        void addInt(final int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                m_bytes[m_length++] = (byte)(value >>> shift);
+            }
+        }
+
+        void addLong(final long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                m_bytes[m_length++] = (byte)(value >>> shift);
+            }
+        }
+
+        /** Adds chars as big-endian pairs, escaping 0 as 0-0xFF, terminated by 0-0. */
+        void addString(final String value) {
+            ensureCapacity(2 * value.length() + 2);
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                addEscaped((byte)(c >>> 8));
+                addEscaped((byte)c);
+            }
+            add((byte)0);
+            add((byte)0);
+        }
+
+        private void addEscaped(final byte b) {
+            if (b == 0) {
+                add((byte)0);
+                add((byte)0xFF);
+            } else {
+                add(b);
+            }
+        }
+
+        void invert(final int from) {
+            for (int i = from; i < m_length; i++) {
+                m_bytes[i] = (byte)~m_bytes[i];
+            }
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(m_bytes, m_length);
+        }
+    }
+}
@@ -55,6 +55,13 @@ final void init(final DataTableSpec spec) throws InvalidSettingsException {
         }
     }
 
+    /**
+     * @return the indices of the set columns in the original spec, only valid after {@link #init(DataTableSpec)}
+     */
+    final int[] getColumnIndices() {
+        return Arrays.stream(m_indexes).filter(i -> i >= 0).toArray();
+    }
+
     /**
      * @return the column names
      */
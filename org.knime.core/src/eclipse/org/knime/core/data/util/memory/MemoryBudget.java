@@ -0,0 +1,507 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.util.memory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContext;
+
+/**
+ * Budget for heap memory that is used to buffer data, e.g. rows of tables kept in memory or chunks of a sort.
+ * Consumers {@link #newReservation() create a reservation} and ask for memory <em>before</em> they hold more data
+ * ({@link Reservation#tryReserve(long)}); if the request is denied they are supposed to write their data to disk
+ * instead. In contrast to the {@link MemoryAlertSystem}, which only reports low memory after a garbage collection
+ * found the heap almost full, the budget limits the total amount of buffered data of all nodes in advance, so that
+ * concurrently running nodes don't fill the heap together.
+ * <p>
+ * Consumers whose data may be written to disk at any time (e.g. tables that are completely kept in memory) can
+ * register a {@link Reservation#setReleaseHandler(Runnable) release handler}. If a request can't be granted, the
+ * handlers of the largest reservations are called first, so that few consumers write much data rather than many
+ * consumers little data. As handlers may write the data asynchronously, the requesting thread waits a short time
+ * (at most {@link #DEFAULT_RELEASE_TIMEOUT_MS} milliseconds) for the memory to be released.
+ * <p>
+ * The size of the budget is a fraction of the maximum memory of the old generation, see
+ * {@link KNIMEConstants#PROPERTY_MEMORY_BUDGET}. Sizes of rows can be estimated with {@link #estimateSize(DataRow)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class MemoryBudget {
+
+    /** The default fraction of the maximum memory that is used as budget. */
+    public static final double DEFAULT_BUDGET_FRACTION = 0.5;
+
+    /** The default time in milliseconds a request waits for memory released by the release handlers. */
+    public static final long DEFAULT_RELEASE_TIMEOUT_MS = 1000;
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(MemoryBudget.class);
+
+    private static final MemoryBudget INSTANCE = new MemoryBudget(
+        (long)(MemoryAlertSystem.getMaximumMemory() * getBudgetFraction()),
+        () -> MemoryAlertSystem.getInstance().isMemoryLow(), DEFAULT_RELEASE_TIMEOUT_MS);
+
+    /* Estimated sizes of objects on a 64-bit JVM, rounded up. */
+
+    private static final int OBJECT_SIZE = 16;
+
+    private static final int REFERENCE_SIZE = 8;
+
+    private static final int ARRAY_SIZE = 16;
+
+    private static final int STRING_SIZE = OBJECT_SIZE + 8 + ARRAY_SIZE;
+
+    private static final int DEFAULT_CELL_SIZE = 48;
+
+    private final long m_budget;
+
+    private final BooleanSupplier m_isMemoryLow;
+
+    private final long m_releaseTimeoutNanos;
+
+    private final AtomicLong m_reserved = new AtomicLong();
+
+    /** Notified whenever memory is released, requests wait on it after calling release handlers. */
+    private final Object m_releaseMonitor = new Object();
+
+    /** References to all reservations, used to find release handlers and to release the memory of reservations that
+     * have been garbage collected without being closed. */
+    private final Set<ReservationReference> m_reservations = ConcurrentHashMap.newKeySet();
+
+    private final ReferenceQueue<Reservation> m_referenceQueue = new ReferenceQueue<>();
+
+    /**
+     * Creates a new memory budget. <b>In almost all cases you should use the singleton instance via
+     * {@link #getInstance()} instead of creating your own instance.</b>
+     *
+     * @param budget the number of bytes that may be reserved
+     * @param isMemoryLow returns <code>true</code> if no memory should be granted because the heap is already full
+     * @param releaseTimeoutMs the time in milliseconds a request waits for memory released by release handlers
+     */
+    MemoryBudget(final long budget, final BooleanSupplier isMemoryLow, final long releaseTimeoutMs) {
+        m_budget = budget;
+        m_isMemoryLow = isMemoryLow;
+        m_releaseTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(releaseTimeoutMs);
+    }
+
+    private static double getBudgetFraction() {
+        String value = System.getProperty(KNIMEConstants.PROPERTY_MEMORY_BUDGET);
+        if (value != null) {
+            try {
+                double fraction = Double.parseDouble(value);
+                if (fraction > 0.0 && fraction <= 1.0) {
+                    return fraction;
+                }
+            } catch (NumberFormatException ex) {
+                // handled below
+            }
+            LOGGER.warn("Invalid value for property " + KNIMEConstants.PROPERTY_MEMORY_BUDGET + " (" + value
+                + "), must be a number in (0, 1], using default " + DEFAULT_BUDGET_FRACTION);
+        }
+        return DEFAULT_BUDGET_FRACTION;
+    }
+
+    /**
+     * Singleton instance of {@link MemoryBudget}.
+     *
+     * @return the singleton instance
+     */
+    public static MemoryBudget getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the number of bytes that may be reserved in total
+     */
+    public long getBudget() {
+        return m_budget;
+    }
+
+    /**
+     * @return the number of bytes that are currently reserved
+     */
+    public long getReservedMemory() {
+        expungeStaleReservations();
+        return m_reserved.get();
+    }
+
+    /**
+     * Returns the currently reserved memory per node, reservations created without node context are summarized
+     * under <code>null</code>.
+     *
+     * @return a map from the nodes to the reserved bytes
+     */
+    public Map<NodeContainer, Long> getReservedMemoryPerNode() {
+        expungeStaleReservations();
+        Map<NodeContainer, Long> result = new TreeMap<>(Comparator.nullsFirst(
+            Comparator.comparing(NodeContainer::getNameWithID)));
+        for (ReservationReference ref : m_reservations) {
+            long bytes = ref.m_bytes.get();
+            if (bytes > 0) {
+                result.merge(ref.getNodeContainer(), bytes, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new reservation for the node of the current {@link NodeContext}. The reservation should be closed as
+     * soon as the data is no longer held.
+     *
+     * @return a new reservation without reserved memory
+     */
+    public Reservation newReservation() {
+        expungeStaleReservations();
+        return new Reservation();
+    }
+
+    private boolean tryAdd(final long bytes) {
+        long prev;
+        do {
+            prev = m_reserved.get();
+            if (prev + bytes > m_budget) {
+                return false;
+            }
+        } while (!m_reserved.compareAndSet(prev, prev + bytes));
+        return true;
+    }
+
+    /** Subtracts released bytes from the reserved memory and wakes up requests waiting for it. */
+    private void subtract(final long bytes) {
+        if (bytes > 0) {
+            m_reserved.addAndGet(-bytes);
+            synchronized (m_releaseMonitor) {
+                m_releaseMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until the given number of bytes can be added (because release handlers released memory in the meantime)
+     * or the release timeout has passed.
+     *
+     * @return whether the bytes have been added
+     */
+    private boolean tryAddAwaitingRelease(final long bytes) {
+        final long deadline = System.nanoTime() + m_releaseTimeoutNanos;
+        synchronized (m_releaseMonitor) {
+            while (!tryAdd(bytes)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(m_releaseMonitor, remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Calls the release handlers of the other reservations, largest reservation first, until the given number of
+     * bytes is (or is going to be) released.
+     *
+     * @return whether any release handler has been called
+     */
+    private boolean releaseOthers(final Reservation requester, final long bytes) {
+        List<ReservationReference> candidates = new ArrayList<>();
+        for (ReservationReference ref : m_reservations) {
+            Reservation r = ref.get();
+            if (r != null && r != requester && r.m_releaseHandler != null && ref.m_bytes.get() > 0) {
+                candidates.add(ref);
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(b.m_bytes.get(), a.m_bytes.get()));
+        long needed = m_reserved.get() + bytes - m_budget;
+        boolean released = false;
+        for (ReservationReference ref : candidates) {
+            if (needed <= 0) {
+                break;
+            }
+            Reservation r = ref.get();
+            Runnable handler = r != null ? r.m_releaseHandler : null;
+            if (handler != null) {
+                needed -= ref.m_bytes.get();
+                // only called once, the reservation has to register again if it holds memory again
+                r.m_releaseHandler = null;
+                released = true;
+                NodeContext.pushContext(ref.m_context);
+                try {
+                    handler.run();
+                } catch (Exception ex) {
+                    LOGGER.error("Error while releasing memory: " + ex.getMessage(), ex);
+                } finally {
+                    NodeContext.removeLastContext();
+                }
+            }
+        }
+        return released;
+    }
+
+    private void expungeStaleReservations() {
+        Reference<? extends Reservation> ref;
+        while ((ref = m_referenceQueue.poll()) != null) {
+            ReservationReference r = (ReservationReference)ref;
+            if (m_reservations.remove(r)) {
+                long bytes = r.m_bytes.getAndSet(0);
+                if (bytes > 0) {
+                    NodeContainer nc = r.getNodeContainer();
+                    LOGGER.debug("Reservation of " + bytes + " bytes has not been closed"
+                        + (nc != null ? " by " + nc.getNameWithID() : ""));
+                    subtract(bytes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap memory used by a row including its key and cells.
+     *
+     * @param row a row
+     * @return the estimated size in bytes
+     */
+    public static long estimateSize(final DataRow row) {
+        final int numCells = row.getNumCells();
+        long size = OBJECT_SIZE + ARRAY_SIZE + (long)numCells * REFERENCE_SIZE + OBJECT_SIZE
+            + estimateSize(row.getKey().getString());
+        for (int i = 0; i < numCells; i++) {
+            size += estimateSize(row.getCell(i));
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the heap memory used by a cell.
+     *
+     * @param cell a cell
+     * @return the estimated size in bytes
+     */
+    public static long estimateSize(final DataCell cell) {
+        if (cell.isMissing() || cell instanceof BooleanCell) {
+            // shared instances
+            return 0;
+        } else if (cell instanceof IntCell) {
+            return OBJECT_SIZE;
+        } else if (cell instanceof DoubleCell || cell instanceof LongCell) {
+            return OBJECT_SIZE + 8;
+        } else if (cell instanceof StringCell) {
+            return OBJECT_SIZE + estimateSize(((StringCell)cell).getStringValue());
+        } else if (cell instanceof CollectionDataValue) {
+            long size = DEFAULT_CELL_SIZE;
+            for (DataCell c : (CollectionDataValue)cell) {
+                size += REFERENCE_SIZE + estimateSize(c);
+            }
+            return size;
+        }
+        return DEFAULT_CELL_SIZE;
+    }
+
+    private static long estimateSize(final String s) {
+        return STRING_SIZE + 2L * s.length();
+    }
+
+    /**
+     * Memory reserved by one consumer. Instances are not thread-safe, but different reservations can be used
+     * concurrently.
+     *
+     * @noinstantiate This class is not intended to be instantiated by clients.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final AtomicLong m_bytes = new AtomicLong();
+
+        private final ReservationReference m_reference;
+
+        private volatile Runnable m_releaseHandler;
+
+        private Reservation() {
+            m_reference = new ReservationReference(this, m_bytes, NodeContext.getContext(), m_referenceQueue);
+            m_reservations.add(m_reference);
+        }
+
+        /**
+         * Tries to reserve the given number of bytes. If the budget is exhausted, the release handlers of other
+         * reservations are called and the request is granted if enough memory is released within the release timeout
+         * (the calling thread blocks meanwhile).
+         *
+         * @param bytes the number of bytes to reserve
+         * @return <code>true</code> if the memory was reserved, <code>false</code> if the caller must not hold more
+         *         data in memory
+         */
+        public boolean tryReserve(final long bytes) {
+            return tryReserve(bytes, true);
+        }
+
+        /**
+         * Tries to reserve the given number of bytes. If the budget is exhausted, the release handlers of other
+         * reservations are called. Callers that must not block (e.g. because they hold a lock) pass
+         * <code>false</code> as second argument; the request is then denied immediately if the released memory isn't
+         * available yet, later requests will benefit from it.
+         *
+         * @param bytes the number of bytes to reserve
+         * @param awaitRelease whether to wait up to the release timeout for memory released by release handlers
+         * @return <code>true</code> if the memory was reserved, <code>false</code> if the caller must not hold more
+         *         data in memory
+         */
+        public boolean tryReserve(final long bytes, final boolean awaitRelease) {
+            if (bytes <= 0) {
+                return true;
+            }
+            if (m_isMemoryLow.getAsBoolean()) {
+                return false;
+            }
+            expungeStaleReservations();
+            if (!tryAdd(bytes)) {
+                final boolean released = releaseOthers(this, bytes);
+                if (!(released && awaitRelease ? tryAddAwaitingRelease(bytes) : tryAdd(bytes))) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Memory budget exhausted, denied " + bytes + " bytes (" + m_reserved.get()
+                            + " of " + m_budget + " bytes reserved)");
+                    }
+                    return false;
+                }
+            }
+            m_bytes.addAndGet(bytes);
+            return true;
+        }
+
+        /**
+         * Releases the given number of bytes, at most the reserved bytes.
+         *
+         * @param bytes the number of bytes to release
+         */
+        public void release(final long bytes) {
+            long prev;
+            long released;
+            do {
+                prev = m_bytes.get();
+                released = Math.min(prev, bytes);
+            } while (!m_bytes.compareAndSet(prev, prev - released));
+            subtract(released);
+        }
+
+        /**
+         * Releases all reserved bytes. The reservation can still be used afterwards.
+         */
+        public void releaseAll() {
+            m_releaseHandler = null;
+            subtract(m_bytes.getAndSet(0));
+        }
+
+        /**
+         * @return the number of currently reserved bytes
+         */
+        public long getReservedMemory() {
+            return m_bytes.get();
+        }
+
+        /**
+         * Sets a handler that is called (at most once) if another consumer needs memory. The handler should write
+         * the data to disk, which may be done asynchronously, and release the memory afterwards; the requesting
+         * thread waits for the release only for a short time. The handler is called in the thread requesting memory,
+         * hence it must not block on locks that may be held by other consumers.
+         *
+         * @param handler the handler or <code>null</code> if the memory can't be released on demand
+         */
+        public void setReleaseHandler(final Runnable handler) {
+            m_releaseHandler = handler;
+        }
+
+        /**
+         * Releases all reserved bytes and removes the reservation from the budget.
+         */
+        @Override
+        public void close() {
+            releaseAll();
+            m_reservations.remove(m_reference);
+        }
+    }
+
+    /** Weak reference to a reservation that keeps the reserved bytes and the node context of the owner. */
+    private static final class ReservationReference extends WeakReference<Reservation> {
+
+        private final AtomicLong m_bytes;
+
+        private final NodeContext m_context;
+
+        ReservationReference(final Reservation reservation, final AtomicLong bytes, final NodeContext context,
+            final ReferenceQueue<Reservation> queue) {
+            super(reservation, queue);
+            m_bytes = bytes;
+            m_context = context;
+        }
+
+        NodeContainer getNodeContainer() {
+            return m_context != null ? m_context.getNodeContainer() : null;
+        }
+    }
+}
@@ -60,6 +60,7 @@
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -73,6 +74,8 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.batch.RowBatch;
+import org.knime.core.data.batch.RowBatchIterator;
 import org.knime.core.data.container.BlobSupportDataRow;
 import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ConcatenateTable;
@@ -80,10 +83,12 @@
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.container.DefaultTableStoreFormat;
 import org.knime.core.data.container.JoinedTable;
+import org.knime.core.data.container.PartitionTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
+import org.knime.core.data.container.ZoneMap;
 import org.knime.core.data.container.storage.TableStoreFormat;
 import org.knime.core.data.container.storage.TableStoreFormatRegistry;
 import org.knime.core.data.filestore.internal.FileStoreHandlerRepository;
@@ -238,6 +243,14 @@ static PortObjectSerializer<BufferedDataTable> getPortObjectSerializer() {
         this(table, generateNewID());
     }
 
+    /** Creates a new buffered data table based on a range of rows of
+     * another BufferedDataTable.
+     * @param table The reference.
+     */
+    BufferedDataTable(final PartitionTable table) {
+        this(table, generateNewID());
+    }
+
     /** Creates a new buffered data table based on a "void" table.
      * @param table The reference.
      */
@@ -331,6 +344,112 @@ public CloseableRowIterator iterator() {
         return m_delegate.iterator();
     }
 
+    /**
+     * Get an iterator that only needs to provide the cells of the given columns. Rows returned by the iterator have
+     * the full number of cells (so that cell indices are the same as in {@link #iterator()}) but the cells of all other
+     * columns are unspecified, usually they are missing cells. Tables stored on disk skip the de-serialization of
+     * those cells, which makes this iterator much faster than {@link #iterator()} if only few columns are read.
+     *
+     * @param columnIndices The indices of the columns to read, may be empty if only the row keys are needed.
+     * @return A new iterator.
+     * @throws IndexOutOfBoundsException If any index is not a valid column index in this table's spec.
+     * @since 3.6
+     */
+    public CloseableRowIterator projectedIterator(final int... columnIndices) {
+        final int colCount = getDataTableSpec().getNumColumns();
+        final int[] sortedIndices = columnIndices.clone();
+        Arrays.sort(sortedIndices);
+        for (int i : sortedIndices) {
+            if (i < 0 || i >= colCount) {
+                throw new IndexOutOfBoundsException("Invalid column index " + i + ", table has " + colCount
+                    + " column(s)");
+            }
+        }
+        return m_delegate.projectedIterator(sortedIndices);
+    }
+
+    /**
+     * Get an iterator that returns the rows of this table in batches stored column-wise, see {@link RowBatch}. If
+     * column indices are given, only those columns are read (as in {@link #projectedIterator(int...)}) and the
+     * vectors of all other columns are <code>null</code>.
+     *
+     * @param batchSize The maximum number of rows per batch, e.g. {@link RowBatch#DEFAULT_CAPACITY}.
+     * @param columnIndices The indices of the columns to read; all columns are read if none are given.
+     * @return A new iterator, which should be closed if not iterated to the end.
+     * @throws IndexOutOfBoundsException If any index is not a valid column index in this table's spec.
+     * @throws IllegalArgumentException If the batch size is not positive.
+     * @since 3.6
+     */
+    public RowBatchIterator batchIterator(final int batchSize, final int... columnIndices) {
+        final DataTableSpec spec = getDataTableSpec();
+        if (columnIndices.length == 0) {
+            return new RowBatchIterator(iterator(), spec, batchSize);
+        }
+        final RowBatch batch = new RowBatch(spec, batchSize, columnIndices);
+        return new RowBatchIterator(projectedIterator(columnIndices), batch);
+    }
+
+    /**
+     * Get an iterator over the rows in the range [fromIndex, toIndex). Tables stored on disk start reading at the
+     * last checkpoint before <code>fromIndex</code>, which makes this iterator much faster than skipping rows of
+     * {@link #iterator()} if only rows at the end of a large table are read.
+     *
+     * @param fromIndex Index of the first row to return.
+     * @param toIndex Index after the last row to return; values larger than {@link #size()} are truncated.
+     * @return A new iterator.
+     * @throws IndexOutOfBoundsException If <code>fromIndex</code> is negative or larger than <code>toIndex</code>.
+     * @since 3.6
+     */
+    public CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Invalid row range [" + fromIndex + ", " + toIndex + ")");
+        }
+        return m_delegate.rangeIterator(fromIndex, Math.min(toIndex, size()));
+    }
+
+    /**
+     * Get statistics (minimum, maximum, number of missing values) about consecutive chunks of rows, which allow
+     * filters to skip chunks that can't contain matching rows (in combination with
+     * {@link #rangeIterator(long, long)}). The statistics are recorded when a table is written to disc, they are
+     * usually not available for tables that are kept in memory or that are composed of other tables.
+     *
+     * @return the statistics or <code>null</code> if not available.
+     * @since 3.6
+     */
+    public ZoneMap getZoneMap() {
+        return m_delegate.getZoneMap();
+    }
+
+    /**
+     * Splits this table into contiguous partitions of (almost) equal size. The partitions are views on this table,
+     * no data is copied, and each partition can be iterated independently, e.g. by a separate thread. Iterating a
+     * partition that starts in the middle of this table uses {@link #rangeIterator(long, long)}, so it does not need
+     * to read the rows of the previous partitions. Concatenating the partitions (in order) gives this table.
+     *
+     * @param count The desired number of partitions, must be positive.
+     * @return The partitions, at most <code>count</code> but not more than the number of rows (and at least one,
+     *         which is empty if this table is empty).
+     * @throws IllegalArgumentException If <code>count</code> is not positive.
+     * @since 3.6
+     */
+    public BufferedDataTable[] partition(final int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + count);
+        }
+        final long size = size();
+        final int partitionCount = (int)Math.max(1, Math.min(count, size));
+        final BufferedDataTable[] result = new BufferedDataTable[partitionCount];
+        long fromIndex = 0;
+        for (int i = 0; i < partitionCount; i++) {
+            // the first (size % partitionCount) partitions get one more row
+            final long toIndex = fromIndex + size / partitionCount + (i < size % partitionCount ? 1 : 0);
+            result[i] = new BufferedDataTable(new PartitionTable(this, fromIndex, toIndex));
+            fromIndex = toIndex;
+        }
+        assert fromIndex == size;
+        return result;
+    }
+
     /**
      * Get an iterator instance that will return missing values when the table
      * is cleared as part of a node reset.
@@ -356,14 +475,29 @@ public CloseableRowIterator iterator() {
      *          method is called or while the iteration is in progress).
      */
     public CloseableRowIterator iteratorFailProve() {
+        return iteratorFailProve(0L);
+    }
+
+    /**
+     * Get an iterator instance that starts at the given row and will return missing values when the table is cleared
+     * as part of a node reset. See {@link #iteratorFailProve()} and {@link #rangeIterator(long, long)} for details.
+     *
+     * @param fromIndex Index of the first row to return.
+     * @return A new iterator instance that will return missing values and fake row ids in case the table is cleared.
+     * @throws IndexOutOfBoundsException If <code>fromIndex</code> is negative.
+     * @since 3.6
+     */
+    public CloseableRowIterator iteratorFailProve(final long fromIndex) {
         synchronized (m_isCleared) {
             CloseableRowIterator baseIterator;
             if (m_isCleared.booleanValue()) {
                 baseIterator = null;
-            } else {
+            } else if (fromIndex == 0L) {
                 baseIterator = iterator();
+            } else {
+                baseIterator = rangeIterator(fromIndex, Long.MAX_VALUE);
             }
-            return new CloseableFailProveRowIterator(baseIterator);
+            return new CloseableFailProveRowIterator(baseIterator, fromIndex);
         }
 
     }
@@ -407,10 +541,11 @@ public Integer getBufferedTableId() {
         private final CloseableRowIterator m_it;
         private long m_rowIndex;
 
-        private CloseableFailProveRowIterator(final CloseableRowIterator it) {
+        private CloseableFailProveRowIterator(final CloseableRowIterator it, final long fromIndex) {
             m_it = it;
             m_cellCount = getDataTableSpec().getNumColumns();
             m_maxRows = size();
+            m_rowIndex = fromIndex;
         }
 
         @Override
@@ -464,6 +599,9 @@ public void close() {
     private static final String TABLE_TYPE_CONCATENATE = "concatenate_table";
     private static final String TABLE_TYPE_JOINED = "joined_table";
     private static final String TABLE_TYPE_VOID = "void_table";
+    /** A range of rows of another table, added in 3.6.
+     * @see #partition(int) */
+    private static final String TABLE_TYPE_PARTITION = "partition_table";
     /** The table is referenced multiple times in a node, e.g. provided at
      * different outputs (possibly wrapped) or it is used as output-port table
      * and as internally held table. See bug 2117.
@@ -518,6 +656,8 @@ void save(final File dir, final Set<Integer> savedTableIDs, final ExecutionMonit
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_VOID);
             } else if (m_delegate instanceof ConcatenateTable) {
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_CONCATENATE);
+            } else if (m_delegate instanceof PartitionTable) {
+                s.addString(CFG_TABLE_TYPE, TABLE_TYPE_PARTITION);
             } else {
                 assert m_delegate instanceof ExtensionTable;
                 s.addString(CFG_TABLE_TYPE, TABLE_TYPE_EXTENSION);
@@ -700,6 +840,7 @@ static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
             case TABLE_TYPE_JOINED:
             case TABLE_TYPE_VOID:
             case TABLE_TYPE_CONCATENATE:
+            case TABLE_TYPE_PARTITION:
             case TABLE_TYPE_WRAPPED:
             case TABLE_TYPE_NEW_SPEC:
             case TABLE_TYPE_EXTENSION:
@@ -729,6 +870,9 @@ static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
                 } else if (tableType.equals(TABLE_TYPE_CONCATENATE)) {
                     ConcatenateTable ct = ConcatenateTable.load(s, spec, tblRep);
                     t = new BufferedDataTable(ct);
+                } else if (tableType.equals(TABLE_TYPE_PARTITION)) {
+                    PartitionTable pt = PartitionTable.load(s, tblRep);
+                    t = new BufferedDataTable(pt);
                 } else if (tableType.equals(TABLE_TYPE_WRAPPED)) {
                     WrappedTable wt = WrappedTable.load(s, tblRep);
                     t = new BufferedDataTable(wt);
@@ -894,6 +1038,63 @@ void saveToFile(final File f, final NodeSettingsWO settings,
         @Override
         public CloseableRowIterator iterator();
 
+        /** Implementation of {@link BufferedDataTable#projectedIterator(int...)}. The argument indices are valid and
+         * sorted. This default implementation returns the full {@link #iterator()}.
+         * @param columnIndices The indices of the columns the caller is going to read.
+         * @return A new iterator.
+         * @since 3.6
+         */
+        default CloseableRowIterator projectedIterator(final int[] columnIndices) {
+            return iterator();
+        }
+
+        /** Implementation of {@link BufferedDataTable#rangeIterator(long, long)}. The arguments are valid, i.e.
+         * <code>0 &lt;= fromIndex &lt;= toIndex &lt;= size()</code>. This default implementation skips the leading
+         * rows of the full {@link #iterator()}.
+         * @param fromIndex Index of the first row to return.
+         * @param toIndex Index after the last row to return.
+         * @return A new iterator.
+         * @since 3.6
+         */
+        default CloseableRowIterator rangeIterator(final long fromIndex, final long toIndex) {
+            final CloseableRowIterator it = iterator();
+            for (long i = 0; i < fromIndex && it.hasNext(); i++) {
+                it.next();
+            }
+            return new CloseableRowIterator() {
+                private long m_remaining = toIndex - fromIndex;
+
+                @Override
+                public boolean hasNext() {
+                    return m_remaining > 0 && it.hasNext();
+                }
+
+                @Override
+                public DataRow next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("Iterator at end");
+                    }
+                    m_remaining--;
+                    return it.next();
+                }
+
+                @Override
+                public void close() {
+                    m_remaining = 0;
+                    it.close();
+                }
+            };
+        }
+
+        /** Implementation of {@link BufferedDataTable#getZoneMap()}. This default implementation returns
+         * <code>null</code>.
+         * @return The statistics of the table's chunks or <code>null</code>.
+         * @since 3.6
+         */
+        default ZoneMap getZoneMap() {
+            return null;
+        }
+
         /** Reference to the underlying tables, if any. A reference
          * table exists if this object is just a wrapper, such as a
          * RearrangeColumnsTable or if this table concatenates a set of
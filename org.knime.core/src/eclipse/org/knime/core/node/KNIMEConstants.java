@@ -129,10 +129,29 @@ public final class KNIMEConstants {
      * The default value is {@value
      * org.knime.core.data.container.DataContainer#DEF_ASYNC_CACHE_SIZE}. This
      * property has no effect if tables are written synchronously
-     * (see {@link #PROPERTY_SYNCHRONOUS_IO}). */
+     * (see {@link #PROPERTY_SYNCHRONOUS_IO}).
+     * @deprecated rows are handed over in batches sized in bytes, see
+     * {@link #PROPERTY_ASYNC_WRITE_BATCH_SIZE}; this property is ignored. */
+    @Deprecated
     public static final String PROPERTY_ASYNC_WRITE_CACHE_SIZE =
         "knime.async.io.cachesize";
 
+    /** Java property to customize the batch size for asynchronous
+     * table writing. It specifies the approximate size in bytes of a
+     * temporary buffer for data rows that is used during table creating.
+     * Once this buffer is full (or there are no more rows to write), it is
+     * handed over to the writing routines, which run in a thread pool of
+     * fixed size shared by all tables. The larger the buffer, the smaller the
+     * synchronization overhead but the larger the memory requirements.
+     * <p>
+     * The default value is {@value
+     * org.knime.core.data.container.DataContainer#DEF_ASYNC_BATCH_SIZE}. This
+     * property has no effect if tables are written synchronously
+     * (see {@link #PROPERTY_SYNCHRONOUS_IO}).
+     * @since 3.6 */
+    public static final String PROPERTY_ASYNC_WRITE_BATCH_SIZE =
+        "knime.async.io.batchsize";
+
     /** The number of nominal values kept in the domain when adding rows to a table. This is only the default and
      * may be overruled by individual node implementations. If not specified the default is {@value
      * org.knime.core.data.container.DataContainer#DEF_MAX_POSSIBLE_VALUES}.
@@ -148,6 +167,48 @@ public final class KNIMEConstants {
      */
     public static final String PROPERTY_CELLS_IN_MEMORY = "org.knime.container.cellsinmemory";
 
+    /** Java property to keep tables that are held in main memory (see {@link #PROPERTY_CELLS_IN_MEMORY}) in
+     * serialized form in off-heap memory rather than as objects on the Java heap. Rows are then de-serialized on
+     * access, which costs some CPU time but reduces heap usage and garbage collection pauses in workflows with many
+     * resident tables. Off-heap memory is limited by the JVM option <code>-XX:MaxDirectMemorySize</code>; tables
+     * that don't fit are kept on the heap. The default is <code>false</code>.
+     * @since 3.6
+     */
+    public static final String PROPERTY_TABLE_OFF_HEAP = "knime.table.offheap";
+
+    /** Java property to set the fraction of the maximum heap memory (a number in (0, 1]) that tables and sorters
+     * may use to buffer rows in memory, see {@link org.knime.core.data.util.memory.MemoryBudget}. Buffers of small
+     * tables whose requests for memory are denied write their rows to disc (tables kept in memory by the memory
+     * policy are not affected). The default is
+     * {@value org.knime.core.data.util.memory.MemoryBudget#DEFAULT_BUDGET_FRACTION}.
+     * @since 3.6
+     */
+    public static final String PROPERTY_MEMORY_BUDGET = "knime.memory.budget";
+
+    /** Java property to limit the number of nodes of a certain type that are executed concurrently. The value is a
+     * comma separated list of <code>&lt;prefix&gt;=&lt;limit&gt;</code> entries, whereby the prefix is matched
+     * against the class name of the node factory (for instance
+     * <code>org.knime.base.node.io=2,org.knime.base.node.mine.svm.learner.SVMLearnerNodeFactory2=1</code> limits all
+     * I/O nodes of the base plug-in to two concurrent executions and the SVM learner to one). If several prefixes
+     * match, the longest one applies. By default there are no limits other than the size of the thread pool.
+     * @since 3.6
+     */
+    public static final String PROPERTY_NODE_CONCURRENCY_LIMITS = "knime.node.concurrency.limits";
+
+    /** Java property to enable lazy loading of node internals. If set to "true" the internals of executed nodes
+     * (as written by {@link NodeModel#saveInternals(java.io.File, ExecutionMonitor)}) are not read when a workflow
+     * is loaded but only when the node model is first accessed, e.g. when a view is opened. Note that models which
+     * restore hilite mappings in their internals will not propagate hilite events until then.
+     * @since 3.6
+     */
+    public static final String PROPERTY_LAZY_LOAD_INTERNALS = "knime.node.internals.lazyload";
+
+    /** Java property to specify the number of threads used to save the (changed) nodes of a workflow concurrently.
+     * Default is the number of available processors but at most 4; a value of 1 saves nodes one after another.
+     * @since 3.6
+     */
+    public static final String PROPERTY_WORKFLOW_SAVE_THREADS = "knime.workflow.save.threads";
+
     /** Java property name to specify the minimum free disc space in MB that needs to be available. If less is
      * available, no further table files &amp; blobs will be created (resulting in an exception). Default is
      * {@value org.knime.core.data.container.DataContainer#DEF_MIN_FREE_DISC_SPACE_IN_TEMP_IN_MB} MB.
@@ -165,6 +226,24 @@ public final class KNIMEConstants {
     public static final String PROPERTY_TABLE_GZIP_COMPRESSION =
         "knime.compress.io";
 
+    /** Java property to choose the codec used to compress table streams, one of "gzip", "lz4" or "none"
+     * (case-insensitive). "lz4" writes much faster than "gzip" at the cost of larger files, which is usually
+     * preferable on fast local disks. If not set, the codec is determined by
+     * {@link #PROPERTY_TABLE_GZIP_COMPRESSION}. The codec is stored with each table so that tables written
+     * with a different setting can still be read. Blob cells are not affected by this property.
+     * @since 3.6
+     */
+    public static final String PROPERTY_TABLE_COMPRESSION_CODEC = "knime.compress.io.codec";
+
+    /** Java property to enable dictionary encoding of string columns in tables written to disc ("true", disabled by
+     * default). If enabled, each distinct string of a column is written once per block of rows and referenced by a
+     * number afterwards; when reading, each distinct string is represented by a single cell instance. Tables written
+     * with dictionary encoding can not be read by versions prior 3.6 (which don't reject but misread them), hence
+     * only enable it if such versions don't need to read the workflows.
+     * @since 3.6
+     */
+    public static final String PROPERTY_TABLE_DICTIONARY_ENCODING = "knime.table.dictionary";
+
     /** Java property to enable/disable row ID duplicate checks on tables.
      * Tables in KNIME are supposed to have unique IDs, whereby the uniqueness
      * is asserted using a duplicate checker. This property will disable this
@@ -116,6 +116,7 @@
 import org.knime.core.node.workflow.FlowVariable;
 import org.knime.core.node.workflow.LoopEndNode;
 import org.knime.core.node.workflow.LoopStartNode;
+import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.node.workflow.NodeContainer.NodeContainerSettings.SplitType;
 import org.knime.core.node.workflow.NodeContext;
 import org.knime.core.node.workflow.NodeID;
@@ -238,6 +239,19 @@ static class Input {
     // cases then
     private final Object m_configureLock = new Object();
 
+    /** Directory of internals that were not read yet during load (lazy loading), null if there are none pending.
+     * Only modified while holding m_pendingInternalsLock. */
+    private volatile ReferencedFile m_pendingInternDirRef;
+
+    /** The node container that was in the node context when the pending internals were registered. */
+    private NodeContainer m_pendingInternalsContext;
+
+    /** Copy of {@link NodeContentPersistor#mustWarnOnDataLoadError()} of the persistor the pending internals
+     * belong to. */
+    private boolean m_pendingInternalsMustWarn;
+
+    private final Object m_pendingInternalsLock = new Object();
+
     /**
      * Creates a new node by retrieving the model, dialog, and views, from the
      * specified <code>NodeFactory</code>. Also initializes the input and output
@@ -311,7 +325,8 @@ public CopyNodePersistor createCopyPersistor() {
     public void load(final NodePersistor loader, final ExecutionMonitor exec,
             final LoadResult loadResult) throws CanceledExecutionException {
         m_fileStoreHandler = loader.getFileStoreHandler();
-        loadDataAndInternals(loader, exec, loadResult);
+        boolean lazyInternals = Boolean.getBoolean(KNIMEConstants.PROPERTY_LAZY_LOAD_INTERNALS);
+        loadDataAndInternals(loader, exec, loadResult, lazyInternals);
         exec.setProgress(1.0);
     }
 
@@ -431,9 +446,19 @@ private boolean checkPortObjectClass(
      */
     public void loadDataAndInternals(final NodeContentPersistor loader,
             final ExecutionMonitor exec, final LoadResult loadResult) {
+        loadDataAndInternals(loader, exec, loadResult, false);
+    }
+
+    /** Loads data from an argument persistor, optionally deferring the internals until the model is first accessed.
+     * @param lazyInternals If true and the model doesn't hold internal port objects the internals are only
+     *        remembered and read in {@link #ensureInternalsLoaded()}.
+     */
+    private void loadDataAndInternals(final NodeContentPersistor loader,
+            final ExecutionMonitor exec, final LoadResult loadResult, final boolean lazyInternals) {
         LOGGER.assertLog(NodeContext.getContext() != null,
             "No node context available, please check call hierarchy and fix it");
 
+        discardPendingInternals();
         boolean hasContent = loader.hasContent();
         m_model.setHasContent(hasContent);
         for (int i = 0; i < getNrOutPorts(); i++) {
@@ -472,27 +497,21 @@ public void loadDataAndInternals(final NodeContentPersistor loader,
         m_model.restoreWarningMessage(loader.getWarningMessage());
         ReferencedFile internDirRef = loader.getNodeInternDirectory();
         if (internDirRef != null) {
-            internDirRef.lock();
-            try {
+            boolean holdsPortObjects = m_model instanceof BufferedDataTableHolder || m_model instanceof PortObjectHolder;
+            if (lazyInternals && !holdsPortObjects) {
+                // internal held objects are set after the internals are read, don't change that order
+                NodeContext context = NodeContext.getContext();
+                synchronized (m_pendingInternalsLock) {
+                    m_pendingInternDirRef = internDirRef;
+                    m_pendingInternalsContext = context == null ? null : context.getNodeContainer();
+                    m_pendingInternalsMustWarn = loader.mustWarnOnDataLoadError();
+                }
+            } else {
                 exec.setMessage("Loading internals");
-                m_model.loadInternals(internDirRef.getFile(), exec);
-            } catch (Throwable e) {
-                String error;
-                if (e instanceof IOException) {
-                    error = "Loading model internals failed: " + e.getMessage();
-                    if (loader.mustWarnOnDataLoadError()) {
-                        LOGGER.debug(error, e);
-                    } else {
-                        LOGGER.debug(error);
-                    }
-                } else {
-                    error = "Caught \"" + e.getClass().getSimpleName() + "\", "
-                        + "Loading model internals failed: " + e.getMessage();
-                    LOGGER.coding(error, e);
+                String error = loadInternals(internDirRef, loader.mustWarnOnDataLoadError(), exec);
+                if (error != null) {
+                    loadResult.addError(error, true);
                 }
-                loadResult.addError(error, true);
-            } finally {
-                internDirRef.unlock();
             }
         }
         if (m_model instanceof BufferedDataTableHolder || m_model instanceof PortObjectHolder) {
@@ -519,6 +538,82 @@ public void loadDataAndInternals(final NodeContentPersistor loader,
 
     }
 
+    /** Reads the internals from the argument directory into the model.
+     * @return An error message or null if successful.
+     */
+    private String loadInternals(final ReferencedFile internDirRef, final boolean mustWarnOnError,
+        final ExecutionMonitor exec) {
+        internDirRef.lock();
+        try {
+            m_model.loadInternals(internDirRef.getFile(), exec);
+            return null;
+        } catch (Throwable e) {
+            String error;
+            if (e instanceof IOException) {
+                error = "Loading model internals failed: " + e.getMessage();
+                if (mustWarnOnError) {
+                    LOGGER.debug(error, e);
+                } else {
+                    LOGGER.debug(error);
+                }
+            } else {
+                error = "Caught \"" + e.getClass().getSimpleName() + "\", "
+                    + "Loading model internals failed: " + e.getMessage();
+                LOGGER.coding(error, e);
+            }
+            return error;
+        } finally {
+            internDirRef.unlock();
+        }
+    }
+
+    /** Reads internals that were deferred during load (see {@link KNIMEConstants#PROPERTY_LAZY_LOAD_INTERNALS}).
+     * Does nothing if there are none pending. Errors are reported as node warning as the load result is gone. */
+    private void ensureInternalsLoaded() {
+        final ReferencedFile internDirRef = m_pendingInternDirRef;
+        if (internDirRef == null) {
+            return;
+        }
+        // lock the directory before m_pendingInternalsLock: saving the workflow holds the directory's write lock
+        // while it reads lazy content, acquiring the two locks in the other order would deadlock with it
+        internDirRef.lock();
+        try {
+            synchronized (m_pendingInternalsLock) {
+                if (m_pendingInternDirRef != internDirRef) {
+                    // read or discarded concurrently
+                    return;
+                }
+                // clear first, models may call back into the node (e.g. getNodeModel) while loading
+                m_pendingInternDirRef = null;
+                NodeContainer context = m_pendingInternalsContext;
+                m_pendingInternalsContext = null;
+                if (context != null) {
+                    NodeContext.pushContext(context);
+                }
+                try {
+                    String error = loadInternals(internDirRef, m_pendingInternalsMustWarn, new ExecutionMonitor());
+                    if (error != null) {
+                        createWarningMessageAndNotify(error);
+                    }
+                } finally {
+                    if (context != null) {
+                        NodeContext.removeLastContext();
+                    }
+                }
+            }
+        } finally {
+            internDirRef.unlock();
+        }
+    }
+
+    /** Drops pending (not yet read) internals, called when the model is reset, disposed or loaded otherwise. */
+    private void discardPendingInternals() {
+        synchronized (m_pendingInternalsLock) {
+            m_pendingInternDirRef = null;
+            m_pendingInternalsContext = null;
+        }
+    }
+
     /** Loads execution result from remote execution (e.g. cluster execution). Implementation calls
      * {@link #loadDataAndInternals(NodeContentPersistor, ExecutionMonitor, LoadResult)} and also loads flow variables.
      * @param result To load from.
@@ -1170,6 +1265,7 @@ public PortObject[] invokeNodeModelExecute(final ExecutionContext exec, final Ex
     public PortObject[] invokeFullyNodeModelExecute(final ExecutionContext exec, final ExecutionEnvironment exEnv,
         final PortObject[] inData) throws Exception {
         // this may not have a NodeContext set (when run through 3rd party executor)
+        ensureInternalsLoaded();
         return m_model.executeModel(inData, exEnv, exec);
     }
 
@@ -1492,6 +1588,7 @@ public void reset() {
         LOGGER.debug("reset");
         clearLoopContext();
         setPauseLoopExecution(false);
+        discardPendingInternals();
         m_model.resetModel();
         clearNodeMessageAndNotify();
     }
@@ -1675,6 +1772,7 @@ public void cleanup() {
         LOGGER.assertLog(NodeContext.getContext() != null,
             "No node context available, please check call hierarchy and fix it");
 
+        discardPendingInternals();
         m_model.unregisterAllViews();
         try {
             m_model.onDispose();
@@ -1870,6 +1968,7 @@ public AbstractNodeView<?> getView(final int viewIndex, final String title) {
         LOGGER.assertLog(NodeContext.getContext() != null,
             "No node context available, please check call hierarchy and fix it");
 
+        ensureInternalsLoaded();
         try {
             return m_factory.createAbstractNodeView(viewIndex, m_model);
         } catch (Throwable e) {
@@ -1940,6 +2039,7 @@ public String getInteractiveViewName() {
             LOGGER.error(errorMsg);
             throw new RuntimeException(errorMsg);
         }
+        ensureInternalsLoaded();
         try {
             return (V)((InteractiveNodeFactoryExtension)m_factory).createInteractiveView(m_model);
         } catch (Throwable e) {
@@ -2206,7 +2306,8 @@ public void saveInternals(final File internDir, final ExecutionMonitor exec)
         LOGGER.assertLog(NodeContext.getContext() != null,
                 "No node context available, please check call hierarchy and fix it");
 
-
+        // usually done when the node got dirty (the intern dir may be gone already), see ensureOutputDataIsRead
+        ensureInternalsLoaded();
         if (internDir.exists()) {
             FileUtil.deleteRecursively(internDir);
         }
@@ -2252,6 +2353,7 @@ public void loadInternals(final File internDir, final ExecutionMonitor exec)
         LOGGER.assertLog(NodeContext.getContext() != null,
             "No node context available, please check call hierarchy and fix it");
 
+        discardPendingInternals();
         if (m_model.hasContent()) {
             try {
                 m_model.loadInternals(internDir, exec);
@@ -2340,6 +2442,7 @@ public NodeFactory<NodeModel> getFactory() {
 
     /** @return the underlying node model. */
     public NodeModel getNodeModel() {
+        ensureInternalsLoaded();
         return m_model;
     }
 
@@ -2350,8 +2453,8 @@ public boolean isInterruptible() {
         return (m_model instanceof InterruptibleNodeModel);
     }
 
-    /** Ensures that any port object is read for later saving with a
-     * newer version. */
+    /** Ensures that any port object (including internally held tables) and lazily loaded internals are read for
+     * later saving with a newer version or before the node directory gets replaced. */
     public void ensureOutputDataIsRead() {
         for (Output p : m_outputs) {
             if (p.object instanceof BufferedDataTable) {
@@ -2361,6 +2464,15 @@ public void ensureOutputDataIsRead() {
         for (ContainerTable t : m_localTempTables) {
             t.ensureOpen();
         }
+        if (m_internalHeldPortObjects != null) {
+            for (PortObject o : m_internalHeldPortObjects) {
+                if (o instanceof BufferedDataTable) {
+                    ((BufferedDataTable)o).ensureOpen();
+                }
+            }
+        }
+        // lazily loaded internals are read from the node directory, too
+        ensureInternalsLoaded();
     }
 
     /** Exposes {@link BufferedDataTable#ensureOpen()} as public method. This
@@ -2465,7 +2577,8 @@ public FlowObjectStack getOutgoingFlowObjectStack() {
      * @since 2.8
      */
     public boolean isModelCompatibleTo(final Class<?> nodeModelClass) {
-        return nodeModelClass.isAssignableFrom(this.getNodeModel().getClass());
+        // not via getNodeModel() - type checks must not trigger loading of lazy internals
+        return nodeModelClass.isAssignableFrom(m_model.getClass());
     }
 
     /** Possible roles of loop roles. */
@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeTimer;
+import org.knime.core.node.workflow.WorkflowEvent;
+import org.knime.core.node.workflow.WorkflowListener;
+import org.knime.core.node.workflow.WorkflowManager;
+
+/**
+ * Estimates the length of the critical path starting at a node, i.e. the expected execution time of the most
+ * expensive chain of nodes from the node down to the end of its workflow. It's used to prioritize nodes that are
+ * ready for execution: the longest chain determines the wall time of the workflow and hence should be started
+ * first.
+ *
+ * <p>The execution time of a node is estimated based on its previous executions or, if the node was not executed
+ * before, the average execution time of nodes of the same type recorded by the {@link NodeTimer#GLOBAL_TIMER}.
+ *
+ * <p>The lengths are computed for all nodes of a workflow at once and cached until nodes or connections are added
+ * to or removed from the workflow, or at most {@link #CACHE_EXPIRY_MS} so that execution times measured in the
+ * meantime are taken into account.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class CriticalPathEstimator {
+
+    /** Estimated duration of nodes that have never been executed, in ms. Non-zero so that the number of nodes on a
+     * path counts if nothing else is known. */
+    static final long DEFAULT_DURATION = 1;
+
+    /** Time in ms after which the cached lengths of a workflow are computed again. */
+    static final long CACHE_EXPIRY_MS = 10000;
+
+    /** The cached lengths per workflow, the caches are registered as listeners to their workflow. */
+    private static final Map<WorkflowManager, PathLengthCache> CACHES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private CriticalPathEstimator() {
+    }
+
+    /**
+     * Estimates the length of the critical path from the argument node (inclusive) to the end of its workflow.
+     * Nodes downstream of an outgoing workflow connection are not considered.
+     *
+     * @param nc the node to start from
+     * @return the estimated execution time of the most expensive downstream chain in ms
+     */
+    static long getCriticalPathLength(final NodeContainer nc) {
+        WorkflowManager wfm = nc.getParent();
+        if (wfm == null) {
+            return estimateDuration(nc);
+        }
+        PathLengthCache cache = CACHES.computeIfAbsent(wfm, w -> {
+            PathLengthCache c = new PathLengthCache();
+            w.addListener(c);
+            return c;
+        });
+        return cache.getLength(wfm, nc);
+    }
+
+    /**
+     * Computes the critical path lengths of all nodes of a workflow, visiting the nodes in reverse topological order
+     * (a node's length is computed once the lengths of all of its successors are known).
+     */
+    private static Map<NodeID, Long> computeLengths(final WorkflowManager wfm) {
+        Map<NodeID, NodeContainer> nodes = new HashMap<>();
+        Map<NodeID, List<NodeContainer>> successors = new HashMap<>();
+        Map<NodeID, List<NodeID>> predecessors = new HashMap<>();
+        // number of outgoing connections whose destination has no length yet
+        Map<NodeID, Integer> pending = new HashMap<>();
+        Deque<NodeContainer> ready = new ArrayDeque<>();
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            NodeID id = nc.getID();
+            List<NodeContainer> succ = getSuccessors(wfm, id);
+            nodes.put(id, nc);
+            successors.put(id, succ);
+            pending.put(id, succ.size());
+            for (NodeContainer s : succ) {
+                predecessors.computeIfAbsent(s.getID(), k -> new ArrayList<>()).add(id);
+            }
+            if (succ.isEmpty()) {
+                ready.add(nc);
+            }
+        }
+        Map<NodeID, Long> lengths = new HashMap<>();
+        while (!ready.isEmpty()) {
+            NodeContainer current = ready.poll();
+            long maxSuccessor = 0;
+            for (NodeContainer s : successors.get(current.getID())) {
+                maxSuccessor = Math.max(maxSuccessor, lengths.get(s.getID()));
+            }
+            lengths.put(current.getID(), estimateDuration(current) + maxSuccessor);
+            for (NodeID p : predecessors.getOrDefault(current.getID(), Collections.emptyList())) {
+                if (pending.merge(p, -1, Integer::sum) == 0) {
+                    ready.add(nodes.get(p));
+                }
+            }
+        }
+        return lengths;
+    }
+
+    private static List<NodeContainer> getSuccessors(final WorkflowManager wfm, final NodeID id) {
+        List<NodeContainer> result = new ArrayList<>();
+        for (ConnectionContainer cc : wfm.getOutgoingConnectionsFor(id)) {
+            NodeID dest = cc.getDest();
+            if (!dest.equals(wfm.getID())) {
+                result.add(wfm.getNodeContainer(dest));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param nc a node
+     * @return its estimated execution time in ms
+     */
+    static long estimateDuration(final NodeContainer nc) {
+        NodeTimer timer = nc.getNodeTimer();
+        if (timer != null && timer.getNrExecsSinceStart() > 0) {
+            return timer.getExecutionDurationSinceStart() / timer.getNrExecsSinceStart();
+        }
+        long average = NodeTimer.GLOBAL_TIMER.getAverageExecutionTime(nc);
+        return average >= 0 ? Math.max(average, DEFAULT_DURATION) : DEFAULT_DURATION;
+    }
+
+    /** The critical path lengths of the nodes of one workflow, dropped when the workflow's structure changes. */
+    private static final class PathLengthCache implements WorkflowListener {
+
+        /** The lengths or <code>null</code> if they need to be computed. */
+        private Map<NodeID, Long> m_lengths;
+
+        private long m_computedAt;
+
+        synchronized long getLength(final WorkflowManager wfm, final NodeContainer nc) {
+            // nodes missing in the map have been added after the lengths were computed (events are asynchronous)
+            if (m_lengths == null || !m_lengths.containsKey(nc.getID())
+                || System.currentTimeMillis() - m_computedAt > CACHE_EXPIRY_MS) {
+                m_lengths = computeLengths(wfm);
+                m_computedAt = System.currentTimeMillis();
+            }
+            Long length = m_lengths.get(nc.getID());
+            return length != null ? length : estimateDuration(nc);
+        }
+
+        @Override
+        public void workflowChanged(final WorkflowEvent event) {
+            switch (event.getType()) {
+                case CONNECTION_ADDED:
+                case CONNECTION_REMOVED:
+                case NODE_ADDED:
+                case NODE_REMOVED:
+                    synchronized (this) {
+                        m_lengths = null;
+                    }
+                    break;
+                default:
+            }
+        }
+    }
+
+}
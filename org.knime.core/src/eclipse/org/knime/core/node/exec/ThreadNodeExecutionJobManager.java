@@ -48,36 +48,127 @@
 package org.knime.core.node.exec;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
 import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.AbstractNodeExecutionJobManager;
+import org.knime.core.node.workflow.NativeNodeContainer;
 import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.node.workflow.NodeExecutionJob;
 import org.knime.core.node.workflow.SingleNodeContainer;
 import org.knime.core.util.ThreadPool;
 
 /**
+ * Executes nodes in a thread pool. If more nodes are ready for execution than threads are available, nodes with a
+ * longer downstream critical path (estimated from previous execution times) are started first. The number of
+ * concurrently executing nodes of a certain type can be limited, see
+ * {@link KNIMEConstants#PROPERTY_NODE_CONCURRENCY_LIMITS}.
  *
  * @author wiswedel, University of Konstanz
  */
 public class ThreadNodeExecutionJobManager extends AbstractNodeExecutionJobManager {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ThreadNodeExecutionJobManager.class);
+
     public static final ThreadNodeExecutionJobManager INSTANCE =
             new ThreadNodeExecutionJobManager();
 
     private final ThreadPool m_pool;
 
+    /** Concurrency limits by node factory class name prefix. */
+    private final Map<String, Integer> m_concurrencyLimits;
+
+    /** Lazily created sub pools of m_pool, one for each prefix in m_concurrencyLimits. */
+    private final Map<String, ThreadPool> m_limitedPools = new ConcurrentHashMap<>();
+
     public ThreadNodeExecutionJobManager() {
         this(KNIMEConstants.GLOBAL_THREAD_POOL);
     }
 
     public ThreadNodeExecutionJobManager(final ThreadPool pool) {
-        if (pool == null) {
+        this(pool, parseConcurrencyLimits(System.getProperty(KNIMEConstants.PROPERTY_NODE_CONCURRENCY_LIMITS)));
+    }
+
+    /**
+     * Creates a new job manager that limits the number of concurrently executing nodes of certain types.
+     *
+     * @param pool the pool in which nodes are executed
+     * @param concurrencyLimits maps prefixes of node factory class names (e.g. package names) to the maximum number
+     *            of such nodes executing at the same time; if several prefixes match, the longest one applies
+     * @since 3.6
+     */
+    public ThreadNodeExecutionJobManager(final ThreadPool pool, final Map<String, Integer> concurrencyLimits) {
+        if (pool == null || concurrencyLimits == null) {
             throw new NullPointerException("arg must not be null");
         }
         m_pool = pool;
+        m_concurrencyLimits = Collections.unmodifiableMap(new HashMap<>(concurrencyLimits));
+    }
+
+    /**
+     * Parses the value of {@link KNIMEConstants#PROPERTY_NODE_CONCURRENCY_LIMITS}. Invalid entries are ignored
+     * (with a warning).
+     *
+     * @param value the property value, may be <code>null</code>
+     * @return the limits by prefix, never <code>null</code>
+     */
+    static Map<String, Integer> parseConcurrencyLimits(final String value) {
+        Map<String, Integer> result = new HashMap<>();
+        if (value == null || value.trim().isEmpty()) {
+            return result;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            try {
+                if (parts.length != 2 || parts[0].trim().isEmpty()) {
+                    throw new NumberFormatException();
+                }
+                int limit = Integer.parseInt(parts[1].trim());
+                if (limit <= 0) {
+                    throw new NumberFormatException();
+                }
+                result.put(parts[0].trim(), limit);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Invalid entry \"" + entry.trim() + "\" in property \""
+                    + KNIMEConstants.PROPERTY_NODE_CONCURRENCY_LIMITS + "\", expected <prefix>=<positive number>");
+            }
+        }
+        return result;
+    }
+
+    /** @return the pool the node is executed in, i.e. the sub pool for its type if it's limited or m_pool */
+    private ThreadPool getPool(final NodeContainer nc) {
+        if (m_concurrencyLimits.isEmpty()) {
+            return m_pool;
+        }
+        String type = nc instanceof NativeNodeContainer
+            ? ((NativeNodeContainer)nc).getNode().getFactory().getClass().getName() : nc.getClass().getName();
+        String prefix = getLongestPrefix(type, m_concurrencyLimits);
+        if (prefix == null) {
+            return m_pool;
+        }
+        return m_limitedPools.computeIfAbsent(prefix, p -> m_pool.createSubPool(m_concurrencyLimits.get(p)));
+    }
+
+    /**
+     * @param name a class name
+     * @param limits the concurrency limits by prefix
+     * @return the longest prefix of the name in the argument map or <code>null</code> if there is none
+     */
+    static String getLongestPrefix(final String name, final Map<String, Integer> limits) {
+        String result = null;
+        for (String prefix : limits.keySet()) {
+            if (name.startsWith(prefix) && (result == null || prefix.length() > result.length())) {
+                result = prefix;
+            }
+        }
+        return result;
     }
 
     /** {@inheritDoc} */
@@ -88,7 +179,8 @@ public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] dat
                     + " is not able to execute a metanode: " + nc.getNameWithID());
         }
         LocalNodeExecutionJob job = new LocalNodeExecutionJob((SingleNodeContainer)nc, data);
-        Future<?> future = m_pool.enqueue(job);
+        // nodes on the longest downstream chain go first if they need to wait for a thread
+        Future<?> future = getPool(nc).enqueue(job, CriticalPathEstimator.getCriticalPathLength(nc));
         job.setFuture(future);
         return job;
     }
@@ -0,0 +1,190 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * Bounded in-memory queue that connects the output of one node with the (streamable) input of a downstream node.
+ * Rows are handed over in small batches to keep the synchronization cost per row low; the number of batches in
+ * flight is bounded so a fast producer is throttled to the speed of its consumer.
+ *
+ * <p>A queue has exactly one producer thread (calling {@link #push(DataRow)} and {@link #close()}) and one consumer
+ * thread (reading from {@link #getRowInput()}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RowQueue {
+
+    /** Marker batch that signals the end of the stream. */
+    private static final DataRow[] END_OF_STREAM = new DataRow[0];
+
+    private final DataTableSpec m_spec;
+
+    private final BlockingQueue<DataRow[]> m_batches;
+
+    private final int m_batchSize;
+
+    private final RowInput m_rowInput;
+
+    /** Set by the consumer when it doesn't need any more rows. */
+    private volatile boolean m_isConsumerClosed;
+
+    // producer side
+    private DataRow[] m_pending;
+
+    private int m_pendingCount;
+
+    /**
+     * @param spec the spec of the rows passing through this queue, not null
+     * @param batchSize number of rows handed over at once, &gt; 0
+     * @param capacity maximum number of batches in flight, &gt; 0 ({@link Integer#MAX_VALUE} for an unbounded queue)
+     */
+    RowQueue(final DataTableSpec spec, final int batchSize, final int capacity) {
+        if (batchSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Batch size and capacity must be positive: " + batchSize + ", "
+                + capacity);
+        }
+        m_spec = spec;
+        m_batchSize = batchSize;
+        m_batches = new LinkedBlockingQueue<>(capacity);
+        m_pending = new DataRow[batchSize];
+        m_rowInput = new QueueRowInput();
+    }
+
+    /**
+     * Adds a row to the queue, blocks if the consumer is lagging behind. Rows are silently dropped if the consumer
+     * has closed its input.
+     *
+     * @param row the row to add
+     * @throws InterruptedException if interrupted while waiting for the consumer
+     */
+    void push(final DataRow row) throws InterruptedException {
+        if (m_isConsumerClosed) {
+            return;
+        }
+        m_pending[m_pendingCount++] = row;
+        if (m_pendingCount == m_batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Flushes pending rows and signals the end of the stream to the consumer. Must only be called once.
+     *
+     * @throws InterruptedException if interrupted while waiting for the consumer
+     */
+    void close() throws InterruptedException {
+        if (m_pendingCount > 0) {
+            flush();
+        }
+        m_pending = null;
+        if (!m_isConsumerClosed) {
+            m_batches.put(END_OF_STREAM);
+        }
+    }
+
+    private void flush() throws InterruptedException {
+        DataRow[] batch = m_pending;
+        if (m_pendingCount < batch.length) {
+            DataRow[] shrunk = new DataRow[m_pendingCount];
+            System.arraycopy(batch, 0, shrunk, 0, m_pendingCount);
+            batch = shrunk;
+        } else {
+            m_pending = new DataRow[m_batchSize];
+        }
+        m_pendingCount = 0;
+        if (!m_isConsumerClosed) {
+            m_batches.put(batch);
+        }
+    }
+
+    /** @return the consumer view on this queue */
+    RowInput getRowInput() {
+        return m_rowInput;
+    }
+
+    /** The consumer side of the queue. */
+    private final class QueueRowInput extends RowInput {
+
+        private DataRow[] m_current = new DataRow[0];
+
+        private int m_currentIndex;
+
+        /** {@inheritDoc} */
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow poll() throws InterruptedException {
+            while (m_currentIndex == m_current.length) {
+                if (m_current == END_OF_STREAM || m_isConsumerClosed) {
+                    return null;
+                }
+                m_current = m_batches.take();
+                m_currentIndex = 0;
+            }
+            return m_current[m_currentIndex++];
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_isConsumerClosed = true;
+            // unblock a producer that waits for free capacity
+            m_batches.clear();
+        }
+    }
+
+}
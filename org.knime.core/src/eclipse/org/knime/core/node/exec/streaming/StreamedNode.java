@@ -0,0 +1,636 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObjectSpec;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableFunction;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.execresult.NativeNodeContainerExecutionResult;
+import org.knime.core.node.workflow.execresult.NodeExecutionResult;
+
+/**
+ * A node inside a component that is run by the {@link StreamingNodeExecutionJob}. It wires the node's
+ * {@link StreamableOperator} to the outputs of its upstream nodes and runs it, possibly in multiple partitions if
+ * the node declares a distributable input.
+ *
+ * <p>Port indices used in this class are {@link NodeModel} port indices, i.e. they don't include the flow variable
+ * port of the node container.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamedNode {
+
+    private final NativeNodeContainer m_nnc;
+
+    private final PortObjectSpec[] m_inSpecs;
+
+    private final RowQueue[] m_inQueues;
+
+    private final StreamedNode[] m_inProducers;
+
+    private final int[] m_inProducerPorts;
+
+    private final PortObject[] m_inObjects;
+
+    private final List<StreamedNode> m_predecessors = new ArrayList<>(2);
+
+    private final PortOutput[] m_outputs;
+
+    private final CountDownLatch m_finished = new CountDownLatch(1);
+
+    private ExecutionContext m_exec;
+
+    /**
+     * @param nnc the node to run
+     * @param inSpecs the specs at the node's inputs (without flow variable port)
+     * @param outSpecs the specs at the node's outputs as known after configuration (without flow variable port)
+     */
+    StreamedNode(final NativeNodeContainer nnc, final PortObjectSpec[] inSpecs, final PortObjectSpec[] outSpecs) {
+        m_nnc = nnc;
+        m_inSpecs = inSpecs;
+        m_inQueues = new RowQueue[inSpecs.length];
+        m_inProducers = new StreamedNode[inSpecs.length];
+        m_inProducerPorts = new int[inSpecs.length];
+        m_inObjects = new PortObject[inSpecs.length];
+        m_outputs = new PortOutput[outSpecs.length];
+        for (int i = 0; i < outSpecs.length; i++) {
+            if (BufferedDataTable.TYPE.equals(nnc.getOutPort(i + 1).getPortType())) {
+                if (!(outSpecs[i] instanceof DataTableSpec)) {
+                    throw new IllegalStateException("The output table spec of node " + nnc.getNameWithID()
+                        + " at port " + i + " is not known after configuration; it can't be streamed.");
+                }
+                m_outputs[i] = new StreamedRowOutput((DataTableSpec)outSpecs[i]);
+            } else {
+                m_outputs[i] = new PortObjectOutput();
+            }
+        }
+    }
+
+    /** @return the node container */
+    NativeNodeContainer getNodeContainer() {
+        return m_nnc;
+    }
+
+    /** @return the roles of the model's inputs */
+    InputPortRole[] getInputPortRoles() {
+        return m_nnc.getNodeModel().getInputPortRoles();
+    }
+
+    /**
+     * @param port an output port
+     * @return the output, either a {@link StreamedRowOutput} (data port) or a {@link PortObjectOutput}
+     */
+    PortOutput getOutput(final int port) {
+        return m_outputs[port];
+    }
+
+    /**
+     * Reads the input at the given port from a queue.
+     *
+     * @param port the input port
+     * @param queue the queue, filled by the upstream node
+     */
+    void connectStreamed(final int port, final RowQueue queue) {
+        m_inQueues[port] = queue;
+    }
+
+    /**
+     * Reads the input at the given port once the upstream node has finished.
+     *
+     * @param port the input port
+     * @param producer the upstream node, whose output needs to be collected
+     * @param producerPort the output port of the upstream node
+     */
+    void connectMaterialized(final int port, final StreamedNode producer, final int producerPort) {
+        m_inProducers[port] = producer;
+        m_inProducerPorts[port] = producerPort;
+        addPredecessor(producer);
+    }
+
+    /**
+     * Reads the input at the given port from an upstream node that was executed before.
+     *
+     * @param port the input port
+     * @param object its output
+     */
+    void connectExecuted(final int port, final PortObject object) {
+        m_inObjects[port] = object;
+    }
+
+    /**
+     * Delays the start of this node until the argument has finished (used for flow variable connections).
+     *
+     * @param predecessor the node to wait for
+     */
+    void addPredecessor(final StreamedNode predecessor) {
+        if (!m_predecessors.contains(predecessor)) {
+            m_predecessors.add(predecessor);
+        }
+    }
+
+    /**
+     * Runs the node. Called in a dedicated thread; blocks until all upstream nodes this node waits for are done.
+     *
+     * @param parallelism the maximum number of partitions used for distributable inputs
+     * @param workers executor for partition workers
+     * @param batchSize rows per batch, see {@link RowQueue}
+     * @param capacity batches in flight per partition, see {@link RowQueue}
+     * @throws Exception any exception thrown by the node, including cancelation
+     */
+    void run(final int parallelism, final ExecutorService workers, final int batchSize, final int capacity)
+            throws Exception {
+        NodeContext.pushContext(m_nnc);
+        try {
+            for (StreamedNode p : m_predecessors) {
+                p.m_finished.await();
+            }
+            m_exec = m_nnc.createExecutionContext();
+            m_nnc.getNode().openFileStoreHandler(m_exec);
+            for (PortOutput o : m_outputs) {
+                if (o instanceof StreamedRowOutput) {
+                    ((StreamedRowOutput)o).open(m_exec);
+                }
+            }
+            execute(parallelism, workers, batchSize, capacity);
+            for (PortOutput o : m_outputs) {
+                if (o instanceof StreamedRowOutput) {
+                    // some operators (e.g. those that only iterate their input) don't close their outputs
+                    ((StreamedRowOutput)o).close();
+                }
+            }
+            m_exec.setProgress(1.0);
+        } finally {
+            NodeContext.removeLastContext();
+        }
+        m_finished.countDown();
+    }
+
+    private void execute(final int parallelism, final ExecutorService workers, final int batchSize,
+        final int capacity) throws Exception {
+        NodeModel model = m_nnc.getNodeModel();
+        OutputPortRole[] outRoles = model.getOutputPortRoles();
+        StreamableOperatorInternals internals = model.createInitialStreamableOperatorInternals();
+        if (model.iterate(internals)) {
+            throw new IllegalStateException("Node " + m_nnc.getNameWithID() + " requires multiple passes over "
+                + "its input, which is not supported by the streaming executor.");
+        }
+        MergeOperator mergeOperator = model.createMergeOperator();
+        PortInput[] inputs = resolveInputs(model.getInputPortRoles());
+
+        int distributedPort = getDistributedPort(model.getInputPortRoles(), inputs);
+        if (parallelism > 1 && distributedPort >= 0) {
+            StreamableOperator first = model.createStreamableOperator(new PartitionInfo(0, parallelism), m_inSpecs);
+            if (isPlainStreamableFunction(first) && inputs.length == 1 && m_outputs.length == 1
+                && outRoles[0].isDistributable() && m_outputs[0] instanceof RowOutput) {
+                runFunctionPartitioned((StreamableFunction)first, internals, mergeOperator, parallelism,
+                    (RowInput)inputs[0], workers, outRoles);
+                return;
+            }
+            if (mergeOperator != null && !hasDistributedOutput(outRoles)) {
+                runOperatorPartitioned(first, internals, mergeOperator, parallelism, inputs, distributedPort,
+                    workers, batchSize, capacity, outRoles);
+                return;
+            }
+        }
+        StreamableOperator op = model.createStreamableOperator(new PartitionInfo(0, 1), m_inSpecs);
+        if (internals != null) {
+            op.loadInternals(internals);
+        }
+        try {
+            op.runFinal(inputs, mergeOperator == null ? m_outputs : filterOutputs(outRoles, true), m_exec);
+        } finally {
+            // don't block upstream nodes if the operator fails or stops reading early
+            closeRowInputs(inputs);
+        }
+        if (mergeOperator != null) {
+            StreamableOperatorInternals merged =
+                mergeOperator.mergeFinal(new StreamableOperatorInternals[]{op.saveInternals()});
+            model.finishStreamableExecution(merged, m_exec, filterOutputs(outRoles, false));
+        }
+    }
+
+    /** Calls {@link StreamableFunction#compute(DataRow)} on chunks of rows in parallel, keeping the row order. */
+    private void runFunctionPartitioned(final StreamableFunction first, final StreamableOperatorInternals internals,
+        final MergeOperator mergeOperator, final int parallelism, final RowInput input, final ExecutorService workers,
+        final OutputPortRole[] outRoles) throws Exception {
+        NodeModel model = m_nnc.getNodeModel();
+        StreamableFunction[] functions = new StreamableFunction[parallelism];
+        functions[0] = first;
+        for (int p = 1; p < parallelism; p++) {
+            functions[p] =
+                (StreamableFunction)model.createStreamableOperator(new PartitionInfo(p, parallelism), m_inSpecs);
+        }
+        RowOutput output = (RowOutput)m_outputs[0];
+        Deque<Future<DataRow[]>> pending = new ArrayDeque<>(2 * parallelism);
+        int initialized = 0;
+        try {
+            for (StreamableFunction f : functions) {
+                if (internals != null) {
+                    f.loadInternals(internals);
+                }
+                f.init(m_exec);
+                initialized++;
+            }
+            int chunkSize = StreamingNodeExecutionJobManager.PARTITION_CHUNK_SIZE;
+            DataRow[] chunk = new DataRow[chunkSize];
+            int chunkFill = 0;
+            long chunkCount = 0;
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                chunk[chunkFill++] = row;
+                if (chunkFill == chunkSize) {
+                    pending.add(workers.submit(
+                        new ComputeChunk(functions[(int)(chunkCount++ % parallelism)], chunk, chunkFill)));
+                    chunk = new DataRow[chunkSize];
+                    chunkFill = 0;
+                    if (pending.size() >= 2 * parallelism) {
+                        pushAll(output, getResult(pending.poll()));
+                    }
+                }
+            }
+            if (chunkFill > 0) {
+                pending.add(workers.submit(
+                    new ComputeChunk(functions[(int)(chunkCount % parallelism)], chunk, chunkFill)));
+            }
+            while (!pending.isEmpty()) {
+                pushAll(output, getResult(pending.poll()));
+            }
+            output.close();
+        } finally {
+            input.close();
+            for (Future<DataRow[]> f : pending) {
+                f.cancel(true);
+            }
+            for (int p = 0; p < initialized; p++) {
+                functions[p].finish();
+            }
+        }
+        if (mergeOperator != null) {
+            StreamableOperatorInternals[] all = new StreamableOperatorInternals[parallelism];
+            for (int p = 0; p < parallelism; p++) {
+                all[p] = functions[p].saveInternals();
+            }
+            model.finishStreamableExecution(mergeOperator.mergeFinal(all), m_exec, filterOutputs(outRoles, false));
+        }
+    }
+
+    private void pushAll(final RowOutput output, final DataRow[] rows) throws InterruptedException,
+        CanceledExecutionException {
+        for (DataRow r : rows) {
+            output.push(r);
+        }
+        m_exec.checkCanceled();
+    }
+
+    /** Runs one operator per partition, distributing chunks of rows of the distributed input round-robin. The
+     * (non-distributed) output is created from the merged internals. */
+    private void runOperatorPartitioned(final StreamableOperator first, final StreamableOperatorInternals internals,
+        final MergeOperator mergeOperator, final int parallelism, final PortInput[] inputs, final int distributedPort,
+        final ExecutorService workers, final int batchSize, final int capacity, final OutputPortRole[] outRoles)
+        throws Exception {
+        NodeModel model = m_nnc.getNodeModel();
+        RowInput input = (RowInput)inputs[distributedPort];
+        StreamableOperator[] operators = new StreamableOperator[parallelism];
+        RowQueue[] partitions = new RowQueue[parallelism];
+        List<Future<Void>> futures = new ArrayList<>(parallelism);
+        try {
+            for (int p = 0; p < parallelism; p++) {
+                operators[p] = p == 0 ? first
+                    : model.createStreamableOperator(new PartitionInfo(p, parallelism), m_inSpecs);
+                if (internals != null) {
+                    operators[p].loadInternals(internals);
+                }
+                partitions[p] = new RowQueue(input.getDataTableSpec(), batchSize, capacity);
+                PortInput[] partitionInputs = inputs.clone();
+                partitionInputs[distributedPort] = partitions[p].getRowInput();
+                futures.add(workers.submit(new RunPartition(operators[p], partitionInputs)));
+            }
+            int chunkSize = StreamingNodeExecutionJobManager.PARTITION_CHUNK_SIZE;
+            long rowCount = 0;
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                partitions[(int)((rowCount++ / chunkSize) % parallelism)].push(row);
+            }
+            for (RowQueue q : partitions) {
+                q.close();
+            }
+            for (Future<Void> f : futures) {
+                getResult(f);
+            }
+        } finally {
+            input.close();
+            for (Future<Void> f : futures) {
+                f.cancel(true);
+            }
+        }
+        StreamableOperatorInternals[] all = new StreamableOperatorInternals[parallelism];
+        for (int p = 0; p < parallelism; p++) {
+            all[p] = operators[p].saveInternals();
+        }
+        model.finishStreamableExecution(mergeOperator.mergeFinal(all), m_exec, filterOutputs(outRoles, false));
+    }
+
+    private PortInput[] resolveInputs(final InputPortRole[] roles) throws InterruptedException {
+        PortInput[] inputs = new PortInput[m_inSpecs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            PortObject object;
+            if (m_inQueues[i] != null) {
+                inputs[i] = m_inQueues[i].getRowInput();
+                continue;
+            } else if (m_inProducers[i] != null) {
+                object = m_inProducers[i].awaitOutput(m_inProducerPorts[i]);
+            } else {
+                object = m_inObjects[i];
+            }
+            if (object == null) {
+                // unconnected optional input
+                inputs[i] = null;
+            } else if (roles[i].isStreamable() && object instanceof BufferedDataTable) {
+                inputs[i] = new DataTableRowInput((BufferedDataTable)object);
+            } else {
+                inputs[i] = new PortObjectInput(object);
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Waits for this node to finish and returns the content of the given output port. For data outputs, the output
+     * must have been set to {@linkplain StreamedRowOutput#setCollecting() collect} its rows.
+     *
+     * @param port the output port
+     * @return the output object
+     * @throws InterruptedException if interrupted while waiting
+     */
+    PortObject awaitOutput(final int port) throws InterruptedException {
+        m_finished.await();
+        PortOutput output = m_outputs[port];
+        if (output instanceof StreamedRowOutput) {
+            return ((StreamedRowOutput)output).getTable();
+        }
+        return ((PortObjectOutput)output).getPortObject();
+    }
+
+    /**
+     * Creates the execution result that is later loaded into the node. Outputs whose rows have only been streamed are
+     * represented by void tables.
+     *
+     * @param exec for progress (saving internals)
+     * @return a new execution result
+     * @throws CanceledExecutionException if canceled
+     */
+    NativeNodeContainerExecutionResult createExecutionResult(final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        NodeContext.pushContext(m_nnc);
+        try {
+            NodeExecutionResult nodeResult = m_nnc.getNode().createNodeExecutionResult(exec);
+            PortObject[] objects = new PortObject[m_outputs.length + 1];
+            PortObjectSpec[] specs = new PortObjectSpec[m_outputs.length + 1];
+            objects[0] = FlowVariablePortObject.INSTANCE;
+            specs[0] = FlowVariablePortObjectSpec.INSTANCE;
+            for (int i = 0; i < m_outputs.length; i++) {
+                PortObject object;
+                if (m_outputs[i] instanceof StreamedRowOutput) {
+                    StreamedRowOutput rowOutput = (StreamedRowOutput)m_outputs[i];
+                    object = rowOutput.getTable();
+                    if (object == null) {
+                        object = m_exec.createVoidTable(rowOutput.getSpec());
+                    }
+                } else {
+                    object = ((PortObjectOutput)m_outputs[i]).getPortObject();
+                }
+                objects[i + 1] = object;
+                specs[i + 1] = object == null ? null : object.getSpec();
+            }
+            nodeResult.setPortObjects(objects);
+            nodeResult.setPortObjectSpecs(specs);
+            NativeNodeContainerExecutionResult result = new NativeNodeContainerExecutionResult();
+            result.setNodeExecutionResult(nodeResult);
+            result.setSuccess(true);
+            return result;
+        } finally {
+            NodeContext.removeLastContext();
+        }
+    }
+
+    /** Cancels the node's execution context (the executing thread is interrupted separately). */
+    void cancel() {
+        m_nnc.getProgressMonitor().setExecuteCanceled();
+    }
+
+    private PortOutput[] filterOutputs(final OutputPortRole[] roles, final boolean distributed) {
+        PortOutput[] result = new PortOutput[m_outputs.length];
+        for (int i = 0; i < result.length; i++) {
+            if (roles[i].isDistributable() == distributed) {
+                result[i] = m_outputs[i];
+            }
+        }
+        return result;
+    }
+
+    /** @return the index of the only distributed streamed input or -1 */
+    private static int getDistributedPort(final InputPortRole[] roles, final PortInput[] inputs) {
+        int result = -1;
+        for (int i = 0; i < roles.length; i++) {
+            if (inputs[i] instanceof RowInput) {
+                if (!roles[i].isDistributable()) {
+                    // a non-distributed stream can't be shared by several partitions
+                    return -1;
+                }
+                if (result >= 0) {
+                    return -1;
+                }
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private static void closeRowInputs(final PortInput[] inputs) {
+        for (PortInput in : inputs) {
+            if (in instanceof RowInput) {
+                ((RowInput)in).close();
+            }
+        }
+    }
+
+    private static boolean hasDistributedOutput(final OutputPortRole[] roles) {
+        for (OutputPortRole r : roles) {
+            if (r.isDistributable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether the operator is a {@link StreamableFunction} that processes rows one by one, i.e. doesn't overwrite
+     * {@link StreamableFunction#runFinal(PortInput[], PortOutput[], ExecutionContext)}. */
+    private static boolean isPlainStreamableFunction(final StreamableOperator op) {
+        if (!(op instanceof StreamableFunction)) {
+            return false;
+        }
+        try {
+            return op.getClass().getMethod("runFinal", PortInput[].class, PortOutput[].class,
+                ExecutionContext.class).getDeclaringClass().equals(StreamableFunction.class);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static <T> T getResult(final Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return m_nnc.getNameWithID();
+    }
+
+    /** Computes the rows of one chunk. Functions are not thread-safe, hence each is only used by one task at a
+     * time. */
+    private final class ComputeChunk implements Callable<DataRow[]> {
+
+        private final StreamableFunction m_function;
+
+        private final DataRow[] m_rows;
+
+        private final int m_count;
+
+        ComputeChunk(final StreamableFunction function, final DataRow[] rows, final int count) {
+            m_function = function;
+            m_rows = rows;
+            m_count = count;
+        }
+
+        @Override
+        public DataRow[] call() throws Exception {
+            DataRow[] result = new DataRow[m_count];
+            NodeContext.pushContext(m_nnc);
+            try {
+                synchronized (m_function) {
+                    for (int i = 0; i < m_count; i++) {
+                        result[i] = m_function.compute(m_rows[i]);
+                    }
+                }
+            } finally {
+                NodeContext.removeLastContext();
+            }
+            return result;
+        }
+    }
+
+    /** Runs the operator of one partition. */
+    private final class RunPartition implements Callable<Void> {
+
+        private final StreamableOperator m_operator;
+
+        private final PortInput[] m_inputs;
+
+        RunPartition(final StreamableOperator operator, final PortInput[] inputs) {
+            m_operator = operator;
+            m_inputs = inputs;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            NodeContext.pushContext(m_nnc);
+            try {
+                m_operator.runFinal(m_inputs, new PortOutput[m_outputs.length], m_exec);
+            } finally {
+                // don't block the distributing thread if the operator fails or stops reading early
+                closeRowInputs(m_inputs);
+                NodeContext.removeLastContext();
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * Data output of a node run by the {@link StreamingNodeExecutionJob}. Rows pushed into this output are forwarded to
+ * the {@link RowQueue} of each streaming consumer. If at least one consumer needs the entire table (non-streamable
+ * input) the rows are also collected into a {@link BufferedDataTable}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamedRowOutput extends RowOutput {
+
+    private final DataTableSpec m_spec;
+
+    private final List<RowQueue> m_queues = new ArrayList<>(2);
+
+    private boolean m_isCollecting;
+
+    private BufferedDataContainer m_container;
+
+    private BufferedDataTable m_table;
+
+    private boolean m_isClosed;
+
+    private long m_rowCount;
+
+    /**
+     * @param spec the spec of the output as determined during configuration
+     */
+    StreamedRowOutput(final DataTableSpec spec) {
+        m_spec = spec;
+    }
+
+    /** @return the spec of the output (as known at configuration time) */
+    DataTableSpec getSpec() {
+        return m_spec;
+    }
+
+    /**
+     * Adds a new streaming consumer. Must be called before the producer starts.
+     *
+     * @param batchSize see {@link RowQueue}
+     * @param capacity see {@link RowQueue}
+     * @return the queue to read from
+     */
+    RowQueue addConsumer(final int batchSize, final int capacity) {
+        RowQueue queue = new RowQueue(m_spec, batchSize, capacity);
+        m_queues.add(queue);
+        return queue;
+    }
+
+    /** Requests the full table to be available after the producer has finished. Must be called before the producer
+     * starts. */
+    void setCollecting() {
+        m_isCollecting = true;
+    }
+
+    /** @return whether the table is kept, see {@link #setCollecting()} */
+    boolean isCollecting() {
+        return m_isCollecting;
+    }
+
+    /**
+     * Must be called by the producing thread before the node starts.
+     *
+     * @param exec the context of the producing node, used to create the collecting container
+     */
+    void open(final ExecutionContext exec) {
+        if (m_isCollecting) {
+            m_container = exec.createDataContainer(m_spec);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void push(final DataRow row) throws InterruptedException {
+        if (m_isClosed) {
+            throw new IllegalStateException("Output is closed");
+        }
+        for (RowQueue q : m_queues) {
+            q.push(row);
+        }
+        if (m_container != null) {
+            m_container.addRowToTable(row);
+        }
+        m_rowCount++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setFully(final BufferedDataTable table) throws InterruptedException {
+        if (m_rowCount > 0) {
+            throw new IllegalStateException("Rows have been added previously");
+        }
+        // no need to copy the table if the consumers need it in full
+        m_table = table;
+        if (m_container != null) {
+            m_container.close();
+            m_container = null;
+        }
+        for (DataRow r : table) {
+            for (RowQueue q : m_queues) {
+                q.push(r);
+            }
+        }
+        m_rowCount = table.size();
+        close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws InterruptedException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        if (m_container != null) {
+            m_container.close();
+            m_table = m_container.getTable();
+            m_container = null;
+        }
+        for (RowQueue q : m_queues) {
+            q.close();
+        }
+    }
+
+    /** @return whether {@link #close()} has been called */
+    boolean isClosed() {
+        return m_isClosed;
+    }
+
+    /** @return the number of rows passed through this output */
+    long getRowCount() {
+        return m_rowCount;
+    }
+
+    /**
+     * @return the collected table or the table set via {@link #setFully(BufferedDataTable)}; null if the output
+     *         wasn't collected or isn't closed yet
+     */
+    BufferedDataTable getTable() {
+        return m_isClosed ? m_table : null;
+    }
+
+}
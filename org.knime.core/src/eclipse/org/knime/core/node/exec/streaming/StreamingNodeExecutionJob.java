@@ -0,0 +1,425 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopStartNode;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeMessage;
+import org.knime.core.node.workflow.SubNodeContainer;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResult;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResultEntry.LoadResultEntryType;
+import org.knime.core.node.workflow.execresult.NodeContainerExecutionStatus;
+import org.knime.core.node.workflow.execresult.SubnodeContainerExecutionResult;
+import org.knime.core.node.workflow.execresult.WorkflowExecutionResult;
+
+/**
+ * Executes the content of a component in one go: all contained nodes run concurrently, each in its own thread, and
+ * data is passed between them in bounded in-memory row queues instead of being written to intermediate tables. Nodes
+ * with a distributable input are run in multiple partitions.
+ *
+ * <p>The result is loaded into the component and its contained nodes in the same way as the result of a remote
+ * execution. Outputs of contained nodes that were only streamed are represented by void tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamingNodeExecutionJob extends NodeExecutionJob {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(StreamingNodeExecutionJob.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final StreamingNodeExecutionJobManager m_manager;
+
+    private Future<?> m_future;
+
+    private volatile boolean m_isCanceled;
+
+    private volatile ExecutorService m_executor;
+
+    private volatile List<StreamedNode> m_nodes;
+
+    private SubnodeContainerExecutionResult m_result;
+
+    /**
+     * @param snc the component to execute
+     * @param data its input data
+     * @param manager the manager providing the streaming parameters
+     */
+    StreamingNodeExecutionJob(final SubNodeContainer snc, final PortObject[] data,
+        final StreamingNodeExecutionJobManager manager) {
+        super(snc, data);
+        m_manager = manager;
+    }
+
+    /**
+     * @param future the future representing the job in the thread pool
+     */
+    void setFuture(final Future<?> future) {
+        m_future = future;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isReConnecting() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected NodeContainerExecutionStatus mainExecute() {
+        SubNodeContainer snc = (SubNodeContainer)getNodeContainer();
+        WorkflowManager wfm = snc.getWorkflowManager();
+        List<StreamedNode> nodes;
+        try {
+            nodes = createStreamedNodes(wfm);
+        } catch (IllegalStateException e) {
+            return fail(snc, null, e);
+        }
+        m_nodes = nodes;
+        ExecutorService executor = Executors.newCachedThreadPool(new StreamingThreadFactory());
+        m_executor = executor;
+        try {
+            if (m_isCanceled) {
+                return NodeContainerExecutionStatus.FAILURE;
+            }
+            CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            Map<Future<Void>, StreamedNode> futures = new HashMap<>();
+            final int parallelism = m_manager.getParallelism();
+            for (StreamedNode n : nodes) {
+                futures.put(completion.submit(() -> {
+                    n.run(parallelism, executor, m_manager.getBatchSize(), m_manager.getQueueCapacity());
+                    return null;
+                }), n);
+            }
+            for (int i = 0; i < nodes.size(); i++) {
+                Future<Void> f;
+                try {
+                    f = completion.take();
+                } catch (InterruptedException e) {
+                    cancelNodes();
+                    return NodeContainerExecutionStatus.FAILURE;
+                }
+                try {
+                    f.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    // the first node to fail is the cause, the others are interrupted subsequently
+                    cancelNodes();
+                    return fail(snc, futures.get(f), e instanceof ExecutionException ? e.getCause() : e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (m_isCanceled) {
+            return NodeContainerExecutionStatus.FAILURE;
+        }
+        try {
+            m_result = createExecutionResult(snc, wfm, nodes);
+        } catch (CanceledExecutionException e) {
+            return NodeContainerExecutionStatus.FAILURE;
+        }
+        return m_result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void afterExecute() {
+        if (m_result != null && m_result.isSuccess()) {
+            SubNodeContainer snc = (SubNodeContainer)getNodeContainer();
+            LoadResult loadResult = new LoadResult("Streamed execution result of " + snc.getNameWithID());
+            snc.loadExecutionResult(m_result, new ExecutionMonitor(), loadResult);
+            if (loadResult.hasErrors()) {
+                LOGGER.warn(loadResult.getFilteredError("", LoadResultEntryType.Warning));
+            }
+        }
+        m_result = null;
+        m_nodes = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean cancel() {
+        m_isCanceled = true;
+        cancelNodes();
+        if (m_future != null) {
+            m_future.cancel(true);
+        }
+        return true;
+    }
+
+    private void cancelNodes() {
+        List<StreamedNode> nodes = m_nodes;
+        if (nodes != null) {
+            for (StreamedNode n : nodes) {
+                n.cancel();
+            }
+        }
+        ExecutorService executor = m_executor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static NodeContainerExecutionStatus fail(final SubNodeContainer snc, final StreamedNode node,
+        final Throwable cause) {
+        String message = (node == null ? "" : node.getNodeContainer().getNameWithID() + ": ")
+            + (cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage());
+        if (cause instanceof CanceledExecutionException || cause instanceof InterruptedException) {
+            LOGGER.debug("Streaming execution of " + snc.getNameWithID() + " canceled: " + message);
+        } else {
+            LOGGER.error("Streaming execution of " + snc.getNameWithID() + " failed: " + message, cause);
+            if (node != null) {
+                node.getNodeContainer().setNodeMessage(new NodeMessage(NodeMessage.Type.ERROR, message));
+            }
+            snc.setNodeMessage(new NodeMessage(NodeMessage.Type.ERROR, message));
+        }
+        return NodeContainerExecutionStatus.newFailure(message);
+    }
+
+    /**
+     * Creates the nodes to run (in topological order) and connects them.
+     *
+     * @throws IllegalStateException if the workflow contains nodes that can't be streamed
+     */
+    private List<StreamedNode> createStreamedNodes(final WorkflowManager wfm) {
+        // topological order of the nodes to execute
+        Map<NodeID, StreamedNode> streamedNodes = new LinkedHashMap<>();
+        Map<NodeID, Set<StreamedNode>> ancestors = new LinkedHashMap<>();
+        List<NodeContainer> toVisit = new ArrayList<>(wfm.getNodeContainers());
+        Set<NodeID> visited = new HashSet<>();
+        while (!toVisit.isEmpty()) {
+            boolean progress = false;
+            for (int i = 0; i < toVisit.size(); i++) {
+                NodeContainer nc = toVisit.get(i);
+                if (!allPredecessorsVisited(wfm, nc, visited)) {
+                    continue;
+                }
+                toVisit.remove(i--);
+                visited.add(nc.getID());
+                progress = true;
+                if (!nc.getNodeContainerState().isExecuted()) {
+                    streamedNodes.put(nc.getID(), createStreamedNode(wfm, nc));
+                }
+            }
+            if (!progress) {
+                throw new IllegalStateException("Workflow contains a cycle");
+            }
+        }
+        // all running upstream nodes per node, needed to avoid deadlocks
+        for (StreamedNode n : streamedNodes.values()) {
+            Set<StreamedNode> a = new HashSet<>();
+            for (ConnectionContainer cc : wfm.getIncomingConnectionsFor(n.getNodeContainer().getID())) {
+                StreamedNode producer = streamedNodes.get(cc.getSource());
+                if (producer != null) {
+                    a.add(producer);
+                    a.addAll(ancestors.get(cc.getSource()));
+                }
+            }
+            ancestors.put(n.getNodeContainer().getID(), a);
+        }
+        for (StreamedNode n : streamedNodes.values()) {
+            connect(wfm, n, streamedNodes, ancestors);
+        }
+        return new ArrayList<>(streamedNodes.values());
+    }
+
+    private static boolean allPredecessorsVisited(final WorkflowManager wfm, final NodeContainer nc,
+        final Set<NodeID> visited) {
+        for (ConnectionContainer cc : wfm.getIncomingConnectionsFor(nc.getID())) {
+            if (!cc.getSource().equals(wfm.getID()) && !visited.contains(cc.getSource())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static StreamedNode createStreamedNode(final WorkflowManager wfm, final NodeContainer nc) {
+        if (!(nc instanceof NativeNodeContainer)) {
+            throw new IllegalStateException("Streaming execution doesn't support nested metanodes or components: "
+                + nc.getNameWithID());
+        }
+        NativeNodeContainer nnc = (NativeNodeContainer)nc;
+        if (nnc.isModelCompatibleTo(LoopStartNode.class) || nnc.isModelCompatibleTo(LoopEndNode.class)) {
+            throw new IllegalStateException("Streaming execution doesn't support loops: " + nc.getNameWithID());
+        }
+        PortObjectSpec[] inSpecs = new PortObjectSpec[nnc.getNrInPorts() - 1];
+        for (ConnectionContainer cc : wfm.getIncomingConnectionsFor(nnc.getID())) {
+            if (cc.getDestPort() > 0) {
+                inSpecs[cc.getDestPort() - 1] =
+                    wfm.getNodeContainer(cc.getSource()).getOutPort(cc.getSourcePort()).getPortObjectSpec();
+            }
+        }
+        PortObjectSpec[] outSpecs = new PortObjectSpec[nnc.getNrOutPorts() - 1];
+        for (int i = 0; i < outSpecs.length; i++) {
+            outSpecs[i] = nnc.getOutPort(i + 1).getPortObjectSpec();
+        }
+        return new StreamedNode(nnc, inSpecs, outSpecs);
+    }
+
+    private void connect(final WorkflowManager wfm, final StreamedNode consumer,
+        final Map<NodeID, StreamedNode> streamedNodes, final Map<NodeID, Set<StreamedNode>> ancestors) {
+        Set<ConnectionContainer> incoming = wfm.getIncomingConnectionsFor(consumer.getNodeContainer().getID());
+        // a node that waits for one upstream branch while a parallel branch is streamed into it would block the
+        // common upstream node forever if the streamed queue was bounded
+        int capacity = hasJoiningBranches(incoming, streamedNodes, ancestors)
+            ? Integer.MAX_VALUE : m_manager.getQueueCapacity();
+        InputPortRole[] roles = consumer.getInputPortRoles();
+        for (ConnectionContainer cc : incoming) {
+            StreamedNode producer = streamedNodes.get(cc.getSource());
+            int destPort = cc.getDestPort() - 1;
+            int sourcePort = cc.getSourcePort() - 1;
+            if (producer == null) {
+                if (destPort >= 0) {
+                    consumer.connectExecuted(destPort,
+                        wfm.getNodeContainer(cc.getSource()).getOutPort(cc.getSourcePort()).getPortObject());
+                }
+            } else if (destPort < 0) {
+                consumer.addPredecessor(producer);
+            } else if (sourcePort < 0) {
+                consumer.connectExecuted(destPort, FlowVariablePortObject.INSTANCE);
+                consumer.addPredecessor(producer);
+            } else {
+                PortOutput output = producer.getOutput(sourcePort);
+                if (output instanceof StreamedRowOutput && roles[destPort].isStreamable()) {
+                    consumer.connectStreamed(destPort,
+                        ((StreamedRowOutput)output).addConsumer(m_manager.getBatchSize(), capacity));
+                } else {
+                    if (output instanceof StreamedRowOutput) {
+                        ((StreamedRowOutput)output).setCollecting();
+                    }
+                    consumer.connectMaterialized(destPort, producer, sourcePort);
+                }
+            }
+        }
+    }
+
+    private static boolean hasJoiningBranches(final Set<ConnectionContainer> incoming,
+        final Map<NodeID, StreamedNode> streamedNodes, final Map<NodeID, Set<StreamedNode>> ancestors) {
+        List<Set<StreamedNode>> branches = new ArrayList<>();
+        for (ConnectionContainer cc : incoming) {
+            StreamedNode producer = streamedNodes.get(cc.getSource());
+            if (producer == null) {
+                continue;
+            }
+            Set<StreamedNode> branch = new HashSet<>(ancestors.get(cc.getSource()));
+            branch.add(producer);
+            for (Set<StreamedNode> other : branches) {
+                for (StreamedNode n : branch) {
+                    if (other.contains(n)) {
+                        return true;
+                    }
+                }
+            }
+            branches.add(branch);
+        }
+        return false;
+    }
+
+    private static SubnodeContainerExecutionResult createExecutionResult(final SubNodeContainer snc,
+        final WorkflowManager wfm, final List<StreamedNode> nodes) throws CanceledExecutionException {
+        ExecutionMonitor exec = new ExecutionMonitor();
+        WorkflowExecutionResult wfmResult = new WorkflowExecutionResult(wfm.getID());
+        Set<NodeID> streamed = new HashSet<>();
+        for (StreamedNode n : nodes) {
+            NodeID id = n.getNodeContainer().getID();
+            wfmResult.addNodeExecutionResult(id, n.createExecutionResult(exec));
+            streamed.add(id);
+        }
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            if (!streamed.contains(nc.getID())) {
+                // executed before, loading its result will be a no-op
+                wfmResult.addNodeExecutionResult(nc.getID(), nc.createExecutionResult(exec));
+            }
+        }
+        wfmResult.setSuccess(true);
+        SubnodeContainerExecutionResult result = new SubnodeContainerExecutionResult(snc.getID());
+        result.setWorkflowExecutionResult(wfmResult);
+        result.setSuccess(true);
+        return result;
+    }
+
+    /** Creates named daemon threads for the contained nodes and their partitions. */
+    private static final class StreamingThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread t = new Thread(r, "KNIME-Streaming-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.exec.streaming;
+
+import java.net.URL;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.AbstractNodeExecutionJobManager;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.SubNodeContainer;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Job manager that executes the content of a component in-process in streaming mode: the contained nodes run
+ * concurrently and pass rows through bounded in-memory queues rather than materializing each intermediate table.
+ * Nodes providing a {@link org.knime.core.node.streamable.StreamableFunction} on a distributable input are
+ * partitioned across the available cores (preserving the row order); nodes with a
+ * {@link org.knime.core.node.streamable.MergeOperator} have their partial results merged.
+ *
+ * <p>Only components can be executed by this manager. Their content must not contain loops, metanodes or nested
+ * components; data outputs of the contained nodes need to be known after configuration.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class StreamingNodeExecutionJobManager extends AbstractNodeExecutionJobManager {
+
+    /** The default number of rows handed over between two nodes at once. */
+    public static final int DEFAULT_BATCH_SIZE = 128;
+
+    /** The default number of batches that can be queued between two nodes before the upstream node blocks. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /** Number of consecutive rows processed by one partition. */
+    static final int PARTITION_CHUNK_SIZE = 1024;
+
+    /** The default instance. */
+    public static final StreamingNodeExecutionJobManager INSTANCE = new StreamingNodeExecutionJobManager();
+
+    private final ThreadPool m_pool;
+
+    private final int m_batchSize;
+
+    private final int m_queueCapacity;
+
+    private final int m_parallelism;
+
+    /** Creates a job manager with default settings, using the global thread pool to run the jobs. */
+    public StreamingNodeExecutionJobManager() {
+        this(KNIMEConstants.GLOBAL_THREAD_POOL, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param pool the pool the (controlling) jobs are run in, not null
+     * @param batchSize the number of rows handed over between two nodes at once, &gt; 0
+     * @param queueCapacity the number of batches queued between two nodes, &gt; 0
+     * @param parallelism the maximum number of partitions of a node with a distributable input, &gt; 0
+     */
+    public StreamingNodeExecutionJobManager(final ThreadPool pool, final int batchSize, final int queueCapacity,
+        final int parallelism) {
+        if (pool == null) {
+            throw new NullPointerException("arg must not be null");
+        }
+        if (batchSize <= 0 || queueCapacity <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Batch size, queue capacity and parallelism must be positive: "
+                + batchSize + ", " + queueCapacity + ", " + parallelism);
+        }
+        m_pool = pool;
+        m_batchSize = batchSize;
+        m_queueCapacity = queueCapacity;
+        m_parallelism = parallelism;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean canExecute(final NodeContainer nc) {
+        return nc instanceof SubNodeContainer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] data) {
+        if (!(nc instanceof SubNodeContainer)) {
+            throw new IllegalStateException(getClass().getSimpleName()
+                + " is only able to execute components: " + nc.getNameWithID());
+        }
+        StreamingNodeExecutionJob job = new StreamingNodeExecutionJob((SubNodeContainer)nc, data, this);
+        Future<?> future = m_pool.enqueue(job);
+        job.setFuture(future);
+        return job;
+    }
+
+    /** @return the number of rows handed over between two nodes at once */
+    int getBatchSize() {
+        return m_batchSize;
+    }
+
+    /** @return the number of batches queued between two nodes */
+    int getQueueCapacity() {
+        return m_queueCapacity;
+    }
+
+    /** @return the maximum number of partitions of a node */
+    int getParallelism() {
+        return m_parallelism;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getID() {
+        return StreamingNodeExecutionJobManagerFactory.INSTANCE.getID();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Streaming Job Manager";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public URL getIcon() {
+        return null;
+    }
+
+}
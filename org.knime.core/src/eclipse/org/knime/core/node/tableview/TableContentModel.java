@@ -1077,8 +1077,12 @@ protected DataRow getRow(final int row) {
         }
 
         /* row is not in cache */
-        // row already released from cache
-        if (row < (m_rowCountOfInterestInIterator - cacheSize)) {
+        if (canSeek() && (row < (m_rowCountOfInterestInIterator - cacheSize)
+                || row >= (m_rowCountOfInterestInIterator + cacheSize))) {
+            // far away from the current position, start new iterator close to the row
+            clearCacheAndSeek(row);
+        } else if (row < (m_rowCountOfInterestInIterator - cacheSize)) {
+            // row already released from cache
             // clear cache, init new iterator
             clearCache();
         }
@@ -1173,6 +1177,33 @@ protected void clearCache() {
         m_hilitSet.clear();
     } // clearCache()
 
+    /** Whether the iterator can be positioned at an arbitrary row, i.e. the data is a {@link BufferedDataTable} with
+     * known size and all rows are shown (no hilite filtering). */
+    private boolean canSeek() {
+        return m_data instanceof BufferedDataTable && m_isMaxRowCountFinal && !m_tableFilter.performsFiltering();
+    }
+
+    /**
+     * Clears cache and instantiates a new iterator that starts close to the argument row so that the cache will be
+     * filled with the row and its {@link #getChunkSize() chunk} of successors. Only to be called if
+     * {@link #canSeek()} is true.
+     *
+     * @param row The row of interest.
+     */
+    private void clearCacheAndSeek(final int row) {
+        assert canSeek();
+        final int cacheSize = getCacheSize();
+        final int firstRow = Math.max(0, Math.min(row + m_chunkSize + 1 - cacheSize, m_maxRowCount - cacheSize));
+        if (m_iterator instanceof CloseableRowIterator) {
+            ((CloseableRowIterator)m_iterator).close();
+        }
+        m_iterator = ((BufferedDataTable)m_data).iteratorFailProve(firstRow);
+        m_rowCountInIterator = firstRow;
+        m_rowCountOfInterestInIterator = firstRow;
+        Arrays.fill(m_cachedRows, null);
+        m_hilitSet.clear();
+    } // clearCacheAndSeek(int)
+
     /**
      * Returns a row with a given index from the cache. It is mandatory to give
      * a row index which is certainly in the cache, i.e.
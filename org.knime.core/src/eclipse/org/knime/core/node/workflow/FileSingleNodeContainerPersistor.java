@@ -215,15 +215,19 @@ public void preLoadNodeContainer(final WorkflowPersistor parentPersistor, final
             setDirtyAfterLoad();
             throw new IOException("Can't read node file \"" + settingsFile.getAbsolutePath() + "\"");
         }
-        NodeSettingsRO settings;
-        try {
-            InputStream in = new FileInputStream(settingsFile);
-            // parentPersitor is null for loaded subnode templates
-            in = parentPersistor == null ? in : parentPersistor.decipherInput(in);
-            settings = NodeSettings.loadFromXML(new BufferedInputStream(in));
-        } catch (IOException ioe) {
-            setDirtyAfterLoad();
-            throw ioe;
+        // possibly parsed already (in parallel with the settings of the other nodes in the workflow)
+        NodeSettingsRO settings = parentPersistor instanceof FileWorkflowPersistor
+            ? ((FileWorkflowPersistor)parentPersistor).takePrefetchedNodeSettings(settingsFile) : null;
+        if (settings == null) {
+            try {
+                InputStream in = new FileInputStream(settingsFile);
+                // parentPersitor is null for loaded subnode templates
+                in = parentPersistor == null ? in : parentPersistor.decipherInput(in);
+                settings = NodeSettings.loadFromXML(new BufferedInputStream(in));
+            } catch (IOException ioe) {
+                setDirtyAfterLoad();
+                throw ioe;
+            }
         }
 
         boolean resetRequired = meta.load(settings, parentSettings, result);
@@ -557,6 +561,11 @@ protected static String save(final SingleNodeContainer singleNC, final Reference
         }
         boolean nodeDirDeleted = true;
         if (singleNC instanceof NativeNodeContainer) {
+            if (nodeDirRef == sncWorkingDirRef) {
+                // lazily read tables and internals must be read before the directory is cleared (usually done
+                // already when the node got dirty)
+                ((NativeNodeContainer)singleNC).getNode().ensureOutputDataIsRead();
+            }
             nodeDirDeleted = deleteChildren(nodeDir, SingleNodeContainer.DROP_DIR_NAME);
         }
         nodeDir.mkdirs();
@@ -612,6 +621,9 @@ protected static String save(final SingleNodeContainer singleNC, final Reference
         OutputStream os = new FileOutputStream(nodeSettingsXMLFile);
         os = singleNC.getDirectNCParent().cipherOutput(os);
         settings.saveToXML(os);
+        // native nodes are synced as a whole, the content of wrapped metanodes was synced as part of their workflow
+        FileUtil.sync(singleNC instanceof NativeNodeContainer ? nodeDir : nodeSettingsXMLFile,
+            singleNC instanceof NativeNodeContainer);
         if (saveHelper.isAutoSave() && sncAutoSaveDirRef == null) {
             sncAutoSaveDirRef = nodeDirRef;
             singleNC.setAutoSaveDirectory(sncAutoSaveDirRef);
@@ -68,6 +68,12 @@
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.filestore.internal.WorkflowFileStoreHandlerRepository;
@@ -250,6 +256,50 @@ public String toString() {
 
     private static final NodeSettingsRO EMPTY_SETTINGS = new NodeSettings("<<empty>>");
 
+    /** Parses the settings files of the nodes in a workflow in parallel, see
+     * {@link #prefetchNodeSettings(NodeSettingsRO, ReferencedFile)}. Threads terminate when idle. */
+    private static final ThreadPoolExecutor NODE_SETTINGS_PARSER;
+
+    static {
+        int nrThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        NODE_SETTINGS_PARSER = new ThreadPoolExecutor(nrThreads, nrThreads, 10, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread t = new Thread(r, "KNIME-Node-Settings-Parser");
+                t.setDaemon(true);
+                return t;
+            });
+        NODE_SETTINGS_PARSER.allowCoreThreadTimeOut(true);
+    }
+
+    /** Saves the native nodes of a workflow concurrently, see
+     * {@link #saveContent(WorkflowManager, NodeSettings, ReferencedFile, ExecutionMonitor, WorkflowSaveHelper)}.
+     * Null if nodes are to be saved sequentially ({@link KNIMEConstants#PROPERTY_WORKFLOW_SAVE_THREADS}). */
+    private static final ThreadPoolExecutor NODE_SAVER;
+
+    static {
+        int nrThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        String nrThreadsProp = System.getProperty(KNIMEConstants.PROPERTY_WORKFLOW_SAVE_THREADS);
+        if (nrThreadsProp != null) {
+            try {
+                nrThreads = Integer.parseInt(nrThreadsProp.trim());
+            } catch (NumberFormatException e) {
+                NodeLogger.getLogger(FileWorkflowPersistor.class).warn("Unable to parse property "
+                    + KNIMEConstants.PROPERTY_WORKFLOW_SAVE_THREADS + ", using default (" + nrThreads + ")", e);
+            }
+        }
+        if (nrThreads > 1) {
+            NODE_SAVER = new ThreadPoolExecutor(nrThreads, nrThreads, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread t = new Thread(r, "KNIME-Node-Saver");
+                    t.setDaemon(true);
+                    return t;
+                });
+            NODE_SAVER.allowCoreThreadTimeOut(true);
+        } else {
+            NODE_SAVER = null;
+        }
+    }
+
     /** The node logger for this class. */
     private final NodeLogger m_logger = NodeLogger.getLogger(getClass());
 
@@ -311,6 +361,10 @@ public String toString() {
 
     private final List<ReferencedFile> m_obsoleteNodeDirectories;
 
+    /** Settings (settings.xml) of contained single nodes parsed ahead of their preLoad, by settings file. Only
+     * filled while {@link #loadNodeContainer(Map, ExecutionMonitor, LoadResult)} runs. */
+    private final Map<File, Future<NodeSettingsRO>> m_prefetchedNodeSettings = new HashMap<>();
+
     /** Parse the version string, return {@link LoadVersion#FUTURE} if it can't be parsed. */
     static LoadVersion parseVersion(final String versionString) {
         boolean isBeforeV2 = versionString.equals("0.9.0");
@@ -946,6 +1000,7 @@ public void loadNodeContainer(final Map<Integer, BufferedDataTable> tblRep, fina
             new HashMap<Integer, NodeFactoryUnknownException>();
         exec.setMessage("node information");
         final ReferencedFile workflowDirRef = workflowKNIMEFile.getParent();
+        prefetchNodeSettings(nodes, workflowDirRef);
         /* Load nodes */
         for (String nodeKey : nodes.keySet()) {
             exec.checkCanceled();
@@ -1083,6 +1138,9 @@ public void loadNodeContainer(final Map<Integer, BufferedDataTable> tblRep, fina
             }
             m_nodeContainerLoaderMap.put(nodeIDSuffix, persistor);
         }
+        // left-overs of nodes that failed before they were preloaded
+        m_prefetchedNodeSettings.values().forEach(f -> f.cancel(true));
+        m_prefetchedNodeSettings.clear();
 
         /* read connections */
         exec.setMessage("connection information");
@@ -1187,6 +1245,60 @@ public void loadNodeContainer(final Map<Integer, BufferedDataTable> tblRep, fina
         exec.setProgress(1.0);
     }
 
+    /**
+     * Starts parsing the settings files of all contained native nodes and subnodes in parallel. The node loading
+     * itself (in {@link #loadNodeContainer(Map, ExecutionMonitor, LoadResult)}) remains sequential and picks up
+     * the parsed settings via {@link #takePrefetchedNodeSettings(File)}. Errors are ignored here; they are reported
+     * when the respective node is loaded.
+     *
+     * @param nodes the "nodes" child of the workflow settings
+     * @param workflowDirRef the workflow directory
+     */
+    private void prefetchNodeSettings(final NodeSettingsRO nodes, final ReferencedFile workflowDirRef) {
+        if (nodes.keySet().size() < 2) {
+            return;
+        }
+        for (String nodeKey : nodes.keySet()) {
+            try {
+                NodeSettingsRO nodeSetting = nodes.getNodeSettings(nodeKey);
+                if (shouldSkipThisNode(nodeSetting) || loadNodeType(nodeSetting) == NodeType.MetaNode) {
+                    continue;
+                }
+                final File settingsFile = loadNodeFile(nodeSetting, workflowDirRef).getFile();
+                m_prefetchedNodeSettings.put(settingsFile, NODE_SETTINGS_PARSER.submit(() -> {
+                    try (InputStream in = decipherInput(new FileInputStream(settingsFile))) {
+                        return NodeSettings.loadFromXML(new BufferedInputStream(in));
+                    }
+                }));
+            } catch (InvalidSettingsException e) {
+                // reported when the node is loaded
+            }
+        }
+    }
+
+    /**
+     * Returns the settings of a contained node as parsed by {@link #prefetchNodeSettings(NodeSettingsRO,
+     * ReferencedFile)} (waiting for the parsing to finish if necessary).
+     *
+     * @param settingsFile the settings file of the node
+     * @return the parsed settings or <code>null</code> if they were not prefetched or parsing them failed, in which
+     *         case the caller should parse (and report errors) on its own
+     */
+    NodeSettingsRO takePrefetchedNodeSettings(final File settingsFile) {
+        Future<NodeSettingsRO> future = m_prefetchedNodeSettings.remove(settingsFile);
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
     private NodeUIInformation loadNodeUIInformation(final NodeSettingsRO nodeSetting) throws InvalidSettingsException {
         // in previous releases, the settings were directly written to the
         // top-most node settings object; since 2.0 they are put into a
@@ -2014,19 +2126,32 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
             Collection<NodeContainer> nodes = wm.getNodeContainers();
             double progRatio = 1.0 / (nodes.size() + 1);
 
+            // native nodes only write into their own directory and are saved concurrently once all metanodes and
+            // wrapped metanodes are saved -- those recurse into this method and are saved in this thread (which holds
+            // the workflow lock)
+            final ReferencedFile nodesDirRef = workflowDirRef;
+            List<Callable<Void>> nodeSaveTasks = new ArrayList<>();
             for (NodeContainer nextNode : nodes) {
                 int id = nextNode.getID().getIndex();
                 ExecutionMonitor subExec = execMon.createSubProgress(progRatio);
-                execMon.setMessage(nextNode.getNameWithID());
                 NodeSettingsWO sub = nodesSettings.addNodeSettings("node_" + id);
-                NodeContext.pushContext(nextNode);
-                try {
-                    saveNodeContainer(sub, workflowDirRef, nextNode, subExec, saveHelper);
-                } finally {
-                    NodeContext.removeLastContext();
+                if (NODE_SAVER != null && nextNode instanceof NativeNodeContainer) {
+                    readLazyNodeContent((NativeNodeContainer)nextNode);
+                    nodeSaveTasks.add(() -> {
+                        saveNodeContainerInContext(sub, nodesDirRef, nextNode, subExec, saveHelper);
+                        return null;
+                    });
+                } else {
+                    execMon.setMessage(nextNode.getNameWithID());
+                    saveNodeContainerInContext(sub, nodesDirRef, nextNode, subExec, saveHelper);
                 }
-                subExec.setProgress(1.0);
             }
+            List<Future<Void>> nodeSaveFutures = new ArrayList<>();
+            if (!nodeSaveTasks.isEmpty()) {
+                execMon.setMessage("Nodes");
+                nodeSaveTasks.forEach(t -> nodeSaveFutures.add(NODE_SAVER.submit(t)));
+            }
+            waitForNodeSaves(nodeSaveFutures);
 
             execMon.setMessage("connection information");
             NodeSettingsWO connSettings = saveSettingsForConnections(preFilledSettings);
@@ -2071,6 +2196,9 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
             OutputStream os = new FileOutputStream(workflowFile);
             os = wm.getDirectNCParent().cipherOutput(os);
             preFilledSettings.saveToXML(os);
+            // node directories are synced as they are written, the workflow directory itself (entries) last
+            FileUtil.sync(workflowFile, false);
+            FileUtil.sync(workflowDir, false);
             if (saveHelper.isSaveData()) {
                 File saveWithDataFile = new File(workflowDir, SAVED_WITH_DATA_FILE);
                 BufferedWriter o = new BufferedWriter(new FileWriter(saveWithDataFile));
@@ -2104,6 +2232,79 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
         }
     }
 
+    /** Saves a node with the node context set, see
+     * {@link #saveNodeContainer(NodeSettingsWO, ReferencedFile, NodeContainer, ExecutionMonitor, WorkflowSaveHelper)}.
+     */
+    private static void saveNodeContainerInContext(final NodeSettingsWO settings, final ReferencedFile workflowDirRef,
+        final NodeContainer container, final ExecutionMonitor exec, final WorkflowSaveHelper saveHelper)
+        throws CanceledExecutionException, IOException, LockFailedException {
+        NodeContext.pushContext(container);
+        try {
+            saveNodeContainer(settings, workflowDirRef, container, exec, saveHelper);
+        } finally {
+            NodeContext.removeLastContext();
+        }
+        exec.setProgress(1.0);
+    }
+
+    /** Reads tables and internals of a node to be rewritten that are still read lazily from the workflow directory.
+     * This needs a read lock on the directory, which a pool thread can't get while the saving thread holds the write
+     * lock, so it's done in the saving thread. Usually a no-op as that's done when the node got dirty.
+     * @param nnc the node about to be saved concurrently
+     */
+    private static void readLazyNodeContent(final NativeNodeContainer nnc) {
+        ReferencedFile ncDirectory = nnc.getNodeContainerDirectory();
+        if (ncDirectory == null || !ncDirectory.isDirty()) {
+            return; // not saved yet or not rewritten (or copied to a new location, with the source not locked)
+        }
+        NodeContext.pushContext(nnc);
+        try {
+            nnc.getNode().ensureOutputDataIsRead();
+        } finally {
+            NodeContext.removeLastContext();
+        }
+    }
+
+    /** Waits for all concurrently saved nodes to finish (also when one of them fails, so that nothing is written
+     * anymore once the save returns) and rethrows the first exception.
+     * @param nodeSaveFutures the futures of the submitted save tasks
+     */
+    private static void waitForNodeSaves(final List<Future<Void>> nodeSaveFutures)
+        throws CanceledExecutionException, IOException, LockFailedException {
+        Throwable firstFailure = null;
+        boolean interrupted = false;
+        for (Future<Void> f : nodeSaveFutures) {
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (ExecutionException e) {
+                    firstFailure = firstFailure == null ? e.getCause() : firstFailure;
+                    break;
+                } catch (InterruptedException e) {
+                    // keep waiting, the tasks still write into the workflow directory
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (firstFailure instanceof CanceledExecutionException) {
+            throw (CanceledExecutionException)firstFailure;
+        } else if (firstFailure instanceof IOException) {
+            throw (IOException)firstFailure;
+        } else if (firstFailure instanceof LockFailedException) {
+            throw (LockFailedException)firstFailure;
+        } else if (firstFailure instanceof RuntimeException) {
+            throw (RuntimeException)firstFailure;
+        } else if (firstFailure instanceof Error) {
+            throw (Error)firstFailure;
+        } else if (firstFailure != null) {
+            throw new IOException("Saving node failed: " + firstFailure.getMessage(), firstFailure);
+        }
+    }
+
     /** Add version field. */
     static void saveHeader(final NodeSettings settings) {
         settings.addString(WorkflowLoadHelper.CFG_CREATED_BY, KNIMEConstants.VERSION);
@@ -1098,9 +1098,9 @@ public NodeAndBundleInformation getNodeAndBundleInformation() {
         if (m_nodeAndBundleInformation != null) {
             return m_nodeAndBundleInformation;
         }
-        final NodeModel model = getNodeModel();
-        if (model instanceof MissingNodeModel) {
-            return ((MissingNodeModel)model).getNodeAndBundleInformation();
+        // type check first, getNodeModel() reads lazily loaded internals
+        if (m_node.isModelCompatibleTo(MissingNodeModel.class)) {
+            return ((MissingNodeModel)getNodeModel()).getNodeAndBundleInformation();
         }
         return new NodeAndBundleInformation(getNode());
     }
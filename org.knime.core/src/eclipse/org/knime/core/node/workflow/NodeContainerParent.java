@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Interface used by embedded {@link WorkflowManager} instances to invoke actions on the parent item. The parent
@@ -87,9 +88,18 @@ public interface NodeContainerParent {
      * @return that property */
     public boolean canConfigureNodes();
 
-    /** @return the ReentrantLock underlying the {@link WorkflowLock} instance used by this NC parent. */
+    /** @return a {@link ReentrantLock} view on the write lock of the {@link #getReadWriteLockInstance() lock}
+     * underlying the {@link WorkflowLock} instance used by this NC parent.
+     * @deprecated the workflow lock is a {@link ReentrantReadWriteLock}, use {@link #getReadWriteLockInstance()}
+     */
+    @Deprecated
     public ReentrantLock getReentrantLockInstance();
 
+    /** @return the lock underlying the {@link WorkflowLock} instance used by this NC parent; {@link #lock()} acquires
+     * its write lock.
+     * @since 3.6 */
+    public ReentrantReadWriteLock getReadWriteLockInstance();
+
     /** Locks and returns the {@link WorkflowLock} associated with this workflow. This should always be used in a
      * try-with-resources statement:
      * <pre>
@@ -97,12 +107,13 @@ public interface NodeContainerParent {
      *    ...
      * }
      * </pre>
-     * @return The workflow lock instance, freshly locked (see {@link ReentrantLock#lock()}.
+     * @return The workflow lock instance, freshly locked (see {@link ReentrantReadWriteLock.WriteLock#lock()}.
      */
     public WorkflowLock lock();
 
     /** @return true if the calling thread has acquired the workflow lock either via {@link #lock()} or by
-     * locking the {@link #getReentrantLockInstance() ReentrantLock}. Mainly used for assertions.
+     * locking the write lock of the {@link #getReadWriteLockInstance() ReentrantReadWriteLock}. Mainly used for
+     * assertions.
      */
     public boolean isLockedByCurrentThread();
 
@@ -186,6 +186,25 @@ void addExecutionTime(final String cname, final boolean success, final long exec
                 processStatChanges();
             }
         }
+
+        /**
+         * Returns the average execution time of nodes of the same type as the argument, as recorded by this (and
+         * previous) instances.
+         *
+         * @param nc the node of interest
+         * @return the average execution time in ms or -1 if no such node was executed before
+         * @since 3.6
+         */
+        public long getAverageExecutionTime(final NodeContainer nc) {
+            synchronized (this) {
+                NodeStats ns = m_globalNodeStats.get(NodeTimer.getCanonicalName(nc));
+                if (ns == null || ns.executionCount == 0) {
+                    return -1;
+                }
+                return ns.executionTime / ns.executionCount;
+            }
+        }
+
         public void addNodeCreation(final NodeContainer nc) {
             if (DISABLE_GLOBAL_TIMER) {
                 return;
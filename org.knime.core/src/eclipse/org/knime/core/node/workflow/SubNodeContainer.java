@@ -67,6 +67,7 @@
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -2105,11 +2106,18 @@ public WorkflowLock lock() {
     }
 
     /** {@inheritDoc} */
+    @Deprecated
     @Override
     public ReentrantLock getReentrantLockInstance() {
         return getParent().getReentrantLockInstance();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ReentrantReadWriteLock getReadWriteLockInstance() {
+        return getParent().getReadWriteLockInstance();
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean isLockedByCurrentThread() {
@@ -49,9 +49,15 @@
 package org.knime.core.node.workflow;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableLong;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.CheckUtils;
@@ -62,17 +68,25 @@
  * the metanode/workflow/subnode to when the lock is finally released.
  *
  * <p/>
- * This class is wrapping a {@link ReentrantLock}. Workflows and contained meta/sub nodes share the same
- * {@link ReentrantLock} but are still distinct {@link WorkflowLock} instances to properly isolate the status
- * update request.
+ * This class is wrapping a {@link ReentrantReadWriteLock}. Workflows and contained meta/sub nodes share the same
+ * {@link ReentrantReadWriteLock} but are still distinct {@link WorkflowLock} instances to properly isolate the status
+ * update request. {@link #lock()} acquires the write lock; queries that neither modify the workflow nor acquire the
+ * (write) lock themselves can use {@link #lockForRead()} so that they don't serialize with each other.
+ *
+ * <p/>
+ * Each instance records how often it was acquired, how long threads waited for it and how long it was held, see
+ * {@link #getStatistics()}.
  *
  * @noreference This class is not intended to be referenced by clients.
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  */
 public final class WorkflowLock implements AutoCloseable {
 
-    private final ReentrantLock m_reentrantLock;
+    private final ReentrantReadWriteLock m_reentrantLock;
+    /** View on the write lock returned by the deprecated {@link NodeContainerParent#getReentrantLockInstance()}. */
+    private final ReentrantLock m_writeLockAdapter;
     private final WorkflowManager m_wfm;
+    private final ReadLock m_readLock = new ReadLock();
 
     private boolean m_checkForNodeStateChanges;
     private boolean m_propagateChanges;
@@ -86,59 +100,131 @@ public final class WorkflowLock implements AutoCloseable {
     private final ThreadLocal<MutableInt> m_lockHierarchyLevelThreadLocal =
         ThreadLocal.withInitial(() -> new MutableInt());
 
+    /** For each thread the {@link System#nanoTime()} when it acquired this instance (hierarchy level 0 -> 1). */
+    private final ThreadLocal<MutableLong> m_lockedSinceThreadLocal = ThreadLocal.withInitial(() -> new MutableLong());
+
+    private final LongAdder m_acquisitionCount = new LongAdder();
+    private final LongAdder m_contendedAcquisitionCount = new LongAdder();
+    private final LongAdder m_waitNanos = new LongAdder();
+    private final LongAdder m_holdNanos = new LongAdder();
+    private final LongAccumulator m_maxHoldNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder m_readAcquisitionCount = new LongAdder();
+    private final LongAdder m_contendedReadAcquisitionCount = new LongAdder();
+    private final LongAdder m_readWaitNanos = new LongAdder();
+
     /** An instance for a workflow project.
      * @param wfm The non-null workflow.
      */
     WorkflowLock(final WorkflowManager wfm) {
         m_wfm = CheckUtils.checkArgumentNotNull(wfm);
-        m_reentrantLock = new ReentrantLock();
+        m_reentrantLock = new ReentrantReadWriteLock();
+        m_writeLockAdapter = new WriteLockAdapter(m_reentrantLock);
     }
 
     /** An instance for a contained metanode or sub node.
      * @param wfm The metanode instance itself (or wfm within a {@link SubNodeContainer}).
      * @param parent The parent workflow.
      */
+    @SuppressWarnings("deprecation")
     WorkflowLock(final WorkflowManager wfm, final NodeContainerParent parent) {
         m_wfm = CheckUtils.checkArgumentNotNull(wfm);
-        m_reentrantLock = parent.getReentrantLockInstance();
+        m_reentrantLock = parent.getReadWriteLockInstance();
+        m_writeLockAdapter = parent.getReentrantLockInstance();
     }
 
-    /** @return the {@link ReentrantLock} - rarely used except for wait methods that need to sleep on the lock. */
-    ReentrantLock getReentrantLock() {
+    /** @return the {@link ReentrantReadWriteLock} - rarely used except for wait methods that need to sleep on the
+     * (write) lock. */
+    ReentrantReadWriteLock getReentrantLock() {
         return m_reentrantLock;
     }
 
-    /** @return whether calling thread holds the lock.
-     * @see java.util.concurrent.locks.ReentrantLock#isHeldByCurrentThread()
+    /** @return a {@link ReentrantLock} view on the write lock, shared by all instances using the same lock. */
+    ReentrantLock getWriteLockAdapter() {
+        return m_writeLockAdapter;
+    }
+
+    /** @return whether calling thread holds the (write) lock.
+     * @see java.util.concurrent.locks.ReentrantReadWriteLock#isWriteLockedByCurrentThread()
      */
     boolean isHeldByCurrentThread() {
-        return m_reentrantLock.isHeldByCurrentThread();
+        return m_reentrantLock.isWriteLockedByCurrentThread();
     }
 
     /** Acquires the lock (and increments hold count) and returns this instance. See {@link NodeContainerParent#lock()}.
      * @return this.
+     * @throws IllegalStateException If the calling thread only holds the read lock (which can't be upgraded).
      */
     public WorkflowLock lock() {
-        m_reentrantLock.lock();
+        if (!m_reentrantLock.isWriteLockedByCurrentThread()) {
+            // upgrading from read to write lock would deadlock
+            CheckUtils.checkState(m_reentrantLock.getReadHoldCount() == 0,
+                "Workflow lock can't be acquired while holding its read lock (workflow \"%s\")", m_wfm.getNameWithID());
+            if (!m_reentrantLock.writeLock().tryLock()) {
+                long start = System.nanoTime();
+                m_reentrantLock.writeLock().lock();
+                m_contendedAcquisitionCount.increment();
+                m_waitNanos.add(System.nanoTime() - start);
+            }
+        } else {
+            m_reentrantLock.writeLock().lock();
+        }
         if (KNIMEConstants.ASSERTIONS_ENABLED) {
             hasNoChildLocked();
         }
-        m_lockHierarchyLevelThreadLocal.get().increment();
+        final MutableInt lockHierarchyLevel = m_lockHierarchyLevelThreadLocal.get();
+        lockHierarchyLevel.increment();
+        if (lockHierarchyLevel.intValue() == 1) {
+            m_acquisitionCount.increment();
+            m_lockedSinceThreadLocal.get().setValue(System.nanoTime());
+        }
         return this;
     }
 
+    /** Acquires the read lock and returns an object releasing it when closed. The read lock is shared with other
+     * readers but excludes writers, i.e. threads holding the lock acquired via {@link #lock()}. This should always be
+     * used in a try-with-resources statement:
+     * <pre>
+     * try (WorkflowLock.ReadLock lock = lockForRead()) {
+     *    ...
+     * }
+     * </pre>
+     * The read lock must only be used for queries that don't change the workflow and don't (indirectly) acquire the
+     * write lock -- doing so throws an exception as the read lock can't be upgraded. A thread holding the write lock
+     * can also acquire the read lock.
+     * @return an object to release the read lock. */
+    ReadLock lockForRead() {
+        // not using tryLock() as it would barge in front of queued writers; the contention check is only approximate
+        if (m_reentrantLock.isWriteLocked() && !m_reentrantLock.isWriteLockedByCurrentThread()) {
+            long start = System.nanoTime();
+            m_reentrantLock.readLock().lock();
+            m_contendedReadAcquisitionCount.increment();
+            m_readWaitNanos.add(System.nanoTime() - start);
+        } else {
+            m_reentrantLock.readLock().lock();
+        }
+        m_readAcquisitionCount.increment();
+        return m_readLock;
+    }
+
+    /** @return A snapshot of the lock statistics of this instance, i.e. the workflow, metanode or subnode. */
+    WorkflowLockStatistics getStatistics() {
+        return new WorkflowLockStatistics(m_acquisitionCount.sum(), m_contendedAcquisitionCount.sum(),
+            m_waitNanos.sum(), m_holdNanos.sum(), m_maxHoldNanos.get(), m_readAcquisitionCount.sum(),
+            m_contendedReadAcquisitionCount.sum(), m_readWaitNanos.sum());
+    }
+
     /** Checks if this thread has a lock on any child of the workflow manager. If so a coding error is reported. */
     // see bug 6644
     private void hasNoChildLocked() {
         // only make (expensive) check if initially locked: count must be 1
-        if (m_reentrantLock.getHoldCount() != 1) {
+        if (m_reentrantLock.getWriteHoldCount() != 1) {
             return;
         }
         Optional<NodeContainerParent> badBehavingChild = m_wfm.getNodeContainers().stream()
             .filter(n -> n instanceof NodeContainerParent)
             .map(n -> (NodeContainerParent)n)
-            .filter(n -> !n.getReentrantLockInstance().equals(m_reentrantLock)
-                && n.getReentrantLockInstance().isHeldByCurrentThread()).findAny();
+            .filter(n -> !n.getReadWriteLockInstance().equals(m_reentrantLock)
+                && n.getReadWriteLockInstance().isWriteLockedByCurrentThread()).findAny();
         if (badBehavingChild.isPresent()) {
             NodeLogger.getLogger(WorkflowLock.class).codingWithFormat("Lock of child node \"%s\" already locked when "
                 + "trying to acquire lock of parent \"%s\"", badBehavingChild.get(), m_wfm);
@@ -148,7 +234,7 @@ private void hasNoChildLocked() {
     /** Unlocks as per {@link ReentrantLock#unlock()}, possibly causing a state update check and notification on the
      * workflow when this is the last unlock. */
     public void unlock() {
-        CheckUtils.checkState(m_reentrantLock.isHeldByCurrentThread(), "Lock not held by current thread");
+        CheckUtils.checkState(m_reentrantLock.isWriteLockedByCurrentThread(), "Lock not held by current thread");
         final MutableInt lockHierarchyLevel = m_lockHierarchyLevelThreadLocal.get();
         CheckUtils.checkState(lockHierarchyLevel.intValue() > 0,
             "ReentrantLock is held by current thread but not associated with this workflow lock");
@@ -161,7 +247,12 @@ public void unlock() {
                 m_wfm.setInternalStateAfterLockRelease(m_wfm.computeNewState(), propagateChanges);
             }
         } finally {
-            m_reentrantLock.unlock();
+            if (lockHierarchyLevel.intValue() == 0) {
+                long holdNanos = System.nanoTime() - m_lockedSinceThreadLocal.get().longValue();
+                m_holdNanos.add(holdNanos);
+                m_maxHoldNanos.accumulate(holdNanos);
+            }
+            m_reentrantLock.writeLock().unlock();
         }
     }
 
@@ -184,7 +275,8 @@ InternalNodeContainerState getWFMInternalState() {
      * @see WorkflowManager#checkForNodeStateChanges(boolean)
      */
     void queueCheckForNodeStateChangeNotification(final boolean propagateChanges) {
-        assert m_reentrantLock.isHeldByCurrentThread() : "Can't queue state check - lock not held by current thread";
+        assert m_reentrantLock.isWriteLockedByCurrentThread()
+            : "Can't queue state check - lock not held by current thread";
         m_checkForNodeStateChanges = true;
         if (propagateChanges) {
             m_propagateChanges = true;
@@ -199,4 +291,91 @@ public void close() {
         unlock();
     }
 
+    /** {@link ReentrantLock} delegating to the write lock of a {@link ReentrantReadWriteLock}, keeps the contract of
+     * {@link NodeContainerParent#getReentrantLockInstance()} which returned a ReentrantLock before 3.6. The final
+     * queue inspection methods (e.g. {@link #getQueueLength()}) can't be delegated and don't report the actual lock. */
+    private static final class WriteLockAdapter extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReentrantReadWriteLock m_lock;
+
+        WriteLockAdapter(final ReentrantReadWriteLock lock) {
+            m_lock = lock;
+        }
+
+        @Override
+        public void lock() {
+            m_lock.writeLock().lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            m_lock.writeLock().lockInterruptibly();
+        }
+
+        @Override
+        public boolean tryLock() {
+            return m_lock.writeLock().tryLock();
+        }
+
+        @Override
+        public boolean tryLock(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return m_lock.writeLock().tryLock(timeout, unit);
+        }
+
+        @Override
+        public void unlock() {
+            m_lock.writeLock().unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return m_lock.writeLock().newCondition();
+        }
+
+        @Override
+        public int getHoldCount() {
+            return m_lock.getWriteHoldCount();
+        }
+
+        @Override
+        public boolean isHeldByCurrentThread() {
+            return m_lock.isWriteLockedByCurrentThread();
+        }
+
+        @Override
+        public boolean isLocked() {
+            return m_lock.isWriteLocked();
+        }
+
+        @Override
+        public boolean hasWaiters(final Condition condition) {
+            return m_lock.hasWaiters(condition);
+        }
+
+        @Override
+        public int getWaitQueueLength(final Condition condition) {
+            return m_lock.getWaitQueueLength(condition);
+        }
+
+        @Override
+        public String toString() {
+            return m_lock.writeLock().toString();
+        }
+    }
+
+    /** Returned by {@link WorkflowLock#lockForRead()}, releases the read lock when closed. */
+    final class ReadLock implements AutoCloseable {
+
+        private ReadLock() {
+        }
+
+        /** Releases the read lock. */
+        @Override
+        public void close() {
+            m_reentrantLock.readLock().unlock();
+        }
+    }
+
 }
@@ -0,0 +1,136 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the statistics of a {@link WorkflowLock}, i.e. how often the lock of a workflow, metanode or subnode
+ * was acquired, how long threads had to wait for it and how long it was held. Used to identify contention on the
+ * workflow lock, e.g. when many nodes finish execution at the same time. All times are in nanoseconds and
+ * accumulated since the workflow was created.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class WorkflowLockStatistics {
+
+    private final long m_acquisitionCount;
+    private final long m_contendedAcquisitionCount;
+    private final long m_waitNanos;
+    private final long m_holdNanos;
+    private final long m_maxHoldNanos;
+    private final long m_readAcquisitionCount;
+    private final long m_contendedReadAcquisitionCount;
+    private final long m_readWaitNanos;
+
+    WorkflowLockStatistics(final long acquisitionCount, final long contendedAcquisitionCount, final long waitNanos,
+        final long holdNanos, final long maxHoldNanos, final long readAcquisitionCount,
+        final long contendedReadAcquisitionCount, final long readWaitNanos) {
+        m_acquisitionCount = acquisitionCount;
+        m_contendedAcquisitionCount = contendedAcquisitionCount;
+        m_waitNanos = waitNanos;
+        m_holdNanos = holdNanos;
+        m_maxHoldNanos = maxHoldNanos;
+        m_readAcquisitionCount = readAcquisitionCount;
+        m_contendedReadAcquisitionCount = contendedReadAcquisitionCount;
+        m_readWaitNanos = readWaitNanos;
+    }
+
+    /** @return how often the (write) lock was acquired, not counting reentrant acquisitions. */
+    public long getAcquisitionCount() {
+        return m_acquisitionCount;
+    }
+
+    /** @return how often a thread had to wait for the (write) lock because another thread held it. */
+    public long getContendedAcquisitionCount() {
+        return m_contendedAcquisitionCount;
+    }
+
+    /** @return the total time threads waited for the (write) lock. */
+    public long getWaitNanos() {
+        return m_waitNanos;
+    }
+
+    /** @return the total time the (write) lock was held. */
+    public long getHoldNanos() {
+        return m_holdNanos;
+    }
+
+    /** @return the longest time the (write) lock was held at once. */
+    public long getMaxHoldNanos() {
+        return m_maxHoldNanos;
+    }
+
+    /** @return how often the read lock was acquired. */
+    public long getReadAcquisitionCount() {
+        return m_readAcquisitionCount;
+    }
+
+    /** @return how often a thread had to wait for the read lock because another thread held the write lock. */
+    public long getContendedReadAcquisitionCount() {
+        return m_contendedReadAcquisitionCount;
+    }
+
+    /** @return the total time threads waited for the read lock. */
+    public long getReadWaitNanos() {
+        return m_readWaitNanos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("write: %d acquisitions (%d contended, %d ms waiting), held for %d ms (max %d ms); "
+            + "read: %d acquisitions (%d contended, %d ms waiting)", m_acquisitionCount, m_contendedAcquisitionCount,
+            toMillis(m_waitNanos), toMillis(m_holdNanos), toMillis(m_maxHoldNanos), m_readAcquisitionCount,
+            m_contendedReadAcquisitionCount, toMillis(m_readWaitNanos));
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+}
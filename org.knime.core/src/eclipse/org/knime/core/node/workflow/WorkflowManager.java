@@ -96,7 +96,9 @@
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -590,11 +592,45 @@ public WorkflowLock assertLock() {
      *
      * @since 3.1
      */
+    @Deprecated
     @Override
     public ReentrantLock getReentrantLockInstance() {
+        return m_workflowLock.getWriteLockAdapter();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 3.6
+     */
+    @Override
+    public ReentrantReadWriteLock getReadWriteLockInstance() {
         return m_workflowLock.getReentrantLock();
     }
 
+    /**
+     * Acquires the read lock of this workflow, see {@link WorkflowLock#lockForRead()}. Only to be used for queries that
+     * don't modify the workflow and don't acquire the write lock, neither directly nor indirectly.
+     *
+     * @return The object to release the read lock with, to be used in a try-with-resources statement.
+     */
+    WorkflowLock.ReadLock lockForRead() {
+        return m_workflowLock.lockForRead();
+    }
+
+    /**
+     * Statistics on the lock of this workflow (or metanode), i.e. how often it was acquired, how long threads waited
+     * for it and how long it was held. Metanodes share the lock with their parent workflow but keep separate
+     * statistics.
+     *
+     * @return a snapshot of the lock statistics
+     * @since 3.6
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public WorkflowLockStatistics getLockStatistics() {
+        return m_workflowLock.getStatistics();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -897,7 +933,7 @@ private WorkflowManager createAndAddSubWorkflow(final PortType[] inPorts, final
      * @since 2.6
      */
     public boolean isProject() {
-        return this == ROOT || getReentrantLockInstance() != getDirectNCParent().getReentrantLockInstance();
+        return this == ROOT || getReadWriteLockInstance() != getDirectNCParent().getReadWriteLockInstance();
     }
 
     /**
@@ -1377,7 +1413,7 @@ public void removeConnection(final ConnectionContainer cc) {
      * @return all outgoing connections for the passed node at the specified port
      */
     public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id, final int portIdx) {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             Set<ConnectionContainer> outConnections = m_workflow.getConnectionsBySource(id);
             Set<ConnectionContainer> outConsForPort = new HashSet<ConnectionContainer>();
             if (outConnections == null) {
@@ -1400,7 +1436,7 @@ public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id, final
      * @throws IllegalArgumentException If the node is unknown or null.
      */
     public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id) {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             getNodeContainer(id); // for exception handling
             return new LinkedHashSet<ConnectionContainer>(m_workflow.getConnectionsBySource(id));
         }
@@ -1415,7 +1451,7 @@ public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id) {
      * @throws IllegalArgumentException If node is not contained in workflow, nor is it the ID of this WFM
      */
     public ConnectionContainer getIncomingConnectionFor(final NodeID id, final int portIdx) {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             CheckUtils.checkArgument(id.equals(getID()) || containsNodeContainer(id),
                 "Node ID \"%s\" not contained in workflow, nor it's the workflow itself (ID of this workflow is \"%s\"",
                 id, getID());
@@ -1439,7 +1475,7 @@ public ConnectionContainer getIncomingConnectionFor(final NodeID id, final int p
      * @throws IllegalArgumentException If the node is unknown or null.
      */
     public Set<ConnectionContainer> getIncomingConnectionsFor(final NodeID id) {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             getNodeContainer(id); // for exception handling
             return new LinkedHashSet<ConnectionContainer>(m_workflow.getConnectionsByDest(id));
         }
@@ -1452,7 +1488,7 @@ public Set<ConnectionContainer> getIncomingConnectionsFor(final NodeID id) {
      * @return the connection with the specified id
      */
     public ConnectionContainer getConnection(final ConnectionID id) {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             return getIncomingConnectionFor(id.getDestinationNode(), id.getDestinationPort());
         }
     }
@@ -2593,7 +2629,7 @@ private <T> void stepExecutionUpToNodeType(final NodeID id, final Class<T> nodeM
                     // the node itself is not yet marked/executed - mark it
                     NativeNodeContainer nnc = (NativeNodeContainer)nc;
                     // if current nodeModel is of class nodeModelClass and not filtered
-                    if (nodeModelClass.isInstance(nnc.getNodeModel())) {
+                    if (nnc.isModelCompatibleTo(nodeModelClass)) {
                         @SuppressWarnings("unchecked")
                         final T nodeModel = (T)nnc.getNodeModel();
                         if (filter.include(nodeModel)) {
@@ -5251,7 +5287,7 @@ public boolean waitWhileInExecution(final long time, final TimeUnit unit) throws
      */
     private static boolean waitWhileInExecution(final WorkflowLock workflowLock,
         final NodeContainerStateObservable[] ncs, final long time, final TimeUnit unit) throws InterruptedException {
-        final ReentrantLock lock = workflowLock.getReentrantLock();
+        final ReentrantReadWriteLock.WriteLock lock = workflowLock.getReentrantLock().writeLock();
         final Condition whileInExecCondition = lock.newCondition();
         NodeStateChangeListener listener = new NodeStateChangeListener() {
             @Override
@@ -5647,7 +5683,7 @@ void setInternalStateAfterLockRelease(final InternalNodeContainerState newState,
         }
         if ((!oldState.equals(newState)) && (getParent() != null) && propagateChanges) {
             // make sure parent WFM reflects state changes
-            if (getReentrantLockInstance() == getDirectNCParent().getReentrantLockInstance()
+            if (getReadWriteLockInstance() == getDirectNCParent().getReadWriteLockInstance()
                 // simple: locks are the same which means that we have either in- or outgoing connections (or both).
                 // No need to add an synchronize on the parent-mutex.
                 || getDirectNCParent().isLockedByCurrentThread()) {
@@ -6261,7 +6297,7 @@ public String toString() {
     /** {@inheritDoc} */
     @Override
     public Collection<NodeContainer> getNodeContainers() {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             // TODO should we copy the list as changes to the wkf later will change this list
             return m_workflow.getNodeValues();
         }
@@ -6376,7 +6412,7 @@ public List<Pair<String, NodeMessage>> getNodeMessages(final NodeMessage.Type...
         final List<Type> asList = Arrays.asList(types);
         CheckUtils.checkArgument(asList.size() > 0 && !asList.contains(null),
             "Type list must not be empty, nor contain null");
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             ArrayList<Pair<String, NodeMessage>> result = new ArrayList<>();
             for (NodeContainer nc : m_workflow.getNodeValues()) {
                 if (nc instanceof NativeNodeContainer) {
@@ -7684,7 +7720,7 @@ public void load(final TemplateNodeContainerPersistor persistor, final MetaNodeL
         NodeContainerTemplate loadedInstance = null;
         boolean isIsolatedProject = persistor.isProject();
         InsertWorkflowPersistor insertPersistor = new InsertWorkflowPersistor(persistor);
-        ReentrantLock lock = isIsolatedProject ? new ReentrantLock() : m_workflowLock.getReentrantLock();
+        Lock lock = isIsolatedProject ? new ReentrantLock() : m_workflowLock.getReentrantLock().writeLock();
         lock.lock();
         try {
             m_loadVersion = persistor.getLoadVersion();
@@ -7774,6 +7810,17 @@ WorkflowCopyContent loadContent(final NodeContainerPersistor nodePersistor,
         return result.build();
     }
 
+    /** Relative amount of work to load a node from the argument persistor: one unit for the node itself and some
+     * more for its content if it carries data (executed) or child nodes (metanodes and wrapped metanodes).
+     * @param persistor The persistor of the node.
+     * @return The weight, at least 1.
+     */
+    private static int getLoadWeight(final NodeContainerPersistor persistor) {
+        boolean hasContent = persistor instanceof WorkflowPersistor || persistor instanceof SubNodeContainerPersistor
+            || persistor.getMetaPersistor().getState().isExecuted();
+        return hasContent ? 5 : 1;
+    }
+
     private void postLoad(final Map<NodeID, NodeContainerPersistor> persistorMap,
         final Map<Integer, BufferedDataTable> tblRep, final boolean mustWarnOnDataLoadError,
         final ExecutionMonitor exec, final LoadResult loadResult, final boolean keepNodeMessage)
@@ -7785,6 +7832,9 @@ private void postLoad(final Map<NodeID, NodeContainerPersistor> persistorMap,
         // had NPE below - adding this line to get better debug information
         CheckUtils.checkArgumentNotNull(nodeIDsInPersistorSet,
             "NodeID list from persistor must not be null for workflow %s", getNameWithID());
+        // progress is distributed according to the expected work, not evenly among nodes (most are cheap to load)
+        final double totalLoadWeight = Math.max(1,
+            persistorMap.values().stream().mapToInt(p -> getLoadWeight(p)).sum());
         for (NodeID bfsID : m_workflow.createBreadthFirstSortedList(nodeIDsInPersistorSet, true).keySet()) {
             NodeContainer cont = getNodeContainer(bfsID);
             // initialize node container with CredentialsStore
@@ -7839,8 +7889,8 @@ private void postLoad(final Map<NodeID, NodeContainerPersistor> persistorMap,
             exec.setMessage(cont.getNameWithID());
             exec.checkCanceled();
             // two steps below: loadNodeContainer and loadContent
-            ExecutionMonitor sub1 = exec.createSubProgress(1.0 / (2 * m_workflow.getNrNodes()));
-            ExecutionMonitor sub2 = exec.createSubProgress(1.0 / (2 * m_workflow.getNrNodes()));
+            ExecutionMonitor sub1 = exec.createSubProgress(1.0 / totalLoadWeight);
+            ExecutionMonitor sub2 = exec.createSubProgress((getLoadWeight(persistor) - 1) / totalLoadWeight);
             NodeContext.pushContext(cont);
             try {
                 persistor.loadNodeContainer(tblRep, sub1, subResult);
@@ -9054,7 +9104,7 @@ public void nodeUIInformationChanged(final NodeUIInformationEvent evt) {
      * @return a list of all node annotations in the contained flow.
      */
     public List<NodeAnnotation> getNodeAnnotations() {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             Collection<NodeContainer> nodeContainers = getNodeContainers();
             List<NodeAnnotation> result = new LinkedList<NodeAnnotation>();
             for (NodeContainer node : nodeContainers) {
@@ -9161,11 +9211,12 @@ public <T> Map<NodeID, T> findNodes(final Class<T> nodeModelClass, final NodeMod
             for (NodeContainer nc : m_workflow.getNodeValues()) {
                 if (nc instanceof NativeNodeContainer) {
                     NativeNodeContainer nnc = (NativeNodeContainer)nc;
-                    NodeModel model = nnc.getNode().getNodeModel();
-                    boolean included =
-                        nodeModelClass.isAssignableFrom(model.getClass()) && filter.include(nodeModelClass.cast(model));
-                    if (included) {
-                        result.put(nnc.getID(), nodeModelClass.cast(model));
+                    // check the type first, getNodeModel() may read (lazily loaded) internals
+                    if (nnc.isModelCompatibleTo(nodeModelClass)) {
+                        T model = nodeModelClass.cast(nnc.getNode().getNodeModel());
+                        if (filter.include(model)) {
+                            result.put(nnc.getID(), model);
+                        }
                     }
                 }
             }
@@ -9200,7 +9251,7 @@ public <T> Map<NodeID, T> findNodes(final Class<T> nodeModelClass, final NodeMod
      * @since 2.6
      */
     public NodeContainer findNodeContainer(final NodeID id) {
-        try (WorkflowLock lock = lock()) {
+        try (WorkflowLock.ReadLock lock = lockForRead()) {
             final NodeID prefix = id.getPrefix();
             if (prefix.equals(getID())) {
                 return getNodeContainer(id);
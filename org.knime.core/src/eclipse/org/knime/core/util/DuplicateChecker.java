@@ -53,27 +53,41 @@
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.knime.core.node.KNIMEConstants;
 
 /**
  * This class checks for duplicates in an (almost) arbitrary number of strings.
- * This can be used to check for e.g. unique row keys. The checking is done in
- * two stages: first new keys are added to a set. If the set already contains a
- * key an exception is thrown. If the set gets bigger than the maximum chunk
- * size it is written to disk and the set is cleared. If then after adding all
- * keys {@link #checkForDuplicates()} is called all created chunks are processed
- * and sorted by a merge sort like algorithm. If any duplicate keys are detected
- * during this process an exception is thrown.
+ * This can be used to check for e.g. unique row keys.
+ *
+ * <p>Keys in the form of <code>"Row" + index</code>, as created by
+ * {@link org.knime.core.data.RowKey#createRowKey(long)}, with consecutive
+ * indices are only recorded as a range of numbers. All other keys are checked
+ * using a 64-bit hash of each key kept in an off-heap hash table. The keys
+ * themselves are collected in chunks that are written to disk when they
+ * get bigger than the maximum chunk size; they are only read to verify a hash
+ * collision. A duplicate key is therefore detected when it is added. If the
+ * hash table gets bigger than its maximum size, or if there's not enough
+ * direct memory for it (the hash tables of all checkers together use at most a
+ * quarter of the maximum heap size), new keys are no longer added to it and
+ * {@link #checkForDuplicates()} processes the chunks created from then on with
+ * a merge sort like algorithm. If any duplicate keys are detected during this
+ * process an exception is thrown.
  *
  * <p>Note: This implementation is not thread-safe, it's supposed to be used
  * by a single thread only.
@@ -91,14 +105,21 @@ public Chunk() throws IOException {
             m_out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(m_file)));
         }
 
-        public void addKeys(final Set<String> keys) throws IOException {
+        public void addKeys(final Collection<String> keys, final boolean sort)
+            throws IOException, DuplicateKeyException {
             if (m_out == null) {
                 throw new IllegalStateException("Chunck has already been closed");
             }
 
             String[] sorted = keys.toArray(new String[keys.size()]);
-            Arrays.sort(sorted);
-
+            if (sort) {
+                Arrays.sort(sorted);
+                for (int i = 1; i < sorted.length; i++) {
+                    if (sorted[i].equals(sorted[i - 1])) {
+                        throw new DuplicateKeyException(sorted[i]);
+                    }
+                }
+            }
             for (String s : sorted) {
                 m_out.writeUTF(s);
                 m_count++;
@@ -183,11 +204,60 @@ public boolean dispose() {
     /** The default number of streams open during merging. */
     public static final int MAX_STREAMS = 50;
 
+    /** The default maximum number of slots of the hash table (512MB). */
+    static final int MAX_HASH_TABLE_SIZE = 1 << 26;
+
+    private static final int INITIAL_HASH_TABLE_SIZE = 1 << 10;
+
+    /** Maximum number of bytes used by the hash tables of all checkers: a quarter of the maximum heap size, which
+     * is also the default limit of direct memory. */
+    static final long MAX_TOTAL_HASH_TABLE_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    /** Number of bytes currently reserved by the hash tables of all checkers. */
+    private static final AtomicLong TOTAL_HASH_TABLE_BYTES = new AtomicLong();
+
+    /** The reservations of all hash tables that haven't been released yet. */
+    private static final Set<HashTableReservation> HASH_TABLE_RESERVATIONS = ConcurrentHashMap.newKeySet();
+
+    /** Reservations of hash tables that have been garbage collected without being released (checker not cleared). */
+    private static final ReferenceQueue<LongBuffer> COLLECTED_HASH_TABLES = new ReferenceQueue<>();
+
+    private static final String ROW_KEY_PREFIX = "Row";
+
     private final int m_maxChunkSize;
 
     private final int m_maxStreams;
 
-    private Set<String> m_currentChunk = new HashSet<String>();
+    private final int m_maxHashTableSize;
+
+    private List<String> m_currentChunk = new ArrayList<String>();
+
+    /** Range of the indices of the added keys created by
+     * {@link org.knime.core.data.RowKey#createRowKey(long)}, start inclusive,
+     * end exclusive. */
+    private long m_rangeStart;
+
+    private long m_rangeEnd;
+
+    /** Whether the range can't be extended anymore because a key with an
+     * index outside the range has been added like an arbitrary key. */
+    private boolean m_rangeClosed;
+
+    /** Open addressing hash table of the hashes of the arbitrary keys (0 marks
+     * an empty slot), allocated off-heap on first use. */
+    private LongBuffer m_hashes;
+
+    private HashTableReservation m_hashesReservation;
+
+    private int m_hashCount;
+
+    /** Whether keys have been added that are not in the hash table. */
+    private boolean m_hashTableFull;
+
+    /** Index of the first stored chunk that may contain keys that are not in
+     * the hash table. These chunks are sorted and merged in
+     * {@link #checkForDuplicates()}, the chunks before are not sorted. */
+    private int m_firstSortedChunk;
 
     private List<Chunk> m_storedChunks = new ArrayList<Chunk>();
 
@@ -238,19 +308,33 @@ public DuplicateChecker() {
      *            the merge process, must be at least 2
      */
     public DuplicateChecker(final int maxChunkSize, final int maxStreams) {
+        this(maxChunkSize, maxStreams, MAX_HASH_TABLE_SIZE);
+    }
+
+    /**
+     * Creates a new duplicate checker.
+     *
+     * @param maxChunkSize the size of each chunk, i.e. the maximum number of
+     *            elements kept in memory
+     * @param maxStreams the maximum number of streams that are kept open during
+     *            the merge process, must be at least 2
+     * @param maxHashTableSize the maximum number of slots of the hash table, a
+     *            power of two
+     */
+    DuplicateChecker(final int maxChunkSize, final int maxStreams, final int maxHashTableSize) {
         if (maxStreams < 2) {
             throw new IllegalArgumentException("The number of streams must be at least 2");
         }
         m_maxChunkSize = maxChunkSize;
         m_maxStreams = maxStreams;
+        m_maxHashTableSize = maxHashTableSize;
     }
 
     /**
      * Adds a new key to the duplicate checker.
      *
      * @param s the key
-     * @throws DuplicateKeyException if a duplicate within the current chunk has
-     *             been detected
+     * @throws DuplicateKeyException if the key has been added before
      * @throws IOException if an I/O error occurs while writing the chunk to
      *             disk
      */
@@ -259,16 +343,205 @@ public void addKey(final String s) throws DuplicateKeyException,
         if (DISABLE_DUPLICATE_CHECK) {
             return;
         }
-        // bug fix #1737: keys may be just wrappers of very large strings ...
-        // we make a copy, which consist of the important characters only
-        if (!m_currentChunk.add(new String(s))) {
+        final long index = getRowIndex(s);
+        if (index >= 0) {
+            if (index >= m_rangeStart && index < m_rangeEnd) {
+                throw new DuplicateKeyException(s);
+            }
+            if (!m_rangeClosed) {
+                if (m_rangeStart == m_rangeEnd) {
+                    m_rangeStart = index;
+                    m_rangeEnd = index + 1;
+                    return;
+                } else if (index == m_rangeEnd) {
+                    m_rangeEnd++;
+                    return;
+                }
+                // from now on all keys outside the range are checked like
+                // arbitrary keys, the range must not grow into them
+                m_rangeClosed = true;
+            }
+        }
+        final long hash = hash(s);
+        if (containsHash(hash) && containsKey(s)) {
             throw new DuplicateKeyException(s);
         }
+        addHash(hash);
+        // bug fix #1737: keys may be just wrappers of very large strings ...
+        // we make a copy, which consist of the important characters only
+        m_currentChunk.add(new String(s));
         if (m_currentChunk.size() >= m_maxChunkSize) {
             writeChunk();
         }
     }
 
+    /**
+     * @return the index if the key has the form of the keys created by
+     *         {@link org.knime.core.data.RowKey#createRowKey(long)}, -1
+     *         otherwise
+     */
+    private static long getRowIndex(final String s) {
+        final int length = s.length();
+        final int prefixLength = ROW_KEY_PREFIX.length();
+        // at most 18 digits, so that the index does not overflow
+        if (length <= prefixLength || length > prefixLength + 18 || !s.startsWith(ROW_KEY_PREFIX)
+            || (s.charAt(prefixLength) == '0' && length > prefixLength + 1)) {
+            return -1;
+        }
+        long index = 0;
+        for (int i = prefixLength; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /** 64-bit FNV-1a hash of the characters with a final bit mix, never 0. */
+    private static long hash(final String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private boolean containsHash(final long hash) {
+        if (m_hashes == null) {
+            return false;
+        }
+        final int mask = m_hashes.capacity() - 1;
+        for (int i = (int)hash & mask;; i = (i + 1) & mask) {
+            final long h = m_hashes.get(i);
+            if (h == hash) {
+                return true;
+            } else if (h == 0) {
+                return false;
+            }
+        }
+    }
+
+    private void addHash(final long hash) {
+        if (m_hashTableFull) {
+            return;
+        }
+        final boolean hasSpace;
+        if (m_hashes == null) {
+            hasSpace = resizeHashTable(Math.min(INITIAL_HASH_TABLE_SIZE, m_maxHashTableSize));
+        } else if (4L * (m_hashCount + 1) > 3L * m_hashes.capacity()) {
+            // keep the load factor below 0.75
+            hasSpace = m_hashes.capacity() < m_maxHashTableSize && resizeHashTable(2 * m_hashes.capacity());
+        } else {
+            hasSpace = true;
+        }
+        if (!hasSpace) {
+            // the remaining keys are checked when all keys have been added; the keys in the (old) table are still
+            // found by containsHash
+            m_hashTableFull = true;
+            m_firstSortedChunk = m_storedChunks.size();
+            return;
+        }
+        insertHash(m_hashes, hash);
+        m_hashCount++;
+    }
+
+    private static void insertHash(final LongBuffer hashes, final long hash) {
+        final int mask = hashes.capacity() - 1;
+        int i = (int)hash & mask;
+        while (hashes.get(i) != 0) {
+            i = (i + 1) & mask;
+        }
+        hashes.put(i, hash);
+    }
+
+    /**
+     * Replaces the hash table by a new one with the given number of slots that contains the same hashes.
+     *
+     * @return <code>false</code> if the table couldn't be allocated because the limit for all checkers is reached
+     *         or direct memory is exhausted, the current table is then unchanged
+     */
+    private boolean resizeHashTable(final int size) {
+        releaseCollectedHashTables();
+        final long bytes = (long)size * Long.BYTES;
+        if (TOTAL_HASH_TABLE_BYTES.addAndGet(bytes) > MAX_TOTAL_HASH_TABLE_BYTES) {
+            TOTAL_HASH_TABLE_BYTES.addAndGet(-bytes);
+            return false;
+        }
+        final LongBuffer newHashes;
+        try {
+            newHashes = ByteBuffer.allocateDirect((int)bytes).asLongBuffer();
+        } catch (OutOfMemoryError e) {
+            // -XX:MaxDirectMemorySize is lower than the limit
+            TOTAL_HASH_TABLE_BYTES.addAndGet(-bytes);
+            return false;
+        }
+        final HashTableReservation reservation = new HashTableReservation(newHashes, bytes);
+        HASH_TABLE_RESERVATIONS.add(reservation);
+        if (m_hashes != null) {
+            for (int i = 0; i < m_hashes.capacity(); i++) {
+                final long h = m_hashes.get(i);
+                if (h != 0) {
+                    insertHash(newHashes, h);
+                }
+            }
+        }
+        releaseHashTable();
+        m_hashes = newHashes;
+        m_hashesReservation = reservation;
+        return true;
+    }
+
+    private void releaseHashTable() {
+        if (m_hashesReservation != null) {
+            m_hashesReservation.release();
+            m_hashesReservation = null;
+        }
+        m_hashes = null;
+    }
+
+    private static void releaseCollectedHashTables() {
+        Reference<? extends LongBuffer> ref;
+        while ((ref = COLLECTED_HASH_TABLES.poll()) != null) {
+            ((HashTableReservation)ref).release();
+        }
+    }
+
+    /** @return the number of bytes reserved by the hash tables of all checkers */
+    static long getReservedHashTableBytes() {
+        releaseCollectedHashTables();
+        return TOTAL_HASH_TABLE_BYTES.get();
+    }
+
+    /**
+     * Checks whether an arbitrary key has been added before, only called if
+     * its hash has been found. Reads all chunks that have been written to disk.
+     */
+    private boolean containsKey(final String s) throws IOException {
+        if (m_currentChunk.contains(s)) {
+            return true;
+        }
+        for (Chunk c : m_storedChunks) {
+            for (Iterator<String> it = c.iterator(); it.hasNext();) {
+                if (it.next().equals(s)) {
+                    // read to the end to close the stream
+                    while (it.hasNext()) {
+                        it.next();
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks for duplicates in all added keys. This method must only be called once after all keys have been added!
      * Multiple calls may lead to exceptions and excessive resource usage.
@@ -277,14 +550,12 @@ public void addKey(final String s) throws DuplicateKeyException,
      * @throws IOException if an I/O error occurs
      */
     public void checkForDuplicates() throws DuplicateKeyException, IOException {
-        if (m_storedChunks.size() == 0) {
-            // less than MAX_CHUNK_SIZE keys, no need to write
-            // a file because the check for duplicates has already
-            // been done in addKey
+        if (!m_hashTableFull) {
+            // all keys have been checked in addKey
             return;
         }
         writeChunk();
-        checkForDuplicates(m_storedChunks);
+        checkForDuplicates(new ArrayList<Chunk>(m_storedChunks.subList(m_firstSortedChunk, m_storedChunks.size())));
     }
 
     /**
@@ -298,6 +569,13 @@ public void clear() {
         synchronized (ALL_CHUNKS) { ALL_CHUNKS.removeAll(m_storedChunks); }
         m_storedChunks.clear();
         m_currentChunk.clear();
+        m_rangeStart = 0;
+        m_rangeEnd = 0;
+        m_rangeClosed = false;
+        releaseHashTable();
+        m_hashCount = 0;
+        m_hashTableFull = false;
+        m_firstSortedChunk = 0;
     }
 
     /**
@@ -374,18 +652,24 @@ private void checkForDuplicates(final List<Chunk> storedChunks)
     }
 
     /**
-     * Writes the current chunk to disk and clears the set.
+     * Writes the current chunk to disk and clears the list.
      *
+     * @throws DuplicateKeyException if the chunk contains a duplicate key
      * @throws IOException if an I/O error occurs
      */
-    private void writeChunk() throws IOException {
+    private void writeChunk() throws DuplicateKeyException, IOException {
         if (m_currentChunk.isEmpty()) {
             return;
         }
         Chunk c = new Chunk();
-        c.addKeys(m_currentChunk);
-        c.close();
+        // add it first so that it is disposed in clear() if writing fails
         m_storedChunks.add(c);
+        try {
+            // the keys only need to be sorted for merging
+            c.addKeys(m_currentChunk, m_hashTableFull);
+        } finally {
+            c.close();
+        }
         m_currentChunk.clear();
     }
 
@@ -393,6 +677,24 @@ private void writeChunk() throws IOException {
      * Container to hold a string and the stream index where the string
      * was read from.
      */
+    /** The direct memory reserved for a hash table, returned on release or once the table is garbage collected. */
+    private static final class HashTableReservation extends PhantomReference<LongBuffer> {
+        private final long m_bytes;
+
+        HashTableReservation(final LongBuffer hashes, final long bytes) {
+            super(hashes, COLLECTED_HASH_TABLES);
+            m_bytes = bytes;
+        }
+
+        /** Returns the reserved bytes, subsequent calls have no effect. */
+        void release() {
+            if (HASH_TABLE_RESERVATIONS.remove(this)) {
+                TOTAL_HASH_TABLE_BYTES.addAndGet(-m_bytes);
+            }
+            clear();
+        }
+    }
+
     private static final class Helper implements Comparable<Helper> {
         private String m_s;
 
@@ -64,11 +64,13 @@
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -82,6 +84,7 @@
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -319,6 +322,32 @@ public static boolean deleteRecursively(final File dir) {
         return deleteRecursively(dir, true);
     }
 
+    /**
+     * Forces the given file or directory to be written to the storage device (fsync). If the argument is a directory
+     * and <code>recursive</code> is set, all files and directories contained in it are synced, too. Files and
+     * directories that can't be opened for syncing (e.g. read-only files or directories on Windows) are skipped.
+     *
+     * @param file The file or directory to sync.
+     * @param recursive Whether to also sync the content of a directory.
+     * @throws IOException If the file or directory can't be listed.
+     * @since 3.6
+     */
+    public static void sync(final File file, final boolean recursive) throws IOException {
+        try (Stream<Path> paths = Files.walk(file.toPath(), recursive ? Integer.MAX_VALUE : 0)) {
+            for (Iterator<Path> it = paths.iterator(); it.hasNext();) {
+                Path p = it.next();
+                boolean isDirectory = Files.isDirectory(p);
+                try (FileChannel channel = FileChannel.open(p,
+                    isDirectory ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                } catch (IOException e) {
+                    // failing to sync is no reason to fail, e.g., a save
+                    LOGGER.debug("Unable to sync \"" + p + "\": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
     private static boolean deleteRecursively(final File dir, final boolean removeFromTempfiles) {
         String name = dir.getName();
         File dirWithCanonicalParent = dir;
@@ -48,9 +48,11 @@
  */
 package org.knime.core.util;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.ListIterator;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -77,6 +79,7 @@ public class ThreadPool {
     private class MyFuture<T> extends FutureTask<T> {
         private final CountDownLatch m_startWaiter = new CountDownLatch(1);
         private final ClassLoader m_contextClassloader = Thread.currentThread().getContextClassLoader();
+        private long m_priority;
 
         /**
          * @see FutureTask#FutureTask(Callable)
@@ -301,7 +304,8 @@ public boolean wakeup(final MyFuture<?> r, final ThreadPool pool) {
 
     private final ThreadPool m_parent;
 
-    private final Queue<MyFuture<?>> m_queuedFutures;
+    /** Queued tasks, ordered by decreasing priority (FIFO among tasks with the same priority). */
+    private final LinkedList<MyFuture<?>> m_queuedFutures;
 
     private final Set<Worker> m_runningWorkers = new HashSet<Worker>();
 
@@ -400,22 +404,66 @@ public ThreadPool createSubPool(final int maxThreads) {
      * @see #submit(Callable)
      */
     public <T> Future<T> enqueue(final Callable<T> task) {
+        return enqueue(task, getInheritedPriority());
+    }
+
+    /** Tasks that are submitted without a priority from a task running in a pool thread (e.g. the chunks processed
+     * by a node) inherit the priority of that task. Otherwise they would be queued after any prioritized task
+     * submitted later, e.g. a node that isn't started yet.
+     * @return the priority of the task run by the current thread or 0 if that's not a pool thread
+     */
+    private static long getInheritedPriority() {
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker) {
+            // m_runnable is set and read under the worker's lock, which the thread holds while running a task
+            MyFuture<?> running = ((Worker)current).m_runnable;
+            return running == null ? 0 : running.m_priority;
+        }
+        return 0;
+    }
+
+    /**
+     * Submits a value-returning task for execution, like {@link #enqueue(Callable)}. If no thread is available, the
+     * task is queued before all tasks with a lower priority (and after all tasks with the same or a higher priority).
+     *
+     * @param task the task to submit
+     * @param priority the priority of the task; tasks submitted without a priority have priority 0 unless they are
+     *            submitted from a task running in a pool, whose priority they inherit
+     * @param <T> any result type
+     * @return a Future representing pending completion of the task
+     * @since 3.6
+     */
+    public <T> Future<T> enqueue(final Callable<T> task, final long priority) {
         if (task == null) {
             throw new IllegalArgumentException("Task must not be null");
         }
 
         MyFuture<T> ftask = new MyFuture<T>(task);
+        ftask.m_priority = priority;
 
         synchronized (m_queuedFutures) {
             incrementPendingJobs();
             if (wakeupWorker(ftask, this) == null) {
-                m_queuedFutures.add(ftask);
+                addToQueue(ftask);
             }
         }
 
         return ftask;
     }
 
+    /** Inserts the task behind the last queued task with the same or a higher priority. Must be called while
+     * holding the lock on the queue. */
+    private void addToQueue(final MyFuture<?> ftask) {
+        ListIterator<MyFuture<?>> it = m_queuedFutures.listIterator(m_queuedFutures.size());
+        while (it.hasPrevious()) {
+            if (it.previous().m_priority >= ftask.m_priority) {
+                it.next();
+                break;
+            }
+        }
+        it.add(ftask);
+    }
+
     private void incrementPendingJobs() {
         m_pendingJobs.incrementAndGet();
         if (m_parent != null) {
@@ -446,12 +494,28 @@ private void decrementPendingJobs() {
      * @see #submit(Runnable)
      */
     public Future<?> enqueue(final Runnable r) {
+        return enqueue(r, getInheritedPriority());
+    }
+
+    /**
+     * Submits a Runnable task for execution, like {@link #enqueue(Runnable)}. If no thread is available, the task is
+     * queued before all tasks with a lower priority (and after all tasks with the same or a higher priority).
+     *
+     * @param r the task to submit
+     * @param priority the priority of the task; tasks submitted without a priority have priority 0 unless they are
+     *            submitted from a task running in a pool, whose priority they inherit
+     * @return a Future representing pending completion of the task, and whose <tt>get()</tt> method will return
+     *         <tt>null</tt> upon completion.
+     * @since 3.6
+     */
+    public Future<?> enqueue(final Runnable r, final long priority) {
         MyFuture<?> ftask = new MyFuture<Object>(r, null);
+        ftask.m_priority = priority;
 
         synchronized (m_queuedFutures) {
             incrementPendingJobs();
             if (wakeupWorker(ftask, this) == null) {
-                m_queuedFutures.add(ftask);
+                addToQueue(ftask);
             }
         }
 
@@ -622,6 +686,71 @@ public <T> T runInvisible(final Callable<T> r) throws ExecutionException {
 
     }
 
+    /**
+     * Calls the callable in the current thread. If the current thread is taken out of a thread pool, the callable is
+     * run via {@link #runInvisible(Callable)}, so that another thread may run meanwhile. Hence the callable should do
+     * little more than waiting for other jobs. Exceptions thrown by the callable are unwrapped from
+     * {@link ExecutionException}s; {@link CanceledExecutionException}s, runtime exceptions and errors are rethrown as
+     * they are, an {@link InterruptedException} is rethrown as {@link CanceledExecutionException} and any other
+     * exception is wrapped into a runtime exception.
+     *
+     * @param <T> the result type
+     * @param callable the callable to run, e.g. waiting for some futures
+     * @return the result of the callable
+     * @throws CanceledExecutionException if the callable throws it or is interrupted
+     * @since 3.6
+     */
+    public static <T> T callInvisible(final Callable<T> callable) throws CanceledExecutionException {
+        final ThreadPool currentPool = currentPool();
+        try {
+            return currentPool != null ? currentPool.runInvisible(callable) : callable.call();
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof InterruptedException) {
+                throw new CanceledExecutionException("Interrupted while waiting for other threads");
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Waits for all futures using {@link #callInvisible(Callable)}, i.e. the current thread doesn't count against the
+     * limit of its thread pool while waiting. If one of the futures fails or waiting is interrupted, all futures are
+     * canceled and the exception is rethrown as described in {@link #callInvisible(Callable)}.
+     *
+     * @param futures the futures to wait for
+     * @throws CanceledExecutionException if one of the futures throws it or waiting is interrupted
+     * @since 3.6
+     */
+    public static void waitForAll(final Collection<? extends Future<?>> futures)
+        throws CanceledExecutionException {
+        boolean success = false;
+        try {
+            callInvisible(() -> {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                return null;
+            });
+            success = true;
+        } finally {
+            if (!success) {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
     /**
      * Sets the maximum number of threads in the pool. If the new value is
      * smaller than the old value running surplus threads will not be